@@ -10,6 +10,7 @@ import com.vibetanks.rendering.IconRenderer;
 import com.vibetanks.rendering.ImageLoader;
 import com.vibetanks.rendering.SidebarRenderer;
 import com.vibetanks.rendering.StatsRenderer;
+import com.vibetanks.network.ConnectionStats;
 import com.vibetanks.network.GameState;
 import com.vibetanks.network.GameStateApplier;
 import com.vibetanks.network.GameStateBuilder;
@@ -54,7 +55,7 @@ public class Game implements GameStateApplier.GameContext, LevelTransitionManage
     private List<Tank> enemyTanks;
     private List<Tank> allTanksCache = new ArrayList<>(50); // Reusable list for collision detection (pre-allocated)
     private double[] spawnPositionCache = new double[2]; // Reusable for power-up spawn positions
-    private List<Bullet> bullets;
+    private BulletStore bullets;
     private List<Laser> lasers;
     private List<PowerUp> powerUps;
     private List<ExplosionEffect> explosions = new ArrayList<>();
@@ -215,7 +216,7 @@ public class Game implements GameStateApplier.GameContext, LevelTransitionManage
     private void initialize() {
         // Initialize game objects
         gameMap = new GameMap(26, 26);
-        bullets = new ArrayList<>();
+        bullets = new BulletStore();
         lasers = new ArrayList<>();
         powerUps = new ArrayList<>();
 
@@ -544,9 +545,9 @@ public class Game implements GameStateApplier.GameContext, LevelTransitionManage
      * Notify the owner tank that their bullet was destroyed.
      * This allows the tank to shoot again immediately.
      */
-    private void notifyBulletDestroyed(Bullet bullet) {
+    private void notifyBulletDestroyed(int slot) {
         // Delegate to shared GameLogic
-        GameLogic.notifyBulletDestroyed(bullet, playerTanks);
+        GameLogic.notifyBulletDestroyed(bullets, slot, playerTanks);
     }
 
     /**
@@ -696,7 +697,7 @@ public class Game implements GameStateApplier.GameContext, LevelTransitionManage
         List<Tank> allTanks = allTanksCache;
 
         // Update spatial grids for optimized collision detection (O(n) instead of O(n^2))
-        ProjectileHandler.updateSpatialGrids(allTanks, bullets);
+        ProjectileHandler.updateSpatialGrids(allTanks);
 
         // Handle player input (local or host) - pass freeze state
         boolean isPlayerFrozen = powerUpEffectManager.arePlayersFrozen();
@@ -794,17 +795,19 @@ public class Game implements GameStateApplier.GameContext, LevelTransitionManage
         pushApartOverlappingTanks(allTanks);
 
         // Update bullets using ProjectileHandler
-        Iterator<Bullet> bulletIterator = bullets.iterator();
-        while (bulletIterator.hasNext()) {
-            Bullet bullet = bulletIterator.next();
+        // Removal swaps the last bullet into place, so only advance past bullets that stay
+        for (int i = 0; i < bullets.size(); ) {
+            int slot = bullets.slot(i);
 
             // Use ProjectileHandler for collision detection
             ProjectileHandler.BulletCollisionResult result = ProjectileHandler.processBullet(
-                    bullet, gameMap, enemyTanks, playerTanks, base, ufoManager.getUFO(), width, height, soundManager);
+                    bullets, slot, gameMap, enemyTanks, playerTanks, base, ufoManager.getUFO(), width, height, soundManager);
 
-            if (result.shouldRemove) {
-                notifyBulletDestroyed(bullet);
-                bulletIterator.remove();
+            if (!result.shouldRemove) {
+                i++;
+            } else {
+                notifyBulletDestroyed(slot);
+                bullets.remove(slot);
 
                 if (result.ufoDestroyed) {
                     handleUFODestruction(result.killerPlayerNumber);
@@ -1025,9 +1028,7 @@ public class Game implements GameStateApplier.GameContext, LevelTransitionManage
         }
 
         // Render bullets
-        for (Bullet bullet : bullets) {
-            bullet.render(gc);
-        }
+        bullets.render(gc);
 
         // Render lasers
         for (Laser laser : lasers) {
@@ -1180,13 +1181,33 @@ public class Game implements GameStateApplier.GameContext, LevelTransitionManage
                 ? network.getPlayerNumber() - 1 : 0;
             hudRenderer.renderTakeLifeHint(playerTanks, myPlayerIndex);
 
-            // Show pause indicator for multiplayer
+            // Show pause indicator and link quality for multiplayer
             if (isNetworkGame) {
                 int pausePlayerIndex = network != null && !network.isHost()
                     ? network.getPlayerNumber() - 1 : 0;
                 hudRenderer.renderMultiplayerPauseIndicator(playerPaused, pausePlayerIndex);
+                if (network != null) {
+                    hudRenderer.renderNetworkStats(getNetworkStatsLines());
+                }
+            }
+        }
+    }
+
+    // One line per connection: the host for clients, every client for the host
+    private List<String> getNetworkStatsLines() {
+        List<String> lines = new ArrayList<>();
+        long nowMs = System.nanoTime() / 1_000_000;
+        if (!network.isHost()) {
+            lines.add("Host: " + network.getHostStats().describe(nowMs));
+        } else {
+            for (int p = 2; p <= 4; p++) {
+                ConnectionStats stats = network.getPlayerStats(p);
+                if (stats != null) {
+                    lines.add("P" + p + ": " + stats.describe(nowMs));
+                }
             }
         }
+        return lines;
     }
 
     @Override
@@ -1274,7 +1295,7 @@ public class Game implements GameStateApplier.GameContext, LevelTransitionManage
 
     @Override public List<Tank> getPlayerTanks() { return playerTanks; }
     @Override public List<Tank> getEnemyTanks() { return enemyTanks; }
-    @Override public List<Bullet> getBullets() { return bullets; }
+    @Override public BulletStore getBullets() { return bullets; }
     @Override public List<Laser> getLasers() { return lasers; }
     @Override public List<PowerUp> getPowerUps() { return powerUps; }
     @Override public GameMap getGameMap() { return gameMap; }
@@ -16,6 +16,11 @@ public class Bullet {
         nextId.set(1);
     }
 
+    // Shared with BulletStore so ids stay unique across both
+    static long nextId() {
+        return nextId.getAndIncrement();
+    }
+
     private long id;
     private double x;
     private double y;
@@ -45,7 +50,7 @@ public class Bullet {
     }
 
     public Bullet(double x, double y, Direction direction, boolean fromEnemy, int power, boolean canDestroyTrees, int ownerPlayerNumber, int size, boolean rainbow) {
-        this.id = nextId.getAndIncrement();
+        this.id = nextId();
         this.x = x;
         this.y = y;
         this.direction = direction;
@@ -81,6 +86,10 @@ public class Bullet {
     }
 
     public void render(GraphicsContext gc) {
+        render(gc, x, y, size, fromEnemy, ownerPlayerNumber, rainbow);
+    }
+
+    static void render(GraphicsContext gc, double x, double y, int size, boolean fromEnemy, int ownerPlayerNumber, boolean rainbow) {
         if (rainbow) {
             // Cycle through rainbow colors based on time
             int colorIndex = (int)((System.currentTimeMillis() / 50) % RAINBOW_COLORS.length);
@@ -124,6 +133,15 @@ public class Bullet {
     public long getId() { return id; }
     public double getX() { return x; }
     public double getY() { return y; }
+
+    /**
+     * Place the bullet directly (client-side interpolation of network bullets).
+     */
+    public void setPosition(double x, double y) {
+        this.x = x;
+        this.y = y;
+    }
+
     public int getSize() { return size; }
     public Direction getDirection() { return direction; }
     public boolean isFromEnemy() { return fromEnemy; }
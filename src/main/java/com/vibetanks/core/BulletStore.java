@@ -0,0 +1,251 @@
+package com.vibetanks.core;
+
+import javafx.scene.canvas.GraphicsContext;
+
+import java.util.Arrays;
+
+/**
+ * All live bullets of a game, kept as parallel primitive arrays instead of Bullet objects.
+ *
+ * A bullet lives in a slot: an index into the arrays that stays the same for its lifetime.
+ * Freed slots go on a free list and are reused by the next spawn, so firing allocates
+ * nothing once the arrays have grown to the largest burst seen. Live slots are also kept in
+ * a dense list for iteration; remove() fills the gap with the last entry (swap-remove), so
+ * iteration order is not spawn order. Loops that remove must not advance past a removal:
+ *
+ *   for (int i = 0; i < bullets.size(); ) {
+ *       int slot = bullets.slot(i);
+ *       if (...) bullets.remove(slot); else i++;
+ *   }
+ *
+ * Each bullet also has an id, unique until Bullet.resetIdCounter(), that the network layer
+ * uses to match bullets between snapshots. Not thread-safe.
+ */
+public class BulletStore {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final double SPEED = GameConstants.BULLET_SPEED;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    // Flag bits
+    private static final byte FROM_ENEMY = 1;
+    private static final byte DESTROYS_TREES = 2;
+    private static final byte RAINBOW = 4;
+    private static final byte MARKED = 8;
+
+    // Columns, indexed by slot
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private double[] xs = new double[INITIAL_CAPACITY];
+    private double[] ys = new double[INITIAL_CAPACITY];
+    private byte[] directions = new byte[INITIAL_CAPACITY];
+    private byte[] flags = new byte[INITIAL_CAPACITY];
+    private int[] powers = new int[INITIAL_CAPACITY];
+    private int[] owners = new int[INITIAL_CAPACITY];
+    private int[] sizes = new int[INITIAL_CAPACITY];
+
+    // Dense list of live slots, and each live slot's place in it
+    private int[] live = new int[INITIAL_CAPACITY];
+    private int[] positions = new int[INITIAL_CAPACITY];
+    private int count;
+
+    // Freed slots for reuse; slots from highWater up have never been used
+    private int[] free = new int[INITIAL_CAPACITY];
+    private int freeCount;
+    private int highWater;
+
+    private int markedCount;
+
+    /**
+     * Spawn a bullet with the next id.
+     * @return its slot
+     */
+    public int add(double x, double y, Direction direction, boolean fromEnemy, int power,
+                   boolean canDestroyTrees, int ownerPlayerNumber, int size, boolean rainbow) {
+        return add(Bullet.nextId(), x, y, direction, fromEnemy, power, canDestroyTrees, ownerPlayerNumber, size, rainbow);
+    }
+
+    /**
+     * Add a bullet with an explicit id (for network sync).
+     * @return its slot
+     */
+    public int add(long id, double x, double y, Direction direction, boolean fromEnemy, int power,
+                   boolean canDestroyTrees, int ownerPlayerNumber, int size, boolean rainbow) {
+        int slot;
+        if (freeCount > 0) {
+            slot = free[--freeCount];
+        } else {
+            if (highWater == ids.length) {
+                grow(highWater * 2);
+            }
+            slot = highWater++;
+        }
+        ids[slot] = id;
+        xs[slot] = x;
+        ys[slot] = y;
+        directions[slot] = (byte) direction.ordinal();
+        flags[slot] = (byte) ((fromEnemy ? FROM_ENEMY : 0) | (canDestroyTrees ? DESTROYS_TREES : 0) | (rainbow ? RAINBOW : 0));
+        powers[slot] = power;
+        owners[slot] = ownerPlayerNumber;
+        sizes[slot] = size;
+        positions[slot] = count;
+        live[count++] = slot;
+        return slot;
+    }
+
+    /**
+     * Copy a Bullet in, keeping its id.
+     * @return its slot
+     */
+    public int add(Bullet bullet) {
+        return add(bullet.getId(), bullet.getX(), bullet.getY(), bullet.getDirection(), bullet.isFromEnemy(),
+            bullet.getPower(), bullet.canDestroyTrees(), bullet.getOwnerPlayerNumber(), bullet.getSize(), bullet.isRainbow());
+    }
+
+    private void grow(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        directions = Arrays.copyOf(directions, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        powers = Arrays.copyOf(powers, capacity);
+        owners = Arrays.copyOf(owners, capacity);
+        sizes = Arrays.copyOf(sizes, capacity);
+        live = Arrays.copyOf(live, capacity);
+        positions = Arrays.copyOf(positions, capacity);
+        free = Arrays.copyOf(free, capacity);
+    }
+
+    /**
+     * Remove a live bullet. The last bullet in iteration order takes its place, and the
+     * slot is reused by a later add().
+     */
+    public void remove(int slot) {
+        if ((flags[slot] & MARKED) != 0) {
+            markedCount--;
+        }
+        int position = positions[slot];
+        int last = live[--count];
+        live[position] = last;
+        positions[last] = position;
+        free[freeCount++] = slot;
+    }
+
+    /**
+     * Flag a bullet for removeMarked(), e.g. while a query over the store is running.
+     */
+    public void mark(int slot) {
+        if ((flags[slot] & MARKED) == 0) {
+            flags[slot] |= MARKED;
+            markedCount++;
+        }
+    }
+
+    public boolean isMarked(int slot) {
+        return (flags[slot] & MARKED) != 0;
+    }
+
+    /**
+     * Remove every marked bullet.
+     */
+    public void removeMarked() {
+        for (int i = 0; markedCount > 0 && i < count; ) {
+            int slot = live[i];
+            if ((flags[slot] & MARKED) != 0) {
+                remove(slot);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    public void clear() {
+        count = 0;
+        freeCount = 0;
+        highWater = 0;
+        markedCount = 0;
+    }
+
+    public int size() { return count; }
+
+    public boolean isEmpty() { return count == 0; }
+
+    /**
+     * Slot of the i-th live bullet, 0 <= i < size().
+     */
+    public int slot(int i) {
+        return live[i];
+    }
+
+    /**
+     * Slot of the live bullet with this id, or -1. Linear scan.
+     */
+    public int find(long id) {
+        for (int i = 0; i < count; i++) {
+            if (ids[live[i]] == id) return live[i];
+        }
+        return -1;
+    }
+
+    /**
+     * Copy of a live bullet as an object. Allocates; meant for tests and tools.
+     */
+    public Bullet get(int slot) {
+        return new Bullet(ids[slot], xs[slot], ys[slot], getDirection(slot), isFromEnemy(slot), powers[slot],
+            canDestroyTrees(slot), owners[slot], sizes[slot], isRainbow(slot));
+    }
+
+    /**
+     * Move a bullet one frame along its direction.
+     */
+    public void update(int slot) {
+        Direction direction = DIRECTIONS[directions[slot]];
+        xs[slot] += direction.getDx() * SPEED;
+        ys[slot] += direction.getDy() * SPEED;
+    }
+
+    /**
+     * Draw all bullets.
+     */
+    public void render(GraphicsContext gc) {
+        for (int i = 0; i < count; i++) {
+            int slot = live[i];
+            Bullet.render(gc, xs[slot], ys[slot], sizes[slot], isFromEnemy(slot), owners[slot], isRainbow(slot));
+        }
+    }
+
+    public boolean collidesWith(int slot, Tank tank) {
+        return Collider.checkSquare(xs[slot], ys[slot], sizes[slot], tank.getX(), tank.getY(), tank.getSize());
+    }
+
+    public boolean collidesWith(int slot, Base base) {
+        return Collider.checkSquare(xs[slot], ys[slot], sizes[slot], base.getX(), base.getY(), base.getSize());
+    }
+
+    public boolean collidesWith(int slot, int other) {
+        return Collider.checkSquare(xs[slot], ys[slot], sizes[slot], xs[other], ys[other], sizes[other]);
+    }
+
+    public boolean isOutOfBounds(int slot, int width, int height) {
+        double x = xs[slot];
+        double y = ys[slot];
+        return x < 0 || x > width || y < 0 || y > height;
+    }
+
+    /**
+     * Place a bullet directly (client-side interpolation of network bullets).
+     */
+    public void setPosition(int slot, double x, double y) {
+        xs[slot] = x;
+        ys[slot] = y;
+    }
+
+    public long getId(int slot) { return ids[slot]; }
+    public double getX(int slot) { return xs[slot]; }
+    public double getY(int slot) { return ys[slot]; }
+    public int getSize(int slot) { return sizes[slot]; }
+    public Direction getDirection(int slot) { return DIRECTIONS[directions[slot]]; }
+    public boolean isFromEnemy(int slot) { return (flags[slot] & FROM_ENEMY) != 0; }
+    public int getPower(int slot) { return powers[slot]; }
+    public boolean canDestroyTrees(int slot) { return (flags[slot] & DESTROYS_TREES) != 0; }
+    public int getOwnerPlayerNumber(int slot) { return owners[slot]; }
+    public boolean isRainbow(int slot) { return (flags[slot] & RAINBOW) != 0; }
+}
@@ -0,0 +1,333 @@
+package com.vibetanks.core;
+
+import java.util.Arrays;
+
+/**
+ * Distance from every tile to the base for one kind of tank, shared by all enemies that
+ * move alike and kept by GameMap.getFlowField(). Reading the way to go from a tile is four
+ * array lookups, however many tanks ask.
+ *
+ * The distance of a tile is its own cost plus the smallest distance among its neighbours,
+ * with the base tile at 0. Open tiles cost STEP_COST, bricks BRICK_COST (the tank has to
+ * shoot its way through) and everything the capability cannot pass is unreachable. Edge
+ * tiles are neighbours across the map when both ends are empty, as tanks wrap there.
+ *
+ * Costs are small integers, so distances are settled by Dijkstra with a bucket queue
+ * (Dial's algorithm): one FIFO per distance modulo BRICK_COST + 1, no heap and no allocation.
+ *
+ * GameMap reports every tile it writes to tileChanged(), and update() brings the field up to
+ * date before it is read. Small batches are repaired in place: tiles that got cheaper are
+ * relaxed outward from themselves; tiles that got dearer first invalidate every tile whose
+ * distance may have run through them, and that region is re-relaxed from its border.
+ * Everything else keeps its distance. Large batches (a new level) are rebuilt from scratch.
+ */
+public class FlowField {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+    static final int STEP_COST = 1;
+    static final int BRICK_COST = 4; // One shot plus waiting for the hole
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int BUCKETS = BRICK_COST + 1;
+    private static final int REBUILD_FRACTION = 8; // Rebuild when more than 1/8 of the tiles changed
+
+    private final GameMap map;
+    private final GameMap.Capability capability;
+    private final int width;
+    private final int height;
+    private final int goal; // Base tile index, -1 if the base is off this map
+    private final int[] distance;
+    private final byte[] costs; // Tile costs the distances were computed with
+
+    // Tiles written since the last update
+    private final long[] changed;
+    private int changedCount;
+
+    // Repair scratch: invalidated tiles, as a bitset and in discovery order
+    private final long[] region;
+    private final int[] regionTiles;
+
+    // Tiles to start relaxing from, as (distance << 32 | index), sorted before use
+    private final long[] seeds;
+    private int seedCount;
+
+    // Bucket queue: bucket d % BUCKETS holds tiles at distance d, in FIFO order
+    private final int[][] buckets;
+    private final int[] heads = new int[BUCKETS];
+    private final int[] tails = new int[BUCKETS];
+
+    FlowField(GameMap map, GameMap.Capability capability) {
+        this.map = map;
+        this.capability = capability;
+        this.width = map.getWidth();
+        this.height = map.getHeight();
+        int goalRow = (int) GameConstants.BASE_Y / GameConstants.TILE_SIZE;
+        int goalCol = (int) GameConstants.BASE_X / GameConstants.TILE_SIZE;
+        this.goal = goalRow < height && goalCol < width ? goalRow * width + goalCol : -1;
+        int tiles = width * height;
+        int words = (tiles + 63) >>> 6;
+        this.distance = new int[tiles];
+        this.costs = new byte[tiles];
+        this.changed = new long[words];
+        this.region = new long[words];
+        this.regionTiles = new int[tiles];
+        this.seeds = new long[tiles + 1];
+        this.buckets = new int[BUCKETS][tiles];
+        rebuild();
+    }
+
+    /**
+     * Note that a tile was written. Cheap; the work happens in update().
+     */
+    void tileChanged(int index) {
+        long bit = 1L << index;
+        if ((changed[index >>> 6] & bit) == 0) {
+            changed[index >>> 6] |= bit;
+            changedCount++;
+        }
+    }
+
+    /**
+     * Bring the distances up to date with the tiles written since the last update.
+     */
+    void update() {
+        if (changedCount == 0) return;
+        if (changedCount > width * height / REBUILD_FRACTION) {
+            rebuild();
+        } else {
+            repair();
+        }
+    }
+
+    /**
+     * Recompute every distance from the map as it is now.
+     */
+    void rebuild() {
+        Arrays.fill(changed, 0);
+        changedCount = 0;
+        for (int i = 0; i < costs.length; i++) {
+            costs[i] = (byte) cost(i);
+        }
+        Arrays.fill(distance, UNREACHABLE);
+        if (goal >= 0) {
+            distance[goal] = 0;
+            addSeed(goal, 0);
+        }
+        relax();
+    }
+
+    // Re-relax only what the changed tiles can affect
+    private void repair() {
+        // Tiles that got dearer (or lost a wraparound edge) may have carried other tiles' paths
+        int regionSize = 0;
+        for (int w = 0; w < changed.length; w++) {
+            for (long bits = changed[w]; bits != 0; bits &= bits - 1) {
+                int index = (w << 6) + Long.numberOfTrailingZeros(bits);
+                if (isEdge(index)) {
+                    regionSize = addToRegion(index, regionSize);
+                    for (Direction direction : DIRECTIONS) {
+                        regionSize = addToRegion(wrapPartner(index, direction), regionSize);
+                    }
+                } else if (isDearer(costs[index], cost(index))) {
+                    regionSize = addToRegion(index, regionSize);
+                }
+            }
+        }
+        // ...and so may every tile downstream of them: one whose distance is exactly a
+        // region neighbour's plus its own cost. Uses the old distances, so none reset yet.
+        for (int i = 0; i < regionSize; i++) {
+            int index = regionTiles[i];
+            int d = distance[index];
+            if (d == UNREACHABLE) continue;
+            for (Direction direction : DIRECTIONS) {
+                int next = neighbor(index, direction);
+                if (next >= 0 && costs[next] > 0 && distance[next] == d + costs[next]) {
+                    regionSize = addToRegion(next, regionSize);
+                }
+            }
+        }
+        for (int i = 0; i < regionSize; i++) {
+            distance[regionTiles[i]] = UNREACHABLE;
+        }
+
+        // New costs for the changed tiles, then seed the region and the cheaper tiles
+        // from their neighbours' distances
+        for (int w = 0; w < changed.length; w++) {
+            for (long bits = changed[w]; bits != 0; bits &= bits - 1) {
+                int index = (w << 6) + Long.numberOfTrailingZeros(bits);
+                costs[index] = (byte) cost(index);
+            }
+        }
+        for (int i = 0; i < regionSize; i++) {
+            reseed(regionTiles[i]);
+        }
+        for (int w = 0; w < changed.length; w++) {
+            for (long bits = changed[w] & ~region[w]; bits != 0; bits &= bits - 1) {
+                reseed((w << 6) + Long.numberOfTrailingZeros(bits));
+            }
+        }
+        Arrays.fill(changed, 0);
+        Arrays.fill(region, 0);
+        changedCount = 0;
+        relax();
+    }
+
+    private int addToRegion(int index, int regionSize) {
+        if (index < 0 || index == goal) return regionSize;
+        long bit = 1L << index;
+        if ((region[index >>> 6] & bit) != 0) return regionSize;
+        region[index >>> 6] |= bit;
+        regionTiles[regionSize] = index;
+        return regionSize + 1;
+    }
+
+    // Impassable counts as infinitely dear
+    private static boolean isDearer(int oldCost, int newCost) {
+        return oldCost != 0 && (newCost == 0 || newCost > oldCost);
+    }
+
+    private boolean isEdge(int index) {
+        int row = index / width;
+        int col = index % width;
+        return row == 0 || row == height - 1 || col == 0 || col == width - 1;
+    }
+
+    // The tile across the map from an edge tile, or -1 if that direction stays on the map
+    private int wrapPartner(int index, Direction direction) {
+        int row = index / width + direction.getDy();
+        int col = index % width + direction.getDx();
+        if (row >= 0 && row < height && col >= 0 && col < width) {
+            return -1;
+        }
+        return Math.floorMod(row, height) * width + Math.floorMod(col, width);
+    }
+
+    // Queue a tile with its own cost plus the best neighbour, if that beats what it has
+    private void reseed(int index) {
+        if (index == goal || costs[index] == 0) return;
+        int best = UNREACHABLE;
+        for (Direction direction : DIRECTIONS) {
+            int next = neighbor(index, direction);
+            if (next >= 0) {
+                best = Math.min(best, distance[next]);
+            }
+        }
+        if (best != UNREACHABLE && best + costs[index] < distance[index]) {
+            distance[index] = best + costs[index];
+            addSeed(index, distance[index]);
+        }
+    }
+
+    private void addSeed(int index, int d) {
+        seeds[seedCount++] = (long) d << 32 | index;
+    }
+
+    // Dijkstra from the seeds: each is queued when the sweep reaches its distance
+    private void relax() {
+        Arrays.sort(seeds, 0, seedCount);
+        int nextSeed = 0;
+        int pending = 0;
+        for (int d = 0; pending > 0 || nextSeed < seedCount; d++) {
+            if (pending == 0) {
+                d = (int) (seeds[nextSeed] >>> 32); // Skip ahead over empty distances
+            }
+            for (; nextSeed < seedCount && (int) (seeds[nextSeed] >>> 32) == d; nextSeed++) {
+                push((int) seeds[nextSeed], d);
+                pending++;
+            }
+            int b = d % BUCKETS;
+            while (heads[b] < tails[b]) {
+                int index = buckets[b][heads[b]++];
+                pending--;
+                if (distance[index] != d) continue; // Reached cheaper since queued
+                for (Direction direction : DIRECTIONS) {
+                    int next = neighbor(index, direction);
+                    if (next < 0) continue;
+                    int cost = costs[next];
+                    if (cost > 0 && d + cost < distance[next]) {
+                        distance[next] = d + cost;
+                        push(next, d + cost);
+                        pending++;
+                    }
+                }
+            }
+            heads[b] = 0;
+            tails[b] = 0;
+        }
+        seedCount = 0;
+    }
+
+    private void push(int index, int d) {
+        int b = d % BUCKETS;
+        buckets[b][tails[b]++] = index;
+    }
+
+    // Cost of entering a tile, 0 if it cannot be entered
+    private int cost(int index) {
+        int row = index / width;
+        int col = index % width;
+        if (map.isPassable(row, col, capability)) {
+            return STEP_COST;
+        }
+        return map.getTile(row, col) == GameMap.TileType.BRICK ? BRICK_COST : 0;
+    }
+
+    // Tile next to index in a direction, or -1
+    private int neighbor(int index, Direction direction) {
+        int row = index / width + direction.getDy();
+        int col = index % width + direction.getDx();
+        if (row >= 0 && row < height && col >= 0 && col < width) {
+            return row * width + col;
+        }
+        // Wraparound: both edge tiles must be empty
+        row = Math.floorMod(row, height);
+        col = Math.floorMod(col, width);
+        int other = row * width + col;
+        if (map.getTile(index / width, index % width) == GameMap.TileType.EMPTY
+                && map.getTile(row, col) == GameMap.TileType.EMPTY) {
+            return other;
+        }
+        return -1;
+    }
+
+    /**
+     * Cost from a tile to the base, or UNREACHABLE.
+     */
+    public int distanceAt(int row, int col) {
+        if (row < 0 || row >= height || col < 0 || col >= width) {
+            return UNREACHABLE;
+        }
+        return distance[row * width + col];
+    }
+
+    /**
+     * Which way is downhill from a tile: the neighbour closest to the base, preferring
+     * the given direction among equals so tanks don't zigzag.
+     * @return null at the base, on an isolated tile, or where nothing is closer
+     */
+    public Direction directionAt(int row, int col, Direction preferred) {
+        if (row < 0 || row >= height || col < 0 || col >= width) {
+            return null;
+        }
+        int index = row * width + col;
+        int best = distance[index];
+        Direction bestDirection = null;
+        for (Direction direction : DIRECTIONS) {
+            int next = neighbor(index, direction);
+            if (next < 0) continue;
+            int d = distance[next];
+            if (d < best || (d == best && bestDirection != null && direction == preferred)) {
+                best = d;
+                bestDirection = direction;
+            }
+        }
+        return bestDirection;
+    }
+
+    /**
+     * directionAt() for the tile under the centre of a tank.
+     */
+    public Direction directionFor(Tank tank) {
+        int row = (int) (tank.getY() + tank.getSize() / 2.0) / GameConstants.TILE_SIZE;
+        int col = (int) (tank.getX() + tank.getSize() / 2.0) / GameConstants.TILE_SIZE;
+        return directionAt(row, col, tank.getDirection());
+    }
+}
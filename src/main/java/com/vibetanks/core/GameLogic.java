@@ -408,8 +408,18 @@ public class GameLogic {
      * @param playerTanks List of player tanks
      */
     public static void notifyBulletDestroyed(Bullet bullet, List<Tank> playerTanks) {
-        if (!bullet.isFromEnemy()) {
-            int playerNum = bullet.getOwnerPlayerNumber();
+        notifyBulletDestroyed(bullet.isFromEnemy(), bullet.getOwnerPlayerNumber(), playerTanks);
+    }
+
+    /**
+     * Notify the owner of a bullet in a BulletStore that it was destroyed.
+     */
+    public static void notifyBulletDestroyed(BulletStore bullets, int slot, List<Tank> playerTanks) {
+        notifyBulletDestroyed(bullets.isFromEnemy(slot), bullets.getOwnerPlayerNumber(slot), playerTanks);
+    }
+
+    private static void notifyBulletDestroyed(boolean fromEnemy, int playerNum, List<Tank> playerTanks) {
+        if (!fromEnemy) {
             if (playerNum >= 1 && playerNum <= playerTanks.size()) {
                 playerTanks.get(playerNum - 1).bulletDestroyed();
             }
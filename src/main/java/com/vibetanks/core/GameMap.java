@@ -4,20 +4,37 @@ import com.vibetanks.rendering.TileRenderer;
 import com.vibetanks.util.GameLogger;
 import javafx.scene.canvas.GraphicsContext;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Random;
 
+/**
+ * The tile grid of a level.
+ *
+ * Tiles are stored as one byte (the TileType ordinal) each, row-major in a flat array. Every
+ * write goes through put(), which also keeps, per Capability, a bitset of the tiles that
+ * stop it - tank movement and bullet checks are bit tests instead of per-tile switches -
+ * and a dirty bitset of the tiles changed since the last sync. It also tells the flow
+ * fields which tiles to repair.
+ */
 public class GameMap {
     private static final GameLogger LOG = GameLogger.getLogger(GameMap.class);
     private static final int TILE_SIZE = GameConstants.TILE_SIZE;
     private static final int BURN_DURATION = GameConstants.BURN_DURATION;
+    private static final TileType[] TYPES = TileType.values();
+    private static final Capability[] CAPABILITIES = Capability.values();
+    private static final byte EMPTY = (byte) TileType.EMPTY.ordinal();
 
     private int width;
     private int height;
-    private TileType[][] tiles;
-    private TileType[][] previousTiles; // For delta encoding - tracks last synced state
+    private final byte[] tiles; // TileType ordinals, index row * width + col
+    private final long[][] blocked; // Per Capability ordinal: bit set if the tile stops it
+    private final long[] burning; // Trees on fire; bullets pass them
+    private final long[] dirty; // For delta encoding - tiles changed since the last sync
+    private TileType[][] generated; // Scratch grid for LevelGenerator
+    private final FlowField[] flowFields = new FlowField[2]; // Walking and swimming, built on demand
     private boolean deltaEncodingEnabled = true;
     private final Random random = GameConstants.RANDOM; // Use shared Random instance
     private final LevelGenerator levelGenerator; // Extracted level generation logic
@@ -54,15 +71,88 @@ public class GameMap {
         GROUND  // Indestructible ground at bottom of map
     }
 
+    /**
+     * What can move through a tile. Bullets of power 2 are stopped by the same tiles as
+     * other bullets; they only differ in what the hit does to steel.
+     */
+    public enum Capability {
+        TANK(TileType.BRICK, TileType.STEEL, TileType.GROUND, TileType.WATER),
+        SWIMMING_TANK(TileType.BRICK, TileType.STEEL, TileType.GROUND),
+        BULLET(TileType.BRICK, TileType.STEEL, TileType.GROUND),
+        TREE_BULLET(TileType.BRICK, TileType.STEEL, TileType.GROUND, TileType.TREES); // canDestroyTrees
+
+        private final int blockingTypes; // Bit per TileType ordinal
+
+        Capability(TileType... blocking) {
+            int mask = 0;
+            for (TileType type : blocking) {
+                mask |= 1 << type.ordinal();
+            }
+            this.blockingTypes = mask;
+        }
+
+        public boolean isBlockedBy(TileType type) {
+            return (blockingTypes & (1 << type.ordinal())) != 0;
+        }
+    }
+
     public GameMap(int width, int height) {
         this.width = width;
         this.height = height;
-        this.tiles = new TileType[height][width];
-        this.previousTiles = new TileType[height][width];
+        int words = (width * height + 63) >>> 6;
+        this.tiles = new byte[width * height];
+        this.blocked = new long[CAPABILITIES.length][words];
+        this.burning = new long[words];
+        this.dirty = new long[words];
         this.levelGenerator = new LevelGenerator(width, height, random);
         generateLevelForNumber(1);
-        // Initialize previousTiles with current state
-        copyTilesToPrevious();
+        // Start with nothing to sync
+        Arrays.fill(dirty, 0);
+    }
+
+    // Write a tile, keeping the capability and dirty bitsets in step
+    private void put(int index, TileType type) {
+        byte value = (byte) type.ordinal();
+        if (tiles[index] == value) return;
+        tiles[index] = value;
+        int word = index >>> 6;
+        long bit = 1L << index;
+        for (Capability capability : CAPABILITIES) {
+            if (capability.isBlockedBy(type)) {
+                blocked[capability.ordinal()][word] |= bit;
+            } else {
+                blocked[capability.ordinal()][word] &= ~bit;
+            }
+        }
+        burning[word] &= ~bit;
+        dirty[word] |= bit;
+        for (FlowField field : flowFields) {
+            if (field != null) {
+                field.tileChanged(index);
+            }
+        }
+    }
+
+    private static boolean isSet(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    // Whether any bit in [from, to] is set
+    private static boolean anySet(long[] bits, int from, int to) {
+        int firstWord = from >>> 6;
+        int lastWord = to >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> (63 - (to & 63));
+        if (firstWord == lastWord) {
+            return (bits[firstWord] & firstMask & lastMask) != 0;
+        }
+        if ((bits[firstWord] & firstMask) != 0 || (bits[lastWord] & lastMask) != 0) {
+            return true;
+        }
+        for (int w = firstWord + 1; w < lastWord; w++) {
+            if (bits[w] != 0) return true;
+        }
+        return false;
     }
 
     public int getLevelNumber() {
@@ -71,19 +161,19 @@ public class GameMap {
 
     public void nextLevel() {
         levelNumber++;
-        burningTiles.clear();
+        clearBurningTiles();
         generateLevelForNumber(levelNumber);
     }
 
     public void resetToLevel1() {
         levelNumber = 1;
-        burningTiles.clear();
+        clearBurningTiles();
         generateLevelForNumber(1);
     }
 
     public void regenerateCurrentLevel() {
         // Keep the same level number AND same seed to get identical map
-        burningTiles.clear();
+        clearBurningTiles();
         if (customLevelData != null) {
             // Custom level - just reload from data
             importTiles(customLevelData.getTiles());
@@ -126,7 +216,15 @@ public class GameMap {
 
     public void generateRandomLevel() {
         LOG.info("Generating random level {}", levelNumber);
-        levelGenerator.generateRandomLevel(tiles, levelNumber);
+        if (generated == null) {
+            generated = new TileType[height][width];
+        }
+        levelGenerator.generateRandomLevel(generated, levelNumber);
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                put(row * width + col, generated[row][col]);
+            }
+        }
     }
 
     public boolean checkTankCollision(double x, double y, int tankSize) {
@@ -144,36 +242,70 @@ public class GameMap {
         int startRow = (int) y / TILE_SIZE;
         int endRow = (int) (y + tankSize - 1) / TILE_SIZE;
 
+        // Solid tiles, plus water unless the tank can swim
+        long[] solid = blocked[(canSwim ? Capability.SWIMMING_TANK : Capability.TANK).ordinal()];
         for (int row = startRow; row <= endRow; row++) {
-            for (int col = startCol; col <= endCol; col++) {
-                if (row < 0 || row >= height || col < 0 || col >= width) {
-                    return true; // collision with boundary (shouldn't happen now but keep as safety)
-                }
-                TileType tile = tiles[row][col];
-                if (tile == TileType.BRICK || tile == TileType.STEEL || tile == TileType.GROUND) {
-                    return true; // collision with solid tile
-                }
-                // Check water collision only if tank cannot swim
-                if (tile == TileType.WATER && !canSwim) {
-                    return true;
-                }
+            if (anySet(solid, row * width + startCol, row * width + endCol)) {
+                return true;
             }
         }
         return false; // no collision
     }
 
+    /**
+     * Whether a tile lets something with this capability through. Outside the map is blocked;
+     * burning trees let bullets through.
+     */
+    public boolean isPassable(int row, int col, Capability capability) {
+        if (row < 0 || row >= height || col < 0 || col >= width) {
+            return false;
+        }
+        int index = row * width + col;
+        return !isSet(blocked[capability.ordinal()], index) || isSet(burning, index);
+    }
+
+    /**
+     * The shared distance-to-base field for tanks that can or cannot swim, built on first use
+     * and brought up to date with the tiles written since the last call.
+     */
+    public FlowField getFlowField(boolean canSwim) {
+        int i = canSwim ? 1 : 0;
+        FlowField field = flowFields[i];
+        if (field == null) {
+            field = new FlowField(this, canSwim ? Capability.SWIMMING_TANK : Capability.TANK);
+            flowFields[i] = field;
+        } else {
+            field.update();
+        }
+        return field;
+    }
+
     public boolean checkBulletCollision(Bullet bullet) {
         return checkBulletCollision(bullet, null);
     }
 
     public boolean checkBulletCollision(Bullet bullet, com.vibetanks.audio.SoundManager soundManager) {
+        return checkBulletCollision(bullet.getX(), bullet.getY(), bullet.getSize(), bullet.getPower(),
+            bullet.canDestroyTrees(), soundManager);
+    }
+
+    public boolean checkBulletCollision(BulletStore bullets, int slot, com.vibetanks.audio.SoundManager soundManager) {
+        return checkBulletCollision(bullets.getX(slot), bullets.getY(slot), bullets.getSize(slot), bullets.getPower(slot),
+            bullets.canDestroyTrees(slot), soundManager);
+    }
+
+    private boolean checkBulletCollision(double bulletX, double bulletY, int bulletSize, int power,
+                                         boolean canDestroyTrees, com.vibetanks.audio.SoundManager soundManager) {
         // Check all tiles the bullet overlaps with (not just center)
         // This prevents bullets from slipping through edges of solid tiles
-        int bulletSize = bullet.getSize();
-        int minCol = (int) bullet.getX() / TILE_SIZE;
-        int maxCol = (int) (bullet.getX() + bulletSize - 1) / TILE_SIZE;
-        int minRow = (int) bullet.getY() / TILE_SIZE;
-        int maxRow = (int) (bullet.getY() + bulletSize - 1) / TILE_SIZE;
+        int minCol = (int) bulletX / TILE_SIZE;
+        int maxCol = (int) (bulletX + bulletSize - 1) / TILE_SIZE;
+        int minRow = (int) bulletY / TILE_SIZE;
+        int maxRow = (int) (bulletY + bulletSize - 1) / TILE_SIZE;
+
+        // Brick, steel and ground stop every bullet; trees only stop SAW bullets, and only
+        // until they burn
+        long[] stops = blocked[(canDestroyTrees ? Capability.TREE_BULLET : Capability.BULLET).ordinal()];
 
         // Check all overlapping tiles
         for (int row = minRow; row <= maxRow; row++) {
@@ -181,41 +313,30 @@ public class GameMap {
                 if (row < 0 || row >= height || col < 0 || col >= width) {
                     return true; // out of bounds
                 }
+                int index = row * width + col;
+                if (!isSet(stops, index) || isSet(burning, index)) {
+                    continue;
+                }
 
-                TileType tile = tiles[row][col];
-
-                if (tile == TileType.BRICK) {
-                    // Brick is destroyed by bullet
-                    tiles[row][col] = TileType.EMPTY;
-                    return true;
-                } else if (tile == TileType.STEEL) {
-                    // Steel stops bullet but isn't destroyed (unless power bullet)
-                    if (bullet.getPower() >= 2) {
-                        tiles[row][col] = TileType.EMPTY;
-                    }
-                    return true;
-                } else if (tile == TileType.GROUND) {
-                    // Ground is completely indestructible - stops all bullets
-                    return true;
-                } else if (tile == TileType.TREES) {
-                    // Check if tree is already burning - bullets pass through burning trees
-                    long key = encodePosition(row, col);
-                    if (burningTiles.containsKey(key)) {
-                        // Tree is burning - bullets pass through
-                        continue;
+                switch (TYPES[tiles[index]]) {
+                    case BRICK -> put(index, TileType.EMPTY); // Brick is destroyed by bullet
+                    case STEEL -> {
+                        // Steel stops bullet but isn't destroyed (unless power bullet)
+                        if (power >= 2) {
+                            put(index, TileType.EMPTY);
+                        }
                     }
-                    // Tree is not burning - only SAW bullets can start fire
-                    if (bullet.canDestroyTrees()) {
-                        burningTiles.put(key, BURN_DURATION);
-                        // Play tree burn sound
+                    case TREES -> {
+                        // SAW bullet sets the tree on fire
+                        burningTiles.put(encodePosition(row, col), BURN_DURATION);
+                        burning[index >>> 6] |= 1L << index;
                         if (soundManager != null) {
                             soundManager.playTreeBurn();
                         }
-                        return true;
                     }
-                    // Normal bullets pass through non-burning trees
-                    continue;
+                    default -> { } // Ground is completely indestructible - stops all bullets
                 }
+                return true;
             }
         }
 
@@ -225,7 +346,7 @@ public class GameMap {
     public void render(GraphicsContext gc) {
         for (int row = 0; row < height; row++) {
             for (int col = 0; col < width; col++) {
-                TileType tile = tiles[row][col];
+                TileType tile = TYPES[tiles[row * width + col]];
                 double x = col * TILE_SIZE;
                 double y = row * TILE_SIZE;
                 TileRenderer.renderTile(gc, tile, x, y);
@@ -237,7 +358,7 @@ public class GameMap {
     public void renderWithoutTrees(GraphicsContext gc) {
         for (int row = 0; row < height; row++) {
             for (int col = 0; col < width; col++) {
-                TileType tile = tiles[row][col];
+                TileType tile = TYPES[tiles[row * width + col]];
                 double x = col * TILE_SIZE;
                 double y = row * TILE_SIZE;
                 TileRenderer.renderTile(gc, tile, x, y, true);
@@ -249,7 +370,7 @@ public class GameMap {
     public void renderTrees(GraphicsContext gc) {
         for (int row = 0; row < height; row++) {
             for (int col = 0; col < width; col++) {
-                if (tiles[row][col] == TileType.TREES) {
+                if (tiles[row * width + col] == TileType.TREES.ordinal()) {
                     double x = col * TILE_SIZE;
                     double y = row * TILE_SIZE;
                     TileRenderer.renderTrees(gc, x, y);
@@ -269,7 +390,7 @@ public class GameMap {
                 long key = entry.getKey();
                 int row = decodeRow(key);
                 int col = decodeCol(key);
-                tiles[row][col] = TileType.EMPTY;
+                put(row * width + col, TileType.EMPTY);
                 it.remove();
             } else {
                 entry.setValue(framesLeft);
@@ -300,15 +421,16 @@ public class GameMap {
         if (row < 0 || row >= height || col < 0 || col >= width) {
             return TileType.STEEL; // treat out of bounds as steel
         }
-        return tiles[row][col];
+        return TYPES[tiles[row * width + col]];
     }
 
     public void setTile(int row, int col, TileType type) {
         if (row >= 0 && row < height && col >= 0 && col < width) {
-            TileType oldType = tiles[row][col];
-            tiles[row][col] = type;
+            int index = row * width + col;
+            byte oldType = tiles[index];
+            put(index, type);
             // Track change for delta encoding
-            if (deltaEncodingEnabled && oldType != type) {
+            if (deltaEncodingEnabled && oldType != tiles[index]) {
                 pendingChanges.add(new int[]{row, col, type.ordinal()});
             }
         }
@@ -319,7 +441,7 @@ public class GameMap {
         int[][] result = new int[height][width];
         for (int row = 0; row < height; row++) {
             for (int col = 0; col < width; col++) {
-                result[row][col] = tiles[row][col].ordinal();
+                result[row][col] = tiles[row * width + col];
             }
         }
         return result;
@@ -330,7 +452,7 @@ public class GameMap {
         if (tileData == null) return;
         for (int row = 0; row < Math.min(height, tileData.length); row++) {
             for (int col = 0; col < Math.min(width, tileData[row].length); col++) {
-                tiles[row][col] = TileType.values()[tileData[row][col]];
+                put(row * width + col, TYPES[tileData[row][col]]);
             }
         }
     }
@@ -344,11 +466,10 @@ public class GameMap {
      */
     public java.util.List<int[]> exportDeltaTiles() {
         java.util.List<int[]> changes = new java.util.ArrayList<>();
-        for (int row = 0; row < height; row++) {
-            for (int col = 0; col < width; col++) {
-                if (tiles[row][col] != previousTiles[row][col]) {
-                    changes.add(new int[]{row, col, tiles[row][col].ordinal()});
-                }
+        for (int w = 0; w < dirty.length; w++) {
+            for (long bits = dirty[w]; bits != 0; bits &= bits - 1) {
+                int index = (w << 6) + Long.numberOfTrailingZeros(bits);
+                changes.add(new int[]{index / width, index % width, tiles[index]});
             }
         }
         return changes;
@@ -384,8 +505,8 @@ public class GameMap {
             int row = change[0];
             int col = change[1];
             int ordinal = change[2];
-            if (row >= 0 && row < height && col >= 0 && col < width && ordinal >= 0 && ordinal < TileType.values().length) {
-                tiles[row][col] = TileType.values()[ordinal];
+            if (row >= 0 && row < height && col >= 0 && col < width && ordinal >= 0 && ordinal < TYPES.length) {
+                put(row * width + col, TYPES[ordinal]);
             }
         }
         deltaEncodingEnabled = wasEnabled;
@@ -396,7 +517,7 @@ public class GameMap {
      * Call after sending/receiving full state.
      */
     public void markTilesSynced() {
-        copyTilesToPrevious();
+        Arrays.fill(dirty, 0);
         pendingChanges.clear();
     }
 
@@ -407,25 +528,15 @@ public class GameMap {
     public boolean needsFullSync() {
         int changes = 0;
         int threshold = (width * height) / 10; // 10% threshold
-        for (int row = 0; row < height; row++) {
-            for (int col = 0; col < width; col++) {
-                if (tiles[row][col] != previousTiles[row][col]) {
-                    changes++;
-                    if (changes > threshold) {
-                        return true;
-                    }
-                }
+        for (long bits : dirty) {
+            changes += Long.bitCount(bits);
+            if (changes > threshold) {
+                return true;
             }
         }
         return false;
     }
 
-    private void copyTilesToPrevious() {
-        for (int row = 0; row < height; row++) {
-            System.arraycopy(tiles[row], 0, previousTiles[row], 0, width);
-        }
-    }
-
     public void setDeltaEncodingEnabled(boolean enabled) {
         this.deltaEncodingEnabled = enabled;
     }
@@ -437,23 +548,38 @@ public class GameMap {
 
     // Import burning tiles from network sync
     public void importBurningTiles(Map<Long, Integer> data) {
-        burningTiles.clear();
+        clearBurningTiles();
         if (data != null) {
-            burningTiles.putAll(data);
+            for (Map.Entry<Long, Integer> entry : data.entrySet()) {
+                addBurningTile(decodeRow(entry.getKey()), decodeCol(entry.getKey()), entry.getValue());
+            }
         }
     }
 
     // Set burning tiles directly (for network sync with list)
     public void setBurningTiles(java.util.List<int[]> tiles) {
-        burningTiles.clear();
+        clearBurningTiles();
         if (tiles != null) {
             for (int[] tile : tiles) {
-                long key = encodePosition(tile[0], tile[1]);
-                burningTiles.put(key, tile[2]);
+                addBurningTile(tile[0], tile[1], tile[2]);
             }
         }
     }
 
+    private void addBurningTile(int row, int col, int framesLeft) {
+        burningTiles.put(encodePosition(row, col), framesLeft);
+        if (row >= 0 && row < height && col >= 0 && col < width
+                && tiles[row * width + col] == TileType.TREES.ordinal()) {
+            int index = row * width + col;
+            burning[index >>> 6] |= 1L << index;
+        }
+    }
+
+    private void clearBurningTiles() {
+        burningTiles.clear();
+        Arrays.fill(burning, 0);
+    }
+
     // Base protection management (for SHOVEL power-up)
     public void setBaseProtection(TileType protectionType) {
         // Set protection tiles, but preserve GROUND (indestructible) tiles
@@ -464,8 +590,9 @@ public class GameMap {
         };
         for (int[] pos : protectionPositions) {
             // Don't replace GROUND tiles - they're already indestructible
-            if (tiles[pos[0]][pos[1]] != TileType.GROUND) {
-                tiles[pos[0]][pos[1]] = protectionType;
+            int index = pos[0] * width + pos[1];
+            if (tiles[index] != TileType.GROUND.ordinal()) {
+                put(index, protectionType);
             }
         }
     }
@@ -482,7 +609,7 @@ public class GameMap {
         // Check all protection tiles - if any are EMPTY, protection is broken
         int[][] protectionTiles = {{23, 11}, {23, 12}, {23, 13}, {24, 11}, {24, 13}, {25, 11}, {25, 12}, {25, 13}};
         for (int[] pos : protectionTiles) {
-            if (tiles[pos[0]][pos[1]] == TileType.EMPTY) {
+            if (tiles[pos[0] * width + pos[1]] == EMPTY) {
                 return true;
             }
         }
@@ -514,7 +641,7 @@ public class GameMap {
 
     // For custom levels, regenerate means reload from the same data
     public void regenerateOrReloadLevel() {
-        burningTiles.clear();
+        clearBurningTiles();
         if (customLevelData != null) {
             loadCustomLevel();
         } else {
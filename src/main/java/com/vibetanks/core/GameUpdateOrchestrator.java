@@ -24,7 +24,7 @@ public class GameUpdateOrchestrator {
         Base getBase();
         List<Tank> getPlayerTanks();
         List<Tank> getEnemyTanks();
-        List<Bullet> getBullets();
+        BulletStore getBullets();
         List<Laser> getLasers();
         List<PowerUp> getPowerUps();
         SoundManager getSoundManager();
@@ -52,7 +52,7 @@ public class GameUpdateOrchestrator {
         double[] getRandomPowerUpSpawnPosition();
 
         // Bullet destruction notification
-        void notifyBulletDestroyed(Bullet bullet);
+        void notifyBulletDestroyed(int slot); // Slot in getBullets(), still live
 
         // Tank cache for collision detection
         List<Tank> getAllTanksCache();
@@ -76,7 +76,7 @@ public class GameUpdateOrchestrator {
     public static void updatePlayerTanks(GameContext ctx, List<Tank> allTanks, double[][] respawnPositions) {
         List<Tank> playerTanks = ctx.getPlayerTanks();
         GameMap gameMap = ctx.getGameMap();
-        List<Bullet> bullets = ctx.getBullets();
+        BulletStore bullets = ctx.getBullets();
         SoundManager soundManager = ctx.getSoundManager();
         Base base = ctx.getBase();
 
@@ -113,7 +113,7 @@ public class GameUpdateOrchestrator {
     public static void updateEnemyTanks(GameContext ctx, List<Tank> allTanks) {
         List<Tank> enemyTanks = ctx.getEnemyTanks();
         GameMap gameMap = ctx.getGameMap();
-        List<Bullet> bullets = ctx.getBullets();
+        BulletStore bullets = ctx.getBullets();
         SoundManager soundManager = ctx.getSoundManager();
         Base base = ctx.getBase();
         PowerUpEffectManager effectManager = ctx.getPowerUpEffectManager();
@@ -176,7 +176,7 @@ public class GameUpdateOrchestrator {
      * Process bullet collisions and handle results.
      */
     public static void processBullets(GameContext ctx) {
-        List<Bullet> bullets = ctx.getBullets();
+        BulletStore bullets = ctx.getBullets();
         List<Tank> enemyTanks = ctx.getEnemyTanks();
         List<Tank> playerTanks = ctx.getPlayerTanks();
         List<PowerUp> powerUps = ctx.getPowerUps();
@@ -187,16 +187,19 @@ public class GameUpdateOrchestrator {
         int width = ctx.getWidth();
         int height = ctx.getHeight();
 
-        Iterator<Bullet> bulletIterator = bullets.iterator();
-        while (bulletIterator.hasNext()) {
-            Bullet bullet = bulletIterator.next();
+        // Swap-remove moves the last bullet into the removed one's place, so i only
+        // advances past bullets that stay
+        for (int i = 0; i < bullets.size(); ) {
+            int slot = bullets.slot(i);
 
             ProjectileHandler.BulletCollisionResult result = ProjectileHandler.processBullet(
-                bullet, gameMap, enemyTanks, playerTanks, base, ufo, width, height, soundManager);
+                bullets, slot, gameMap, enemyTanks, playerTanks, base, ufo, width, height, soundManager);
 
-            if (result.shouldRemove) {
-                ctx.notifyBulletDestroyed(bullet);
-                bulletIterator.remove();
+            if (!result.shouldRemove) {
+                i++;
+            } else {
+                ctx.notifyBulletDestroyed(slot);
+                bullets.remove(slot);
 
                 // Handle UFO destruction
                 if (result.ufoDestroyed) {
@@ -146,10 +146,13 @@ public class Laser {
      * Check if laser beam intersects with a tank
      */
     public boolean collidesWith(Tank tank) {
-        double tankX = tank.getX();
-        double tankY = tank.getY();
-        double tankSize = tank.getSize();
+        return collidesWith(tank.getX(), tank.getY(), tank.getSize());
+    }
 
+    /**
+     * Check if laser beam intersects with a tank-sized square at the given position
+     */
+    public boolean collidesWith(double tankX, double tankY, double tankSize) {
         // Get beam bounding box
         double beamLeft, beamRight, beamTop, beamBottom;
 
@@ -72,12 +72,12 @@ public class LevelTransitionHandler {
     /**
      * Clear all projectiles and collectibles.
      *
-     * @param bullets List of bullets to clear
+     * @param bullets Bullets to clear
      * @param lasers List of lasers to clear
      * @param powerUps List of power-ups to clear
      */
     public static void clearProjectilesAndCollectibles(
-            List<Bullet> bullets,
+            BulletStore bullets,
             List<Laser> lasers,
             List<PowerUp> powerUps
     ) {
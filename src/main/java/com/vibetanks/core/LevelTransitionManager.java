@@ -25,7 +25,7 @@ public class LevelTransitionManager {
         void setEnemySpawner(EnemySpawner spawner);
         List<Tank> getPlayerTanks();
         List<Tank> getEnemyTanks();
-        List<Bullet> getBullets();
+        BulletStore getBullets();
         List<Laser> getLasers();
         List<PowerUp> getPowerUps();
         CelebrationManager getCelebrationManager();
@@ -16,14 +16,61 @@ public class ProjectileHandler {
 
     // Spatial grids for efficient collision detection
     private static SpatialGrid<Tank> tankGrid;
-    private static SpatialGrid<Bullet> bulletGrid;
+    private static SpatialGrid<Void> bulletGrid; // Index queries only, see processBulletCollisionsWithGrid
 
     // Object pools for collision results (avoid allocation in hot path)
     private static final BulletCollisionResult bulletResultPool = new BulletCollisionResult();
     private static final LaserCollisionResult laserResultPool = new LaserCollisionResult();
 
-    // Pre-allocated set for bullet-to-bullet collision detection
-    private static final java.util.Set<Bullet> bulletRemovalSet = new java.util.HashSet<>(32);
+    // Reusable grid visitors (a capturing lambda would allocate per query)
+    private static final TankHitQuery tankHitQuery = new TankHitQuery();
+    private static final BulletHitQuery bulletHitQuery = new BulletHitQuery();
+
+    /**
+     * Stops at the first live tank on the bullet's target side that it touches.
+     */
+    private static final class TankHitQuery implements SpatialGrid.Visitor<Tank> {
+        BulletStore bullets;
+        int slot;
+
+        @Override
+        public boolean visit(Tank tank) {
+            // Player bullets hit enemies, enemy bullets hit players
+            boolean target = tank.isPlayer() == bullets.isFromEnemy(slot);
+            return !(target && tank.isAlive() && bullets.collidesWith(slot, tank));
+        }
+
+        Tank find(BulletStore bullets, int slot, List<Tank> fallback) {
+            this.bullets = bullets;
+            this.slot = slot;
+            try {
+                if (tankGrid != null) {
+                    return tankGrid.forEachNearby(bullets.getX(slot), bullets.getY(slot), this);
+                }
+                for (Tank tank : fallback) {
+                    if (!visit(tank)) return tank;
+                }
+                return null;
+            } finally {
+                this.bullets = null;
+            }
+        }
+    }
+
+    /**
+     * Stops at the first other bullet, not already marked for removal, that the bullet touches.
+     * Grid indices are positions in the store's live list.
+     */
+    private static final class BulletHitQuery implements SpatialGrid.IndexVisitor {
+        BulletStore bullets;
+        int slot;
+
+        @Override
+        public boolean visit(int index) {
+            int other = bullets.slot(index);
+            return other == slot || bullets.isMarked(other) || !bullets.collidesWith(slot, other);
+        }
+    }
 
     /**
      * Initialize or resize spatial grids for collision detection.
@@ -35,10 +82,11 @@ public class ProjectileHandler {
     }
 
     /**
-     * Update spatial grids with current entity positions.
-     * Call at the start of each frame before collision detection.
+     * Update the tank grid with current tank positions.
+     * Call at the start of each frame before collision detection. The bullet grid is
+     * filled by processBulletToBulletCollisions itself, after bullets have moved.
      */
-    public static void updateSpatialGrids(List<Tank> allTanks, List<Bullet> bullets) {
+    public static void updateSpatialGrids(List<Tank> allTanks) {
         // Clear grids
         if (tankGrid != null) {
             tankGrid.clear();
@@ -49,14 +97,6 @@ public class ProjectileHandler {
                 }
             }
         }
-
-        if (bulletGrid != null) {
-            bulletGrid.clear();
-            // Insert all bullets
-            for (Bullet bullet : bullets) {
-                bulletGrid.insert(bullet, bullet.getX(), bullet.getY());
-            }
-        }
     }
 
     /**
@@ -130,7 +170,8 @@ public class ProjectileHandler {
     /**
      * Process a single bullet's movement and collisions.
      *
-     * @param bullet The bullet to process
+     * @param bullets The bullet store
+     * @param slot Slot of the bullet to process
      * @param gameMap The game map
      * @param enemyTanks List of enemy tanks
      * @param playerTanks List of player tanks
@@ -142,7 +183,8 @@ public class ProjectileHandler {
      * @return Result of collision processing
      */
     public static BulletCollisionResult processBullet(
-            Bullet bullet,
+            BulletStore bullets,
+            int slot,
             GameMap gameMap,
             List<Tank> enemyTanks,
             List<Tank> playerTanks,
@@ -157,30 +199,30 @@ public class ProjectileHandler {
         result.reset();
 
         // Update bullet position
-        bullet.update();
+        bullets.update(slot);
 
         // Check map collision
-        if (gameMap.checkBulletCollision(bullet, soundManager)) {
+        if (gameMap.checkBulletCollision(bullets, slot, soundManager)) {
             result.shouldRemove = true;
             return result;
         }
 
-        // Check out of bounds with wraparound
-        if (bullet.isOutOfBounds(mapWidth, mapHeight)) {
-            if (!bullet.handleWraparound(gameMap, mapWidth, mapHeight)) {
-                result.shouldRemove = true;
-                return result;
-            }
+        // Bullets leaving the map are removed (no wrapping)
+        if (bullets.isOutOfBounds(slot, mapWidth, mapHeight)) {
+            result.shouldRemove = true;
+            return result;
         }
 
+        boolean fromEnemy = bullets.isFromEnemy(slot);
+
         // Check UFO collision (player bullets only)
-        if (!bullet.isFromEnemy() && ufo != null && ufo.isAlive()) {
-            if (ufo.collidesWith(bullet)) {
+        if (!fromEnemy && ufo != null && ufo.isAlive()) {
+            if (ufo.collidesWith(bullets, slot)) {
                 result.hitUfo = true;
                 boolean destroyed = ufo.damage();
                 if (destroyed) {
                     result.ufoDestroyed = true;
-                    result.killerPlayerNumber = bullet.getOwnerPlayerNumber();
+                    result.killerPlayerNumber = bullets.getOwnerPlayerNumber(slot);
                     soundManager.playExplosion();
                 }
                 result.shouldRemove = true;
@@ -188,71 +230,55 @@ public class ProjectileHandler {
             }
         }
 
-        // Use spatial grid for efficient tank collision detection
-        List<Tank> nearbyTanks = tankGrid != null
-            ? tankGrid.getNearby(bullet.getX(), bullet.getY())
-            : null;
-
-        // Player bullets hit enemies
-        if (!bullet.isFromEnemy()) {
-            // Use spatial grid if available, fall back to full list
-            Iterable<Tank> tanksToCheck = nearbyTanks != null ? nearbyTanks : enemyTanks;
-            for (Tank enemy : tanksToCheck) {
-                // Skip player tanks when checking enemy collisions
-                if (enemy.isPlayer()) continue;
-                if (enemy.isAlive() && bullet.collidesWith(enemy)) {
-                    result.hitEnemy = true;
-
-                    // Power bullets (can break steel) deal 2 damage, normal bullets deal 1
-                    int damageCount = bullet.getPower() >= 2 ? 2 : 1;
-                    boolean dropPowerUp = false;
-                    for (int i = 0; i < damageCount && enemy.isAlive(); i++) {
-                        dropPowerUp = enemy.damage() || dropPowerUp;
-                    }
+        // Use spatial grid for efficient tank collision detection, fall back to full list
+        Tank hit = tankHitQuery.find(bullets, slot, fromEnemy ? playerTanks : enemyTanks);
 
-                    // Check for power-up drop
-                    if (dropPowerUp || (!enemy.isAlive() && GameConstants.RANDOM.nextDouble() < 0.3)) {
-                        result.shouldDropPowerUp = true;
-                    }
+        if (hit != null && !fromEnemy) {
+            // Player bullets hit enemies
+            Tank enemy = hit;
+            result.hitEnemy = true;
 
-                    if (!enemy.isAlive()) {
-                        result.enemyKilled = true;
-                        result.killedEnemy = enemy;
-                        result.killerPlayerNumber = bullet.getOwnerPlayerNumber();
-                        result.isBossKill = enemy.getEnemyType() == Tank.EnemyType.BOSS;
-                        soundManager.playExplosion();
-                    }
+            // Power bullets (can break steel) deal 2 damage, normal bullets deal 1
+            int damageCount = bullets.getPower(slot) >= 2 ? 2 : 1;
+            boolean dropPowerUp = false;
+            for (int i = 0; i < damageCount && enemy.isAlive(); i++) {
+                dropPowerUp = enemy.damage() || dropPowerUp;
+            }
 
-                    result.shouldRemove = true;
-                    return result;
-                }
+            // Check for power-up drop
+            if (dropPowerUp || (!enemy.isAlive() && GameConstants.RANDOM.nextDouble() < 0.3)) {
+                result.shouldDropPowerUp = true;
             }
-        } else {
-            // Enemy bullets hit players
-            // Use spatial grid if available, fall back to full list
-            Iterable<Tank> tanksToCheck = nearbyTanks != null ? nearbyTanks : playerTanks;
-            for (Tank player : tanksToCheck) {
-                // Skip enemy tanks when checking player collisions
-                if (!player.isPlayer()) continue;
-                if (player.isAlive() && bullet.collidesWith(player)) {
-                    if (!player.hasShield() && !player.hasPauseShield()) {
-                        result.hitPlayer = true;
-                        player.damage();
 
-                        if (!player.isAlive()) {
-                            result.playerKilled = true;
-                            result.killedPlayer = player;
-                            soundManager.playPlayerDeath();
-                        }
-                    }
-                    result.shouldRemove = true;
-                    return result;
+            if (!enemy.isAlive()) {
+                result.enemyKilled = true;
+                result.killedEnemy = enemy;
+                result.killerPlayerNumber = bullets.getOwnerPlayerNumber(slot);
+                result.isBossKill = enemy.getEnemyType() == Tank.EnemyType.BOSS;
+                soundManager.playExplosion();
+            }
+
+            result.shouldRemove = true;
+            return result;
+        } else if (hit != null) {
+            // Enemy bullets hit players
+            Tank player = hit;
+            if (!player.hasShield() && !player.hasPauseShield()) {
+                result.hitPlayer = true;
+                player.damage();
+
+                if (!player.isAlive()) {
+                    result.playerKilled = true;
+                    result.killedPlayer = player;
+                    soundManager.playPlayerDeath();
                 }
             }
+            result.shouldRemove = true;
+            return result;
         }
 
         // Check base collision (all bullets)
-        if (bullet.collidesWith(base) && base.isAlive()) {
+        if (bullets.collidesWith(slot, base) && base.isAlive()) {
             result.hitBase = true;
             result.shouldRemove = true;
             return result;
@@ -265,10 +291,10 @@ public class ProjectileHandler {
      * Process bullet-to-bullet collisions using spatial partitioning.
      * Reduces complexity from O(n^2) to approximately O(n) by only checking nearby bullets.
      *
-     * @param bullets List of bullets to check
+     * @param bullets Bullets to check; collided ones are removed
      * @param playerTanks Player tanks for bullet destroyed notification
      */
-    public static void processBulletToBulletCollisions(List<Bullet> bullets, List<Tank> playerTanks) {
+    public static void processBulletToBulletCollisions(BulletStore bullets, List<Tank> playerTanks) {
         if (bullets.size() < 2) return;
 
         // Use spatial grid if available for O(n) collision detection
@@ -283,64 +309,64 @@ public class ProjectileHandler {
     /**
      * Spatial grid-based bullet collision detection.
      * Only checks bullets in nearby cells - O(n) average case.
-     * Uses pre-allocated set to avoid allocation in hot path.
+     * The grid is filled here, after movement, with grid index i standing for bullets.slot(i);
+     * collided bullets are marked and removed once the queries are done.
      */
-    private static void processBulletCollisionsWithGrid(List<Bullet> bullets, List<Tank> playerTanks) {
-        // Use pre-allocated set (clear for reuse)
-        bulletRemovalSet.clear();
-
-        for (Bullet bullet1 : bullets) {
-            if (bulletRemovalSet.contains(bullet1)) continue;
-
-            // Get nearby bullets from spatial grid
-            List<Bullet> nearby = bulletGrid.getNearby(bullet1.getX(), bullet1.getY());
-
-            for (Bullet bullet2 : nearby) {
-                if (bullet1 == bullet2) continue;
-                if (bulletRemovalSet.contains(bullet2)) continue;
+    private static void processBulletCollisionsWithGrid(BulletStore bullets, List<Tank> playerTanks) {
+        int count = bullets.size();
+        bulletGrid.clear();
+        for (int i = 0; i < count; i++) {
+            int slot = bullets.slot(i);
+            bulletGrid.insert(null, bullets.getX(slot), bullets.getY(slot));
+        }
 
-                if (bullet1.collidesWith(bullet2)) {
-                    GameLogic.notifyBulletDestroyed(bullet1, playerTanks);
-                    GameLogic.notifyBulletDestroyed(bullet2, playerTanks);
-                    bulletRemovalSet.add(bullet1);
-                    bulletRemovalSet.add(bullet2);
-                    break;
-                }
+        BulletHitQuery query = bulletHitQuery;
+        query.bullets = bullets;
+        for (int i = 0; i < count; i++) {
+            int slot1 = bullets.slot(i);
+            if (bullets.isMarked(slot1)) continue;
+
+            // First nearby bullet it collides with, from the spatial grid
+            query.slot = slot1;
+            int j = bulletGrid.forEachIndexNearby(bullets.getX(slot1), bullets.getY(slot1), query);
+            if (j >= 0) {
+                int slot2 = bullets.slot(j);
+                GameLogic.notifyBulletDestroyed(bullets, slot1, playerTanks);
+                GameLogic.notifyBulletDestroyed(bullets, slot2, playerTanks);
+                bullets.mark(slot1);
+                bullets.mark(slot2);
             }
         }
+        query.bullets = null;
 
-        // Remove collided bullets
-        bullets.removeAll(bulletRemovalSet);
+        bullets.removeMarked();
     }
 
     /**
      * Original O(n^2) brute force algorithm - fallback when grid not initialized.
-     * Uses removal set pattern to avoid index manipulation bugs during iteration.
+     * Marks collided bullets and removes them after iteration, so indices stay valid.
      */
-    private static void processBulletCollisionsBruteForce(List<Bullet> bullets, List<Tank> playerTanks) {
-        // Use pre-allocated set (clear for reuse) - same safe pattern as grid method
-        bulletRemovalSet.clear();
-
+    private static void processBulletCollisionsBruteForce(BulletStore bullets, List<Tank> playerTanks) {
         for (int i = 0; i < bullets.size(); i++) {
-            Bullet bullet1 = bullets.get(i);
-            if (bulletRemovalSet.contains(bullet1)) continue;
+            int slot1 = bullets.slot(i);
+            if (bullets.isMarked(slot1)) continue;
 
             for (int j = i + 1; j < bullets.size(); j++) {
-                Bullet bullet2 = bullets.get(j);
-                if (bulletRemovalSet.contains(bullet2)) continue;
-
-                if (bullet1.collidesWith(bullet2)) {
-                    GameLogic.notifyBulletDestroyed(bullet1, playerTanks);
-                    GameLogic.notifyBulletDestroyed(bullet2, playerTanks);
-                    bulletRemovalSet.add(bullet1);
-                    bulletRemovalSet.add(bullet2);
+                int slot2 = bullets.slot(j);
+                if (bullets.isMarked(slot2)) continue;
+
+                if (bullets.collidesWith(slot1, slot2)) {
+                    GameLogic.notifyBulletDestroyed(bullets, slot1, playerTanks);
+                    GameLogic.notifyBulletDestroyed(bullets, slot2, playerTanks);
+                    bullets.mark(slot1);
+                    bullets.mark(slot2);
                     break;
                 }
             }
         }
 
         // Remove collided bullets safely after iteration complete
-        bullets.removeAll(bulletRemovalSet);
+        bullets.removeMarked();
     }
 
     /**
@@ -1,6 +1,7 @@
 package com.vibetanks.core;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -10,46 +11,92 @@ import java.util.List;
  * Usage:
  * 1. Clear the grid at start of frame: grid.clear()
  * 2. Insert all entities: grid.insert(entity, x, y)
- * 3. Query nearby entities: grid.getNearby(x, y, radius)
+ * 3. Query nearby entities: grid.forEachNearby(x, y, visitor)
+ *
+ * Storage is flat: inserted entities go to an array with the cell range they cover, and the
+ * first query after inserting buckets their indices by cell with a counting sort (count per
+ * cell, prefix sum, fill) into one int array. Nothing is allocated per frame or per query
+ * once the arrays have grown to the largest entity count seen.
+ *
+ * Index queries report entities by insertion order instead (the n-th insert since clear()
+ * is index n), for callers whose entities are rows in their own arrays rather than objects;
+ * those may insert null.
+ *
+ * forEach queries visit each entity once even if it covers several of the queried cells,
+ * using a per-entity stamp. For the same reason queries on one grid must not be nested -
+ * a visitor that needs another query should use a second grid. The List queries allocate
+ * and are meant for tests and tools, not per-frame code.
  */
 public class SpatialGrid<T> {
     private static final int DEFAULT_CELL_SIZE = 64; // 2 tiles
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Receives the entities a query finds.
+     */
+    @FunctionalInterface
+    public interface Visitor<T> {
+        /**
+         * @return true to continue, false to stop the query at this entity
+         */
+        boolean visit(T entity);
+    }
+
+    /**
+     * Receives the insertion indices of the entities a query finds.
+     */
+    @FunctionalInterface
+    public interface IndexVisitor {
+        /**
+         * @return true to continue, false to stop the query at this entity
+         */
+        boolean visit(int index);
+    }
 
     private final int cellSize;
     private final int gridWidth;
     private final int gridHeight;
-    private final List<T>[][] cells;
 
+    // Inserted entities, and the cells each covers: minX, minY, maxX, maxY per entity
+    private Object[] entities = new Object[INITIAL_CAPACITY];
+    private int[] spans = new int[INITIAL_CAPACITY * 4];
+    private int entityCount;
 
+    // Entity indices bucketed by cell: cell c holds cellEntities[cellStart[c] .. cellStart[c + 1])
+    private final int[] cellStart;
+    private final int[] cellFill;
+    private int[] cellEntities = new int[INITIAL_CAPACITY * 2];
+    private boolean dirty;
+
+    // Deduplication: an entity was visited by the current query if its stamp equals queryStamp
+    private int[] stamps = new int[INITIAL_CAPACITY];
+    private int queryStamp;
+    private boolean querying;
+
+    // Entity queries run as index queries through this adapter
+    private Visitor<? super T> entityVisitor;
     @SuppressWarnings("unchecked")
+    private final IndexVisitor entityAdapter = e -> entityVisitor.visit((T) entities[e]);
+
     public SpatialGrid(int mapWidth, int mapHeight) {
         this(mapWidth, mapHeight, DEFAULT_CELL_SIZE);
     }
 
-    @SuppressWarnings("unchecked")
     public SpatialGrid(int mapWidth, int mapHeight, int cellSize) {
         this.cellSize = cellSize;
-        this.gridWidth = (mapWidth + cellSize - 1) / cellSize;
-        this.gridHeight = (mapHeight + cellSize - 1) / cellSize;
-        this.cells = new List[gridHeight][gridWidth];
-
-        // Initialize all cells with pre-allocated lists
-        for (int y = 0; y < gridHeight; y++) {
-            for (int x = 0; x < gridWidth; x++) {
-                cells[y][x] = new ArrayList<>(8);
-            }
-        }
+        this.gridWidth = Math.max(1, (mapWidth + cellSize - 1) / cellSize);
+        this.gridHeight = Math.max(1, (mapHeight + cellSize - 1) / cellSize);
+        this.cellStart = new int[gridWidth * gridHeight + 1];
+        this.cellFill = new int[gridWidth * gridHeight];
     }
 
     /**
      * Clear all entities from the grid. Call at start of each frame.
      */
     public void clear() {
-        for (int y = 0; y < gridHeight; y++) {
-            for (int x = 0; x < gridWidth; x++) {
-                cells[y][x].clear();
-            }
-        }
+        Arrays.fill(entities, 0, entityCount, null);
+        entityCount = 0;
+        dirty = true;
     }
 
     /**
@@ -58,94 +105,181 @@ public class SpatialGrid<T> {
     public void insert(T entity, double x, double y) {
         int cellX = getCellX(x);
         int cellY = getCellY(y);
-
-        if (isValidCell(cellX, cellY)) {
-            cells[cellY][cellX].add(entity);
-        }
+        add(entity, cellX, cellY, cellX, cellY);
     }
 
     /**
      * Insert an entity that spans multiple cells (for larger objects like tanks).
      */
     public void insertWithSize(T entity, double x, double y, int size) {
-        int minCellX = getCellX(x);
-        int maxCellX = getCellX(x + size - 1);
-        int minCellY = getCellY(y);
-        int maxCellY = getCellY(y + size - 1);
-
-        for (int cy = minCellY; cy <= maxCellY; cy++) {
-            for (int cx = minCellX; cx <= maxCellX; cx++) {
-                if (isValidCell(cx, cy)) {
-                    List<T> cell = cells[cy][cx];
-                    // Avoid adding duplicate entries
-                    if (!cell.contains(entity)) {
-                        cell.add(entity);
-                    }
+        add(entity, getCellX(x), getCellY(y), getCellX(x + size - 1), getCellY(y + size - 1));
+    }
+
+    private void add(T entity, int minCellX, int minCellY, int maxCellX, int maxCellY) {
+        if (entityCount == entities.length) {
+            int capacity = entityCount * 2;
+            entities = Arrays.copyOf(entities, capacity);
+            spans = Arrays.copyOf(spans, capacity * 4);
+            stamps = Arrays.copyOf(stamps, capacity);
+        }
+        int s = entityCount * 4;
+        spans[s] = minCellX;
+        spans[s + 1] = minCellY;
+        spans[s + 2] = maxCellX;
+        spans[s + 3] = maxCellY;
+        entities[entityCount++] = entity;
+        dirty = true;
+    }
+
+    // Counting sort of entity indices into cell buckets
+    private void build() {
+        int cellCount = cellFill.length;
+        Arrays.fill(cellStart, 0);
+        for (int e = 0; e < entityCount; e++) {
+            int s = e * 4;
+            for (int cy = spans[s + 1]; cy <= spans[s + 3]; cy++) {
+                for (int cx = spans[s]; cx <= spans[s + 2]; cx++) {
+                    cellStart[cy * gridWidth + cx + 1]++;
+                }
+            }
+        }
+        for (int c = 0; c < cellCount; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        if (cellStart[cellCount] > cellEntities.length) {
+            cellEntities = new int[Math.max(cellStart[cellCount], cellEntities.length * 2)];
+        }
+        System.arraycopy(cellStart, 0, cellFill, 0, cellCount);
+        for (int e = 0; e < entityCount; e++) {
+            int s = e * 4;
+            for (int cy = spans[s + 1]; cy <= spans[s + 3]; cy++) {
+                for (int cx = spans[s]; cx <= spans[s + 2]; cx++) {
+                    cellEntities[cellFill[cy * gridWidth + cx]++] = e;
                 }
             }
         }
+        dirty = false;
     }
 
     /**
-     * Get all entities in the same cell as the given position.
-     * Returns a NEW list to prevent aliasing bugs in nested loops.
+     * Visit the entities in the same cell as the given position.
+     * @return the entity the visitor stopped at, or null if it saw them all
      */
-    public List<T> getInCell(double x, double y) {
-        List<T> result = new ArrayList<>(16);
+    public T forEachInCell(double x, double y, Visitor<? super T> visitor) {
         int cellX = getCellX(x);
         int cellY = getCellY(y);
-
-        if (isValidCell(cellX, cellY)) {
-            result.addAll(cells[cellY][cellX]);
-        }
-        return result;
+        return visitEntities(cellX, cellY, cellX, cellY, visitor);
     }
 
     /**
-     * Get all entities in the same cell and adjacent cells (3x3 area).
+     * Visit the entities in the same cell and adjacent cells (3x3 area).
      * This is the main method for collision detection.
-     * Returns a NEW list to prevent aliasing bugs in nested loops.
+     * @return the entity the visitor stopped at, or null if it saw them all
      */
-    public List<T> getNearby(double x, double y) {
-        List<T> result = new ArrayList<>(32);
+    public T forEachNearby(double x, double y, Visitor<? super T> visitor) {
+        int cellX = getCellX(x);
+        int cellY = getCellY(y);
+        return visitEntities(cellX - 1, cellY - 1, cellX + 1, cellY + 1, visitor);
+    }
+
+    /**
+     * Visit the insertion indices of the entities in the same cell and adjacent cells (3x3 area).
+     * @return the index the visitor stopped at, or -1 if it saw them all
+     */
+    public int forEachIndexNearby(double x, double y, IndexVisitor visitor) {
         int cellX = getCellX(x);
         int cellY = getCellY(y);
+        return visitCells(cellX - 1, cellY - 1, cellX + 1, cellY + 1, visitor);
+    }
 
-        // Check 3x3 grid of cells around the position
-        for (int dy = -1; dy <= 1; dy++) {
-            for (int dx = -1; dx <= 1; dx++) {
-                int cx = cellX + dx;
-                int cy = cellY + dy;
-                if (isValidCell(cx, cy)) {
-                    result.addAll(cells[cy][cx]);
+    /**
+     * Visit the entities within a rectangular area, expanded by one cell in each direction
+     * to catch entities on the boundaries.
+     * @return the entity the visitor stopped at, or null if it saw them all
+     */
+    public T forEachInArea(double x, double y, int width, int height, Visitor<? super T> visitor) {
+        return visitEntities(getCellX(x) - 1, getCellY(y) - 1,
+            getCellX(x + width - 1) + 1, getCellY(y + height - 1) + 1, visitor);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T visitEntities(int minCellX, int minCellY, int maxCellX, int maxCellY, Visitor<? super T> visitor) {
+        if (querying) {
+            throw new IllegalStateException("Nested query on the same SpatialGrid");
+        }
+        entityVisitor = visitor;
+        try {
+            int e = visitCells(minCellX, minCellY, maxCellX, maxCellY, entityAdapter);
+            return e < 0 ? null : (T) entities[e];
+        } finally {
+            entityVisitor = null;
+        }
+    }
+
+    private int visitCells(int minCellX, int minCellY, int maxCellX, int maxCellY, IndexVisitor visitor) {
+        if (querying) {
+            throw new IllegalStateException("Nested query on the same SpatialGrid");
+        }
+        if (dirty) {
+            build();
+        }
+        if (++queryStamp == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            queryStamp = 1;
+        }
+        minCellX = Math.max(0, minCellX);
+        minCellY = Math.max(0, minCellY);
+        maxCellX = Math.min(gridWidth - 1, maxCellX);
+        maxCellY = Math.min(gridHeight - 1, maxCellY);
+
+        querying = true;
+        try {
+            for (int cy = minCellY; cy <= maxCellY; cy++) {
+                for (int cx = minCellX; cx <= maxCellX; cx++) {
+                    int cell = cy * gridWidth + cx;
+                    for (int i = cellStart[cell], end = cellStart[cell + 1]; i < end; i++) {
+                        int e = cellEntities[i];
+                        if (stamps[e] == queryStamp) continue;
+                        stamps[e] = queryStamp;
+                        if (!visitor.visit(e)) {
+                            return e;
+                        }
+                    }
                 }
             }
+            return -1;
+        } finally {
+            querying = false;
         }
+    }
+
+    /**
+     * Get all entities in the same cell as the given position.
+     * Returns a NEW list; per-frame code should use forEachInCell.
+     */
+    public List<T> getInCell(double x, double y) {
+        List<T> result = new ArrayList<>(16);
+        forEachInCell(x, y, result::add);
+        return result;
+    }
+
+    /**
+     * Get all entities in the same cell and adjacent cells (3x3 area).
+     * Returns a NEW list; per-frame code should use forEachNearby.
+     */
+    public List<T> getNearby(double x, double y) {
+        List<T> result = new ArrayList<>(32);
+        forEachNearby(x, y, result::add);
         return result;
     }
 
     /**
      * Get all entities within a rectangular area.
-     * Returns a NEW list to prevent aliasing bugs in nested loops.
+     * Returns a NEW list; per-frame code should use forEachInArea.
      */
     public List<T> getInArea(double x, double y, int width, int height) {
         List<T> result = new ArrayList<>(32);
-        int minCellX = getCellX(x);
-        int maxCellX = getCellX(x + width - 1);
-        int minCellY = getCellY(y);
-        int maxCellY = getCellY(y + height - 1);
-
-        // Expand by 1 cell in each direction to catch entities on boundaries
-        minCellX = Math.max(0, minCellX - 1);
-        maxCellX = Math.min(gridWidth - 1, maxCellX + 1);
-        minCellY = Math.max(0, minCellY - 1);
-        maxCellY = Math.min(gridHeight - 1, maxCellY + 1);
-
-        for (int cy = minCellY; cy <= maxCellY; cy++) {
-            for (int cx = minCellX; cx <= maxCellX; cx++) {
-                result.addAll(cells[cy][cx]);
-            }
-        }
+        forEachInArea(x, y, width, height, result::add);
         return result;
     }
 
@@ -157,30 +291,24 @@ public class SpatialGrid<T> {
         return Math.max(0, Math.min(gridHeight - 1, (int) y / cellSize));
     }
 
-    private boolean isValidCell(int cellX, int cellY) {
-        return cellX >= 0 && cellX < gridWidth && cellY >= 0 && cellY < gridHeight;
-    }
-
     /**
      * Get statistics for debugging.
      */
     public String getStats() {
-        int totalEntities = 0;
+        if (dirty) {
+            build();
+        }
         int maxInCell = 0;
         int nonEmptyCells = 0;
-
-        for (int y = 0; y < gridHeight; y++) {
-            for (int x = 0; x < gridWidth; x++) {
-                int count = cells[y][x].size();
-                totalEntities += count;
-                if (count > 0) {
-                    nonEmptyCells++;
-                    maxInCell = Math.max(maxInCell, count);
-                }
+        for (int c = 0; c < cellFill.length; c++) {
+            int count = cellStart[c + 1] - cellStart[c];
+            if (count > 0) {
+                nonEmptyCells++;
+                maxInCell = Math.max(maxInCell, count);
             }
         }
 
         return String.format("SpatialGrid[%dx%d cells, %d entities, %d non-empty, max %d per cell]",
-            gridWidth, gridHeight, totalEntities, nonEmptyCells, maxInCell);
+            gridWidth, gridHeight, entityCount, nonEmptyCells, maxInCell);
     }
 }
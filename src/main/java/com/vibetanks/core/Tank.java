@@ -145,7 +145,7 @@ public class Tank {
         this.shootCooldownReduction = 0;
     }
 
-    public void update(GameMap map, List<Bullet> bullets, SoundManager soundManager, List<Tank> allTanks, Base base) {
+    public void update(GameMap map, BulletStore bullets, SoundManager soundManager, List<Tank> allTanks, Base base) {
         if (!alive) return;
 
         // Update cooldowns
@@ -181,7 +181,7 @@ public class Tank {
         return physics.isOnIce(map, x, y, size);
     }
 
-    public void shoot(List<Bullet> bullets, SoundManager soundManager) {
+    public void shoot(BulletStore bullets, SoundManager soundManager) {
         // Can shoot if: cooldown is 0 OR no active bullets from this tank
         if (!alive || (shootCooldown > 0 && activeBulletCount > 0)) return;
 
@@ -217,7 +217,7 @@ public class Tank {
                 case RIGHT -> offsetX += totalSpacing;
             }
 
-            bullets.add(new Bullet(offsetX, offsetY, direction, !isPlayer, bulletPower, canDestroyTrees, isPlayer ? playerNumber : 0, bulletSize, hasRainbowBullets));
+            bullets.add(offsetX, offsetY, direction, !isPlayer, bulletPower, canDestroyTrees, isPlayer ? playerNumber : 0, bulletSize, hasRainbowBullets);
             activeBulletCount++;
         }
 
@@ -265,7 +265,7 @@ public class Tank {
         return new Laser(laserX, laserY, direction, !isPlayer, isPlayer ? playerNumber : 0);
     }
 
-    public void updateAI(GameMap map, List<Bullet> bullets, List<Tank> allTanks, Base base, SoundManager soundManager) {
+    public void updateAI(GameMap map, BulletStore bullets, List<Tank> allTanks, Base base, SoundManager soundManager) {
         if (!alive || ai == null) return;
 
         // Update cooldowns and sliding first
@@ -30,7 +30,7 @@ public class TankAI {
      * Update AI behavior for an enemy tank.
      * Handles stuck detection, shooting, direction changes, and movement.
      */
-    public void update(Tank tank, TankPhysics physics, GameMap map, List<Bullet> bullets,
+    public void update(Tank tank, TankPhysics physics, GameMap map, BulletStore bullets,
                        List<Tank> allTanks, Base base, SoundManager soundManager) {
         if (!tank.isAlive()) return;
 
@@ -51,7 +51,7 @@ public class TankAI {
         }
 
         // Detect if stuck (position hasn't changed)
-        Direction newDirection = detectAndHandleStuck(tank);
+        Direction newDirection = detectAndHandleStuck(tank, map);
         if (newDirection != null) {
             tank.setDirection(newDirection);
         }
@@ -71,7 +71,7 @@ public class TankAI {
 
         // Change direction occasionally
         if (aiMoveCooldown <= 0) {
-            Direction decidedDirection = decideDirection(tank, base, allTanks);
+            Direction decidedDirection = decideDirection(tank, map, base, allTanks);
             tank.setDirection(decidedDirection);
             aiMoveCooldown = GameConstants.AI_MOVE_COOLDOWN_BASE / 2 +
                              GameConstants.RANDOM.nextInt(GameConstants.AI_MOVE_COOLDOWN_RANDOM);
@@ -85,24 +85,33 @@ public class TankAI {
     }
 
     /**
-     * Detect if tank is stuck and handle it by changing direction.
-     * @return new direction if stuck, null otherwise
+     * Detect if tank is stuck and handle it: shoot a brick in the way, otherwise head
+     * towards the base if that is not where it is stuck, otherwise turn at random.
+     * @return new direction if stuck and turning, null otherwise
      */
-    private Direction detectAndHandleStuck(Tank tank) {
+    private Direction detectAndHandleStuck(Tank tank, GameMap map) {
         if (Math.abs(tank.getX() - lastX) < 0.1 && Math.abs(tank.getY() - lastY) < 0.1) {
             stuckCounter++;
             if (stuckCounter > GameConstants.AI_STUCK_THRESHOLD) {
+                stuckCounter = 0;
+                if (isBrickAhead(tank, map)) {
+                    aiShootCooldown = 0; // Shoot this frame and keep pushing
+                    return null;
+                }
+
                 Direction[] directions = Direction.values();
                 Direction originalDirection = tank.getDirection();
-                Direction newDirection = originalDirection;
-
-                for (int i = 0; i < 4; i++) {
-                    newDirection = directions[GameConstants.RANDOM.nextInt(4)];
-                    if (newDirection != originalDirection) {
-                        break;
+                Direction newDirection = map.getFlowField(tank.canSwim()).directionFor(tank);
+
+                if (newDirection == null || newDirection == originalDirection) {
+                    newDirection = originalDirection;
+                    for (int i = 0; i < 4; i++) {
+                        newDirection = directions[GameConstants.RANDOM.nextInt(4)];
+                        if (newDirection != originalDirection) {
+                            break;
+                        }
                     }
                 }
-                stuckCounter = 0;
                 aiMoveCooldown = GameConstants.AI_STUCK_COOLDOWN_BASE +
                                  GameConstants.RANDOM.nextInt(GameConstants.AI_STUCK_COOLDOWN_RANDOM);
                 return newDirection;
@@ -115,13 +124,17 @@ public class TankAI {
 
     /**
      * Decide which direction to move.
-     * AI_TARGET_BASE_CHANCE to move towards base, remainder random.
+     * AI_TARGET_BASE_CHANCE to move towards base along the map's flow field, remainder random.
      * Avoids directions blocked by other tanks.
      */
-    private Direction decideDirection(Tank tank, Base base, List<Tank> allTanks) {
+    private Direction decideDirection(Tank tank, GameMap map, Base base, List<Tank> allTanks) {
         Direction preferred;
         if (GameConstants.RANDOM.nextDouble() < GameConstants.AI_TARGET_BASE_CHANCE) {
-            preferred = calculateDirectionTowardsBase(tank, base);
+            preferred = map.getFlowField(tank.canSwim()).directionFor(tank);
+            if (preferred == null) {
+                // At the base or walled off from it
+                preferred = calculateDirectionTowardsBase(tank, base);
+            }
         } else {
             preferred = Direction.values()[GameConstants.RANDOM.nextInt(4)];
         }
@@ -159,6 +172,26 @@ public class TankAI {
         }
     }
 
+    /**
+     * Check if there's a brick just in front of the tank.
+     */
+    private boolean isBrickAhead(Tank tank, GameMap map) {
+        Direction direction = tank.getDirection();
+        double half = tank.getSize() / 2.0;
+        // Just past the middle of the front edge, then out to both front corners
+        double frontX = tank.getX() + half + direction.getDx() * (half + 1);
+        double frontY = tank.getY() + half + direction.getDy() * (half + 1);
+        double sideX = direction.getDy() * (half - 1);
+        double sideY = direction.getDx() * (half - 1);
+        return isBrickAt(map, frontX - sideX, frontY - sideY) || isBrickAt(map, frontX + sideX, frontY + sideY);
+    }
+
+    private boolean isBrickAt(GameMap map, double x, double y) {
+        int row = (int) Math.floor(y / GameConstants.TILE_SIZE);
+        int col = (int) Math.floor(x / GameConstants.TILE_SIZE);
+        return map.getTile(row, col) == GameMap.TileType.BRICK;
+    }
+
     /**
      * Check if there's another tank in the given direction within detection distance.
      */
@@ -3,7 +3,6 @@ package com.vibetanks.core;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 
-import java.util.List;
 import java.util.Random;
 
 public class UFO {
@@ -64,7 +63,7 @@ public class UFO {
         if (!movingRight && dx > -0.3) dx = -0.5;
     }
 
-    public void update(List<Bullet> bullets, int mapWidth, int mapHeight, com.vibetanks.audio.SoundManager soundManager) {
+    public void update(BulletStore bullets, int mapWidth, int mapHeight, com.vibetanks.audio.SoundManager soundManager) {
         if (!alive) return;
 
         lifetime--;
@@ -116,11 +115,11 @@ public class UFO {
         lightFrame = (int)(System.currentTimeMillis() / 100) % 8;
     }
 
-    private void shoot(List<Bullet> bullets, com.vibetanks.audio.SoundManager soundManager) {
+    private void shoot(BulletStore bullets, com.vibetanks.audio.SoundManager soundManager) {
         // Shoot downward
         double bulletX = x + SIZE / 2.0 - 4;
         double bulletY = y + SIZE;
-        bullets.add(new Bullet(bulletX, bulletY, Direction.DOWN, true, 1, false, 0, 8));
+        bullets.add(bulletX, bulletY, Direction.DOWN, true, 1, false, 0, 8, false);
         soundManager.playShoot();
     }
 
@@ -188,10 +187,15 @@ public class UFO {
     }
 
     public boolean collidesWith(Bullet bullet) {
-        if (!alive || bullet.isFromEnemy()) return false;
-        double bx = bullet.getX();
-        double by = bullet.getY();
-        int bs = bullet.getSize();
+        return collidesWith(bullet.getX(), bullet.getY(), bullet.getSize(), bullet.isFromEnemy());
+    }
+
+    public boolean collidesWith(BulletStore bullets, int slot) {
+        return collidesWith(bullets.getX(slot), bullets.getY(slot), bullets.getSize(slot), bullets.isFromEnemy(slot));
+    }
+
+    private boolean collidesWith(double bx, double by, int bs, boolean fromEnemy) {
+        if (!alive || fromEnemy) return false;
         return bx < x + SIZE && bx + bs > x && by < y + SIZE && by + bs > y;
     }
 
@@ -95,7 +95,7 @@ public class UFOManager {
      * Update UFO and message timers.
      * @return true if UFO escaped during this update
      */
-    public boolean updateUFO(List<Bullet> bullets, int width, int height,
+    public boolean updateUFO(BulletStore bullets, int width, int height,
                              SoundManager soundManager, boolean victoryConditionMet) {
         boolean escaped = false;
 
@@ -0,0 +1,117 @@
+package com.vibetanks.network;
+
+import com.vibetanks.core.Base;
+import com.vibetanks.core.Direction;
+import com.vibetanks.core.GameMap;
+import com.vibetanks.core.Tank;
+import com.vibetanks.core.TankPhysics;
+
+import java.util.List;
+
+/**
+ * Client-side prediction for the local tank.
+ *
+ * The client moves its own tank immediately and records each input's movement here,
+ * keyed by PlayerInput.sequenceNumber. When a snapshot arrives, the host reports the
+ * last input sequence it applied for this player (PlayerData.lastInputSequence): the
+ * tank is rewound to the host's position and every newer, still unacknowledged input is
+ * replayed on top of it. Without any disagreement the result equals the local position;
+ * after a collision the host saw and the client didn't, the tank converges to the host.
+ *
+ * Replay uses a scratch TankPhysics so the tank's own ice sliding state is left alone.
+ * Not thread-safe - owned by the client's game loop.
+ */
+public class ClientPrediction {
+    static final int BUFFER_SIZE = 128; // ~2 seconds of inputs at 60 FPS
+    // Pixels - below this the prediction was right (snapshot positions are rounded to 1/8 px)
+    private static final double CORRECTION_EPSILON = GameStateCodec.POSITION_STEP;
+
+    private final long[] sequences = new long[BUFFER_SIZE];
+    private final Direction[] moves = new Direction[BUFFER_SIZE]; // null = input did not move the tank
+    private int head; // Index of the oldest pending input
+    private int count;
+    private final TankPhysics replayPhysics = new TankPhysics();
+    private double lastCorrection;
+
+    /**
+     * Record an input that was just applied locally.
+     * @param move direction the tank was moved in, or null if it did not move
+     */
+    public void record(long sequence, Direction move) {
+        if (count == BUFFER_SIZE) {
+            // Host is far behind - forget the oldest input rather than growing
+            head = (head + 1) % BUFFER_SIZE;
+            count--;
+        }
+        int slot = (head + count) % BUFFER_SIZE;
+        sequences[slot] = sequence;
+        moves[slot] = move;
+        count++;
+    }
+
+    /**
+     * Rewind the tank to the host's authoritative position and replay pending inputs.
+     * Does nothing if the host has not applied any of our inputs yet (e.g. older hosts
+     * that do not report lastInputSequence).
+     * @param allTanks player and enemy tanks, for collision during replay
+     */
+    public void reconcile(PlayerData server, Tank tank, GameMap map, List<Tank> allTanks, Base base) {
+        if (server.lastInputSequence <= 0 || !tank.isAlive() || !server.alive) {
+            return;
+        }
+        acknowledge(server.lastInputSequence);
+
+        double predictedX = tank.getX();
+        double predictedY = tank.getY();
+        Direction predictedDirection = tank.getDirection();
+
+        tank.setPositionAndDirection(server.x, server.y, Direction.values()[server.direction]);
+        for (int i = 0; i < count; i++) {
+            Direction move = moves[(head + i) % BUFFER_SIZE];
+            if (move != null) {
+                tank.setDirection(move);
+                replayPhysics.move(tank, move, map, allTanks, base);
+            }
+        }
+
+        lastCorrection = Math.hypot(tank.getX() - predictedX, tank.getY() - predictedY);
+        if (lastCorrection < CORRECTION_EPSILON) {
+            // Prediction held - keep the exact local state
+            tank.setPositionAndDirection(predictedX, predictedY, predictedDirection);
+            lastCorrection = 0;
+        }
+    }
+
+    /**
+     * Drop every input the host has already applied.
+     */
+    void acknowledge(long sequence) {
+        while (count > 0 && sequences[head] <= sequence) {
+            moves[head] = null;
+            head = (head + 1) % BUFFER_SIZE;
+            count--;
+        }
+    }
+
+    /**
+     * Forget all pending inputs, e.g. when the host teleports the tank (respawn, new level).
+     */
+    public void clear() {
+        while (count > 0) {
+            moves[head] = null;
+            head = (head + 1) % BUFFER_SIZE;
+            count--;
+        }
+    }
+
+    public int getPendingCount() {
+        return count;
+    }
+
+    /**
+     * Distance in pixels the last reconcile() moved the tank away from its prediction.
+     */
+    public double getLastCorrection() {
+        return lastCorrection;
+    }
+}
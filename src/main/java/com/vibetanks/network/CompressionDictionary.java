@@ -0,0 +1,146 @@
+package com.vibetanks.network;
+
+import com.vibetanks.util.GameLogger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.zip.Adler32;
+
+/**
+ * Preset dictionary for FrameCompressor, trained from recorded snapshot payloads.
+ *
+ * Snapshots repeat the same structures frame after frame and session after session - player
+ * records, host settings, long runs of map tiles - but each frame is compressed on its own, so
+ * without a dictionary deflate has nothing to match them against. The dictionary ships as the
+ * RESOURCE file (rebuild it with server.SnapshotDictionaryTool after codec changes); both sides
+ * must use the same one, which the JOIN handshake checks by id.
+ */
+public final class CompressionDictionary {
+    private static final GameLogger LOG = GameLogger.getLogger(CompressionDictionary.class);
+
+    public static final String RESOURCE = "/network/snapshot.dict";
+    public static final int MAX_SIZE = 24 * 1024; // Leaves room in deflate's 32 KB window for the frame itself
+
+    static final int SEGMENT = 8;   // Bytes per scored segment (packed into a long)
+    static final int WINDOW = 256;  // Bytes per chunk copied into the dictionary
+
+    private static final byte[] BUNDLED = load();
+
+    private CompressionDictionary() {
+    }
+
+    /**
+     * The bundled dictionary, or null if the resource is missing (compression is then never negotiated).
+     */
+    public static byte[] get() {
+        return BUNDLED;
+    }
+
+    /**
+     * Adler-32 of the bundled dictionary (as zlib uses to identify dictionaries), 0 if there is none.
+     */
+    public static long id() {
+        return BUNDLED != null ? id(BUNDLED) : 0;
+    }
+
+    static long id(byte[] dictionary) {
+        Adler32 adler = new Adler32();
+        adler.update(dictionary);
+        return adler.getValue();
+    }
+
+    private static byte[] load() {
+        try (InputStream in = CompressionDictionary.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                LOG.warn("No snapshot compression dictionary ({}) - compression disabled", RESOURCE);
+                return null;
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            LOG.warn("Could not read {}: {}", RESOURCE, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Build a dictionary of at most maxSize bytes from sample payloads.
+     *
+     * Every SEGMENT-byte string is scored by how many samples contain it. Chunks of WINDOW
+     * bytes are then picked greedily by the total score of the segments they add (segments
+     * already in the dictionary score nothing), so the dictionary covers as many common
+     * strings as possible without repeating itself. The best chunks go last, where deflate
+     * reaches them with the shortest distances.
+     */
+    public static byte[] train(List<byte[]> samples, int maxSize) {
+        Map<Long, Integer> frequency = new HashMap<>();
+        for (byte[] sample : samples) {
+            Set<Long> seen = new HashSet<>();
+            for (int i = 0; i + SEGMENT <= sample.length; i++) {
+                seen.add(segment(sample, i));
+            }
+            for (Long s : seen) {
+                frequency.merge(s, 1, Integer::sum);
+            }
+        }
+
+        List<byte[]> chunks = new ArrayList<>();
+        int size = 0;
+        while (size < maxSize) {
+            byte[] bestSample = null;
+            int bestStart = 0;
+            long bestScore = 0;
+            for (byte[] sample : samples) {
+                int window = Math.min(WINDOW, sample.length);
+                for (int start = 0; start + window <= sample.length; start += Math.max(1, window / 4)) {
+                    long score = score(sample, start, window, frequency);
+                    if (score > bestScore) {
+                        bestScore = score;
+                        bestSample = sample;
+                        bestStart = start;
+                    }
+                }
+            }
+            // Nothing left that occurs in more than one sample
+            if (bestSample == null || bestScore <= WINDOW - SEGMENT + 1) {
+                break;
+            }
+            int length = Math.min(Math.min(WINDOW, bestSample.length), maxSize - size);
+            chunks.add(Arrays.copyOfRange(bestSample, bestStart, bestStart + length));
+            size += length;
+            for (int i = bestStart; i + SEGMENT <= bestStart + length; i++) {
+                frequency.remove(segment(bestSample, i));
+            }
+        }
+
+        byte[] dictionary = new byte[size];
+        int pos = 0;
+        for (int i = chunks.size() - 1; i >= 0; i--) {
+            byte[] chunk = chunks.get(i);
+            System.arraycopy(chunk, 0, dictionary, pos, chunk.length);
+            pos += chunk.length;
+        }
+        return dictionary;
+    }
+
+    // Sum of sample counts over the distinct segments of one window
+    private static long score(byte[] sample, int start, int length, Map<Long, Integer> frequency) {
+        long score = 0;
+        Set<Long> counted = new HashSet<>();
+        for (int i = start; i + SEGMENT <= start + length; i++) {
+            long s = segment(sample, i);
+            if (counted.add(s)) {
+                score += frequency.getOrDefault(s, 0);
+            }
+        }
+        return score;
+    }
+
+    private static long segment(byte[] data, int off) {
+        long s = 0;
+        for (int i = 0; i < SEGMENT; i++) {
+            s = (s << 8) | (data[off + i] & 0xFF);
+        }
+        return s;
+    }
+}
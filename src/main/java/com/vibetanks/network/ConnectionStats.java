@@ -0,0 +1,185 @@
+package com.vibetanks.network;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Round-trip time, jitter, loss and traffic for one connection.
+ *
+ * Every PING_INTERVAL_MS each side sends MSG_PING [id][send time]; the peer echoes the
+ * payload back unchanged as MSG_PONG. RTT and jitter are smoothed the way TCP smooths
+ * SRTT and RTTVAR (gains 1/8 and 1/4). Loss is the share of the last LOSS_WINDOW pings
+ * that got no pong within PING_TIMEOUT_MS - it stays at 0 over TCP and follows datagram
+ * loss over UDP, where pings travel unreliably.
+ *
+ * Byte counters are updated by whichever thread moves the bytes; everything else is
+ * synchronized, so the game loop and network threads can share one instance.
+ */
+public class ConnectionStats {
+    public static final long PING_INTERVAL_MS = 1000;
+    static final long PING_TIMEOUT_MS = 3000;
+    static final int LOSS_WINDOW = 16;
+    static final long RATE_WINDOW_MS = 1000;
+
+    private final long[] pingSentMs = new long[LOSS_WINDOW];
+    private final boolean[] ponged = new boolean[LOSS_WINDOW];
+    private long nextPingId = 1;
+    private long lastPingMs;
+    private boolean pinged;
+
+    private double srttMs = -1; // -1 until the first pong
+    private double rttVarMs;
+
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+    private long rateSampleMs = -1;
+    private long rateBytesIn, rateBytesOut;
+    private double bytesInPerSecond, bytesOutPerSecond;
+
+    /**
+     * Start a ping if the last one is PING_INTERVAL_MS old.
+     * @param payload receives the MSG_PING payload
+     * @return true if a ping was written and should be sent
+     */
+    public synchronized boolean writePingIfDue(long nowMs, WireWriter payload) {
+        if (pinged && nowMs - lastPingMs < PING_INTERVAL_MS) {
+            return false;
+        }
+        pinged = true;
+        lastPingMs = nowMs;
+        long id = nextPingId++;
+        int slot = (int) (id % LOSS_WINDOW);
+        pingSentMs[slot] = nowMs;
+        ponged[slot] = false;
+        payload.writeVarLong(id);
+        payload.writeVarLong(nowMs);
+        return true;
+    }
+
+    /**
+     * Answer a peer's MSG_PING: the MSG_PONG payload is the ping payload unchanged.
+     */
+    public static void writePong(WireReader ping, WireWriter pong) throws IOException {
+        pong.writeVarLong(ping.readVarLong());
+        pong.writeVarLong(ping.readVarLong());
+    }
+
+    /**
+     * A MSG_PONG arrived. Duplicates and pongs for pings older than the loss window are ignored.
+     */
+    public synchronized void onPong(WireReader payload, long nowMs) throws IOException {
+        long id = payload.readVarLong();
+        long sentMs = payload.readVarLong();
+        if (id <= 0 || id >= nextPingId || nextPingId - id > LOSS_WINDOW) {
+            return;
+        }
+        int slot = (int) (id % LOSS_WINDOW);
+        if (ponged[slot] || pingSentMs[slot] != sentMs) {
+            return;
+        }
+        ponged[slot] = true;
+
+        double rtt = Math.max(0, nowMs - sentMs);
+        if (srttMs < 0) {
+            srttMs = rtt;
+            rttVarMs = rtt / 2;
+        } else {
+            rttVarMs += (Math.abs(srttMs - rtt) - rttVarMs) / 4;
+            srttMs += (rtt - srttMs) / 8;
+        }
+    }
+
+    /**
+     * Smoothed round-trip time in milliseconds, or -1 before the first pong.
+     */
+    public synchronized long getRttMs() {
+        return srttMs < 0 ? -1 : Math.round(srttMs);
+    }
+
+    /**
+     * Mean deviation of the round-trip time in milliseconds.
+     */
+    public synchronized long getJitterMs() {
+        return Math.round(rttVarMs);
+    }
+
+    /**
+     * Percentage of recent pings that went unanswered for PING_TIMEOUT_MS.
+     */
+    public synchronized double getLossPercent(long nowMs) {
+        int settled = 0;
+        int lost = 0;
+        for (long id = Math.max(1, nextPingId - LOSS_WINDOW); id < nextPingId; id++) {
+            int slot = (int) (id % LOSS_WINDOW);
+            if (ponged[slot]) {
+                settled++;
+            } else if (nowMs - pingSentMs[slot] > PING_TIMEOUT_MS) {
+                settled++;
+                lost++;
+            }
+        }
+        return settled > 0 ? 100.0 * lost / settled : 0;
+    }
+
+    public void addBytesIn(long bytes) {
+        bytesIn.addAndGet(bytes);
+    }
+
+    public void addBytesOut(long bytes) {
+        bytesOut.addAndGet(bytes);
+    }
+
+    public long getBytesIn() {
+        return bytesIn.get();
+    }
+
+    public long getBytesOut() {
+        return bytesOut.get();
+    }
+
+    /**
+     * Average incoming bytes per second over the last completed rate window.
+     */
+    public synchronized double getBytesInPerSecond(long nowMs) {
+        updateRates(nowMs);
+        return bytesInPerSecond;
+    }
+
+    public synchronized double getBytesOutPerSecond(long nowMs) {
+        updateRates(nowMs);
+        return bytesOutPerSecond;
+    }
+
+    // Rates cover everything since the previous sample, at least RATE_WINDOW_MS
+    private void updateRates(long nowMs) {
+        if (rateSampleMs < 0) {
+            rateSampleMs = nowMs;
+            rateBytesIn = bytesIn.get();
+            rateBytesOut = bytesOut.get();
+            return;
+        }
+        long elapsed = nowMs - rateSampleMs;
+        if (elapsed < RATE_WINDOW_MS) {
+            return;
+        }
+        long in = bytesIn.get();
+        long out = bytesOut.get();
+        bytesInPerSecond = (in - rateBytesIn) * 1000.0 / elapsed;
+        bytesOutPerSecond = (out - rateBytesOut) * 1000.0 / elapsed;
+        rateSampleMs = nowMs;
+        rateBytesIn = in;
+        rateBytesOut = out;
+    }
+
+    /**
+     * One-line summary for logs and the HUD,
+     * e.g. "RTT 42 ms, jitter 3 ms | loss 0.0% | in 1.2 KB/s | out 30.5 KB/s".
+     * Rates read 0 until the first RATE_WINDOW_MS has passed.
+     */
+    public synchronized String describe(long nowMs) {
+        long rtt = getRttMs();
+        return (rtt < 0 ? "RTT -" : "RTT " + rtt + " ms, jitter " + getJitterMs() + " ms")
+            + String.format(" | loss %.1f%% | in %.1f KB/s | out %.1f KB/s", getLossPercent(nowMs),
+                getBytesInPerSecond(nowMs) / 1024, getBytesOutPerSecond(nowMs) / 1024);
+    }
+}
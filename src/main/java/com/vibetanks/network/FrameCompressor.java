@@ -0,0 +1,150 @@
+package com.vibetanks.network;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Optional compression stage for frames: raw deflate primed with a preset dictionary
+ * (CompressionDictionary), negotiated per connection in the Handshake.
+ *
+ * Compressed frame: [varint length][MSG_COMPRESSED][inner type][varint inner payload length][deflate data]
+ *
+ * Every frame is compressed on its own - snapshots may be lost or replaced before they are
+ * sent, so there is no stream state to keep in sync. A frame that would not get smaller is
+ * passed through unchanged. Byte and time counters compare the output against the raw
+ * frames for the status log.
+ *
+ * Not thread-safe - one instance per sending or receiving thread.
+ */
+public class FrameCompressor {
+    private static final int LEVEL = Deflater.BEST_SPEED;
+
+    private final byte[] dictionary;
+    private final Deflater deflater = new Deflater(LEVEL, true);
+    private final Inflater inflater = new Inflater(true);
+    private final WireReader header = new WireReader();
+    private final WireWriter body = new WireWriter(4096);
+    private final WireWriter frame = new WireWriter(4096);
+    private byte[] buffer = new byte[4096];
+    private final WireProtocol.FrameBuffer inflated = new WireProtocol.FrameBuffer();
+
+    // Benchmark counters since the last resetStats()
+    private long frames;
+    private long rawBytes;
+    private long compressedBytes;
+    private long compressNanos;
+
+    public FrameCompressor(byte[] dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Compress a complete frame.
+     * @return a new MSG_COMPRESSED frame, or rawFrame itself if compressing did not make it smaller
+     */
+    public byte[] compress(byte[] rawFrame) {
+        long start = System.nanoTime();
+        int type;
+        int payloadOffset;
+        int payloadLength;
+        try {
+            header.reset(rawFrame, 0, rawFrame.length);
+            payloadLength = header.readVarInt() - 1;
+            type = header.readUnsignedByte();
+            payloadOffset = header.position();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Not a complete frame", e);
+        }
+
+        deflater.reset();
+        deflater.setDictionary(dictionary);
+        deflater.setInput(rawFrame, payloadOffset, payloadLength);
+        deflater.finish();
+        int deflatedLength = 0;
+        while (!deflater.finished()) {
+            if (deflatedLength == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            deflatedLength += deflater.deflate(buffer, deflatedLength, buffer.length - deflatedLength);
+        }
+
+        // Inner type and raw length ride in the compressed payload
+        body.reset();
+        body.writeByte(type);
+        body.writeVarInt(payloadLength);
+        body.writeBytes(buffer, 0, deflatedLength);
+        byte[] result = rawFrame;
+        if (WireProtocol.frameSize(body.size()) < rawFrame.length) {
+            WireProtocol.encodeFrame(WireProtocol.MSG_COMPRESSED, body, frame);
+            result = frame.toByteArray();
+        }
+
+        frames++;
+        rawBytes += rawFrame.length;
+        compressedBytes += result.length;
+        compressNanos += System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * Unpack a MSG_COMPRESSED payload.
+     * @return the inner message type; its payload is then in reader(), valid until the next call
+     */
+    public int decompress(WireReader payload) throws IOException {
+        int type = payload.readUnsignedByte();
+        int rawLength = payload.readVarInt();
+        if (rawLength > WireProtocol.MAX_FRAME_SIZE) {
+            throw new StreamCorruptedException("Compressed frame of " + rawLength + " bytes");
+        }
+        byte[] raw = inflated.ensureCapacity(rawLength);
+        inflater.reset();
+        inflater.setDictionary(dictionary);
+        inflater.setInput(payload.array(), payload.position(), payload.remaining());
+        try {
+            int n = 0;
+            while (n < rawLength) {
+                int read = inflater.inflate(raw, n, rawLength - n);
+                if (read == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new StreamCorruptedException("Compressed frame truncated at " + n + " of " + rawLength + " bytes");
+                }
+                n += read;
+            }
+        } catch (DataFormatException e) {
+            throw new StreamCorruptedException("Bad compressed frame: " + e.getMessage());
+        }
+        payload.skip(payload.remaining());
+        inflated.reader().reset(raw, 0, rawLength);
+        return type;
+    }
+
+    public WireReader reader() {
+        return inflated.reader();
+    }
+
+    /**
+     * Frames compressed, bytes before/after and average cost since the last reset,
+     * e.g. "Compression: 120 frames, 180.0 KB -> 61.2 KB (34%), 42 us/frame".
+     */
+    public String describe() {
+        return String.format("Compression: %d frames, %.1f KB -> %.1f KB (%d%%), %d us/frame",
+            frames, rawBytes / 1024.0, compressedBytes / 1024.0,
+            rawBytes > 0 ? Math.round(100.0 * compressedBytes / rawBytes) : 100,
+            frames > 0 ? compressNanos / frames / 1000 : 0);
+    }
+
+    public long getFrameCount() { return frames; }
+    public long getRawBytes() { return rawBytes; }
+    public long getCompressedBytes() { return compressedBytes; }
+    public long getCompressNanos() { return compressNanos; }
+
+    public void resetStats() {
+        frames = 0;
+        rawBytes = 0;
+        compressedBytes = 0;
+        compressNanos = 0;
+    }
+}
@@ -0,0 +1,118 @@
+package com.vibetanks.network;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Incremental frame parser for non-blocking transports.
+ * Bytes arrive in arbitrary chunks; every complete [varint length][type][payload]
+ * frame is handed to the handler, partial frames are kept until more data arrives.
+ *
+ * The WireReader passed to the handler points into the decoder's own buffer and is
+ * only valid for the duration of the callback.
+ */
+public class FrameDecoder {
+
+    /**
+     * Receives complete frames.
+     */
+    public interface FrameHandler {
+        void onFrame(int type, WireReader payload) throws IOException;
+    }
+
+    private byte[] buf;
+    private int length;
+    private boolean framed; // A frame has been delivered
+    private final WireReader reader = new WireReader();
+
+    public FrameDecoder() {
+        this(8192);
+    }
+
+    public FrameDecoder(int initialCapacity) {
+        this.buf = new byte[initialCapacity];
+    }
+
+    /**
+     * Consume all remaining bytes of src and dispatch every complete frame.
+     */
+    public void feed(ByteBuffer src, FrameHandler handler) throws IOException {
+        int n = src.remaining();
+        ensureCapacity(n);
+        src.get(buf, length, n);
+        length += n;
+        drain(handler);
+    }
+
+    public void feed(byte[] src, int off, int len, FrameHandler handler) throws IOException {
+        ensureCapacity(len);
+        System.arraycopy(src, off, buf, length, len);
+        length += len;
+        drain(handler);
+    }
+
+    /**
+     * Bytes buffered waiting for the rest of a frame.
+     */
+    public int buffered() {
+        return length;
+    }
+
+    /**
+     * Whether the stream, before any frame, opens like a client from before the binary
+     * protocol (see Handshake.isLegacyStream).
+     */
+    public boolean isLegacyStream() {
+        return !framed && length >= 2 && Handshake.isLegacyStream(buf[0] & 0xFF, buf[1] & 0xFF);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(length + extra, buf.length * 2));
+        }
+    }
+
+    private void drain(FrameHandler handler) throws IOException {
+        int pos = 0;
+        while (pos < length) {
+            // Parse the varint length prefix
+            int frameLength = 0;
+            int p = pos;
+            boolean complete = false;
+            for (int shift = 0; p < length; shift += 7) {
+                if (shift >= 35) {
+                    throw new StreamCorruptedException("Malformed frame length");
+                }
+                int b = buf[p++];
+                frameLength |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    complete = true;
+                    break;
+                }
+            }
+            if (!complete) {
+                break;
+            }
+            if (frameLength < 1 || frameLength > WireProtocol.MAX_FRAME_SIZE) {
+                throw new StreamCorruptedException("Invalid frame length: " + frameLength);
+            }
+            if (length - p < frameLength) {
+                break; // Wait for the rest of the frame
+            }
+
+            int type = buf[p] & 0xFF;
+            reader.reset(buf, p + 1, frameLength - 1);
+            framed = true;
+            handler.onFrame(type, reader);
+            pos = p + frameLength;
+        }
+
+        // Compact the unconsumed tail to the front
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, length - pos);
+            length -= pos;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.vibetanks.network;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.Arrays;
+
+/**
+ * Keeps frames within a connection's max packet size (see Handshake): a larger frame goes
+ * out as MSG_FRAGMENT frames that the receiver puts back together.
+ *
+ * Fragment payload: [varint message id][varint index][varint count][varint frame length][piece]
+ * Every piece but the last is frame length / count bytes, rounded up, so the receiver
+ * knows where each one goes whatever order they arrive in.
+ *
+ * Over UDP, pieces may be lost, duplicated or reordered, and the pieces of a reliable frame
+ * may interleave with those of a snapshot. The receiver keeps a few frames in progress and
+ * forgets the oldest when another starts; a snapshot missing a piece is lost like any lost
+ * datagram, and the next delta is taken against what the receiver acknowledged.
+ *
+ * split() and fit() may be called from any thread; an instance reassembles for one
+ * receiving thread.
+ */
+public class FrameSplitter {
+    // Frame header and fragment fields at their widest
+    static final int OVERHEAD = 20;
+    private static final int IN_PROGRESS = 4;
+
+    private final Partial[] partials = new Partial[IN_PROGRESS];
+    private final WireReader reader = new WireReader();
+    private long started;
+
+    private static final class Partial {
+        final int id;
+        final int count;
+        final byte[] frame;
+        final boolean[] received;
+        final long started;
+        int missing;
+
+        Partial(int id, int count, int length, long started) {
+            this.id = id;
+            this.count = count;
+            this.frame = new byte[length];
+            this.received = new boolean[count];
+            this.started = started;
+            this.missing = count;
+        }
+    }
+
+    /**
+     * A complete frame as frames of at most maxSize bytes: the frame itself if it fits.
+     * @param messageId tells this frame's pieces from other frames' at the receiver
+     */
+    public static byte[][] split(byte[] frame, int length, int maxSize, int messageId) {
+        if (length <= maxSize) {
+            return new byte[][]{length == frame.length ? frame : Arrays.copyOf(frame, length)};
+        }
+        int count = (length + maxSize - OVERHEAD - 1) / (maxSize - OVERHEAD);
+        int chunk = (length + count - 1) / count;
+        byte[][] pieces = new byte[count][];
+        WireWriter payload = new WireWriter(chunk + OVERHEAD);
+        WireWriter piece = new WireWriter(chunk + OVERHEAD);
+        for (int i = 0; i < count; i++) {
+            int offset = i * chunk;
+            payload.reset();
+            payload.writeVarInt(messageId);
+            payload.writeVarInt(i);
+            payload.writeVarInt(count);
+            payload.writeVarInt(length);
+            payload.writeBytes(frame, offset, Math.min(chunk, length - offset));
+            WireProtocol.encodeFrame(WireProtocol.MSG_FRAGMENT, payload, piece);
+            pieces[i] = piece.toByteArray();
+        }
+        return pieces;
+    }
+
+    /**
+     * For stream transports: the frame itself if it fits in maxSize, else its pieces back to back.
+     */
+    public static byte[] fit(byte[] frame, int maxSize, int messageId) {
+        if (frame.length <= maxSize) {
+            return frame;
+        }
+        byte[][] pieces = split(frame, frame.length, maxSize, messageId);
+        int size = 0;
+        for (byte[] piece : pieces) {
+            size += piece.length;
+        }
+        byte[] joined = new byte[size];
+        int position = 0;
+        for (byte[] piece : pieces) {
+            System.arraycopy(piece, 0, joined, position, piece.length);
+            position += piece.length;
+        }
+        return joined;
+    }
+
+    /**
+     * Take one MSG_FRAGMENT payload.
+     * @return the message type once its frame is complete, its payload then in reader()
+     *         until the next call; -1 while pieces are missing
+     */
+    public int add(WireReader payload) throws IOException {
+        int id = payload.readVarInt();
+        int index = payload.readVarInt();
+        int count = payload.readVarInt();
+        int length = payload.readVarInt();
+        if (count < 2 || index < 0 || index >= count || length < count || length > WireProtocol.MAX_FRAME_SIZE) {
+            throw new StreamCorruptedException("Invalid fragment " + index + " of " + count + " (" + length + " bytes)");
+        }
+        int chunk = (length + count - 1) / count;
+        int offset = index * chunk;
+        int size = Math.min(chunk, length - offset);
+        if (size <= 0 || payload.remaining() != size) {
+            throw new StreamCorruptedException("Fragment " + index + " of " + count + " has " + payload.remaining() + " bytes");
+        }
+
+        int slot = slotFor(id, count, length);
+        Partial partial = partials[slot];
+        if (partial.received[index]) {
+            payload.skip(size); // Duplicate datagram
+            return -1;
+        }
+        payload.readBytes(partial.frame, offset, size);
+        partial.received[index] = true;
+        if (--partial.missing > 0) {
+            return -1;
+        }
+
+        partials[slot] = null;
+        reader.reset(partial.frame, 0, length);
+        if (reader.readVarInt() != reader.remaining()) {
+            throw new StreamCorruptedException("Reassembled frame length does not match");
+        }
+        int type = reader.readUnsignedByte();
+        if (type == WireProtocol.MSG_FRAGMENT) {
+            throw new StreamCorruptedException("Nested fragment");
+        }
+        return type;
+    }
+
+    public WireReader reader() {
+        return reader;
+    }
+
+    // The frame's slot; a new frame takes a free slot, else the one started longest ago
+    private int slotFor(int id, int count, int length) throws IOException {
+        int free = -1;
+        int oldest = -1;
+        for (int i = 0; i < partials.length; i++) {
+            Partial p = partials[i];
+            if (p == null) {
+                if (free < 0) free = i;
+            } else if (p.id == id) {
+                if (p.count != count || p.frame.length != length) {
+                    throw new StreamCorruptedException("Fragments of message " + id + " disagree on its size");
+                }
+                return i;
+            } else if (oldest < 0 || p.started < partials[oldest].started) {
+                oldest = i;
+            }
+        }
+        int slot = free >= 0 ? free : oldest;
+        partials[slot] = new Partial(id, count, length, ++started);
+        return slot;
+    }
+}
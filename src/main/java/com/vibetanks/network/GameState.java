@@ -4,9 +4,17 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
-public class GameState implements Serializable {
+public class GameState implements Serializable, Cloneable {
     private static final long serialVersionUID = 2L; // Incremented for new format
 
+    // Snapshot sequence number stamped by the sender (0 = unsequenced).
+    // Clients acknowledge it so the sender can delta-encode against what they have.
+    public long sequence;
+
+    // Sender's monotonic clock (ms) when the snapshot was stamped.
+    // Clients use the spacing between snapshots to interpolate remote entities.
+    public long serverTimeMs;
+
     // Centralized player data array (up to 4 players)
     public PlayerData[] players = new PlayerData[4];
 
@@ -103,6 +111,37 @@ public class GameState implements Serializable {
     // Sound events for network sync (cleared after each frame)
     public List<SoundEvent> soundEvents = new ArrayList<>();
 
+    /**
+     * Shallow copy without the purely cosmetic parts - dancing characters and burning tiles -
+     * for receivers whose link can't afford them. Everything else is shared with this snapshot,
+     * so neither may be modified afterwards.
+     */
+    public GameState withoutCosmetics() {
+        GameState copy = shallowCopy();
+        copy.burningTiles = new ArrayList<>();
+        copy.dancingCharacters = new ArrayList<>();
+        copy.victoryDancingGirls = new ArrayList<>();
+        return copy;
+    }
+
+    /**
+     * Shallow copy playing other sound events, for a receiver that missed the snapshots
+     * that carried them. Same sharing rules as withoutCosmetics().
+     */
+    public GameState withSoundEvents(List<SoundEvent> events) {
+        GameState copy = shallowCopy();
+        copy.soundEvents = events;
+        return copy;
+    }
+
+    private GameState shallowCopy() {
+        try {
+            return (GameState) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
     public static class SoundEvent implements Serializable {
         private static final long serialVersionUID = 2L;
         public SoundType type;
@@ -14,6 +14,10 @@ import java.util.*;
 public class GameStateApplier {
     private static final GameLogger LOG = GameLogger.getLogger(GameStateApplier.class);
 
+    // Entities further apart than this between two snapshots teleported (respawn, wraparound,
+    // list slot reused) - show the newer position instead of sliding across the map
+    private static final double MAX_INTERPOLATION_DISTANCE = 64;
+
     /**
      * Context interface for accessing and modifying game state.
      * Game.java implements this to provide access to its fields.
@@ -22,7 +26,7 @@ public class GameStateApplier {
         // Getters for game objects
         List<Tank> getPlayerTanks();
         List<Tank> getEnemyTanks();
-        List<Bullet> getBullets();
+        BulletStore getBullets();
         List<Laser> getLasers();
         List<PowerUp> getPowerUps();
         GameMap getGameMap();
@@ -94,9 +98,9 @@ public class GameStateApplier {
         // Dynamically add tanks if more players connected
         addNewPlayerTanks(state, ctx);
 
-        // Get local player index
+        // Get local player index (none in a replay - every tank follows the recording)
         NetworkManager network = ctx.getNetwork();
-        int myPlayerIndex = network != null ? network.getPlayerNumber() - 1 : -1;
+        int myPlayerIndex = network != null && !network.isSpectating() ? network.getPlayerNumber() - 1 : -1;
         int localPlayerNum = network != null ? network.getPlayerNumber() : 1;
 
         // Update player tanks
@@ -179,9 +183,9 @@ public class GameStateApplier {
                 state.catEscapeFrame, state.toyX, state.toyY, state.toyType);
         }
 
-        // Play explosion sound when enemy dies
+        // Play explosion sound when enemy dies - the event survives an enemy spawning in the same snapshot
         int currentEnemyCount = ctx.getEnemyTanks().size();
-        if (currentEnemyCount < ctx.getPrevEnemyCount()) {
+        if (currentEnemyCount < ctx.getPrevEnemyCount() || hasSoundEvent(state, GameState.SoundType.EXPLOSION)) {
             ctx.getSoundManager().playExplosion();
         }
         ctx.setPrevEnemyCount(currentEnemyCount);
@@ -190,6 +194,78 @@ public class GameStateApplier {
         playSoundEvents(state, ctx);
     }
 
+    /**
+     * Move remote entities to their positions at the interpolator's render time.
+     * Called every frame after apply(); everything except positions still comes from the
+     * newest snapshot. The local player is left alone - it is predicted, not interpolated.
+     * @param sample from SnapshotInterpolator.sample(), may be null
+     */
+    public static void applyInterpolation(SnapshotInterpolator.Sample sample, GameContext ctx) {
+        if (sample == null) {
+            return;
+        }
+        GameState from = sample.from();
+        GameState to = sample.to();
+        NetworkManager network = ctx.getNetwork();
+        int myPlayerIndex = network != null && !network.isSpectating() ? network.getPlayerNumber() - 1 : -1;
+
+        List<Tank> playerTanks = ctx.getPlayerTanks();
+        for (int i = 0; i < playerTanks.size() && i < to.players.length; i++) {
+            PlayerData a = from.players[i];
+            PlayerData b = to.players[i];
+            Tank tank = playerTanks.get(i);
+            if (i != myPlayerIndex && tank.isAlive() && a.alive && b.alive && isNear(a.x, a.y, b.x, b.y)) {
+                tank.setPosition(sample.lerp(a.x, b.x), sample.lerp(a.y, b.y));
+            }
+        }
+
+        List<Tank> enemyTanks = ctx.getEnemyTanks();
+        int enemies = Math.min(enemyTanks.size(), Math.min(from.enemies.size(), to.enemies.size()));
+        for (int i = 0; i < enemies; i++) {
+            GameState.EnemyData a = from.enemies.get(i);
+            GameState.EnemyData b = to.enemies.get(i);
+            Tank enemy = enemyTanks.get(i);
+            if (enemy.isAlive() && a.alive && b.alive && a.enemyType == b.enemyType && isNear(a.x, a.y, b.x, b.y)) {
+                enemy.setPosition(sample.lerp(a.x, b.x), sample.lerp(a.y, b.y));
+            }
+        }
+
+        if (!ctx.getBullets().isEmpty() && !from.bullets.isEmpty()) {
+            Map<Long, GameState.BulletData> fromBullets = new HashMap<>();
+            for (GameState.BulletData a : from.bullets) {
+                fromBullets.put(a.id, a);
+            }
+            Map<Long, GameState.BulletData> toBullets = new HashMap<>();
+            for (GameState.BulletData b : to.bullets) {
+                toBullets.put(b.id, b);
+            }
+            BulletStore bullets = ctx.getBullets();
+            for (int i = 0; i < bullets.size(); i++) {
+                int slot = bullets.slot(i);
+                GameState.BulletData a = fromBullets.get(bullets.getId(slot));
+                GameState.BulletData b = toBullets.get(bullets.getId(slot));
+                if (a != null && b != null && isNear(a.x, a.y, b.x, b.y)) {
+                    bullets.setPosition(slot, sample.lerp(a.x, b.x), sample.lerp(a.y, b.y));
+                }
+            }
+        }
+    }
+
+    private static boolean isNear(double x1, double y1, double x2, double y2) {
+        return Math.abs(x2 - x1) + Math.abs(y2 - y1) <= MAX_INTERPOLATION_DISTANCE;
+    }
+
+    private static boolean hasSoundEvent(GameState state, GameState.SoundType type) {
+        if (state.soundEvents != null) {
+            for (GameState.SoundEvent event : state.soundEvents) {
+                if (event.type == type) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     private static void playSoundEvents(GameState state, GameContext ctx) {
         if (state.soundEvents == null || state.soundEvents.isEmpty()) {
             return;
@@ -361,7 +437,7 @@ public class GameStateApplier {
     }
 
     private static void updateBullets(GameState state, GameContext ctx, int localPlayerNum) {
-        List<Bullet> bullets = ctx.getBullets();
+        BulletStore bullets = ctx.getBullets();
         Set<Long> seenBulletIds = ctx.getSeenBulletIds();
         SoundManager soundManager = ctx.getSoundManager();
         boolean firstStateReceived = ctx.isFirstStateReceived();
@@ -377,7 +453,7 @@ public class GameStateApplier {
             if (firstStateReceived && !seenBulletIds.contains(bData.id) && bData.ownerPlayerNumber != localPlayerNum) {
                 soundManager.playShoot();
             }
-            Bullet bullet = new Bullet(
+            bullets.add(
                 bData.id,
                 bData.x, bData.y,
                 Direction.values()[bData.direction],
@@ -388,7 +464,6 @@ public class GameStateApplier {
                 bData.size,
                 bData.rainbow
             );
-            bullets.add(bullet);
         }
         // Update seen bullets - keep only current bullets to prevent memory leak
         ctx.setSeenBulletIds(currentBulletIds);
@@ -26,7 +26,7 @@ public class GameStateBuilder {
             int[][] playerKillsByType,
             boolean[] playerConnected,
             List<Tank> enemyTanks,
-            List<Bullet> bullets,
+            BulletStore bullets,
             List<Laser> lasers,
             List<PowerUp> powerUps,
             boolean gameOver,
@@ -139,22 +139,21 @@ public class GameStateBuilder {
         }
     }
 
-    private static void buildBulletData(GameState state, List<Bullet> bullets) {
-        for (Bullet bullet : bullets) {
-            if (bullet != null) {
-                state.bullets.add(new GameState.BulletData(
-                    bullet.getId(),
-                    bullet.getX(),
-                    bullet.getY(),
-                    bullet.getDirection().ordinal(),
-                    bullet.isFromEnemy(),
-                    bullet.getPower(),
-                    bullet.canDestroyTrees(),
-                    bullet.getOwnerPlayerNumber(),
-                    bullet.getSize(),
-                    bullet.isRainbow()
-                ));
-            }
+    private static void buildBulletData(GameState state, BulletStore bullets) {
+        for (int i = 0; i < bullets.size(); i++) {
+            int slot = bullets.slot(i);
+            state.bullets.add(new GameState.BulletData(
+                bullets.getId(slot),
+                bullets.getX(slot),
+                bullets.getY(slot),
+                bullets.getDirection(slot).ordinal(),
+                bullets.isFromEnemy(slot),
+                bullets.getPower(slot),
+                bullets.canDestroyTrees(slot),
+                bullets.getOwnerPlayerNumber(slot),
+                bullets.getSize(slot),
+                bullets.isRainbow(slot)
+            ));
         }
     }
 
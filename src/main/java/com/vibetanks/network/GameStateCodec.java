@@ -0,0 +1,744 @@
+package com.vibetanks.network;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.List;
+
+/**
+ * Hand-written binary codec for GameState, PlayerData and PlayerInput.
+ * Replaces ObjectOutputStream on the wire: no class descriptors, no boxed graphs.
+ *
+ * Layout rules:
+ * - every top-level message starts with CODEC_VERSION
+ * - a game state is a fixed sequence of sections (header, players, base, entities, map, ...)
+ * - counts, timers and ids are varints; values that may be -1 are zigzag varints
+ * - enum ordinals (direction, enemy type, power-up type, tile type, sound type) are single bytes
+ * - boolean fields are packed into a varint bitmask per record
+ * - positions and lengths are fixed-point zigzag varints in 1/8 px (2 bytes anywhere on the
+ *   832 px playfield), entity speeds and multipliers in 1/256; a value already on that grid
+ *   round-trips exactly, any other is off by at most half a step. Host settings and the
+ *   client's own input position stay doubles - both sides run physics on them
+ *
+ * Bump CODEC_VERSION whenever the layout changes.
+ */
+public final class GameStateCodec {
+    public static final int CODEC_VERSION = 6;
+
+    // Fixed-point resolution (fraction bits) of quantized fields
+    static final int POSITION_BITS = 3;
+    static final int SPEED_BITS = 8;
+    public static final double POSITION_STEP = 1.0 / (1 << POSITION_BITS);
+    public static final double SPEED_STEP = 1.0 / (1 << SPEED_BITS);
+
+    // GameState flag bits
+    private static final int F_GAME_OVER = 1;
+    private static final int F_VICTORY = 1 << 1;
+    private static final int F_VICTORY_CONDITION_MET = 1 << 2;
+    private static final int F_BASE_ALIVE = 1 << 3;
+    private static final int F_BASE_SHOW_FLAG = 1 << 4;
+    private static final int F_BASE_SHOW_VICTORY_FLAG = 1 << 5;
+    private static final int F_BASE_CAT_MODE = 1 << 6;
+    private static final int F_CAT_ESCAPING = 1 << 7;
+    private static final int F_DELTA_MAP = 1 << 8;
+    private static final int F_DANCING_INITIALIZED = 1 << 9;
+    private static final int F_VICTORY_DANCING_INITIALIZED = 1 << 10;
+
+    // PlayerData flag bits
+    private static final int P_ALIVE = 1;
+    private static final int P_SHIELD = 1 << 1;
+    private static final int P_PAUSE_SHIELD = 1 << 2;
+    private static final int P_SHIP = 1 << 3;
+    private static final int P_GUN = 1 << 4;
+    private static final int P_SAW = 1 << 5;
+    private static final int P_CONNECTED = 1 << 6;
+
+    // PlayerInput flag bits
+    private static final int I_UP = 1;
+    private static final int I_DOWN = 1 << 1;
+    private static final int I_LEFT = 1 << 2;
+    private static final int I_RIGHT = 1 << 3;
+    private static final int I_SHOOT = 1 << 4;
+    private static final int I_REQUEST_LIFE = 1 << 5;
+    private static final int I_REQUEST_NEXT_LEVEL = 1 << 6;
+    private static final int I_REQUEST_RESTART = 1 << 7;
+    private static final int I_PAUSED = 1 << 8;
+
+    private static final GameState.SoundType[] SOUND_TYPES = GameState.SoundType.values();
+
+    private GameStateCodec() {
+    }
+
+    // ============ GAME STATE ============
+
+    /**
+     * Full snapshot: version, sequence, server time, then every section in a fixed order.
+     * SnapshotDeltaCodec reuses the same section writers for sections that changed.
+     */
+    public static void writeGameState(GameState state, WireWriter w) {
+        w.writeByte(CODEC_VERSION);
+        w.writeVarLong(state.sequence);
+        w.writeVarLong(state.serverTimeMs);
+
+        writeHeader(state, w);
+        for (PlayerData p : state.players) {
+            writePlayerData(p, w);
+        }
+        writeBase(state, w);
+
+        // Entities
+        w.writeVarInt(state.enemies.size());
+        for (GameState.EnemyData e : state.enemies) {
+            writeEnemy(e, w);
+        }
+        w.writeVarInt(state.bullets.size());
+        for (GameState.BulletData b : state.bullets) {
+            writeBullet(b, w);
+        }
+        w.writeVarInt(state.lasers.size());
+        for (GameState.LaserData l : state.lasers) {
+            writeLaser(l, w);
+        }
+        w.writeVarInt(state.powerUps.size());
+        for (GameState.PowerUpData p : state.powerUps) {
+            writePowerUp(p, w);
+        }
+
+        // Map
+        writeTileChanges(state.tileChanges, w);
+        w.writeBoolean(state.mapTiles != null);
+        if (state.mapTiles != null) {
+            writeMapTiles(state.mapTiles, w);
+        }
+        writeBurningTiles(state, w);
+
+        writeCelebrations(state, w);
+        writeUfoAndEasterEgg(state, w);
+        writeHostSettings(state, w);
+        writeSoundEvents(state, w);
+    }
+
+    public static GameState readGameState(WireReader r) throws IOException {
+        checkVersion(r);
+        GameState state = new GameState();
+        state.sequence = r.readVarLong();
+        state.serverTimeMs = r.readVarLong();
+
+        readHeader(state, r);
+        for (int i = 0; i < state.players.length; i++) {
+            state.players[i] = readPlayerData(r);
+        }
+        readBase(state, r);
+
+        int enemyCount = r.readVarInt();
+        for (int i = 0; i < enemyCount; i++) {
+            state.enemies.add(readEnemy(r));
+        }
+        int bulletCount = r.readVarInt();
+        for (int i = 0; i < bulletCount; i++) {
+            state.bullets.add(readBullet(r));
+        }
+        int laserCount = r.readVarInt();
+        for (int i = 0; i < laserCount; i++) {
+            state.lasers.add(readLaser(r));
+        }
+        int powerUpCount = r.readVarInt();
+        for (int i = 0; i < powerUpCount; i++) {
+            state.powerUps.add(readPowerUp(r));
+        }
+
+        readTileChanges(state.tileChanges, r);
+        if (r.readBoolean()) {
+            state.mapTiles = readMapTiles(r);
+        }
+        readBurningTiles(state, r);
+
+        readCelebrations(state, r);
+        readUfoAndEasterEgg(state, r);
+        readHostSettings(state, r);
+        readSoundEvents(state, r);
+        return state;
+    }
+
+    // ============ GAME STATE SECTIONS ============
+
+    static void writeHeader(GameState state, WireWriter w) {
+        int flags = 0;
+        if (state.gameOver) flags |= F_GAME_OVER;
+        if (state.victory) flags |= F_VICTORY;
+        if (state.victoryConditionMet) flags |= F_VICTORY_CONDITION_MET;
+        if (state.baseAlive) flags |= F_BASE_ALIVE;
+        if (state.baseShowFlag) flags |= F_BASE_SHOW_FLAG;
+        if (state.baseShowVictoryFlag) flags |= F_BASE_SHOW_VICTORY_FLAG;
+        if (state.baseCatMode) flags |= F_BASE_CAT_MODE;
+        if (state.catEscaping) flags |= F_CAT_ESCAPING;
+        if (state.useDeltaMapEncoding) flags |= F_DELTA_MAP;
+        if (state.dancingInitialized) flags |= F_DANCING_INITIALIZED;
+        if (state.victoryDancingInitialized) flags |= F_VICTORY_DANCING_INITIALIZED;
+        w.writeVarInt(flags);
+
+        w.writeVarInt(state.levelNumber);
+        w.writeVarInt(state.victoryDelayTimer);
+        w.writeVarInt(state.remainingEnemies);
+        w.writeVarInt(state.totalEnemiesLeft);
+        w.writeVarInt(state.connectedPlayers);
+        w.writeSignedVarInt(state.bossKillerPlayerIndex);
+        w.writeSignedVarInt(state.bossKillPowerUpReward);
+        w.writeVarInt(state.enemyFreezeDuration);
+        w.writeVarInt(state.playerFreezeDuration);
+        w.writeVarInt(state.enemyTeamSpeedBoostDuration);
+    }
+
+    static void readHeader(GameState state, WireReader r) throws IOException {
+        int flags = r.readVarInt();
+        state.gameOver = (flags & F_GAME_OVER) != 0;
+        state.victory = (flags & F_VICTORY) != 0;
+        state.victoryConditionMet = (flags & F_VICTORY_CONDITION_MET) != 0;
+        state.baseAlive = (flags & F_BASE_ALIVE) != 0;
+        state.baseShowFlag = (flags & F_BASE_SHOW_FLAG) != 0;
+        state.baseShowVictoryFlag = (flags & F_BASE_SHOW_VICTORY_FLAG) != 0;
+        state.baseCatMode = (flags & F_BASE_CAT_MODE) != 0;
+        state.catEscaping = (flags & F_CAT_ESCAPING) != 0;
+        state.useDeltaMapEncoding = (flags & F_DELTA_MAP) != 0;
+        state.dancingInitialized = (flags & F_DANCING_INITIALIZED) != 0;
+        state.victoryDancingInitialized = (flags & F_VICTORY_DANCING_INITIALIZED) != 0;
+
+        state.levelNumber = r.readVarInt();
+        state.victoryDelayTimer = r.readVarInt();
+        state.remainingEnemies = r.readVarInt();
+        state.totalEnemiesLeft = r.readVarInt();
+        state.connectedPlayers = r.readVarInt();
+        state.bossKillerPlayerIndex = r.readSignedVarInt();
+        state.bossKillPowerUpReward = r.readSignedVarInt();
+        state.enemyFreezeDuration = r.readVarInt();
+        state.playerFreezeDuration = r.readVarInt();
+        state.enemyTeamSpeedBoostDuration = r.readVarInt();
+    }
+
+    // Base flags and the cat escape animation (present only while catEscaping is set by the header)
+    static void writeBase(GameState state, WireWriter w) {
+        writePosition(state.baseFlagHeight, w);
+        writePosition(state.baseVictoryFlagHeight, w);
+        if (state.catEscaping) {
+            writePosition(state.catEscapeX, w);
+            writePosition(state.catEscapeY, w);
+            w.writeVarInt(state.catEscapeFrame);
+            writePosition(state.toyX, w);
+            writePosition(state.toyY, w);
+            w.writeVarInt(state.toyType);
+        }
+    }
+
+    static void readBase(GameState state, WireReader r) throws IOException {
+        state.baseFlagHeight = readPosition(r);
+        state.baseVictoryFlagHeight = readPosition(r);
+        if (state.catEscaping) {
+            state.catEscapeX = readPosition(r);
+            state.catEscapeY = readPosition(r);
+            state.catEscapeFrame = r.readVarInt();
+            state.toyX = readPosition(r);
+            state.toyY = readPosition(r);
+            state.toyType = r.readVarInt();
+        }
+    }
+
+    static void writeBurningTiles(GameState state, WireWriter w) {
+        w.writeVarInt(state.burningTiles.size());
+        for (GameState.BurningTileData bt : state.burningTiles) {
+            w.writeVarInt(bt.row);
+            w.writeVarInt(bt.col);
+            w.writeVarInt(bt.framesRemaining);
+        }
+    }
+
+    static void readBurningTiles(GameState state, WireReader r) throws IOException {
+        int count = r.readVarInt();
+        for (int i = 0; i < count; i++) {
+            state.burningTiles.add(new GameState.BurningTileData(r.readVarInt(), r.readVarInt(), r.readVarInt()));
+        }
+    }
+
+    static void writeCelebrations(GameState state, WireWriter w) {
+        w.writeVarInt(state.dancingCharacters.size());
+        for (GameState.DancingCharacterData d : state.dancingCharacters) {
+            writeDancingCharacter(d, w);
+        }
+        w.writeVarInt(state.victoryDancingGirls.size());
+        for (GameState.DancingGirlData g : state.victoryDancingGirls) {
+            writeDancingGirl(g, w);
+        }
+    }
+
+    static void readCelebrations(GameState state, WireReader r) throws IOException {
+        int dancerCount = r.readVarInt();
+        for (int i = 0; i < dancerCount; i++) {
+            state.dancingCharacters.add(readDancingCharacter(r));
+        }
+        int girlCount = r.readVarInt();
+        for (int i = 0; i < girlCount; i++) {
+            state.victoryDancingGirls.add(readDancingGirl(r));
+        }
+    }
+
+    static void writeUfoAndEasterEgg(GameState state, WireWriter w) {
+        int present = (state.ufoData != null ? 1 : 0) | (state.easterEggData != null ? 2 : 0);
+        w.writeByte(present);
+        if (state.ufoData != null) {
+            writeUfo(state.ufoData, w);
+        }
+        w.writeVarInt(state.ufoLostMessageTimer);
+        w.writeVarInt(state.ufoKilledMessageTimer);
+        if (state.easterEggData != null) {
+            writePosition(state.easterEggData.x, w);
+            writePosition(state.easterEggData.y, w);
+            w.writeSignedVarInt(state.easterEggData.lifetime);
+        }
+    }
+
+    static void readUfoAndEasterEgg(GameState state, WireReader r) throws IOException {
+        int present = r.readByte();
+        state.ufoData = (present & 1) != 0 ? readUfo(r) : null;
+        state.ufoLostMessageTimer = r.readVarInt();
+        state.ufoKilledMessageTimer = r.readVarInt();
+        state.easterEggData = (present & 2) != 0
+            ? new GameState.EasterEggData(readPosition(r), readPosition(r), r.readSignedVarInt())
+            : null;
+    }
+
+    static void writeHostSettings(GameState state, WireWriter w) {
+        w.writeDouble(state.hostPlayerSpeed);
+        w.writeDouble(state.hostEnemySpeed);
+        w.writeDouble(state.hostPlayerShootSpeed);
+        w.writeDouble(state.hostEnemyShootSpeed);
+    }
+
+    static void readHostSettings(GameState state, WireReader r) throws IOException {
+        state.hostPlayerSpeed = r.readDouble();
+        state.hostEnemySpeed = r.readDouble();
+        state.hostPlayerShootSpeed = r.readDouble();
+        state.hostEnemyShootSpeed = r.readDouble();
+    }
+
+    static void writeSoundEvents(GameState state, WireWriter w) {
+        w.writeVarInt(state.soundEvents.size());
+        for (GameState.SoundEvent s : state.soundEvents) {
+            w.writeByte(s.type.ordinal());
+            w.writeByte(s.playerNumber);
+        }
+    }
+
+    static void readSoundEvents(GameState state, WireReader r) throws IOException {
+        int soundCount = r.readVarInt();
+        for (int i = 0; i < soundCount; i++) {
+            int ordinal = r.readUnsignedByte();
+            int playerNumber = r.readByte();
+            if (ordinal >= SOUND_TYPES.length) {
+                throw new StreamCorruptedException("Unknown sound type: " + ordinal);
+            }
+            state.soundEvents.add(new GameState.SoundEvent(SOUND_TYPES[ordinal], playerNumber));
+        }
+    }
+
+    // ============ PLAYER DATA ============
+
+    public static void writePlayerData(PlayerData p, WireWriter w) {
+        w.writeVarInt(playerFlags(p));
+        w.writeByte(p.playerNumber);
+        writePosition(p.x, w);
+        writePosition(p.y, w);
+        w.writeByte(p.direction);
+        w.writeSignedVarInt(p.lives);
+        w.writeVarInt(p.respawnTimer);
+        if (p.respawnTimer > 0) {
+            writePosition(p.pendingRespawnX, w);
+            writePosition(p.pendingRespawnY, w);
+        }
+        w.writeVarInt(p.kills);
+        w.writeSignedVarInt(p.score);
+        w.writeSignedVarInt(p.levelScore);
+        for (int i = 0; i < p.killsByType.length; i++) {
+            w.writeVarInt(p.killsByType[i]);
+        }
+        w.writeVarInt(p.shieldDuration);
+        w.writeVarInt(p.starCount);
+        w.writeVarInt(p.carCount);
+        w.writeVarInt(p.machinegunCount);
+        w.writeVarInt(p.laserDuration);
+        w.writeString(p.nickname);
+        w.writeVarLong(p.lastInputSequence);
+    }
+
+    public static PlayerData readPlayerData(WireReader r) throws IOException {
+        int flags = r.readVarInt();
+        PlayerData p = new PlayerData(r.readByte());
+        setPlayerFlags(p, flags);
+
+        p.x = readPosition(r);
+        p.y = readPosition(r);
+        p.direction = r.readByte();
+        p.lives = r.readSignedVarInt();
+        p.respawnTimer = r.readVarInt();
+        if (p.respawnTimer > 0) {
+            p.pendingRespawnX = readPosition(r);
+            p.pendingRespawnY = readPosition(r);
+        }
+        p.kills = r.readVarInt();
+        p.score = r.readSignedVarInt();
+        p.levelScore = r.readSignedVarInt();
+        for (int i = 0; i < p.killsByType.length; i++) {
+            p.killsByType[i] = r.readVarInt();
+        }
+        p.shieldDuration = r.readVarInt();
+        p.starCount = r.readVarInt();
+        p.carCount = r.readVarInt();
+        p.machinegunCount = r.readVarInt();
+        p.laserDuration = r.readVarInt();
+        p.nickname = r.readString();
+        p.lastInputSequence = r.readVarLong();
+        return p;
+    }
+
+    static int playerFlags(PlayerData p) {
+        int flags = 0;
+        if (p.alive) flags |= P_ALIVE;
+        if (p.hasShield) flags |= P_SHIELD;
+        if (p.hasPauseShield) flags |= P_PAUSE_SHIELD;
+        if (p.hasShip) flags |= P_SHIP;
+        if (p.hasGun) flags |= P_GUN;
+        if (p.hasSaw) flags |= P_SAW;
+        if (p.connected) flags |= P_CONNECTED;
+        return flags;
+    }
+
+    static void setPlayerFlags(PlayerData p, int flags) {
+        p.alive = (flags & P_ALIVE) != 0;
+        p.hasShield = (flags & P_SHIELD) != 0;
+        p.hasPauseShield = (flags & P_PAUSE_SHIELD) != 0;
+        p.hasShip = (flags & P_SHIP) != 0;
+        p.hasGun = (flags & P_GUN) != 0;
+        p.hasSaw = (flags & P_SAW) != 0;
+        p.connected = (flags & P_CONNECTED) != 0;
+    }
+
+    // ============ PLAYER INPUT ============
+
+    public static void writePlayerInput(PlayerInput input, WireWriter w) {
+        w.writeByte(CODEC_VERSION);
+
+        int flags = 0;
+        if (input.up) flags |= I_UP;
+        if (input.down) flags |= I_DOWN;
+        if (input.left) flags |= I_LEFT;
+        if (input.right) flags |= I_RIGHT;
+        if (input.shoot) flags |= I_SHOOT;
+        if (input.requestLife) flags |= I_REQUEST_LIFE;
+        if (input.requestNextLevel) flags |= I_REQUEST_NEXT_LEVEL;
+        if (input.requestRestart) flags |= I_REQUEST_RESTART;
+        if (input.paused) flags |= I_PAUSED;
+        w.writeVarInt(flags);
+
+        w.writeDouble(input.posX);
+        w.writeDouble(input.posY);
+        w.writeByte(input.direction);
+        w.writeString(input.nickname);
+        w.writeVarLong(input.sequenceNumber);
+        w.writeVarLong(input.timestamp);
+        w.writeVarLong(input.ackSnapshotSequence);
+
+        int historyLength = input.history != null ? input.history.length : 0;
+        w.writeVarInt(historyLength);
+        if (historyLength > 0) {
+            w.writeBytes(input.history, 0, historyLength);
+        }
+    }
+
+    public static PlayerInput readPlayerInput(WireReader r) throws IOException {
+        checkVersion(r);
+        PlayerInput input = new PlayerInput();
+
+        int flags = r.readVarInt();
+        input.up = (flags & I_UP) != 0;
+        input.down = (flags & I_DOWN) != 0;
+        input.left = (flags & I_LEFT) != 0;
+        input.right = (flags & I_RIGHT) != 0;
+        input.shoot = (flags & I_SHOOT) != 0;
+        input.requestLife = (flags & I_REQUEST_LIFE) != 0;
+        input.requestNextLevel = (flags & I_REQUEST_NEXT_LEVEL) != 0;
+        input.requestRestart = (flags & I_REQUEST_RESTART) != 0;
+        input.paused = (flags & I_PAUSED) != 0;
+
+        input.posX = r.readDouble();
+        input.posY = r.readDouble();
+        input.direction = r.readByte();
+        input.nickname = r.readString();
+        input.sequenceNumber = r.readVarLong();
+        input.timestamp = r.readVarLong();
+        input.ackSnapshotSequence = r.readVarLong();
+
+        int historyLength = r.readVarInt();
+        if (historyLength > InputHistory.SIZE) {
+            throw new StreamCorruptedException("Input history of " + historyLength + " frames");
+        }
+        if (historyLength > 0) {
+            input.history = new byte[historyLength];
+            r.readBytes(input.history, 0, historyLength);
+        }
+        return input;
+    }
+
+    // ============ ENTITY RECORDS ============
+
+    static void writeEnemy(GameState.EnemyData e, WireWriter w) {
+        writePosition(e.x, w);
+        writePosition(e.y, w);
+        w.writeByte(e.direction);
+        w.writeBoolean(e.alive);
+        w.writeByte(e.enemyType);
+        w.writeSignedVarInt(e.health);
+        w.writeVarInt(e.maxHealth);
+        writeSpeed(e.tempSpeedBoost, w);
+        writeSpeed(e.speedMultiplier, w);
+        w.writeSignedVarInt(e.colorOverrideIndex);
+    }
+
+    static GameState.EnemyData readEnemy(WireReader r) throws IOException {
+        double x = readPosition(r);
+        double y = readPosition(r);
+        int direction = r.readByte();
+        boolean alive = r.readBoolean();
+        int enemyType = r.readByte();
+        int health = r.readSignedVarInt();
+        int maxHealth = r.readVarInt();
+        double tempSpeedBoost = readSpeed(r);
+        double speedMultiplier = readSpeed(r);
+        int colorOverrideIndex = r.readSignedVarInt();
+        return new GameState.EnemyData(x, y, direction, alive, enemyType, health, maxHealth,
+            tempSpeedBoost, speedMultiplier, colorOverrideIndex);
+    }
+
+    static void writeBullet(GameState.BulletData b, WireWriter w) {
+        w.writeVarLong(b.id);
+        writePosition(b.x, w);
+        writePosition(b.y, w);
+        w.writeByte(b.direction);
+        w.writeByte(bulletFlags(b));
+        w.writeByte(b.power);
+        w.writeByte(b.ownerPlayerNumber);
+        w.writeByte(b.size);
+    }
+
+    static GameState.BulletData readBullet(WireReader r) throws IOException {
+        long id = r.readVarLong();
+        double x = readPosition(r);
+        double y = readPosition(r);
+        int direction = r.readByte();
+        int flags = r.readByte();
+        int power = r.readByte();
+        int owner = r.readByte();
+        int size = r.readUnsignedByte();
+        return new GameState.BulletData(id, x, y, direction, (flags & 1) != 0, power,
+            (flags & 2) != 0, owner, size, (flags & 4) != 0);
+    }
+
+    static int bulletFlags(GameState.BulletData b) {
+        return (b.fromEnemy ? 1 : 0) | (b.canDestroyTrees ? 2 : 0) | (b.rainbow ? 4 : 0);
+    }
+
+    static void writeLaser(GameState.LaserData l, WireWriter w) {
+        w.writeVarLong(l.id);
+        writePosition(l.startX, w);
+        writePosition(l.startY, w);
+        w.writeByte(l.direction);
+        w.writeBoolean(l.fromEnemy);
+        w.writeByte(l.ownerPlayerNumber);
+        w.writeVarInt(l.lifetime);
+        writePosition(l.length, w);
+    }
+
+    static GameState.LaserData readLaser(WireReader r) throws IOException {
+        long id = r.readVarLong();
+        double startX = readPosition(r);
+        double startY = readPosition(r);
+        int direction = r.readByte();
+        boolean fromEnemy = r.readBoolean();
+        int owner = r.readByte();
+        int lifetime = r.readVarInt();
+        double length = readPosition(r);
+        return new GameState.LaserData(id, startX, startY, direction, fromEnemy, owner, lifetime, length);
+    }
+
+    static void writePowerUp(GameState.PowerUpData p, WireWriter w) {
+        w.writeVarLong(p.id);
+        writePosition(p.x, w);
+        writePosition(p.y, w);
+        w.writeByte(p.type);
+        w.writeSignedVarInt(p.lifetime);
+    }
+
+    static GameState.PowerUpData readPowerUp(WireReader r) throws IOException {
+        long id = r.readVarLong();
+        double x = readPosition(r);
+        double y = readPosition(r);
+        int type = r.readByte();
+        int lifetime = r.readSignedVarInt();
+        return new GameState.PowerUpData(id, x, y, type, lifetime);
+    }
+
+    static void writeDancingCharacter(GameState.DancingCharacterData d, WireWriter w) {
+        writePosition(d.x, w);
+        writePosition(d.y, w);
+        w.writeBoolean(d.isAlien);
+        w.writeVarInt(d.animFrame);
+        w.writeVarInt(d.danceStyle);
+        w.writeVarInt(d.colorIndex);
+    }
+
+    static GameState.DancingCharacterData readDancingCharacter(WireReader r) throws IOException {
+        double x = readPosition(r);
+        double y = readPosition(r);
+        boolean isAlien = r.readBoolean();
+        int animFrame = r.readVarInt();
+        int danceStyle = r.readVarInt();
+        int colorIndex = r.readVarInt();
+        return new GameState.DancingCharacterData(x, y, isAlien, animFrame, danceStyle, colorIndex);
+    }
+
+    static void writeDancingGirl(GameState.DancingGirlData g, WireWriter w) {
+        writePosition(g.x, w);
+        writePosition(g.y, w);
+        w.writeVarInt(g.animFrame);
+        w.writeVarInt(g.danceStyle);
+        w.writeVarInt(g.dressColorIndex);
+        w.writeVarInt(g.hairColorIndex);
+    }
+
+    static GameState.DancingGirlData readDancingGirl(WireReader r) throws IOException {
+        double x = readPosition(r);
+        double y = readPosition(r);
+        int animFrame = r.readVarInt();
+        int danceStyle = r.readVarInt();
+        int dressColorIndex = r.readVarInt();
+        int hairColorIndex = r.readVarInt();
+        return new GameState.DancingGirlData(x, y, animFrame, danceStyle, dressColorIndex, hairColorIndex);
+    }
+
+    static void writeUfo(GameState.UFOData u, WireWriter w) {
+        writePosition(u.x, w);
+        writePosition(u.y, w);
+        writeSpeed(u.dx, w);
+        writeSpeed(u.dy, w);
+        int flags = (u.alive ? 1 : 0) | (u.movingRight ? 2 : 0);
+        w.writeByte(flags);
+        w.writeSignedVarInt(u.health);
+        w.writeSignedVarInt(u.lifetime);
+    }
+
+    static GameState.UFOData readUfo(WireReader r) throws IOException {
+        double x = readPosition(r);
+        double y = readPosition(r);
+        double dx = readSpeed(r);
+        double dy = readSpeed(r);
+        int flags = r.readByte();
+        int health = r.readSignedVarInt();
+        int lifetime = r.readSignedVarInt();
+        return new GameState.UFOData(x, y, dx, dy, (flags & 1) != 0, health, lifetime, (flags & 2) != 0);
+    }
+
+    static void writeTileChanges(List<GameState.TileChange> changes, WireWriter w) {
+        w.writeVarInt(changes.size());
+        for (GameState.TileChange tc : changes) {
+            w.writeVarInt(tc.row);
+            w.writeVarInt(tc.col);
+            w.writeByte(tc.tileType);
+        }
+    }
+
+    static void readTileChanges(List<GameState.TileChange> into, WireReader r) throws IOException {
+        int count = r.readVarInt();
+        for (int i = 0; i < count; i++) {
+            into.add(new GameState.TileChange(r.readVarInt(), r.readVarInt(), r.readUnsignedByte()));
+        }
+    }
+
+    /**
+     * Full map: rows, cols, then one byte per tile ordinal in row-major order.
+     */
+    static void writeMapTiles(int[][] tiles, WireWriter w) {
+        int rows = tiles.length;
+        int cols = rows > 0 ? tiles[0].length : 0;
+        w.writeVarInt(rows);
+        w.writeVarInt(cols);
+        for (int[] row : tiles) {
+            for (int col = 0; col < cols; col++) {
+                w.writeByte(row[col]);
+            }
+        }
+    }
+
+    static int[][] readMapTiles(WireReader r) throws IOException {
+        int rows = r.readVarInt();
+        int cols = r.readVarInt();
+        if (rows < 0 || cols < 0 || (long) rows * cols > r.remaining()) {
+            throw new StreamCorruptedException("Map size " + rows + "x" + cols + " exceeds frame");
+        }
+        int[][] tiles = new int[rows][cols];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                tiles[row][col] = r.readUnsignedByte();
+            }
+        }
+        return tiles;
+    }
+
+    // ============ FIXED POINT ============
+
+    static void writePosition(double value, WireWriter w) {
+        w.writeSignedVarInt(toFixed(value, POSITION_BITS));
+    }
+
+    static double readPosition(WireReader r) throws IOException {
+        return r.readSignedVarInt() * POSITION_STEP;
+    }
+
+    static void writeSpeed(double value, WireWriter w) {
+        w.writeSignedVarInt(toFixed(value, SPEED_BITS));
+    }
+
+    static double readSpeed(WireReader r) throws IOException {
+        return r.readSignedVarInt() * SPEED_STEP;
+    }
+
+    /**
+     * Whether two positions encode identically - deltas skip changes below the resolution.
+     */
+    static boolean samePosition(double a, double b) {
+        return toFixed(a, POSITION_BITS) == toFixed(b, POSITION_BITS);
+    }
+
+    static boolean sameSpeed(double a, double b) {
+        return toFixed(a, SPEED_BITS) == toFixed(b, SPEED_BITS);
+    }
+
+    /**
+     * The value as it will arrive: rounded to the position grid.
+     */
+    static double quantizePosition(double value) {
+        return toFixed(value, POSITION_BITS) * POSITION_STEP;
+    }
+
+    static double quantizeSpeed(double value) {
+        return toFixed(value, SPEED_BITS) * SPEED_STEP;
+    }
+
+    // Nearest multiple of 2^-bits, saturating instead of wrapping (NaN becomes 0)
+    private static int toFixed(double value, int bits) {
+        long fixed = Math.round(value * (1 << bits));
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, fixed));
+    }
+
+    static void checkVersion(WireReader r) throws IOException {
+        int version = r.readUnsignedByte();
+        if (version != CODEC_VERSION) {
+            throw new StreamCorruptedException("Unsupported codec version " + version + " (expected " + CODEC_VERSION + ")");
+        }
+    }
+}
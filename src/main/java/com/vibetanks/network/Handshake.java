@@ -0,0 +1,231 @@
+package com.vibetanks.network;
+
+import java.io.IOException;
+
+/**
+ * Connection handshake: the client's MSG_JOIN says what it speaks and what it wants, the
+ * host answers MSG_WELCOME with what was agreed - or MSG_JOIN_REJECTED with the reason,
+ * and closes the connection.
+ *
+ * JOIN:     [nullable room code][varint capabilities][varlong dictionary id if CAP_COMPRESSION]
+ *           [varint protocol version][varint codec version][varint snapshot rate, 0 = host default]
+ *           [varint max packet size, 0 = as large as the transport allows]
+ * WELCOME:  [varint protocol version][varint codec version][varint capabilities][varint snapshot rate]
+ *           [varint max packet size]
+ * REJECTED: [varint reason][string message]
+ *
+ * JOIN fields are only ever appended. Clients from before the version fields read as
+ * protocol 0 and are turned away with a message rather than failing on their first snapshot.
+ * Both versions must match exactly: WireProtocol.PROTOCOL_VERSION covers message types and
+ * their layouts, GameStateCodec.CODEC_VERSION the snapshot encoding.
+ *
+ * The max packet size bounds every frame the host sends the client, and over UDP every
+ * datagram. Larger frames go out as MSG_FRAGMENT pieces (FrameSplitter); a client asking
+ * for less than MIN_PACKET_SIZE is turned away.
+ */
+public final class Handshake {
+    // Capability bits
+    public static final int CAP_COMPRESSION = 1; // Followed by the varlong dictionary id
+    public static final int CAP_SPECTATOR = 2;   // Watch only: no player slot, no inputs
+    public static final int CAP_DELTA = 4;       // Decodes MSG_GAME_STATE_DELTA (else full snapshots only)
+    static final int SUPPORTED = CAP_COMPRESSION | CAP_SPECTATOR | CAP_DELTA;
+
+    // Rejection reasons
+    public static final int REJECT_VERSION = 1; // Or a max packet size below MIN_PACKET_SIZE
+    public static final int REJECT_FULL = 2;
+    public static final int REJECT_NO_ROOM = 3;
+
+    // What a first frame other than MSG_JOIN stands for: a client from before the handshake
+    public static final Join NO_JOIN = new Join(null, 0, 0, 0, 0, 0);
+
+    // Room for every control frame and a useful share of a snapshot per fragment
+    public static final int MIN_PACKET_SIZE = 512;
+
+    private Handshake() {
+    }
+
+    /**
+     * Whether a connection opens with the ObjectOutputStream header (AC ED 00 05) of a client
+     * from before the binary protocol. Read as a frame length that is about 14 KB, so both sides
+     * would wait for the other; such a client cannot read a rejection and is closed at once.
+     */
+    public static boolean isLegacyStream(int firstByte, int secondByte) {
+        return firstByte == 0xAC && secondByte == 0xED;
+    }
+
+    /**
+     * A client's MSG_JOIN.
+     * @param snapshotRate snapshots per second the client wants, 0 for the host's rate
+     * @param maxPacketSize largest frame or datagram the client wants, 0 for the transport's limit
+     */
+    public record Join(String roomCode, int capabilities, int protocolVersion, int codecVersion,
+                       int snapshotRate, int maxPacketSize) {
+
+        public boolean has(int capability) {
+            return (capabilities & capability) != 0;
+        }
+
+        public void write(WireWriter w) {
+            long dictionaryId = has(CAP_COMPRESSION) ? CompressionDictionary.id() : 0;
+            w.writeString(roomCode);
+            w.writeVarInt(dictionaryId != 0 ? capabilities : capabilities & ~CAP_COMPRESSION);
+            if (dictionaryId != 0) {
+                w.writeVarLong(dictionaryId);
+            }
+            w.writeVarInt(protocolVersion);
+            w.writeVarInt(codecVersion);
+            w.writeVarInt(snapshotRate);
+            w.writeVarInt(maxPacketSize);
+        }
+
+        /**
+         * Read a JOIN payload. CAP_COMPRESSION is kept only if the client's dictionary is ours;
+         * fields an older client did not send read as 0.
+         */
+        public static Join read(WireReader r) throws IOException {
+            String roomCode = r.readString();
+            int capabilities = r.remaining() > 0 ? r.readVarInt() : 0;
+            if ((capabilities & CAP_COMPRESSION) != 0) {
+                long dictionaryId = r.readVarLong();
+                if (dictionaryId == 0 || dictionaryId != CompressionDictionary.id()) {
+                    capabilities &= ~CAP_COMPRESSION;
+                }
+            }
+            int protocolVersion = r.remaining() > 0 ? r.readVarInt() : 0;
+            int codecVersion = r.remaining() > 0 ? r.readVarInt() : 0;
+            int snapshotRate = r.remaining() > 0 ? r.readVarInt() : 0;
+            int maxPacketSize = r.remaining() > 0 ? r.readVarInt() : 0;
+            return new Join(roomCode, capabilities & SUPPORTED, protocolVersion, codecVersion, snapshotRate,
+                maxPacketSize);
+        }
+
+        /**
+         * Why this client cannot talk to us, or null if it can.
+         */
+        public String incompatibility() {
+            String problem = Handshake.incompatibility(protocolVersion, codecVersion);
+            if (problem == null && maxPacketSize != 0 && maxPacketSize < MIN_PACKET_SIZE) {
+                problem = "Maximum packet size " + maxPacketSize + " is below the " + MIN_PACKET_SIZE + " bytes the host needs";
+            }
+            return problem;
+        }
+    }
+
+    /**
+     * The host's MSG_WELCOME: what this connection will use.
+     */
+    public record Welcome(int protocolVersion, int codecVersion, int capabilities, int snapshotRate,
+                          int maxPacketSize) {
+
+        public boolean has(int capability) {
+            return (capabilities & capability) != 0;
+        }
+
+        public void write(WireWriter w) {
+            w.writeVarInt(protocolVersion);
+            w.writeVarInt(codecVersion);
+            w.writeVarInt(capabilities);
+            w.writeVarInt(snapshotRate);
+            w.writeVarInt(maxPacketSize);
+        }
+
+        public static Welcome read(WireReader r) throws IOException {
+            return new Welcome(r.readVarInt(), r.readVarInt(), r.readVarInt(), r.readVarInt(), r.readVarInt());
+        }
+
+        /**
+         * Why we cannot talk to this host, or null if we can.
+         */
+        public String incompatibility() {
+            return Handshake.incompatibility(protocolVersion, codecVersion);
+        }
+    }
+
+    /**
+     * JOIN from this build: everything it supports, plus the spectator flag if asked.
+     */
+    public static Join join(String roomCode, boolean spectator, int snapshotRate) {
+        return join(roomCode, spectator, snapshotRate, 0);
+    }
+
+    /**
+     * @param maxPacketSize largest frame or datagram to receive, 0 for the transport's limit
+     */
+    public static Join join(String roomCode, boolean spectator, int snapshotRate, int maxPacketSize) {
+        int capabilities = CAP_DELTA
+            | (CompressionDictionary.id() != 0 ? CAP_COMPRESSION : 0)
+            | (spectator ? CAP_SPECTATOR : 0);
+        return new Join(roomCode == null || roomCode.isEmpty() ? null : roomCode, capabilities,
+            WireProtocol.PROTOCOL_VERSION, GameStateCodec.CODEC_VERSION, Math.max(0, snapshotRate),
+            Math.max(0, maxPacketSize));
+    }
+
+    /**
+     * How many of the host's snapshots go by per snapshot sent to this client: enough to
+     * stay at or under the rate it asked for, and at least minDivisor.
+     */
+    public static int sendDivisor(Join join, int hostSnapshotRate, int minDivisor) {
+        int divisor = 1;
+        if (join.snapshotRate() > 0 && join.snapshotRate() < hostSnapshotRate) {
+            divisor = (hostSnapshotRate + join.snapshotRate() - 1) / join.snapshotRate();
+        }
+        return Math.max(Math.max(1, minDivisor), divisor);
+    }
+
+    /**
+     * Largest frame or datagram to send this client: what it asked for, within transportLimit.
+     */
+    public static int maxPacketSize(Join join, int transportLimit) {
+        return join.maxPacketSize() > 0 ? Math.min(join.maxPacketSize(), transportLimit) : transportLimit;
+    }
+
+    /**
+     * Answer to a compatible JOIN.
+     * @param sendDivisor from sendDivisor()
+     * @param maxPacketSize from maxPacketSize()
+     */
+    public static Welcome welcome(Join join, int hostSnapshotRate, int sendDivisor, int maxPacketSize) {
+        return new Welcome(WireProtocol.PROTOCOL_VERSION, GameStateCodec.CODEC_VERSION,
+            join.capabilities() & SUPPORTED, Math.max(1, hostSnapshotRate / sendDivisor), maxPacketSize);
+    }
+
+    public static byte[] welcomeFrame(Welcome welcome) {
+        WireWriter payload = new WireWriter(16);
+        welcome.write(payload);
+        return frame(WireProtocol.MSG_WELCOME, payload);
+    }
+
+    public static byte[] rejectFrame(int reason, String message) {
+        WireWriter payload = new WireWriter(message.length() + 8);
+        payload.writeVarInt(reason);
+        payload.writeString(message);
+        return frame(WireProtocol.MSG_JOIN_REJECTED, payload);
+    }
+
+    /**
+     * The message of a MSG_JOIN_REJECTED payload.
+     */
+    public static String readReject(WireReader r) throws IOException {
+        r.readVarInt(); // Reason - the message says it for people
+        String message = r.readString();
+        return message != null ? message : "Rejected by host";
+    }
+
+    private static String incompatibility(int protocolVersion, int codecVersion) {
+        if (protocolVersion != WireProtocol.PROTOCOL_VERSION || codecVersion != GameStateCodec.CODEC_VERSION) {
+            String older = protocolVersion < WireProtocol.PROTOCOL_VERSION
+                || (protocolVersion == WireProtocol.PROTOCOL_VERSION && codecVersion < GameStateCodec.CODEC_VERSION)
+                ? "other side is older" : "other side is newer";
+            return "Incompatible game versions (protocol " + protocolVersion + "/codec " + codecVersion
+                + ", expected " + WireProtocol.PROTOCOL_VERSION + "/" + GameStateCodec.CODEC_VERSION
+                + ") - " + older + ", please update";
+        }
+        return null;
+    }
+
+    private static byte[] frame(int type, WireWriter payload) {
+        WireWriter frame = new WireWriter(payload.size() + 4);
+        WireProtocol.encodeFrame(type, payload, frame);
+        return frame.toByteArray();
+    }
+}
@@ -0,0 +1,45 @@
+package com.vibetanks.network;
+
+/**
+ * The client's last SIZE inputs as packed buttons (PlayerInput.packButtons), attached to
+ * every outgoing input. A receiver that missed some inputs - lost datagrams, or a burst that
+ * arrived late - rebuilds them from the next one that gets through, so no shot or request
+ * is lost to a short outage.
+ *
+ * Costs SIZE + 1 bytes per input. Not thread-safe - owned by the client's game loop.
+ */
+public class InputHistory {
+    public static final int SIZE = 8; // ~130 ms of inputs at 60 FPS
+
+    private final byte[] ring = new byte[SIZE];
+    private int newest = -1; // Index of the newest remembered input
+    private int count;
+    private long lastSequence;
+
+    /**
+     * Set input.history to the buttons of the inputs directly before it, then remember its own.
+     * Unsequenced inputs (restart/next-level requests, sent reliably) get no history and are
+     * not remembered.
+     */
+    public void attach(PlayerInput input) {
+        long sequence = input.sequenceNumber;
+        if (sequence <= 0) {
+            input.history = null;
+            return;
+        }
+        if (sequence != lastSequence + 1) {
+            count = 0; // Gap - the remembered inputs no longer precede this one
+        }
+
+        byte[] history = new byte[count];
+        for (int k = 0; k < count; k++) {
+            history[k] = ring[Math.floorMod(newest - k, SIZE)];
+        }
+        input.history = history;
+
+        newest = (newest + 1) % SIZE;
+        ring[newest] = (byte) input.packButtons();
+        count = Math.min(count + 1, SIZE);
+        lastSequence = sequence;
+    }
+}
@@ -0,0 +1,80 @@
+package com.vibetanks.network;
+
+import java.util.ArrayDeque;
+
+/**
+ * One remote player's received inputs, waiting to be applied one per tick.
+ *
+ * offer() fills sequence gaps from the input's history (see InputHistory) and drops
+ * duplicates, so inputs are queued exactly once and in order however the packets arrived.
+ * The queue doubles as a jitter buffer: a burst of inputs is spread over the following
+ * ticks instead of being collapsed into one. If more than MAX_BUFFERED inputs pile up -
+ * the client runs faster than the tick, or a long stall ended - the oldest are folded into
+ * the next with merge(), which keeps every shot and request.
+ *
+ * offer() runs on network threads and poll() on the tick thread, so all methods are synchronized.
+ */
+public class InputQueue {
+    public static final int MAX_BUFFERED = 4;
+
+    private final ArrayDeque<PlayerInput> queue = new ArrayDeque<>();
+    private long lastSequence; // Newest sequence queued so far (0 = none)
+
+    /**
+     * Queue an input and the missed inputs rebuilt from its history. Unsequenced inputs
+     * (sequence 0) are always queued.
+     * @return false if the input was a duplicate or arrived out of order
+     */
+    public synchronized boolean offer(PlayerInput input) {
+        long sequence = input.sequenceNumber;
+        if (sequence != 0) {
+            if (sequence <= lastSequence) {
+                return false;
+            }
+            // Rebuild the inputs between the last one queued and this one, oldest first
+            if (lastSequence > 0 && input.history != null) {
+                int missed = (int) Math.min(sequence - lastSequence - 1, input.history.length);
+                for (int k = missed - 1; k >= 0; k--) {
+                    queue.addLast(PlayerInput.fromButtons(input.history[k], sequence - 1 - k));
+                }
+            }
+            lastSequence = sequence;
+        }
+        queue.addLast(input);
+        while (queue.size() > MAX_BUFFERED) {
+            PlayerInput oldest = queue.pollFirst();
+            queue.addFirst(merge(oldest, queue.pollFirst()));
+        }
+        return true;
+    }
+
+    /**
+     * Next input to apply, or null if none arrived in time.
+     */
+    public synchronized PlayerInput poll() {
+        return queue.pollFirst();
+    }
+
+    public synchronized int size() {
+        return queue.size();
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Combine two inputs into one: the newer one decides movement and position, but a
+     * shot or request in the older one still counts.
+     */
+    public static PlayerInput merge(PlayerInput older, PlayerInput newer) {
+        newer.shoot |= older.shoot;
+        newer.requestLife |= older.requestLife;
+        newer.requestNextLevel |= older.requestNextLevel;
+        newer.requestRestart |= older.requestRestart;
+        if (newer.nickname == null) {
+            newer.nickname = older.nickname;
+        }
+        return newer;
+    }
+}
@@ -0,0 +1,272 @@
+package com.vibetanks.network;
+
+import com.vibetanks.util.GameLogger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only recording of a match for offline replay: every snapshot the host or server
+ * sends and every input it applies, tagged with the frame (tick) they belong to.
+ * MatchReplay reads it back.
+ *
+ * File layout: header [int MAGIC][byte FORMAT_VERSION][byte GameStateCodec.CODEC_VERSION],
+ * then records framed like WireProtocol - [varint length][type][varlong frame][payload]:
+ *   REC_KEYFRAME: GameStateCodec snapshot - the first one and every KEYFRAME_INTERVAL after
+ *   REC_DELTA:    SnapshotDeltaCodec delta against the previous recorded snapshot, so the
+ *                 map travels as changed tiles only
+ *   REC_INPUT:    varint player number, GameStateCodec input
+ *   REC_INDEX:    varint count, (varlong frame, varlong file offset) per keyframe
+ * close() writes REC_INDEX last, followed by [long offset of REC_INDEX][int INDEX_MAGIC].
+ * A recording cut short by a crash has no index; MatchReplay rebuilds it by scanning.
+ *
+ * The tick thread only queues. Sent snapshots are immutable and are encoded on the writer
+ * thread; inputs are encoded when queued since the game may still change them. The writer
+ * collects records in a buffer and hands it to the FileChannel when it is full or the queue
+ * has been idle for a while. If the writer falls behind, records are dropped and counted
+ * rather than blocking the tick.
+ */
+public final class MatchRecorder implements Closeable {
+    private static final GameLogger LOG = GameLogger.getLogger(MatchRecorder.class);
+
+    public static final String FILE_EXTENSION = ".vtrec";
+    static final int MAGIC = 0x56545243;       // "VTRC"
+    static final int INDEX_MAGIC = 0x56544958; // "VTIX"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 6;
+    static final int TRAILER_SIZE = 12;
+
+    static final int REC_KEYFRAME = 1;
+    static final int REC_DELTA = 2;
+    static final int REC_INPUT = 3;
+    static final int REC_INDEX = 4;
+
+    public static final int KEYFRAME_INTERVAL = 300; // Snapshots between keyframes (10 s at 30 Hz)
+    private static final int QUEUE_CAPACITY = 4096;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long IDLE_FLUSH_MS = 1000;
+
+    private record Entry(long frame, GameState state, int playerNumber, byte[] input) { }
+    private static final Entry CLOSE = new Entry(0, null, 0, null);
+
+    private final Path file;
+    private final FileChannel channel;
+    private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread writer;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean closed;
+
+    // Writer thread only
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final WireWriter payload = new WireWriter(4096);
+    private final WireWriter record = new WireWriter(4096);
+    private final SnapshotDeltaCodec.Context deltaContext = new SnapshotDeltaCodec.Context();
+    private final List<long[]> keyframes = new ArrayList<>(); // {frame, offset}
+    private GameState previous;
+    private int snapshotsSinceKeyframe;
+    private long position; // File offset of the next record
+    private long lastFrame;
+    private long snapshotCount;
+    private long inputCount;
+
+    private MatchRecorder(Path file, FileChannel channel) {
+        this.file = file;
+        this.channel = channel;
+        this.writer = new Thread(this::runWriter, "MatchRecorder-" + file.getFileName());
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Start recording to a new file (an existing file is never overwritten).
+     */
+    public static MatchRecorder create(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        MatchRecorder recorder = new MatchRecorder(file, channel);
+        recorder.writeHeader();
+        recorder.writer.start();
+        return recorder;
+    }
+
+    /**
+     * File for a new recording in directory, e.g. "ABCDE-20260101-120000.vtrec".
+     */
+    public static Path newFile(Path directory, String name) {
+        String time = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path file = directory.resolve(name + "-" + time + FILE_EXTENSION);
+        for (int i = 2; Files.exists(file); i++) {
+            file = directory.resolve(name + "-" + time + "-" + i + FILE_EXTENSION);
+        }
+        return file;
+    }
+
+    /**
+     * Queue a snapshot that has been sent (its sequence assigned). Must not change afterwards.
+     */
+    public void recordSnapshot(long frame, GameState state) {
+        offer(new Entry(frame, state, 0, null));
+    }
+
+    /**
+     * Queue an input applied for a player during the given frame.
+     */
+    public void recordInput(long frame, int playerNumber, PlayerInput input) {
+        if (closed) return;
+        WireWriter w = new WireWriter(64);
+        GameStateCodec.writePlayerInput(input, w);
+        offer(new Entry(frame, null, playerNumber, w.toByteArray()));
+    }
+
+    private void offer(Entry entry) {
+        if (closed) return;
+        if (!queue.offer(entry)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Write what is queued, the keyframe index and close the file. Waits for the writer.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            queue.put(CLOSE);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (dropped.get() > 0) {
+            LOG.warn("Recording {} dropped {} records - writer fell behind", file, dropped.get());
+        }
+    }
+
+    public Path getFile() { return file; }
+    public long getDropped() { return dropped.get(); }
+
+    private void runWriter() {
+        try {
+            while (true) {
+                Entry entry = queue.poll(IDLE_FLUSH_MS, TimeUnit.MILLISECONDS);
+                if (entry == null) {
+                    flush();
+                } else if (entry == CLOSE) {
+                    break;
+                } else if (entry.state() != null) {
+                    writeSnapshot(entry.frame(), entry.state());
+                } else {
+                    payload.reset();
+                    payload.writeVarLong(entry.frame());
+                    payload.writeVarInt(entry.playerNumber());
+                    payload.writeBytes(entry.input(), 0, entry.input().length);
+                    writeRecord(REC_INPUT);
+                    inputCount++;
+                }
+            }
+            writeIndex();
+            flush();
+            LOG.info("Recorded {} snapshots and {} inputs ({} KB) to {}",
+                snapshotCount, inputCount, position / 1024, file);
+        } catch (IOException e) {
+            closed = true;
+            LOG.error("Recording to {} failed: {}", file, e.getMessage());
+        } catch (InterruptedException e) {
+            closed = true;
+        } finally {
+            queue.clear();
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).put((byte) FORMAT_VERSION).put((byte) GameStateCodec.CODEC_VERSION).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        position = HEADER_SIZE;
+    }
+
+    private void writeSnapshot(long frame, GameState state) throws IOException {
+        payload.reset();
+        payload.writeVarLong(frame);
+        boolean keyframe = previous == null || snapshotsSinceKeyframe >= KEYFRAME_INTERVAL;
+        if (keyframe) {
+            keyframes.add(new long[]{frame, position});
+            GameStateCodec.writeGameState(state, payload);
+            writeRecord(REC_KEYFRAME);
+            snapshotsSinceKeyframe = 0;
+        } else {
+            SnapshotDeltaCodec.writeDelta(previous, state, payload, deltaContext);
+            writeRecord(REC_DELTA);
+        }
+        snapshotsSinceKeyframe++;
+        snapshotCount++;
+        previous = state;
+        lastFrame = frame;
+    }
+
+    private void writeIndex() throws IOException {
+        long indexOffset = position;
+        payload.reset();
+        payload.writeVarLong(lastFrame);
+        payload.writeVarInt(keyframes.size());
+        for (long[] keyframe : keyframes) {
+            payload.writeVarLong(keyframe[0]);
+            payload.writeVarLong(keyframe[1]);
+        }
+        writeRecord(REC_INDEX);
+        ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE).putLong(indexOffset).putInt(INDEX_MAGIC);
+        put(trailer.array(), TRAILER_SIZE);
+    }
+
+    private void writeRecord(int type) throws IOException {
+        WireProtocol.encodeFrame(type, payload, record);
+        put(record.array(), record.size());
+    }
+
+    private void put(byte[] bytes, int length) throws IOException {
+        if (length > buffer.remaining()) {
+            flush();
+            if (length > buffer.capacity()) {
+                writeFully(ByteBuffer.wrap(bytes, 0, length));
+                position += length;
+                return;
+            }
+        }
+        buffer.put(bytes, 0, length);
+        position += length;
+    }
+
+    private void flush() throws IOException {
+        if (buffer.position() == 0) return;
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer src) throws IOException {
+        while (src.hasRemaining()) {
+            channel.write(src);
+        }
+    }
+}
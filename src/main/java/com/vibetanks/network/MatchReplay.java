@@ -0,0 +1,261 @@
+package com.vibetanks.network;
+
+import com.vibetanks.util.GameLogger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a MatchRecorder file back: snapshots in order with next(), or from any frame with
+ * seek(), which jumps to the nearest keyframe at or before it and decodes forward.
+ *
+ * The file is memory-mapped; records are copied out one at a time for decoding. Inputs
+ * passed on the way go to the InputListener, if one is set, so a simulation can be fed
+ * exactly what the host applied. Not thread-safe.
+ */
+public final class MatchReplay implements Closeable {
+    private static final GameLogger LOG = GameLogger.getLogger(MatchReplay.class);
+
+    /**
+     * Receives the recorded inputs as next() passes them.
+     */
+    public interface InputListener {
+        void onInput(long frame, int playerNumber, PlayerInput input);
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer data;
+    private final long[] keyframeFrames;
+    private final int[] keyframeOffsets;
+    private final long lastFrame;
+    private final byte[] scratch = new byte[64 * 1024];
+    private final WireReader reader = new WireReader();
+    private final SnapshotDeltaCodec.Context deltaContext = new SnapshotDeltaCodec.Context();
+    private InputListener inputListener;
+    private GameState previous;
+    private long frame = -1; // Frame of the snapshot last returned
+
+    // Decoded by nextRecord()
+    private int recordType;
+    private long recordFrame;
+    private int recordOffset;
+
+    private MatchReplay(FileChannel channel, ByteBuffer data, long[] keyframeFrames, int[] keyframeOffsets, long lastFrame) {
+        this.channel = channel;
+        this.data = data;
+        this.keyframeFrames = keyframeFrames;
+        this.keyframeOffsets = keyframeOffsets;
+        this.lastFrame = lastFrame;
+    }
+
+    /**
+     * Open a recording. Uses the keyframe index written on close, or rebuilds it by
+     * scanning if the recording was cut short.
+     */
+    public static MatchReplay open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Recording too large to map: " + size + " bytes");
+            }
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (size < MatchRecorder.HEADER_SIZE || data.getInt() != MatchRecorder.MAGIC) {
+                throw new StreamCorruptedException("Not a match recording: " + file);
+            }
+            int format = data.get() & 0xFF;
+            int codec = data.get() & 0xFF;
+            if (format != MatchRecorder.FORMAT_VERSION || codec != GameStateCodec.CODEC_VERSION) {
+                throw new IOException("Recording format " + format + "/codec " + codec
+                    + " not readable by this build (format " + MatchRecorder.FORMAT_VERSION
+                    + "/codec " + GameStateCodec.CODEC_VERSION + ")");
+            }
+
+            MatchReplay replay = readIndex(channel, data);
+            if (replay == null) {
+                LOG.info("Recording {} has no index - scanning", file.getFileName());
+                replay = scanIndex(channel, data);
+            }
+            replay.data.position(MatchRecorder.HEADER_SIZE);
+            return replay;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Index from the trailer written by MatchRecorder.close(), or null if there is none
+    private static MatchReplay readIndex(FileChannel channel, ByteBuffer data) throws IOException {
+        int size = data.limit();
+        if (size < MatchRecorder.HEADER_SIZE + MatchRecorder.TRAILER_SIZE
+                || data.getInt(size - 4) != MatchRecorder.INDEX_MAGIC) {
+            return null;
+        }
+        long indexOffset = data.getLong(size - MatchRecorder.TRAILER_SIZE);
+        if (indexOffset < MatchRecorder.HEADER_SIZE || indexOffset > size - MatchRecorder.TRAILER_SIZE) {
+            return null;
+        }
+        data.position((int) indexOffset);
+        data.limit(size - MatchRecorder.TRAILER_SIZE);
+        MatchReplay replay = new MatchReplay(channel, data, null, null, 0);
+        if (!replay.nextRecord() || replay.recordType != MatchRecorder.REC_INDEX) {
+            data.limit(size);
+            return null;
+        }
+        WireReader r = replay.reader;
+        int count = r.readVarInt();
+        long[] frames = new long[count];
+        int[] offsets = new int[count];
+        for (int i = 0; i < count; i++) {
+            frames[i] = r.readVarLong();
+            offsets[i] = (int) r.readVarLong();
+        }
+        // Records end where the index starts
+        data.limit((int) indexOffset);
+        return new MatchReplay(channel, data, frames, offsets, replay.recordFrame);
+    }
+
+    // Walk every record, noting keyframes; stops at a truncated tail
+    private static MatchReplay scanIndex(FileChannel channel, ByteBuffer data) {
+        data.position(MatchRecorder.HEADER_SIZE);
+        MatchReplay scan = new MatchReplay(channel, data, null, null, 0);
+        long[] frames = new long[16];
+        int[] offsets = new int[16];
+        int count = 0;
+        long last = 0;
+        int end = MatchRecorder.HEADER_SIZE;
+        try {
+            while (scan.nextRecord() && scan.recordType != MatchRecorder.REC_INDEX) {
+                if (scan.recordType == MatchRecorder.REC_KEYFRAME) {
+                    if (count == frames.length) {
+                        frames = Arrays.copyOf(frames, count * 2);
+                        offsets = Arrays.copyOf(offsets, count * 2);
+                    }
+                    frames[count] = scan.recordFrame;
+                    offsets[count++] = scan.recordOffset;
+                }
+                if (scan.recordType != MatchRecorder.REC_INPUT) {
+                    last = scan.recordFrame;
+                }
+                end = data.position();
+            }
+        } catch (IOException e) {
+            LOG.warn("Recording damaged after offset {}: {}", end, e.getMessage());
+        }
+        data.limit(end);
+        return new MatchReplay(channel, data, Arrays.copyOf(frames, count), Arrays.copyOf(offsets, count), last);
+    }
+
+    public void setInputListener(InputListener inputListener) {
+        this.inputListener = inputListener;
+    }
+
+    /**
+     * @return the next snapshot, or null at the end of the recording
+     */
+    public GameState next() throws IOException {
+        return next(true);
+    }
+
+    /**
+     * Position the replay at a frame.
+     * @return the first snapshot at or after frame (next() continues after it), or null if
+     *         the recording ends before it
+     */
+    public GameState seek(long target) throws IOException {
+        int i = Arrays.binarySearch(keyframeFrames, target);
+        if (i < 0) {
+            i = Math.max(0, -i - 2); // Last keyframe before target, or the first one
+        }
+        data.position(keyframeOffsets.length > 0 ? keyframeOffsets[i] : MatchRecorder.HEADER_SIZE);
+        previous = null;
+        GameState state;
+        do {
+            state = next(false);
+        } while (state != null && frame < target);
+        return state;
+    }
+
+    private GameState next(boolean notifyInputs) throws IOException {
+        while (nextRecord()) {
+            switch (recordType) {
+                case MatchRecorder.REC_KEYFRAME -> {
+                    return onSnapshot(GameStateCodec.readGameState(reader));
+                }
+                case MatchRecorder.REC_DELTA -> {
+                    // Without its baseline (e.g. after a dropped record) wait for the next keyframe
+                    GameState base = previous;
+                    GameState state = SnapshotDeltaCodec.readDelta(reader,
+                        sequence -> base != null && base.sequence == sequence ? base : null, deltaContext);
+                    if (state != null) {
+                        return onSnapshot(state);
+                    }
+                }
+                case MatchRecorder.REC_INPUT -> {
+                    int playerNumber = reader.readVarInt();
+                    if (notifyInputs && inputListener != null) {
+                        inputListener.onInput(recordFrame, playerNumber, GameStateCodec.readPlayerInput(reader));
+                    }
+                }
+                default -> { } // Unknown records are skipped
+            }
+        }
+        return null;
+    }
+
+    private GameState onSnapshot(GameState state) {
+        previous = state;
+        frame = recordFrame;
+        return state;
+    }
+
+    // Copy the record at the current position into the reader; false at the end or a truncated tail
+    private boolean nextRecord() throws IOException {
+        recordOffset = data.position();
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (!data.hasRemaining()) return false;
+            if (shift >= 35) throw new StreamCorruptedException("Malformed record length at " + recordOffset);
+            int b = data.get() & 0xFF;
+            length |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) break;
+        }
+        if (length < 1 || length > WireProtocol.MAX_FRAME_SIZE) {
+            throw new StreamCorruptedException("Invalid record length " + length + " at " + recordOffset);
+        }
+        if (length > data.remaining()) {
+            data.position(data.limit());
+            return false;
+        }
+        recordType = data.get() & 0xFF;
+        int payloadLength = length - 1;
+        byte[] buf = payloadLength <= scratch.length ? scratch : new byte[payloadLength];
+        data.get(buf, 0, payloadLength);
+        reader.reset(buf, 0, payloadLength);
+        recordFrame = reader.readVarLong();
+        return true;
+    }
+
+    /**
+     * Frame of the snapshot last returned by next() or seek(), -1 before the first.
+     */
+    public long getFrame() { return frame; }
+
+    public long getLastFrame() { return lastFrame; }
+
+    /**
+     * Frames that can be reached without decoding from an earlier keyframe.
+     */
+    public long[] getKeyframes() { return keyframeFrames.clone(); }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
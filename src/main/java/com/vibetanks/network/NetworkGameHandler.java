@@ -17,6 +17,9 @@ public class NetworkGameHandler {
     // Sequence number for client inputs (incremented each frame)
     private static long clientInputSequence = 0;
 
+    // Unacknowledged local moves, replayed on top of each host snapshot
+    private static final ClientPrediction prediction = new ClientPrediction();
+
 
     /**
      * Result of handling client update - indicates if main update should continue.
@@ -51,7 +54,7 @@ public class NetworkGameHandler {
         boolean isPaused();
         List<Tank> getPlayerTanks();
         List<Tank> getEnemyTanks();
-        List<Bullet> getBullets();
+        BulletStore getBullets();
         List<Laser> getLasers();
         GameMap getGameMap();
         Base getBase();
@@ -72,7 +75,7 @@ public class NetworkGameHandler {
         NetworkManager getNetwork();
         List<Tank> getPlayerTanks();
         List<Laser> getLasers();
-        List<Bullet> getBullets();
+        BulletStore getBullets();
         SoundManager getSoundManager();
         String[] getPlayerNicknames();
         double[][] getPlayerStartPositions();
@@ -102,6 +105,17 @@ public class NetworkGameHandler {
         GameState state = network.getLatestGameState();
         if (state != null) {
             GameStateApplier.apply(state, ctx.getGameStateContext());
+            reconcileLocalTank(state, ctx);
+        }
+        // Draw remote entities slightly in the past, between the snapshots around that time
+        if (ctx.isFirstStateReceived()) {
+            GameStateApplier.applyInterpolation(
+                network.getSnapshotInterpolator().sample(System.nanoTime() / 1_000_000), ctx.getGameStateContext());
+        }
+
+        // A replay is only watched - no local movement, shots or requests
+        if (network.isSpectating()) {
+            return new ClientUpdateResult(true);
         }
 
         // Handle game over/victory - send restart/next level requests
@@ -136,23 +150,25 @@ public class NetworkGameHandler {
 
             // Capture input from InputHandler
             PlayerInput input = ctx.capturePlayerInput();
+            input.sequenceNumber = ++clientInputSequence;
 
-            // Apply movement locally (skip if paused or dead)
+            // Apply movement locally (skip if paused or dead) and remember it for reconciliation
+            Direction moved = null;
             if (myTank.isAlive() && !ctx.getPowerUpEffectManager().arePlayersFrozen() && !isPaused) {
-                List<Tank> allTanks = new ArrayList<>();
-                allTanks.addAll(playerTanks);
-                allTanks.addAll(ctx.getEnemyTanks());
-
                 if (input.up) {
-                    myTank.move(Direction.UP, ctx.getGameMap(), allTanks, ctx.getBase());
+                    moved = Direction.UP;
                 } else if (input.down) {
-                    myTank.move(Direction.DOWN, ctx.getGameMap(), allTanks, ctx.getBase());
+                    moved = Direction.DOWN;
                 } else if (input.left) {
-                    myTank.move(Direction.LEFT, ctx.getGameMap(), allTanks, ctx.getBase());
+                    moved = Direction.LEFT;
                 } else if (input.right) {
-                    myTank.move(Direction.RIGHT, ctx.getGameMap(), allTanks, ctx.getBase());
+                    moved = Direction.RIGHT;
+                }
+                if (moved != null) {
+                    myTank.move(moved, ctx.getGameMap(), allTanks(ctx), ctx.getBase());
                 }
             }
+            prediction.record(input.sequenceNumber, moved);
 
             // Shoot locally for sound (skip if paused)
             if (myTank.isAlive() && input.shoot && !isPaused) {
@@ -184,7 +200,6 @@ public class NetworkGameHandler {
             }
             input.nickname = NicknameManager.getNickname();
             input.paused = isPaused; // Send pause status for shield sync
-            input.sequenceNumber = ++clientInputSequence;
             input.timestamp = System.currentTimeMillis();
             network.sendInput(input);
         }
@@ -192,6 +207,37 @@ public class NetworkGameHandler {
         return new ClientUpdateResult(true); // Client always skips main game logic
     }
 
+    /**
+     * Rewind the local tank to the host's position for our last applied input and replay
+     * the inputs the host has not seen yet. Skipped while the host is placing the tank
+     * (first sync, respawn), which also discards the pending inputs.
+     */
+    private static void reconcileLocalTank(GameState state, ClientContext ctx) {
+        if (ctx.getNetwork().isSpectating()) return;
+        int myPlayerIndex = ctx.getNetwork().getPlayerNumber() - 1;
+        List<Tank> playerTanks = ctx.getPlayerTanks();
+        if (myPlayerIndex < 0 || myPlayerIndex >= playerTanks.size() || myPlayerIndex >= state.players.length) {
+            return;
+        }
+        if (ctx.getRespawnSyncFrames() > 0) {
+            prediction.clear();
+            return;
+        }
+        prediction.reconcile(state.players[myPlayerIndex], playerTanks.get(myPlayerIndex),
+            ctx.getGameMap(), allTanks(ctx), ctx.getBase());
+        if (prediction.getLastCorrection() > 0) {
+            LOG.debug("Prediction corrected by {} px ({} inputs pending)",
+                String.format("%.1f", prediction.getLastCorrection()), prediction.getPendingCount());
+        }
+    }
+
+    private static List<Tank> allTanks(ClientContext ctx) {
+        List<Tank> allTanks = new ArrayList<>();
+        allTanks.addAll(ctx.getPlayerTanks());
+        allTanks.addAll(ctx.getEnemyTanks());
+        return allTanks;
+    }
+
     /**
      * Handle host-side network update (sending state and receiving client inputs).
      * @return result indicating whether to skip the main update loop
@@ -272,7 +318,7 @@ public class NetworkGameHandler {
     public static void receiveClientInputs(HostContext ctx) {
         NetworkManager network = ctx.getNetwork();
         List<Tank> playerTanks = ctx.getPlayerTanks();
-        List<Bullet> bullets = ctx.getBullets();
+        BulletStore bullets = ctx.getBullets();
         List<Laser> lasers = ctx.getLasers();
         SoundManager soundManager = ctx.getSoundManager();
         String[] playerNicknames = ctx.getPlayerNicknames();
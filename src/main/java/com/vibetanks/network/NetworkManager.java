@@ -4,41 +4,74 @@ import com.vibetanks.util.GameLogger;
 
 import java.io.*;
 import java.net.*;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 public class NetworkManager {
     private static final GameLogger LOG = GameLogger.getLogger(NetworkManager.class);
     private static final int PORT = 25565;
     private static final int MAX_PLAYERS = 4; // 1 host + 3 clients
+    private static final String UDP_PREFIX = "udp:";
+    private static final String REPLAY_PREFIX = "replay:";
+    private static final String SPECTATE_PREFIX = "spectate:";
+    private static final int MAX_SPECTATORS = 8; // More viewers should go through a SpectatorRelay
+    private static final int SPECTATOR_SEND_DIVISOR = 2; // Spectators get at most every Nth snapshot
+    private static final int JOIN_TIMEOUT_MS = 3000;
+    private static final long HANDSHAKE_TIMEOUT_MS = 5000; // Client: wait this long for the host's answer to JOIN
+    private static final int HOST_SNAPSHOT_RATE = 60; // sendGameState runs every game frame
+    public static final String RECORD_PROPERTY = "vibetanks.record"; // Host: record games to this directory
+    public static final String SNAPSHOT_RATE_PROPERTY = "vibetanks.snapshotRate"; // Client: ask for fewer snapshots per second
 
     private ServerSocket serverSocket;
     private volatile boolean isHost;
     private volatile boolean connected = false;
     private volatile boolean isHosting = false; // Track if currently hosting
     private volatile int playerNumber = 1; // Which player this instance controls
+    private volatile String roomCode; // Room on a dedicated server (null for player hosts)
 
     // For host: manage multiple clients (thread-safe list)
     private final List<ClientHandler> clients = new CopyOnWriteArrayList<>();
-    private final Map<Integer, PlayerInput> playerInputs = new ConcurrentHashMap<>();
-    private final Map<Integer, PlayerInput> lastKnownInputs = new ConcurrentHashMap<>(); // Fallback for missed packets
-    private final Map<Integer, Long> lastSequenceNumbers = new ConcurrentHashMap<>(); // Track sequence numbers
+    private final List<ClientHandler> spectators = new CopyOnWriteArrayList<>(); // Player number 0, no inputs
+    private final Map<Integer, InputQueue> inputQueues = new ConcurrentHashMap<>(); // Applied one per frame
+    private final Map<Integer, PlayerInput> lastKnownInputs = new ConcurrentHashMap<>(); // Fallback for late inputs
+    private final Map<Integer, Long> appliedSequenceNumbers = new ConcurrentHashMap<>(); // Reported back for client reconciliation
     private final Object inputLock = new Object(); // Lock for atomic input operations
     private Thread acceptThread; // Track accept thread
-
-    // Input buffer settings
-    private static final int INPUT_BUFFER_FRAMES = 3; // Use last input for up to 3 frames if no new input
+    private final SnapshotFanout snapshotFanout = new SnapshotFanout(); // Encode each distinct frame once per tick
+    private volatile MatchRecorder recorder; // Set when -Dvibetanks.record=DIR is given
+    private long recordFrame; // Game thread: frames sent so far, the recording's frame number
 
     // For client: single connection to host
     private Socket socket;
-    private ObjectOutputStream out;
-    private ObjectInputStream in;
+    private DataOutputStream out;
+    private DataInputStream in;
+    private final WireWriter inputBuffer = new WireWriter(256);
+    private final InputHistory inputHistory = new InputHistory(); // Client game thread only
     private BlockingQueue<GameState> receivedStates = new LinkedBlockingQueue<>();
+    private final SnapshotHistory receivedHistory = new SnapshotHistory(SnapshotFanout.HISTORY_SIZE); // Delta baselines
+    private final SnapshotDeltaCodec.Context deltaContext = new SnapshotDeltaCodec.Context(); // Client receive thread only
+    private FrameCompressor hostDecompressor; // Client receive thread only; null without a dictionary
+    private final FrameSplitter hostFragments = new FrameSplitter(); // Client receive thread only
+    private final SnapshotInterpolator interpolator = new SnapshotInterpolator(); // Smooths remote entities
+    private volatile long lastSnapshotSequence; // Acknowledged to the host with every input
     private Thread receiveThread;
+    private volatile UdpClient udpClient; // Set instead of socket when joined with "udp:host"
+    private volatile ConnectionStats hostStats = new ConnectionStats(); // Client: link quality to the host
+    private final WireWriter pingBuffer = new WireWriter(16); // Client game thread only
     private volatile long lastHostHeartbeat = System.currentTimeMillis(); // Track last received state from host
+    private volatile MatchReplay replay; // Set instead of a connection when joined with "replay:file"
+    private volatile boolean spectator; // Client joined with "spectate:" - watching, not playing
+    private volatile long replaySeekFrame = -1; // Frame the replay thread should jump to next
+    private final CountDownLatch joined = new CountDownLatch(1); // Client: host answered JOIN (or the link dropped)
+    private volatile Handshake.Welcome welcome; // Client: what the host agreed to
+    private volatile String joinError; // Client: why joining failed
 
     // Heartbeat timeout - mark client as disconnected if no input for 5 seconds
     private static final long HEARTBEAT_TIMEOUT_MS = 5000;
@@ -46,52 +79,80 @@ public class NetworkManager {
     // Client handler for host
     private class ClientHandler {
         private Socket socket;
-        private ObjectOutputStream out;
-        private ObjectInputStream in;
+        private DataOutputStream out;
+        private DataInputStream in;
         private int playerNumber;
         private volatile boolean active = true;
         private volatile long lastHeartbeat = System.currentTimeMillis();
-
-        public ClientHandler(Socket socket, int playerNumber, ObjectOutputStream out) throws IOException {
+        private volatile long ackedSnapshot; // Delta baseline (0 = none)
+        private volatile boolean fullSnapshotRequested;
+        private final ConnectionStats stats = new ConnectionStats();
+        private final WireWriter pingPayload = new WireWriter(16); // Game thread only
+        private final InputQueue inputs = new InputQueue();
+        // Agreed in the handshake
+        private final boolean compression; // FrameCompressor frames
+        private final boolean delta; // Delta snapshots - without it every snapshot is full
+        private final boolean spectator; // Player number 0: acks snapshots, sends no inputs
+        private final int sendDivisor; // Gets one of every sendDivisor snapshots
+        private final int maxPacketSize; // Larger frames go out as FrameSplitter pieces
+        private int fragmentIds; // Guarded by out
+        private long broadcasts; // Game thread only
+        private long sentSnapshot; // Latest snapshot sent (0 = none), game thread only
+
+        public ClientHandler(Socket socket, int playerNumber, DataOutputStream out, DataInputStream in,
+                             Handshake.Join join, int sendDivisor, int maxPacketSize) {
             this.socket = socket;
             this.playerNumber = playerNumber;
-            this.out = out; // Use pre-created stream
-            this.in = new ObjectInputStream(socket.getInputStream());
+            this.compression = join.has(Handshake.CAP_COMPRESSION);
+            this.delta = join.has(Handshake.CAP_DELTA);
+            this.spectator = join.has(Handshake.CAP_SPECTATOR);
+            this.sendDivisor = sendDivisor;
+            this.maxPacketSize = maxPacketSize;
+            if (!spectator) {
+                inputQueues.put(playerNumber, inputs);
+            }
+            this.out = out; // Use pre-created streams - the JOIN frame was read from this one
+            this.in = in;
 
             // Start receiving inputs from this client
             new Thread(() -> receiveFromClient()).start();
         }
 
         private void receiveFromClient() {
+            WireProtocol.FrameBuffer frame = new WireProtocol.FrameBuffer();
             try {
                 while (active && !Thread.interrupted()) {
                     try {
-                        Object obj = in.readObject();
-                        if (obj instanceof PlayerInput) {
-                            PlayerInput input = (PlayerInput) obj;
-
-                            // Synchronized block for atomic input update
-                            synchronized (inputLock) {
-                                long lastSeq = lastSequenceNumbers.getOrDefault(playerNumber, -1L);
-
-                                // Check for out-of-order packets (skip if older than current)
-                                if (input.sequenceNumber > lastSeq) {
-                                    // Check for missed packets
-                                    if (lastSeq >= 0 && input.sequenceNumber > lastSeq + 1) {
-                                        LOG.debug("Player {} missed {} packets (seq {} -> {})",
-                                            playerNumber, input.sequenceNumber - lastSeq - 1, lastSeq, input.sequenceNumber);
-                                    }
-
-                                    playerInputs.put(playerNumber, input);
-                                    lastKnownInputs.put(playerNumber, input); // Store as fallback
-                                    lastSequenceNumbers.put(playerNumber, input.sequenceNumber);
-                                }
+                        int type = WireProtocol.readFrame(in, frame);
+                        stats.addBytesIn(WireProtocol.frameSize(frame.reader().remaining()));
+                        if (type == WireProtocol.MSG_PING) {
+                            WireWriter pong = new WireWriter(16);
+                            ConnectionStats.writePong(frame.reader(), pong);
+                            sendControl(WireProtocol.MSG_PONG, pong);
+                        } else if (type == WireProtocol.MSG_PONG) {
+                            stats.onPong(frame.reader(), System.nanoTime() / 1_000_000);
+                        } else if (type == WireProtocol.MSG_PLAYER_INPUT && !spectator) {
+                            PlayerInput input = GameStateCodec.readPlayerInput(frame.reader());
+                            ackedSnapshot = input.ackSnapshotSequence;
+
+                            // Drops duplicates and rebuilds missed inputs from the input's history
+                            long lastSeq = inputs.getLastSequence();
+                            if (inputs.offer(input) && lastSeq > 0 && input.sequenceNumber > lastSeq + 1) {
+                                LOG.debug("Player {} missed {} packets (seq {} -> {})",
+                                    playerNumber, input.sequenceNumber - lastSeq - 1, lastSeq, input.sequenceNumber);
                             }
 
                             // Synchronized heartbeat update to avoid race with timeout check
                             synchronized (ClientHandler.this) {
                                 lastHeartbeat = System.currentTimeMillis();
                             }
+                        } else if (type == WireProtocol.MSG_SNAPSHOT_ACK) {
+                            ackedSnapshot = frame.reader().readVarLong();
+                            synchronized (ClientHandler.this) {
+                                lastHeartbeat = System.currentTimeMillis();
+                            }
+                        } else if (type == WireProtocol.MSG_FULL_SNAPSHOT_REQUEST) {
+                            fullSnapshotRequested = true;
                         }
                     } catch (SocketTimeoutException e) {
                         // Read timeout - continue loop if still active
@@ -101,7 +162,7 @@ public class NetworkManager {
                 }
             } catch (Exception e) {
                 if (active) {
-                    LOG.warn("Lost connection to Player {}: {}", playerNumber, e.getMessage());
+                    LOG.warn("Lost connection to {}: {}", spectator ? "spectator" : "Player " + playerNumber, e.getMessage());
                     active = false;
                 }
             }
@@ -115,18 +176,65 @@ public class NetworkManager {
         }
 
         /**
-         * Get ping/latency estimate in milliseconds
+         * Smoothed round-trip time in milliseconds, -1 until the first pong.
+         */
+        public long getPingMs() {
+            return stats.getRttMs();
+        }
+
+        /**
+         * Ping the client if the previous ping is ConnectionStats.PING_INTERVAL_MS old.
          */
-        public synchronized long getPingMs() {
-            return System.currentTimeMillis() - lastHeartbeat;
+        void pingIfDue(long nowMs) {
+            pingPayload.reset();
+            if (stats.writePingIfDue(nowMs, pingPayload)) {
+                sendControl(WireProtocol.MSG_PING, pingPayload);
+            }
         }
 
-        public void sendState(GameState state) {
+        private void sendControl(int type, WireWriter payload) {
+            WireWriter frame = new WireWriter(payload.size() + 2);
+            WireProtocol.encodeFrame(type, payload, frame);
+            sendFrame(frame.array(), frame.size());
+        }
+
+        /**
+         * Whether this frame's snapshot goes to the client; call once per sendGameState.
+         */
+        boolean shouldSend() {
+            return broadcasts++ % sendDivisor == 0;
+        }
+
+        /**
+         * Baseline for the next snapshot; 0 forces a full snapshot.
+         */
+        long takeSnapshotBaseline() {
+            if (!delta) return 0;
+            if (fullSnapshotRequested) {
+                fullSnapshotRequested = false;
+                return 0;
+            }
+            return ackedSnapshot;
+        }
+
+        /**
+         * Write an already-encoded frame (shared by all clients this tick).
+         * Called from the game thread and, for pongs, the client's receive thread.
+         */
+        public void sendFrame(byte[] frame, int length) {
             if (!active) return;
             try {
-                out.writeObject(state);
-                out.flush();
-                out.reset();
+                synchronized (out) {
+                    if (length > maxPacketSize) {
+                        for (byte[] piece : FrameSplitter.split(frame, length, maxPacketSize, ++fragmentIds & Integer.MAX_VALUE)) {
+                            out.write(piece);
+                        }
+                    } else {
+                        out.write(frame, 0, length);
+                    }
+                    out.flush();
+                }
+                stats.addBytesOut(length);
             } catch (IOException e) {
                 LOG.warn("Error sending to Player {}: {}", playerNumber, e.getMessage());
                 active = false;
@@ -136,9 +244,9 @@ public class NetworkManager {
         public void close() {
             active = false;
             // Clean up input maps to prevent memory leak
-            playerInputs.remove(playerNumber);
+            inputQueues.remove(playerNumber, inputs);
             lastKnownInputs.remove(playerNumber);
-            lastSequenceNumbers.remove(playerNumber);
+            appliedSequenceNumbers.remove(playerNumber);
             try {
                 if (out != null) out.close();
                 if (in != null) in.close();
@@ -290,45 +398,21 @@ public class NetworkManager {
             // Accept connections in background - keeps running during gameplay
             acceptThread = new Thread(() -> {
                 try {
-                    // Keep accepting until max players or server closed
+                    // Keep accepting until the server closes - spectators can join a full game
                     while (isHosting && serverSocket.isBound() && !serverSocket.isClosed()) {
-                        // Check if we have room for more players
-                        if (clients.size() >= MAX_PLAYERS - 1) {
-                            LOG.info("Maximum players reached (4/4), stopping accept");
-                            break;
-                        }
-
+                        Socket clientSocket;
                         try {
-                            Socket clientSocket = serverSocket.accept();
-                            // Set read timeout on client socket to prevent blocking forever
-                            clientSocket.setSoTimeout(10000); // 10 second read timeout
-
-                            int playerNum = clients.size() + 2; // Player 2, 3, or 4
-                            LOG.info("Player {} connected from: {}", playerNum, clientSocket.getInetAddress());
-
-                            // Create ObjectOutputStream immediately so client can create its InputStream
-                            ObjectOutputStream tempOut = new ObjectOutputStream(clientSocket.getOutputStream());
-                            tempOut.flush();
-                            LOG.debug("Server stream header sent to Player {}", playerNum);
-
-                            ClientHandler client = new ClientHandler(clientSocket, playerNum, tempOut);
-                            clients.add(client);
-
-                            // Send player number to client so they know which player they are
-                            tempOut.writeObject(Integer.valueOf(playerNum));
-                            tempOut.flush();
-                            LOG.debug("Sent player number {} to client", playerNum);
-
-                            // First connection establishes game as ready
-                            if (!connected) {
-                                connected = true;
-                            }
-
-                            LOG.info("Player {} joined mid-game, total players: {}", playerNum, clients.size() + 1);
+                            clientSocket = serverSocket.accept();
                         } catch (SocketTimeoutException e) {
                             // Accept timeout - just continue loop to check if still hosting
                             continue;
                         }
+                        try {
+                            acceptClient(clientSocket);
+                        } catch (IOException e) {
+                            LOG.warn("Connection from {} failed: {}", clientSocket.getInetAddress(), e.getMessage());
+                            clientSocket.close();
+                        }
                     }
                 } catch (IOException e) {
                     if (isHosting) {
@@ -340,6 +424,10 @@ public class NetworkManager {
             acceptThread.setDaemon(false); // Non-daemon so it properly cleans up
             acceptThread.start();
 
+            String recordDirectory = System.getProperty(RECORD_PROPERTY);
+            if (recordDirectory != null) {
+                startRecording(Paths.get(recordDirectory));
+            }
             return true;
         } catch (IOException e) {
             isHosting = false; // Reset flag on failure
@@ -348,45 +436,158 @@ public class NetworkManager {
         }
     }
 
-    // Client mode - connect to host
-    public boolean joinHost(String hostIP) {
+    // Accept thread: read the JOIN, then seat the connection as a player or a spectator
+    private void acceptClient(Socket clientSocket) throws IOException {
+        // The JOIN frame says whether this is a player or a spectator, and what it speaks
+        clientSocket.setSoTimeout(JOIN_TIMEOUT_MS);
+        DataInputStream clientIn = new DataInputStream(new BufferedInputStream(clientSocket.getInputStream()));
+        Handshake.Join join = readJoin(clientIn);
+        boolean isSpectator = join.has(Handshake.CAP_SPECTATOR);
+        // Set read timeout on client socket to prevent blocking forever
+        clientSocket.setSoTimeout(10000); // 10 second read timeout
+        DataOutputStream clientOut = new DataOutputStream(new BufferedOutputStream(clientSocket.getOutputStream()));
+
+        int reason = Handshake.REJECT_VERSION;
+        String problem = join.incompatibility();
+        if (problem == null && (isSpectator ? spectators.size() >= MAX_SPECTATORS : clients.size() >= MAX_PLAYERS - 1)) {
+            reason = Handshake.REJECT_FULL;
+            problem = isSpectator ? "Too many spectators - watch through a SpectatorRelay" : "Game is full";
+        }
+        if (problem != null) {
+            LOG.info("Rejecting {}: {}", clientSocket.getInetAddress(), problem);
+            clientOut.write(Handshake.rejectFrame(reason, problem));
+            clientOut.flush();
+            clientSocket.close();
+            return;
+        }
+
+        int playerNum = isSpectator ? 0 : clients.size() + 2; // Player 2, 3, or 4
+        LOG.info("{} connected from: {}", isSpectator ? "Spectator" : "Player " + playerNum,
+            clientSocket.getInetAddress());
+
+        // Send the handshake answer and player number before the handler is visible to the
+        // game loop, so they are always the first frames on the stream
+        int divisor = Handshake.sendDivisor(join, HOST_SNAPSHOT_RATE, isSpectator ? SPECTATOR_SEND_DIVISOR : 1);
+        int packetSize = Handshake.maxPacketSize(join, WireProtocol.MAX_FRAME_SIZE);
+        clientOut.write(Handshake.welcomeFrame(Handshake.welcome(join, HOST_SNAPSHOT_RATE, divisor, packetSize)));
+        WireWriter numberMsg = new WireWriter(8);
+        numberMsg.writeVarInt(playerNum);
+        WireProtocol.writeFrame(clientOut, WireProtocol.MSG_PLAYER_NUMBER, numberMsg);
+        clientOut.flush();
+        LOG.debug("Sent player number {} to client", playerNum);
+
+        ClientHandler client = new ClientHandler(clientSocket, playerNum, clientOut, clientIn, join, divisor, packetSize);
+        if (isSpectator) {
+            spectators.add(client);
+            LOG.info("Spectator joined, {} watching", spectators.size());
+            return; // Leaves connected alone - sendGameState serves spectators without players
+        }
+        clients.add(client);
+
+        // First connection establishes game as ready
+        if (!connected) {
+            connected = true;
+        }
+
+        LOG.info("Player {} joined mid-game, total players: {}", playerNum, clients.size() + 1);
+    }
+
+    // The client's JOIN frame (its room code is ignored - a player host has one game)
+    private static Handshake.Join readJoin(DataInputStream in) throws IOException {
+        in.mark(2);
+        boolean legacy = Handshake.isLegacyStream(in.read(), in.read());
+        in.reset();
+        if (legacy) {
+            throw new StreamCorruptedException("Client from before the binary protocol");
+        }
+        WireProtocol.FrameBuffer frame = new WireProtocol.FrameBuffer();
+        if (WireProtocol.readFrame(in, frame) != WireProtocol.MSG_JOIN) {
+            return Handshake.NO_JOIN;
+        }
+        return Handshake.Join.read(frame.reader());
+    }
+
+    // Client mode - connect to host. "host#CODE" joins room CODE on a dedicated server,
+    // "host:PORT" connects to another port (e.g. a SpectatorRelay), a "udp:" prefix connects
+    // to a dedicated server started with --udp, and a "spectate:" prefix watches instead of
+    // playing. "replay:FILE" or "replay:FILE@FRAME" plays a recorded match.
+    public boolean joinHost(String address) {
+        if (address.regionMatches(true, 0, REPLAY_PREFIX, 0, REPLAY_PREFIX.length())) {
+            String file = address.substring(REPLAY_PREFIX.length()).trim();
+            long startFrame = 0;
+            int at = file.lastIndexOf('@');
+            if (at >= 0 && file.substring(at + 1).matches("\\d+")) {
+                startFrame = Long.parseLong(file.substring(at + 1));
+                file = file.substring(0, at);
+            }
+            return joinReplay(Paths.get(file), startFrame);
+        }
+        if (address.regionMatches(true, 0, SPECTATE_PREFIX, 0, SPECTATE_PREFIX.length())) {
+            address = address.substring(SPECTATE_PREFIX.length()).trim();
+            spectator = true;
+        }
+        boolean udp = address.regionMatches(true, 0, UDP_PREFIX, 0, UDP_PREFIX.length());
+        if (udp) {
+            address = address.substring(UDP_PREFIX.length()).trim();
+        }
+        String host = address;
+        String code = null;
+        int hash = address.indexOf('#');
+        if (hash >= 0) {
+            host = address.substring(0, hash).trim();
+            code = address.substring(hash + 1).trim();
+        }
+        int port = PORT;
+        int colon = host.lastIndexOf(':');
+        if (colon > 0 && host.indexOf(':') == colon && host.substring(colon + 1).matches("\\d+")) {
+            port = Integer.parseInt(host.substring(colon + 1));
+            host = host.substring(0, colon);
+        }
+        return udp ? joinHostUdp(host, port, code) : joinHost(host, port, code);
+    }
+
+    /**
+     * Connect to a host or dedicated server.
+     * @param roomCode room to join on a dedicated server, or null for matchmaking (ignored by player hosts)
+     */
+    public boolean joinHost(String hostIP, String roomCode) {
+        return joinHost(hostIP, PORT, roomCode);
+    }
+
+    public boolean joinHost(String hostIP, int port, String roomCode) {
         isHost = false;
 
         try {
-            LOG.info("Connecting to {}:{}...", hostIP, PORT);
+            LOG.info("Connecting to {}:{}...", hostIP, port);
             socket = new Socket();
-            socket.connect(new InetSocketAddress(hostIP, PORT), 5000); // 5 second connection timeout
+            socket.connect(new InetSocketAddress(hostIP, port), 5000); // 5 second connection timeout
             socket.setSoTimeout(10000); // 10 second read timeout to prevent blocking forever
             LOG.info("Connected to host!");
 
-            out = new ObjectOutputStream(socket.getOutputStream());
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+            // Handshake; the room code picks a room on dedicated servers
+            inputBuffer.reset();
+            newJoin(roomCode, 0).write(inputBuffer);
+            WireProtocol.writeFrame(out, WireProtocol.MSG_JOIN, inputBuffer);
             out.flush();
-            in = new ObjectInputStream(socket.getInputStream());
 
+            hostDecompressor = newDecompressor();
             connected = true;
             lastHostHeartbeat = System.currentTimeMillis(); // Reset heartbeat on actual connection
+            ConnectionStats stats = new ConnectionStats();
+            hostStats = stats;
 
             // Start receiving game states
             receiveThread = new Thread(() -> {
+                WireProtocol.FrameBuffer frame = new WireProtocol.FrameBuffer();
                 try {
-                    // First message from host tells us our player number
-                    Object firstObj = in.readObject();
-                    lastHostHeartbeat = System.currentTimeMillis(); // Reset on first message
-                    if (firstObj instanceof Integer) {
-                        playerNumber = (Integer) firstObj;
-                        LOG.info("Received player number from host: {}", playerNumber);
-                    } else if (firstObj instanceof GameState) {
-                        // Fallback for backwards compatibility
-                        receivedStates.offer((GameState) firstObj);
-                    }
-
                     while (connected && !Thread.interrupted()) {
                         try {
-                            Object obj = in.readObject();
-                            if (obj instanceof GameState) {
-                                receivedStates.offer((GameState) obj);
-                                lastHostHeartbeat = System.currentTimeMillis(); // Update heartbeat
-                            }
+                            int type = WireProtocol.readFrame(in, frame);
+                            stats.addBytesIn(WireProtocol.frameSize(frame.reader().remaining()));
+                            handleHostFrame(type, frame.reader());
                         } catch (SocketTimeoutException e) {
                             // Read timeout - check if connection still valid
                             if (System.currentTimeMillis() - lastHostHeartbeat > HEARTBEAT_TIMEOUT_MS) {
@@ -401,39 +602,373 @@ public class NetworkManager {
                         connected = false;
                     }
                 }
+                joined.countDown(); // Don't keep awaitJoin() waiting on a dead link
             });
             receiveThread.setDaemon(true);
             receiveThread.start();
 
-            return true;
+            return awaitJoin();
+        } catch (IOException e) {
+            LOG.error("Failed to connect: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Connect to a dedicated server over UDP: snapshots and inputs travel as unreliable
+     * datagrams, control frames over the transport's reliable channel.
+     * @param roomCode room to join, or null for matchmaking
+     */
+    public boolean joinHostUdp(String hostIP, String roomCode) {
+        return joinHostUdp(hostIP, PORT, roomCode);
+    }
+
+    public boolean joinHostUdp(String hostIP, int port, String roomCode) {
+        isHost = false;
+
+        try {
+            LOG.info("Connecting to {}:{} over UDP...", hostIP, port);
+            InetSocketAddress server = new InetSocketAddress(hostIP, port);
+            if (server.isUnresolved()) {
+                throw new UnknownHostException(hostIP);
+            }
+            hostDecompressor = newDecompressor();
+            UdpClient udp = new UdpClient(server, this::handleHostFrame);
+            udp.connect();
+            udpClient = udp;
+            hostStats = udp.getStats();
+
+            connected = true;
+            lastHostHeartbeat = System.currentTimeMillis();
+
+            // Unlike TCP, the JOIN frame is what opens the session on the server
+            WireWriter join = new WireWriter();
+            newJoin(roomCode, UdpPacket.SAFE_DATAGRAM_SIZE).write(join);
+            udp.sendReliable(WireProtocol.MSG_JOIN, join);
+            return awaitJoin();
         } catch (IOException e) {
             LOG.error("Failed to connect: {}", e.getMessage());
             return false;
         }
     }
 
+    private Handshake.Join newJoin(String roomCode, int maxPacketSize) {
+        return Handshake.join(roomCode, spectator, Integer.getInteger(SNAPSHOT_RATE_PROPERTY, 0), maxPacketSize);
+    }
+
+    // Wait for the host to answer JOIN with a player number or a rejection
+    private boolean awaitJoin() {
+        try {
+            if (!joined.await(HANDSHAKE_TIMEOUT_MS, TimeUnit.MILLISECONDS) && joinError == null) {
+                joinError = "No answer from host";
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (joinError == null && !connected) {
+            joinError = "Connection lost while joining";
+        }
+        if (joinError != null) {
+            LOG.error("Could not join: {}", joinError);
+            close();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Why the last joinHost() failed, e.g. the host's rejection message; null if it did not.
+     */
+    public String getJoinError() {
+        return joinError;
+    }
+
+    /**
+     * Play a MatchRecorder file as if it came from a host: its snapshots reach the game
+     * through getLatestGameState() at the pace they were recorded. Every tank follows the
+     * recording - nothing is predicted or sent.
+     * @param startFrame frame to start from (0 = beginning)
+     */
+    public boolean joinReplay(Path file, long startFrame) {
+        isHost = false;
+        try {
+            MatchReplay opened = MatchReplay.open(file);
+            LOG.info("Replaying {} ({} frames, {} keyframes)", file, opened.getLastFrame(), opened.getKeyframes().length);
+            replay = opened;
+            replaySeekFrame = startFrame;
+            playerNumber = 1;
+            connected = true;
+            lastHostHeartbeat = System.currentTimeMillis();
+
+            receiveThread = new Thread(() -> playReplay(opened), "ReplayPlayer");
+            receiveThread.setDaemon(true);
+            receiveThread.start();
+            return true;
+        } catch (IOException e) {
+            LOG.error("Failed to open replay {}: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Jump a running replay to a frame (via the nearest keyframe before it).
+     */
+    public void seekReplay(long frame) {
+        replaySeekFrame = Math.max(0, frame);
+    }
+
+    public boolean isReplay() {
+        return replay != null;
+    }
+
+    /**
+     * Watching a spectator stream or a replay: no local player, nothing sent but acks.
+     */
+    public boolean isSpectating() {
+        return spectator || replay != null;
+    }
+
+    // Replay thread: feed snapshots with the spacing they were sent with
+    private void playReplay(MatchReplay source) {
+        long lastServerTimeMs = -1;
+        try (source) {
+            while (connected && !Thread.interrupted()) {
+                GameState state;
+                long seekTo = replaySeekFrame;
+                if (seekTo >= 0) {
+                    replaySeekFrame = -1;
+                    state = source.seek(seekTo);
+                    // Sequences restart wherever we land
+                    lastSnapshotSequence = 0;
+                    interpolator.clear();
+                    lastServerTimeMs = -1;
+                } else {
+                    state = source.next();
+                }
+                if (state == null) {
+                    LOG.info("Replay finished at frame {}", source.getFrame());
+                    break;
+                }
+                if (lastServerTimeMs >= 0) {
+                    Thread.sleep(Math.max(0, Math.min(1000, state.serverTimeMs - lastServerTimeMs)));
+                }
+                lastServerTimeMs = state.serverTimeMs;
+                onSnapshot(state);
+            }
+        } catch (InterruptedException e) {
+            // Closed
+        } catch (IOException e) {
+            LOG.warn("Replay failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Record the game this host sends (and the client inputs it applies) to a new file in
+     * directory, until close().
+     */
+    public void startRecording(Path directory) {
+        try {
+            recorder = MatchRecorder.create(MatchRecorder.newFile(directory, "host"));
+            recordFrame = 0;
+            LOG.info("Recording game to {}", recorder.getFile());
+        } catch (IOException e) {
+            LOG.warn("Cannot record game: {}", e.getMessage());
+        }
+    }
+
+    private static FrameCompressor newDecompressor() {
+        byte[] dictionary = CompressionDictionary.get();
+        return dictionary != null ? new FrameCompressor(dictionary) : null;
+    }
+
+    // Client: one frame from the host, on the TCP receive thread or the UDP I/O thread
+    private void handleHostFrame(int type, WireReader payload) throws IOException {
+        if (type == WireProtocol.MSG_COMPRESSED) {
+            // Only sent when our JOIN offered the dictionary, so the decompressor exists
+            if (hostDecompressor == null) {
+                throw new StreamCorruptedException("Compressed frame without a dictionary");
+            }
+            int inner = hostDecompressor.decompress(payload);
+            if (inner == WireProtocol.MSG_COMPRESSED) {
+                throw new StreamCorruptedException("Nested compressed frame");
+            }
+            handleHostFrame(inner, hostDecompressor.reader());
+        } else if (type == WireProtocol.MSG_FRAGMENT) {
+            int inner = hostFragments.add(payload);
+            if (inner >= 0) {
+                handleHostFrame(inner, hostFragments.reader());
+            }
+        } else if (type == WireProtocol.MSG_PING) {
+            WireWriter pong = new WireWriter(16);
+            ConnectionStats.writePong(payload, pong);
+            sendUnreliableFrame(WireProtocol.MSG_PONG, pong);
+        } else if (type == WireProtocol.MSG_PONG) {
+            hostStats.onPong(payload, System.nanoTime() / 1_000_000);
+        } else if (type == WireProtocol.MSG_WELCOME) {
+            Handshake.Welcome agreed = Handshake.Welcome.read(payload);
+            joinError = agreed.incompatibility();
+            if (joinError != null) {
+                joined.countDown();
+                return;
+            }
+            welcome = agreed;
+            LOG.info("Host speaks protocol {}: {} snapshots/s, compression {}, deltas {}", agreed.protocolVersion(),
+                agreed.snapshotRate(), agreed.has(Handshake.CAP_COMPRESSION) ? "on" : "off",
+                agreed.has(Handshake.CAP_DELTA) ? "on" : "off");
+        } else if (type == WireProtocol.MSG_JOIN_REJECTED) {
+            joinError = Handshake.readReject(payload);
+            joined.countDown();
+        } else if (type == WireProtocol.MSG_PLAYER_NUMBER) {
+            // Our player number completes the join (0 for spectators - the view stays on
+            // player 1, with no local tank)
+            int number = payload.readVarInt();
+            if (!spectator) {
+                playerNumber = number;
+            }
+            lastHostHeartbeat = System.currentTimeMillis();
+            LOG.info("Received player number from host: {}", number);
+            if (welcome == null && joinError == null) {
+                joinError = "Host runs an older version without a handshake - please update it";
+            }
+            joined.countDown();
+        } else if (type == WireProtocol.MSG_ROOM_JOINED) {
+            this.roomCode = payload.readString();
+            LOG.info("Joined room {}", this.roomCode);
+        } else if (type == WireProtocol.MSG_GAME_STATE) {
+            onSnapshot(GameStateCodec.readGameState(payload));
+        } else if (type == WireProtocol.MSG_GAME_STATE_DELTA) {
+            GameState state = SnapshotDeltaCodec.readDelta(payload, receivedHistory::get, deltaContext);
+            if (state != null) {
+                onSnapshot(state);
+            } else {
+                // Baseline no longer available - ask for a full snapshot
+                LOG.debug("Delta baseline missing, requesting full snapshot");
+                sendFrame(WireProtocol.MSG_FULL_SNAPSHOT_REQUEST, new WireWriter(0));
+            }
+        }
+    }
+
     // Host sends game state to all clients
     public void sendGameState(GameState state) {
-        if (!connected || !isHost) return;
+        // Not gated on connected: a recording host or spectators alone are reason enough
+        MatchRecorder rec = recorder;
+        if (!isHost || (clients.isEmpty() && spectators.isEmpty() && rec == null)) return;
 
+        // Player 1 is the host itself
+        for (int i = 1; i < state.players.length; i++) {
+            state.players[i].lastInputSequence = appliedSequenceNumbers.getOrDefault(i + 1, 0L);
+        }
+        snapshotFanout.begin(state);
+        if (rec != null) {
+            rec.recordSnapshot(++recordFrame, state);
+        }
+        if (clients.isEmpty() && spectators.isEmpty()) return;
+        long nowMs = System.nanoTime() / 1_000_000;
         for (ClientHandler client : clients) {
-            client.sendState(state);
+            client.pingIfDue(nowMs);
+            if (client.shouldSend()) {
+                sendSnapshot(client, state);
+            }
+        }
+        // Spectators share the same frames at a lower rate
+        for (ClientHandler watcher : spectators) {
+            if (!watcher.active || watcher.isTimedOut()) {
+                LOG.info("Spectator left, {} watching", spectators.size() - 1);
+                spectators.remove(watcher);
+                watcher.close();
+                continue;
+            }
+            watcher.pingIfDue(nowMs);
+            if (watcher.shouldSend()) {
+                sendSnapshot(watcher, state);
+            }
         }
     }
 
+    // Skipped snapshots' sound events come along with the next one sent
+    private void sendSnapshot(ClientHandler receiver, GameState state) {
+        byte[] frame = snapshotFanout.frameFor(receiver.takeSnapshotBaseline(), receiver.sentSnapshot,
+            false, receiver.compression);
+        receiver.sentSnapshot = state.sequence;
+        receiver.sendFrame(frame, frame.length);
+    }
+
     // Client sends input to host
     public void sendInput(PlayerInput input) {
-        if (!connected || isHost) return;
+        if (!connected || isHost || isSpectating()) return;
+
+        input.ackSnapshotSequence = lastSnapshotSequence;
+        inputHistory.attach(input);
+        inputBuffer.reset();
+        GameStateCodec.writePlayerInput(input, inputBuffer);
+        UdpClient udp = udpClient;
+        if (udp != null && !(input.requestRestart || input.requestNextLevel || input.requestLife)) {
+            // Plain movement input: superseded next frame, sent unreliably with redundancy
+            udp.sendInput(WireProtocol.MSG_PLAYER_INPUT, inputBuffer);
+        } else {
+            sendFrame(WireProtocol.MSG_PLAYER_INPUT, inputBuffer);
+        }
+
+        pingBuffer.reset();
+        if (hostStats.writePingIfDue(System.nanoTime() / 1_000_000, pingBuffer)) {
+            sendUnreliableFrame(WireProtocol.MSG_PING, pingBuffer);
+        }
+    }
 
+    // Client: written from both the game thread (inputs) and the receive thread (snapshot requests)
+    private void sendFrame(int type, WireWriter payload) {
+        UdpClient udp = udpClient;
+        if (udp != null) {
+            udp.sendReliable(type, payload);
+            return;
+        }
         try {
-            out.writeObject(input);
-            out.flush();
+            synchronized (out) {
+                WireProtocol.writeFrame(out, type, payload);
+                out.flush();
+            }
+            hostStats.addBytesOut(WireProtocol.frameSize(payload.size()));
         } catch (IOException e) {
-            LOG.warn("Error sending input: {}", e.getMessage());
+            LOG.warn("Error sending to host: {}", e.getMessage());
             connected = false;
         }
     }
 
+    // Client: pings and pongs - over UDP they must not be retransmitted, or loss would read as latency
+    private void sendUnreliableFrame(int type, WireWriter payload) {
+        UdpClient udp = udpClient;
+        if (udp != null) {
+            udp.sendUnreliable(type, payload);
+        } else {
+            sendFrame(type, payload);
+        }
+    }
+
+    // Client: a snapshot was decoded - keep it as a delta baseline and hand it to the game
+    private void onSnapshot(GameState state) {
+        if (state.sequence <= lastSnapshotSequence) {
+            return; // Datagram arrived out of order - a newer snapshot was already applied
+        }
+        receivedHistory.put(state);
+        interpolator.add(state, System.nanoTime() / 1_000_000);
+        lastSnapshotSequence = state.sequence;
+        receivedStates.offer(state);
+        lastHostHeartbeat = System.currentTimeMillis(); // Update heartbeat
+        if (spectator) {
+            // Spectators send no inputs - acknowledge for delta baselines directly
+            WireWriter ack = new WireWriter(10);
+            ack.writeVarLong(state.sequence);
+            sendUnreliableFrame(WireProtocol.MSG_SNAPSHOT_ACK, ack);
+        }
+    }
+
+    /**
+     * Every snapshot received, time-stamped for rendering remote entities (for client).
+     */
+    public SnapshotInterpolator getSnapshotInterpolator() {
+        return interpolator;
+    }
+
     // Get latest game state (for client)
     public GameState getLatestGameState() {
         GameState latest = null;
@@ -446,11 +981,20 @@ public class NetworkManager {
     }
 
     // Get player input for specific player (for host)
-    // Returns new input if available, otherwise returns last known input (for buffering)
+    // Returns the next queued input if available, otherwise the last applied one (for buffering)
     public PlayerInput getPlayerInput(int playerNum) {
         synchronized (inputLock) {
-            PlayerInput newInput = playerInputs.remove(playerNum);
+            InputQueue queue = inputQueues.get(playerNum);
+            PlayerInput newInput = queue != null ? queue.poll() : null;
             if (newInput != null) {
+                if (newInput.sequenceNumber > 0) {
+                    appliedSequenceNumbers.put(playerNum, newInput.sequenceNumber);
+                }
+                MatchRecorder rec = recorder;
+                if (rec != null) {
+                    rec.recordInput(recordFrame + 1, playerNum, newInput); // Applied before the next snapshot
+                }
+                lastKnownInputs.put(playerNum, newInput);
                 return newInput;
             }
 
@@ -484,7 +1028,8 @@ public class NetworkManager {
      * Check if there's a fresh (non-buffered) input available for a player.
      */
     public boolean hasFreshInput(int playerNum) {
-        return playerInputs.containsKey(playerNum);
+        InputQueue queue = inputQueues.get(playerNum);
+        return queue != null && queue.size() > 0;
     }
 
     // Get number of connected players (including host)
@@ -499,6 +1044,11 @@ public class NetworkManager {
     public boolean isConnected() {
         // For clients, also check heartbeat timeout
         if (!isHost && connected) {
+            UdpClient udp = udpClient;
+            if (udp != null && !udp.isOpen()) {
+                LOG.warn("UDP connection to host closed");
+                connected = false;
+            }
             if (System.currentTimeMillis() - lastHostHeartbeat > HEARTBEAT_TIMEOUT_MS) {
                 LOG.warn("Host heartbeat timeout - connection lost");
                 connected = false;
@@ -508,18 +1058,44 @@ public class NetworkManager {
     }
 
     /**
-     * Get time since last host update in milliseconds (for clients).
+     * Smoothed round-trip time to the host in milliseconds (for clients), -1 until measured.
      * Returns 0 for host.
      */
     public long getHostPing() {
         if (isHost) return 0;
-        return System.currentTimeMillis() - lastHostHeartbeat;
+        return hostStats.getRttMs();
+    }
+
+    /**
+     * Link quality and traffic to the host (for clients).
+     */
+    public ConnectionStats getHostStats() {
+        return hostStats;
+    }
+
+    /**
+     * Link quality and traffic for a connected client (for host), or null if not connected.
+     */
+    public ConnectionStats getPlayerStats(int playerNum) {
+        for (ClientHandler client : clients) {
+            if (client.playerNumber == playerNum && client.active) {
+                return client.stats;
+            }
+        }
+        return null;
     }
 
     public boolean isHost() {
         return isHost;
     }
 
+    /**
+     * Room code assigned by a dedicated server, or null when connected to a player host.
+     */
+    public String getRoomCode() {
+        return roomCode;
+    }
+
     public int getPlayerNumber() {
         return playerNumber;
     }
@@ -581,8 +1157,8 @@ public class NetworkManager {
     }
 
     /**
-     * Get ping estimate for a player in milliseconds.
-     * Returns -1 if player not found or not host.
+     * Smoothed round-trip time to a player in milliseconds.
+     * Returns -1 if player not found or not measured yet, 0 for the host itself.
      */
     public long getPlayerPing(int playerNum) {
         if (!isHost || playerNum == 1) return 0; // Host has 0 ping
@@ -636,7 +1212,23 @@ public class NetworkManager {
                 client.close();
             }
             clients.clear();
+            for (ClientHandler watcher : spectators) {
+                watcher.close();
+            }
+            spectators.clear();
+        }
+
+        if (udpClient != null) {
+            udpClient.close();
+            udpClient = null;
+        }
+
+        MatchRecorder rec = recorder;
+        recorder = null;
+        if (rec != null) {
+            rec.close();
         }
+        replay = null; // The replay thread closes the file when interrupted below
 
         try {
             if (receiveThread != null) receiveThread.interrupt();
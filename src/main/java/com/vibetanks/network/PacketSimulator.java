@@ -0,0 +1,81 @@
+package com.vibetanks.network;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Simulates a lossy, laggy link for outgoing UDP datagrams so the UDP transport can be
+ * exercised over loopback. Each datagram is dropped with probability lossRate, otherwise
+ * held for latencyMs plus up to jitterMs (which can reorder datagrams).
+ *
+ * Not thread-safe: owned by the transport's I/O thread, which must call flushDue()
+ * regularly to release delayed datagrams.
+ */
+public class PacketSimulator {
+
+    /**
+     * Actually puts a datagram on the wire.
+     */
+    public interface Sender {
+        void send(byte[] packet, SocketAddress to) throws IOException;
+    }
+
+    private record Delayed(long dueNanos, long order, byte[] packet, SocketAddress to) {
+    }
+
+    private final double lossRate;
+    private final long latencyNanos;
+    private final long jitterNanos;
+    private final Random random;
+    private final PriorityQueue<Delayed> delayed = new PriorityQueue<>(
+        (a, b) -> a.dueNanos != b.dueNanos ? Long.compare(a.dueNanos, b.dueNanos) : Long.compare(a.order, b.order));
+    private long order = 0;
+    private long dropped = 0;
+
+    public PacketSimulator(double lossRate, int latencyMs, int jitterMs, long seed) {
+        if (lossRate < 0 || lossRate >= 1) {
+            throw new IllegalArgumentException("lossRate must be in [0, 1): " + lossRate);
+        }
+        this.lossRate = lossRate;
+        this.latencyNanos = latencyMs * 1_000_000L;
+        this.jitterNanos = jitterMs * 1_000_000L;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Drop, delay or immediately send a datagram.
+     */
+    public void send(byte[] packet, SocketAddress to, Sender sender) throws IOException {
+        if (lossRate > 0 && random.nextDouble() < lossRate) {
+            dropped++;
+            return;
+        }
+        long delay = latencyNanos + (jitterNanos > 0 ? (long) (random.nextDouble() * jitterNanos) : 0);
+        if (delay <= 0 && delayed.isEmpty()) {
+            sender.send(packet, to);
+            return;
+        }
+        delayed.add(new Delayed(System.nanoTime() + delay, order++, packet, to));
+    }
+
+    /**
+     * Send every delayed datagram whose time has come.
+     */
+    public void flushDue(Sender sender) throws IOException {
+        long now = System.nanoTime();
+        while (!delayed.isEmpty() && delayed.peek().dueNanos <= now) {
+            Delayed d = delayed.poll();
+            sender.send(d.packet, d.to);
+        }
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public int getDelayedCount() {
+        return delayed.size();
+    }
+}
@@ -46,6 +46,7 @@ public class PlayerData implements Serializable {
     public String nickname;
     public int playerNumber; // 1-4
     public boolean connected = true; // Whether player is still connected (for network sync)
+    public long lastInputSequence; // Latest PlayerInput.sequenceNumber the host applied (0 = none) - for client reconciliation
 
     public PlayerData() {
         this.lives = 3;
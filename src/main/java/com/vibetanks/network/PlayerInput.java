@@ -25,6 +25,21 @@ public class PlayerInput implements Serializable {
     // Timestamp for latency calculation
     public long timestamp;
 
+    // Latest snapshot sequence the client has received (0 = none) - baseline for delta snapshots
+    public long ackSnapshotSequence;
+
+    // Packed buttons of the inputs just before this one, newest first: history[k] belongs to
+    // sequenceNumber - 1 - k. Lets the receiver rebuild inputs whose own packets were lost.
+    public byte[] history;
+
+    // Packed button layout: direction in bits 0-2 (see packButtons), then one bit per flag
+    private static final int B_DIRECTION_MASK = 0x7;
+    private static final int B_SHOOT = 1 << 3;
+    private static final int B_REQUEST_LIFE = 1 << 4;
+    private static final int B_REQUEST_NEXT_LEVEL = 1 << 5;
+    private static final int B_REQUEST_RESTART = 1 << 6;
+    private static final int B_PAUSED = 1 << 7;
+
     public PlayerInput() {
         this.up = false;
         this.down = false;
@@ -66,4 +81,39 @@ public class PlayerInput implements Serializable {
         this.posY = 0;
         this.direction = 0;
     }
+
+    /**
+     * Buttons in one byte: the movement key that wins (up, down, left, right - the order the
+     * game checks them in) as 1-4, or 0 for none, plus shoot, request and pause bits.
+     */
+    public int packButtons() {
+        int bits = up ? 1 : down ? 2 : left ? 3 : right ? 4 : 0;
+        if (shoot) bits |= B_SHOOT;
+        if (requestLife) bits |= B_REQUEST_LIFE;
+        if (requestNextLevel) bits |= B_REQUEST_NEXT_LEVEL;
+        if (requestRestart) bits |= B_REQUEST_RESTART;
+        if (paused) bits |= B_PAUSED;
+        return bits;
+    }
+
+    /**
+     * Input rebuilt from packButtons(): buttons only, no position (posX/posY = -1) or nickname.
+     */
+    public static PlayerInput fromButtons(int bits, long sequenceNumber) {
+        PlayerInput input = new PlayerInput();
+        int move = bits & B_DIRECTION_MASK;
+        input.up = move == 1;
+        input.down = move == 2;
+        input.left = move == 3;
+        input.right = move == 4;
+        input.shoot = (bits & B_SHOOT) != 0;
+        input.requestLife = (bits & B_REQUEST_LIFE) != 0;
+        input.requestNextLevel = (bits & B_REQUEST_NEXT_LEVEL) != 0;
+        input.requestRestart = (bits & B_REQUEST_RESTART) != 0;
+        input.paused = (bits & B_PAUSED) != 0;
+        input.posX = -1;
+        input.posY = -1;
+        input.sequenceNumber = sequenceNumber;
+        return input;
+    }
 }
@@ -0,0 +1,135 @@
+package com.vibetanks.network;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Lightweight reliable, ordered stream on top of UDP datagrams, used only for control
+ * frames (join, player number, restart/next-level requests). Snapshots and regular
+ * inputs bypass it entirely - a lost snapshot is simply superseded by the next one.
+ *
+ * Send side: every frame gets a sequence number and is resent every RESEND_INTERVAL_MS
+ * until a cumulative ACK covers it.
+ * Receive side: frames are released strictly in sequence order; early arrivals wait in a
+ * bounded buffer, duplicates are discarded. Every reliable packet received should be
+ * answered with ackPacket().
+ *
+ * Methods are synchronized: senders call wrap() from game threads while the I/O thread
+ * handles acks and retransmits.
+ */
+public class ReliableChannel {
+    public static final long RESEND_INTERVAL_MS = 100;
+    static final int MAX_OUT_OF_ORDER = 256;
+
+    private static final class Pending {
+        final byte[] packet;
+        long lastSentMs;
+
+        Pending(byte[] packet, long lastSentMs) {
+            this.packet = packet;
+            this.lastSentMs = lastSentMs;
+        }
+    }
+
+    // Send side
+    private long nextSendSeq = 0;
+    private final TreeMap<Long, Pending> unacked = new TreeMap<>();
+    private int unackedBytes = 0;
+
+    // Receive side
+    private long nextExpected = 0;
+    private final TreeMap<Long, byte[]> outOfOrder = new TreeMap<>();
+
+    /**
+     * Wrap a complete frame in a RELIABLE datagram and track it until acknowledged.
+     * @return the datagram to send now
+     */
+    public synchronized byte[] wrap(byte[] frame, long nowMs) {
+        long seq = nextSendSeq++;
+        WireWriter w = new WireWriter(frame.length + 10);
+        w.writeByte(UdpPacket.RELIABLE);
+        w.writeVarLong(seq);
+        w.writeBytes(frame, 0, frame.length);
+        byte[] packet = w.toByteArray();
+        unacked.put(seq, new Pending(packet, nowMs));
+        unackedBytes += packet.length;
+        return packet;
+    }
+
+    /**
+     * Process a cumulative ACK: every sequence below nextExpected was received.
+     */
+    public synchronized void onAck(long nextExpected) {
+        Iterator<Map.Entry<Long, Pending>> it = unacked.headMap(nextExpected).entrySet().iterator();
+        while (it.hasNext()) {
+            unackedBytes -= it.next().getValue().packet.length;
+            it.remove();
+        }
+    }
+
+    /**
+     * Unacknowledged datagrams whose resend interval has elapsed, oldest first.
+     */
+    public synchronized List<byte[]> due(long nowMs) {
+        List<byte[]> resend = null;
+        for (Pending p : unacked.values()) {
+            if (nowMs - p.lastSentMs >= RESEND_INTERVAL_MS) {
+                if (resend == null) {
+                    resend = new ArrayList<>();
+                }
+                resend.add(p.packet);
+                p.lastSentMs = nowMs;
+            }
+        }
+        return resend != null ? resend : List.of();
+    }
+
+    /**
+     * Accept a RELIABLE datagram body (everything after the sequence number).
+     * @return frames now deliverable in order - the packet's own frame plus any buffered
+     *         successors it unblocked; empty for duplicates and early arrivals
+     */
+    public synchronized List<byte[]> receive(long seq, byte[] frame) throws IOException {
+        if (seq < nextExpected) {
+            return List.of(); // Duplicate of something already delivered
+        }
+        if (seq > nextExpected) {
+            if (seq - nextExpected > MAX_OUT_OF_ORDER) {
+                throw new IOException("Reliable stream gap too large: " + (seq - nextExpected));
+            }
+            outOfOrder.putIfAbsent(seq, frame);
+            return List.of();
+        }
+        List<byte[]> ready = new ArrayList<>();
+        ready.add(frame);
+        nextExpected++;
+        byte[] next;
+        while ((next = outOfOrder.remove(nextExpected)) != null) {
+            ready.add(next);
+            nextExpected++;
+        }
+        return ready;
+    }
+
+    /**
+     * ACK datagram acknowledging everything received so far.
+     */
+    public synchronized byte[] ackPacket() {
+        WireWriter w = new WireWriter(11);
+        w.writeByte(UdpPacket.ACK);
+        w.writeVarLong(nextExpected);
+        return w.toByteArray();
+    }
+
+    public synchronized int pendingCount() {
+        return unacked.size();
+    }
+
+    public synchronized int pendingBytes() {
+        return unackedBytes;
+    }
+}
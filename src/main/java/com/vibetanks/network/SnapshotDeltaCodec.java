@@ -0,0 +1,739 @@
+package com.vibetanks.network;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.LongFunction;
+
+/**
+ * Delta snapshots: a GameState encoded against an older snapshot the receiver already has
+ * (the last one it acknowledged).
+ *
+ * Layout: [version][sequence][baseline sequence][server time][changed section mask][changed sections]
+ *         [players][enemies][bullets][lasers][power-ups][tile changes][map][sound events]
+ *
+ * - header, base, burning tiles, celebrations, UFO/easter egg and host settings are
+ *   re-sent whole (with the GameStateCodec section writers) only when they changed
+ * - players (by slot) and enemies (by list index) send a field mask plus changed fields
+ * - bullets, lasers and power-ups are keyed by id: a missing id is a despawn, an unknown
+ *   id is a spawn sent in full, a known id sends only its changed fields
+ * - the map is sent as the tiles that differ from the baseline map
+ * - tile changes and sound events are per-frame events and always sent in full
+ *
+ * Scratch buffers and id lookups live in a Context; encoders and decoders keep one so the
+ * per-tick path allocates only the records it produces.
+ */
+public final class SnapshotDeltaCodec {
+    // Changed-section bits
+    private static final int S_HEADER = 1;
+    private static final int S_BASE = 1 << 1;
+    private static final int S_BURNING = 1 << 2;
+    private static final int S_CELEBRATIONS = 1 << 3;
+    private static final int S_UFO = 1 << 4;
+    private static final int S_SETTINGS = 1 << 5;
+
+    // Record mask bit 0: record is new, full encoding follows
+    private static final int NEW = 1;
+
+    // Player field bits
+    private static final int P_FLAGS = 1 << 1;
+    private static final int P_X = 1 << 2;
+    private static final int P_Y = 1 << 3;
+    private static final int P_DIRECTION = 1 << 4;
+    private static final int P_LIVES = 1 << 5;
+    private static final int P_RESPAWN = 1 << 6;
+    private static final int P_KILLS = 1 << 7;
+    private static final int P_SCORE = 1 << 8;
+    private static final int P_LEVEL_SCORE = 1 << 9;
+    private static final int P_KILLS_BY_TYPE = 1 << 10;
+    private static final int P_SHIELD_DURATION = 1 << 11;
+    private static final int P_STARS = 1 << 12;
+    private static final int P_CARS = 1 << 13;
+    private static final int P_MACHINEGUN = 1 << 14;
+    private static final int P_LASER = 1 << 15;
+    private static final int P_NICKNAME = 1 << 16;
+    private static final int P_INPUT_SEQUENCE = 1 << 17;
+
+    // Enemy field bits
+    private static final int E_X = 1 << 1;
+    private static final int E_Y = 1 << 2;
+    private static final int E_DIRECTION = 1 << 3;
+    private static final int E_ALIVE = 1 << 4;
+    private static final int E_TYPE = 1 << 5;
+    private static final int E_HEALTH = 1 << 6;
+    private static final int E_MAX_HEALTH = 1 << 7;
+    private static final int E_TEMP_BOOST = 1 << 8;
+    private static final int E_SPEED = 1 << 9;
+    private static final int E_COLOR = 1 << 10;
+
+    // Bullet field bits
+    private static final int B_X = 1 << 1;
+    private static final int B_Y = 1 << 2;
+    private static final int B_DIRECTION = 1 << 3;
+    private static final int B_FLAGS = 1 << 4;
+    private static final int B_POWER = 1 << 5;
+    private static final int B_OWNER = 1 << 6;
+    private static final int B_SIZE = 1 << 7;
+
+    // Laser field bits
+    private static final int L_START_X = 1 << 1;
+    private static final int L_START_Y = 1 << 2;
+    private static final int L_DIRECTION = 1 << 3;
+    private static final int L_FROM_ENEMY = 1 << 4;
+    private static final int L_OWNER = 1 << 5;
+    private static final int L_LIFETIME = 1 << 6;
+    private static final int L_LENGTH = 1 << 7;
+
+    // Power-up field bits
+    private static final int U_X = 1 << 1;
+    private static final int U_Y = 1 << 2;
+    private static final int U_TYPE = 1 << 3;
+    private static final int U_LIFETIME = 1 << 4;
+
+    // Map modes
+    private static final int MAP_NONE = 0;
+    private static final int MAP_FULL = 1;
+    private static final int MAP_DIFF = 2;
+
+    private SnapshotDeltaCodec() {
+    }
+
+    /**
+     * Reusable scratch state for writeDelta() and readDelta(). Not thread-safe - each
+     * encoding or decoding thread owns its own.
+     */
+    public static final class Context {
+        private final WireWriter current = new WireWriter(256);
+        private final WireWriter previous = new WireWriter(256);
+        private final WireWriter sections = new WireWriter(256);
+        private final WireReader copyReader = new WireReader();
+        private final IdIndex ids = new IdIndex();
+    }
+
+    /**
+     * Record id to its index in a baseline list, by open addressing on primitive arrays.
+     * clear() only bumps a generation, so reuse costs nothing per call.
+     */
+    static final class IdIndex {
+        private long[] ids = new long[64];
+        private int[] indexes = new int[64];
+        private int[] generations = new int[64];
+        private int generation = 1;
+        private int size;
+
+        void clear() {
+            size = 0;
+            if (++generation == 0) {
+                Arrays.fill(generations, 0);
+                generation = 1;
+            }
+        }
+
+        void put(long id, int index) {
+            if ((size + 1) * 2 > ids.length) {
+                grow();
+            }
+            int slot = slotFor(id);
+            if (generations[slot] != generation) {
+                generations[slot] = generation;
+                ids[slot] = id;
+                size++;
+            }
+            indexes[slot] = index;
+        }
+
+        /**
+         * @return the index stored for id, or -1
+         */
+        int get(long id) {
+            int slot = slotFor(id);
+            return generations[slot] == generation ? indexes[slot] : -1;
+        }
+
+        // The slot holding id, or the empty slot where it would go
+        private int slotFor(long id) {
+            int mask = ids.length - 1;
+            int hash = Long.hashCode(id) * 0x9E3779B9;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (generations[slot] == generation && ids[slot] != id) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            long[] oldIds = ids;
+            int[] oldIndexes = indexes;
+            int[] oldGenerations = generations;
+            int live = generation;
+            ids = new long[oldIds.length * 2];
+            indexes = new int[oldIds.length * 2];
+            generations = new int[oldIds.length * 2];
+            generation = 1;
+            size = 0;
+            for (int i = 0; i < oldIds.length; i++) {
+                if (oldGenerations[i] == live) {
+                    put(oldIds[i], oldIndexes[i]);
+                }
+            }
+        }
+    }
+
+    // ============ WRITE ============
+
+    /**
+     * writeDelta() with a throwaway Context, for tools and tests.
+     */
+    public static void writeDelta(GameState baseline, GameState state, WireWriter w) {
+        writeDelta(baseline, state, w, new Context());
+    }
+
+    public static void writeDelta(GameState baseline, GameState state, WireWriter w, Context ctx) {
+        w.writeByte(GameStateCodec.CODEC_VERSION);
+        w.writeVarLong(state.sequence);
+        w.writeVarLong(baseline.sequence);
+        w.writeVarLong(state.serverTimeMs);
+
+        // Whole sections, only if their encoding changed
+        WireWriter current = ctx.current;
+        WireWriter previous = ctx.previous;
+        WireWriter sections = ctx.sections;
+        sections.reset();
+        int mask = 0;
+        for (int bit = S_HEADER; bit <= S_SETTINGS; bit <<= 1) {
+            current.reset();
+            previous.reset();
+            writeSection(bit, state, current);
+            writeSection(bit, baseline, previous);
+            if (!sameBytes(current, previous)) {
+                mask |= bit;
+                sections.writeBytes(current.array(), 0, current.size());
+            }
+        }
+        w.writeVarInt(mask);
+        w.writeBytes(sections.array(), 0, sections.size());
+
+        for (int i = 0; i < state.players.length; i++) {
+            writePlayerDelta(baseline.players[i], state.players[i], w);
+        }
+
+        // Enemies have no id - matched by list index
+        w.writeVarInt(state.enemies.size());
+        for (int i = 0; i < state.enemies.size(); i++) {
+            GameState.EnemyData e = state.enemies.get(i);
+            if (i < baseline.enemies.size()) {
+                writeEnemyDelta(baseline.enemies.get(i), e, w);
+            } else {
+                w.writeVarInt(NEW);
+                GameStateCodec.writeEnemy(e, w);
+            }
+        }
+
+        IdIndex ids = ctx.ids;
+        ids.clear();
+        for (int i = 0; i < baseline.bullets.size(); i++) {
+            ids.put(baseline.bullets.get(i).id, i);
+        }
+        w.writeVarInt(state.bullets.size());
+        for (GameState.BulletData b : state.bullets) {
+            int base = ids.get(b.id);
+            if (base >= 0) {
+                writeBulletDelta(baseline.bullets.get(base), b, w);
+            } else {
+                w.writeVarInt(NEW);
+                GameStateCodec.writeBullet(b, w);
+            }
+        }
+
+        ids.clear();
+        for (int i = 0; i < baseline.lasers.size(); i++) {
+            ids.put(baseline.lasers.get(i).id, i);
+        }
+        w.writeVarInt(state.lasers.size());
+        for (GameState.LaserData l : state.lasers) {
+            int base = ids.get(l.id);
+            if (base >= 0) {
+                writeLaserDelta(baseline.lasers.get(base), l, w);
+            } else {
+                w.writeVarInt(NEW);
+                GameStateCodec.writeLaser(l, w);
+            }
+        }
+
+        ids.clear();
+        for (int i = 0; i < baseline.powerUps.size(); i++) {
+            ids.put(baseline.powerUps.get(i).id, i);
+        }
+        w.writeVarInt(state.powerUps.size());
+        for (GameState.PowerUpData p : state.powerUps) {
+            int base = ids.get(p.id);
+            if (base >= 0) {
+                writePowerUpDelta(baseline.powerUps.get(base), p, w);
+            } else {
+                w.writeVarInt(NEW);
+                GameStateCodec.writePowerUp(p, w);
+            }
+        }
+
+        GameStateCodec.writeTileChanges(state.tileChanges, w);
+        writeMapDelta(baseline.mapTiles, state.mapTiles, w);
+        GameStateCodec.writeSoundEvents(state, w);
+    }
+
+    private static void writeSection(int section, GameState state, WireWriter w) {
+        switch (section) {
+            case S_HEADER -> GameStateCodec.writeHeader(state, w);
+            case S_BASE -> GameStateCodec.writeBase(state, w);
+            case S_BURNING -> GameStateCodec.writeBurningTiles(state, w);
+            case S_CELEBRATIONS -> GameStateCodec.writeCelebrations(state, w);
+            case S_UFO -> GameStateCodec.writeUfoAndEasterEgg(state, w);
+            case S_SETTINGS -> GameStateCodec.writeHostSettings(state, w);
+            default -> throw new IllegalArgumentException("Unknown section " + section);
+        }
+    }
+
+    private static boolean sameBytes(WireWriter a, WireWriter b) {
+        return Arrays.equals(a.array(), 0, a.size(), b.array(), 0, b.size());
+    }
+
+    private static void writePlayerDelta(PlayerData base, PlayerData p, WireWriter w) {
+        int flags = GameStateCodec.playerFlags(p);
+        int mask = 0;
+        if (flags != GameStateCodec.playerFlags(base)) mask |= P_FLAGS;
+        if (!GameStateCodec.samePosition(p.x, base.x)) mask |= P_X;
+        if (!GameStateCodec.samePosition(p.y, base.y)) mask |= P_Y;
+        if (p.direction != base.direction) mask |= P_DIRECTION;
+        if (p.lives != base.lives) mask |= P_LIVES;
+        if (p.respawnTimer != base.respawnTimer
+                || (p.respawnTimer > 0 && (!GameStateCodec.samePosition(p.pendingRespawnX, base.pendingRespawnX)
+                                           || !GameStateCodec.samePosition(p.pendingRespawnY, base.pendingRespawnY)))) {
+            mask |= P_RESPAWN;
+        }
+        if (p.kills != base.kills) mask |= P_KILLS;
+        if (p.score != base.score) mask |= P_SCORE;
+        if (p.levelScore != base.levelScore) mask |= P_LEVEL_SCORE;
+        if (!Arrays.equals(p.killsByType, base.killsByType)) mask |= P_KILLS_BY_TYPE;
+        if (p.shieldDuration != base.shieldDuration) mask |= P_SHIELD_DURATION;
+        if (p.starCount != base.starCount) mask |= P_STARS;
+        if (p.carCount != base.carCount) mask |= P_CARS;
+        if (p.machinegunCount != base.machinegunCount) mask |= P_MACHINEGUN;
+        if (p.laserDuration != base.laserDuration) mask |= P_LASER;
+        if (!Objects.equals(p.nickname, base.nickname)) mask |= P_NICKNAME;
+        if (p.lastInputSequence != base.lastInputSequence) mask |= P_INPUT_SEQUENCE;
+        if (p.playerNumber != base.playerNumber) mask = NEW; // Slot reused - send it whole
+
+        w.writeVarInt(mask);
+        if (mask == NEW) {
+            GameStateCodec.writePlayerData(p, w);
+            return;
+        }
+        if ((mask & P_FLAGS) != 0) w.writeVarInt(flags);
+        if ((mask & P_X) != 0) GameStateCodec.writePosition(p.x, w);
+        if ((mask & P_Y) != 0) GameStateCodec.writePosition(p.y, w);
+        if ((mask & P_DIRECTION) != 0) w.writeByte(p.direction);
+        if ((mask & P_LIVES) != 0) w.writeSignedVarInt(p.lives);
+        if ((mask & P_RESPAWN) != 0) {
+            w.writeVarInt(p.respawnTimer);
+            if (p.respawnTimer > 0) {
+                GameStateCodec.writePosition(p.pendingRespawnX, w);
+                GameStateCodec.writePosition(p.pendingRespawnY, w);
+            }
+        }
+        if ((mask & P_KILLS) != 0) w.writeVarInt(p.kills);
+        if ((mask & P_SCORE) != 0) w.writeSignedVarInt(p.score);
+        if ((mask & P_LEVEL_SCORE) != 0) w.writeSignedVarInt(p.levelScore);
+        if ((mask & P_KILLS_BY_TYPE) != 0) {
+            for (int k : p.killsByType) {
+                w.writeVarInt(k);
+            }
+        }
+        if ((mask & P_SHIELD_DURATION) != 0) w.writeVarInt(p.shieldDuration);
+        if ((mask & P_STARS) != 0) w.writeVarInt(p.starCount);
+        if ((mask & P_CARS) != 0) w.writeVarInt(p.carCount);
+        if ((mask & P_MACHINEGUN) != 0) w.writeVarInt(p.machinegunCount);
+        if ((mask & P_LASER) != 0) w.writeVarInt(p.laserDuration);
+        if ((mask & P_NICKNAME) != 0) w.writeString(p.nickname);
+        if ((mask & P_INPUT_SEQUENCE) != 0) w.writeVarLong(p.lastInputSequence);
+    }
+
+    private static void writeEnemyDelta(GameState.EnemyData base, GameState.EnemyData e, WireWriter w) {
+        int mask = 0;
+        if (!GameStateCodec.samePosition(e.x, base.x)) mask |= E_X;
+        if (!GameStateCodec.samePosition(e.y, base.y)) mask |= E_Y;
+        if (e.direction != base.direction) mask |= E_DIRECTION;
+        if (e.alive != base.alive) mask |= E_ALIVE;
+        if (e.enemyType != base.enemyType) mask |= E_TYPE;
+        if (e.health != base.health) mask |= E_HEALTH;
+        if (e.maxHealth != base.maxHealth) mask |= E_MAX_HEALTH;
+        if (!GameStateCodec.sameSpeed(e.tempSpeedBoost, base.tempSpeedBoost)) mask |= E_TEMP_BOOST;
+        if (!GameStateCodec.sameSpeed(e.speedMultiplier, base.speedMultiplier)) mask |= E_SPEED;
+        if (e.colorOverrideIndex != base.colorOverrideIndex) mask |= E_COLOR;
+
+        w.writeVarInt(mask);
+        if ((mask & E_X) != 0) GameStateCodec.writePosition(e.x, w);
+        if ((mask & E_Y) != 0) GameStateCodec.writePosition(e.y, w);
+        if ((mask & E_DIRECTION) != 0) w.writeByte(e.direction);
+        if ((mask & E_ALIVE) != 0) w.writeBoolean(e.alive);
+        if ((mask & E_TYPE) != 0) w.writeByte(e.enemyType);
+        if ((mask & E_HEALTH) != 0) w.writeSignedVarInt(e.health);
+        if ((mask & E_MAX_HEALTH) != 0) w.writeVarInt(e.maxHealth);
+        if ((mask & E_TEMP_BOOST) != 0) GameStateCodec.writeSpeed(e.tempSpeedBoost, w);
+        if ((mask & E_SPEED) != 0) GameStateCodec.writeSpeed(e.speedMultiplier, w);
+        if ((mask & E_COLOR) != 0) w.writeSignedVarInt(e.colorOverrideIndex);
+    }
+
+    private static void writeBulletDelta(GameState.BulletData base, GameState.BulletData b, WireWriter w) {
+        int flags = GameStateCodec.bulletFlags(b);
+        int mask = 0;
+        if (!GameStateCodec.samePosition(b.x, base.x)) mask |= B_X;
+        if (!GameStateCodec.samePosition(b.y, base.y)) mask |= B_Y;
+        if (b.direction != base.direction) mask |= B_DIRECTION;
+        if (flags != GameStateCodec.bulletFlags(base)) mask |= B_FLAGS;
+        if (b.power != base.power) mask |= B_POWER;
+        if (b.ownerPlayerNumber != base.ownerPlayerNumber) mask |= B_OWNER;
+        if (b.size != base.size) mask |= B_SIZE;
+
+        w.writeVarInt(mask);
+        w.writeVarLong(b.id);
+        if ((mask & B_X) != 0) GameStateCodec.writePosition(b.x, w);
+        if ((mask & B_Y) != 0) GameStateCodec.writePosition(b.y, w);
+        if ((mask & B_DIRECTION) != 0) w.writeByte(b.direction);
+        if ((mask & B_FLAGS) != 0) w.writeByte(flags);
+        if ((mask & B_POWER) != 0) w.writeByte(b.power);
+        if ((mask & B_OWNER) != 0) w.writeByte(b.ownerPlayerNumber);
+        if ((mask & B_SIZE) != 0) w.writeByte(b.size);
+    }
+
+    private static void writeLaserDelta(GameState.LaserData base, GameState.LaserData l, WireWriter w) {
+        int mask = 0;
+        if (!GameStateCodec.samePosition(l.startX, base.startX)) mask |= L_START_X;
+        if (!GameStateCodec.samePosition(l.startY, base.startY)) mask |= L_START_Y;
+        if (l.direction != base.direction) mask |= L_DIRECTION;
+        if (l.fromEnemy != base.fromEnemy) mask |= L_FROM_ENEMY;
+        if (l.ownerPlayerNumber != base.ownerPlayerNumber) mask |= L_OWNER;
+        if (l.lifetime != base.lifetime) mask |= L_LIFETIME;
+        if (!GameStateCodec.samePosition(l.length, base.length)) mask |= L_LENGTH;
+
+        w.writeVarInt(mask);
+        w.writeVarLong(l.id);
+        if ((mask & L_START_X) != 0) GameStateCodec.writePosition(l.startX, w);
+        if ((mask & L_START_Y) != 0) GameStateCodec.writePosition(l.startY, w);
+        if ((mask & L_DIRECTION) != 0) w.writeByte(l.direction);
+        if ((mask & L_FROM_ENEMY) != 0) w.writeBoolean(l.fromEnemy);
+        if ((mask & L_OWNER) != 0) w.writeByte(l.ownerPlayerNumber);
+        if ((mask & L_LIFETIME) != 0) w.writeVarInt(l.lifetime);
+        if ((mask & L_LENGTH) != 0) GameStateCodec.writePosition(l.length, w);
+    }
+
+    private static void writePowerUpDelta(GameState.PowerUpData base, GameState.PowerUpData p, WireWriter w) {
+        int mask = 0;
+        if (!GameStateCodec.samePosition(p.x, base.x)) mask |= U_X;
+        if (!GameStateCodec.samePosition(p.y, base.y)) mask |= U_Y;
+        if (p.type != base.type) mask |= U_TYPE;
+        if (p.lifetime != base.lifetime) mask |= U_LIFETIME;
+
+        w.writeVarInt(mask);
+        w.writeVarLong(p.id);
+        if ((mask & U_X) != 0) GameStateCodec.writePosition(p.x, w);
+        if ((mask & U_Y) != 0) GameStateCodec.writePosition(p.y, w);
+        if ((mask & U_TYPE) != 0) w.writeByte(p.type);
+        if ((mask & U_LIFETIME) != 0) w.writeSignedVarInt(p.lifetime);
+    }
+
+    // Changed tiles as (index gap, tile) pairs in row-major order
+    private static void writeMapDelta(int[][] base, int[][] tiles, WireWriter w) {
+        if (tiles == null) {
+            w.writeByte(MAP_NONE);
+            return;
+        }
+        if (base == null || base.length != tiles.length
+                || (tiles.length > 0 && base[0].length != tiles[0].length)) {
+            w.writeByte(MAP_FULL);
+            GameStateCodec.writeMapTiles(tiles, w);
+            return;
+        }
+
+        int changed = 0;
+        for (int row = 0; row < tiles.length; row++) {
+            for (int col = 0; col < tiles[row].length; col++) {
+                if (tiles[row][col] != base[row][col]) changed++;
+            }
+        }
+        w.writeByte(MAP_DIFF);
+        w.writeVarInt(changed);
+        int cols = tiles.length > 0 ? tiles[0].length : 0;
+        int last = -1;
+        for (int row = 0; row < tiles.length; row++) {
+            for (int col = 0; col < cols; col++) {
+                if (tiles[row][col] != base[row][col]) {
+                    int index = row * cols + col;
+                    w.writeVarInt(index - last - 1);
+                    w.writeByte(tiles[row][col]);
+                    last = index;
+                }
+            }
+        }
+    }
+
+    // ============ READ ============
+
+    /**
+     * Decode a delta payload. Every record in the result is a fresh object; the baseline
+     * is never modified.
+     * @param baselines lookup of previously received snapshots by sequence
+     * @return the reconstructed snapshot, or null if the baseline is no longer available
+     */
+    public static GameState readDelta(WireReader r, LongFunction<GameState> baselines) throws IOException {
+        return readDelta(r, baselines, new Context());
+    }
+
+    /**
+     * readDelta() with the decoder's own scratch Context.
+     */
+    public static GameState readDelta(WireReader r, LongFunction<GameState> baselines, Context ctx) throws IOException {
+        GameStateCodec.checkVersion(r);
+        long sequence = r.readVarLong();
+        GameState baseline = baselines.apply(r.readVarLong());
+        if (baseline == null) {
+            return null;
+        }
+
+        GameState state = new GameState();
+        state.sequence = sequence;
+        state.serverTimeMs = r.readVarLong();
+
+        // Sections: changed ones come from the stream, the rest are copied from the baseline.
+        // Copies go through the section writer/reader pair so they are deep and always in sync.
+        int mask = r.readVarInt();
+        WireWriter copy = ctx.current;
+        WireReader copyReader = ctx.copyReader;
+        for (int bit = S_HEADER; bit <= S_SETTINGS; bit <<= 1) {
+            if ((mask & bit) != 0) {
+                readSection(bit, state, r);
+            } else {
+                copy.reset();
+                writeSection(bit, baseline, copy);
+                copyReader.reset(copy.array(), 0, copy.size());
+                readSection(bit, state, copyReader);
+            }
+        }
+
+        for (int i = 0; i < state.players.length; i++) {
+            state.players[i] = readPlayerDelta(baseline.players[i], r, copy, copyReader);
+        }
+
+        int enemyCount = r.readVarInt();
+        for (int i = 0; i < enemyCount; i++) {
+            int recordMask = r.readVarInt();
+            if (recordMask == NEW) {
+                state.enemies.add(GameStateCodec.readEnemy(r));
+            } else if (i < baseline.enemies.size()) {
+                state.enemies.add(readEnemyDelta(baseline.enemies.get(i), recordMask, r));
+            } else {
+                throw new StreamCorruptedException("Enemy delta " + i + " has no baseline");
+            }
+        }
+
+        IdIndex ids = ctx.ids;
+        ids.clear();
+        for (int i = 0; i < baseline.bullets.size(); i++) {
+            ids.put(baseline.bullets.get(i).id, i);
+        }
+        int bulletCount = r.readVarInt();
+        for (int i = 0; i < bulletCount; i++) {
+            int recordMask = r.readVarInt();
+            if (recordMask == NEW) {
+                state.bullets.add(GameStateCodec.readBullet(r));
+            } else {
+                state.bullets.add(readBulletDelta(require(ids, baseline.bullets, r.readVarLong(), "bullet"), recordMask, r));
+            }
+        }
+
+        ids.clear();
+        for (int i = 0; i < baseline.lasers.size(); i++) {
+            ids.put(baseline.lasers.get(i).id, i);
+        }
+        int laserCount = r.readVarInt();
+        for (int i = 0; i < laserCount; i++) {
+            int recordMask = r.readVarInt();
+            if (recordMask == NEW) {
+                state.lasers.add(GameStateCodec.readLaser(r));
+            } else {
+                state.lasers.add(readLaserDelta(require(ids, baseline.lasers, r.readVarLong(), "laser"), recordMask, r));
+            }
+        }
+
+        ids.clear();
+        for (int i = 0; i < baseline.powerUps.size(); i++) {
+            ids.put(baseline.powerUps.get(i).id, i);
+        }
+        int powerUpCount = r.readVarInt();
+        for (int i = 0; i < powerUpCount; i++) {
+            int recordMask = r.readVarInt();
+            if (recordMask == NEW) {
+                state.powerUps.add(GameStateCodec.readPowerUp(r));
+            } else {
+                state.powerUps.add(readPowerUpDelta(require(ids, baseline.powerUps, r.readVarLong(), "power-up"), recordMask, r));
+            }
+        }
+
+        GameStateCodec.readTileChanges(state.tileChanges, r);
+        state.mapTiles = readMapDelta(baseline.mapTiles, r);
+        GameStateCodec.readSoundEvents(state, r);
+        return state;
+    }
+
+    private static void readSection(int section, GameState state, WireReader r) throws IOException {
+        switch (section) {
+            case S_HEADER -> GameStateCodec.readHeader(state, r);
+            case S_BASE -> GameStateCodec.readBase(state, r);
+            case S_BURNING -> GameStateCodec.readBurningTiles(state, r);
+            case S_CELEBRATIONS -> GameStateCodec.readCelebrations(state, r);
+            case S_UFO -> GameStateCodec.readUfoAndEasterEgg(state, r);
+            case S_SETTINGS -> GameStateCodec.readHostSettings(state, r);
+            default -> throw new IllegalArgumentException("Unknown section " + section);
+        }
+    }
+
+    private static <T> T require(IdIndex ids, List<T> baseline, long id, String kind) throws IOException {
+        int index = ids.get(id);
+        if (index < 0) {
+            throw new StreamCorruptedException("Delta for unknown " + kind + " id " + id);
+        }
+        return baseline.get(index);
+    }
+
+    private static PlayerData readPlayerDelta(PlayerData base, WireReader r,
+                                              WireWriter copy, WireReader copyReader) throws IOException {
+        int mask = r.readVarInt();
+        if (mask == NEW) {
+            return GameStateCodec.readPlayerData(r);
+        }
+
+        copy.reset();
+        GameStateCodec.writePlayerData(base, copy);
+        copyReader.reset(copy.array(), 0, copy.size());
+        PlayerData p = GameStateCodec.readPlayerData(copyReader);
+        if (mask == 0) {
+            return p;
+        }
+
+        if ((mask & P_FLAGS) != 0) GameStateCodec.setPlayerFlags(p, r.readVarInt());
+        if ((mask & P_X) != 0) p.x = GameStateCodec.readPosition(r);
+        if ((mask & P_Y) != 0) p.y = GameStateCodec.readPosition(r);
+        if ((mask & P_DIRECTION) != 0) p.direction = r.readByte();
+        if ((mask & P_LIVES) != 0) p.lives = r.readSignedVarInt();
+        if ((mask & P_RESPAWN) != 0) {
+            p.respawnTimer = r.readVarInt();
+            if (p.respawnTimer > 0) {
+                p.pendingRespawnX = GameStateCodec.readPosition(r);
+                p.pendingRespawnY = GameStateCodec.readPosition(r);
+            }
+        }
+        if ((mask & P_KILLS) != 0) p.kills = r.readVarInt();
+        if ((mask & P_SCORE) != 0) p.score = r.readSignedVarInt();
+        if ((mask & P_LEVEL_SCORE) != 0) p.levelScore = r.readSignedVarInt();
+        if ((mask & P_KILLS_BY_TYPE) != 0) {
+            for (int i = 0; i < p.killsByType.length; i++) {
+                p.killsByType[i] = r.readVarInt();
+            }
+        }
+        if ((mask & P_SHIELD_DURATION) != 0) p.shieldDuration = r.readVarInt();
+        if ((mask & P_STARS) != 0) p.starCount = r.readVarInt();
+        if ((mask & P_CARS) != 0) p.carCount = r.readVarInt();
+        if ((mask & P_MACHINEGUN) != 0) p.machinegunCount = r.readVarInt();
+        if ((mask & P_LASER) != 0) p.laserDuration = r.readVarInt();
+        if ((mask & P_NICKNAME) != 0) p.nickname = r.readString();
+        if ((mask & P_INPUT_SEQUENCE) != 0) p.lastInputSequence = r.readVarLong();
+        return p;
+    }
+
+    private static GameState.EnemyData readEnemyDelta(GameState.EnemyData b, int mask, WireReader r) throws IOException {
+        GameState.EnemyData e = new GameState.EnemyData(b.x, b.y, b.direction, b.alive, b.enemyType,
+            b.health, b.maxHealth, b.tempSpeedBoost, b.speedMultiplier, b.colorOverrideIndex);
+        if ((mask & E_X) != 0) e.x = GameStateCodec.readPosition(r);
+        if ((mask & E_Y) != 0) e.y = GameStateCodec.readPosition(r);
+        if ((mask & E_DIRECTION) != 0) e.direction = r.readByte();
+        if ((mask & E_ALIVE) != 0) e.alive = r.readBoolean();
+        if ((mask & E_TYPE) != 0) e.enemyType = r.readByte();
+        if ((mask & E_HEALTH) != 0) e.health = r.readSignedVarInt();
+        if ((mask & E_MAX_HEALTH) != 0) e.maxHealth = r.readVarInt();
+        if ((mask & E_TEMP_BOOST) != 0) e.tempSpeedBoost = GameStateCodec.readSpeed(r);
+        if ((mask & E_SPEED) != 0) e.speedMultiplier = GameStateCodec.readSpeed(r);
+        if ((mask & E_COLOR) != 0) e.colorOverrideIndex = r.readSignedVarInt();
+        return e;
+    }
+
+    private static GameState.BulletData readBulletDelta(GameState.BulletData base, int mask, WireReader r) throws IOException {
+        GameState.BulletData b = new GameState.BulletData(base.id, base.x, base.y, base.direction, base.fromEnemy,
+            base.power, base.canDestroyTrees, base.ownerPlayerNumber, base.size, base.rainbow);
+        if ((mask & B_X) != 0) b.x = GameStateCodec.readPosition(r);
+        if ((mask & B_Y) != 0) b.y = GameStateCodec.readPosition(r);
+        if ((mask & B_DIRECTION) != 0) b.direction = r.readByte();
+        if ((mask & B_FLAGS) != 0) {
+            int flags = r.readByte();
+            b.fromEnemy = (flags & 1) != 0;
+            b.canDestroyTrees = (flags & 2) != 0;
+            b.rainbow = (flags & 4) != 0;
+        }
+        if ((mask & B_POWER) != 0) b.power = r.readByte();
+        if ((mask & B_OWNER) != 0) b.ownerPlayerNumber = r.readByte();
+        if ((mask & B_SIZE) != 0) b.size = r.readUnsignedByte();
+        return b;
+    }
+
+    private static GameState.LaserData readLaserDelta(GameState.LaserData base, int mask, WireReader r) throws IOException {
+        GameState.LaserData l = new GameState.LaserData(base.id, base.startX, base.startY, base.direction,
+            base.fromEnemy, base.ownerPlayerNumber, base.lifetime, base.length);
+        if ((mask & L_START_X) != 0) l.startX = GameStateCodec.readPosition(r);
+        if ((mask & L_START_Y) != 0) l.startY = GameStateCodec.readPosition(r);
+        if ((mask & L_DIRECTION) != 0) l.direction = r.readByte();
+        if ((mask & L_FROM_ENEMY) != 0) l.fromEnemy = r.readBoolean();
+        if ((mask & L_OWNER) != 0) l.ownerPlayerNumber = r.readByte();
+        if ((mask & L_LIFETIME) != 0) l.lifetime = r.readVarInt();
+        if ((mask & L_LENGTH) != 0) l.length = GameStateCodec.readPosition(r);
+        return l;
+    }
+
+    private static GameState.PowerUpData readPowerUpDelta(GameState.PowerUpData base, int mask, WireReader r) throws IOException {
+        GameState.PowerUpData p = new GameState.PowerUpData(base.id, base.x, base.y, base.type, base.lifetime);
+        if ((mask & U_X) != 0) p.x = GameStateCodec.readPosition(r);
+        if ((mask & U_Y) != 0) p.y = GameStateCodec.readPosition(r);
+        if ((mask & U_TYPE) != 0) p.type = r.readByte();
+        if ((mask & U_LIFETIME) != 0) p.lifetime = r.readSignedVarInt();
+        return p;
+    }
+
+    private static int[][] readMapDelta(int[][] base, WireReader r) throws IOException {
+        int mode = r.readUnsignedByte();
+        switch (mode) {
+            case MAP_NONE:
+                return null;
+            case MAP_FULL:
+                return GameStateCodec.readMapTiles(r);
+            case MAP_DIFF:
+                if (base == null) {
+                    throw new StreamCorruptedException("Map diff without baseline map");
+                }
+                int[][] tiles = new int[base.length][];
+                for (int row = 0; row < base.length; row++) {
+                    tiles[row] = base[row].clone();
+                }
+                int cols = base.length > 0 ? base[0].length : 0;
+                int count = r.readVarInt();
+                int index = -1;
+                for (int i = 0; i < count; i++) {
+                    index += r.readVarInt() + 1;
+                    if (cols == 0 || index >= base.length * cols) {
+                        throw new StreamCorruptedException("Map diff index out of range: " + index);
+                    }
+                    tiles[index / cols][index % cols] = r.readUnsignedByte();
+                }
+                return tiles;
+            default:
+                throw new StreamCorruptedException("Unknown map mode: " + mode);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.vibetanks.network;
+
+/**
+ * Encodes a GameState into a complete, ready-to-send frame exactly once per tick.
+ * The same byte slice is then written to every client, so encode cost does not
+ * grow with the number of connected players.
+ *
+ * Buffers (and the delta codec's scratch) are reused between ticks; the slice is only
+ * valid until the next encode().
+ * Not thread-safe - owned by the game loop thread.
+ */
+public class SnapshotEncoder {
+    private final WireWriter payload = new WireWriter(4096);
+    private final WireWriter frame = new WireWriter(4096);
+    private final SnapshotDeltaCodec.Context deltaContext = new SnapshotDeltaCodec.Context();
+
+    private long lastEncodeNanos;
+
+    /**
+     * Encode the snapshot and wrap it in a MSG_GAME_STATE frame.
+     */
+    public void encode(GameState state) {
+        long start = System.nanoTime();
+        payload.reset();
+        GameStateCodec.writeGameState(state, payload);
+        WireProtocol.encodeFrame(WireProtocol.MSG_GAME_STATE, payload, frame);
+        lastEncodeNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Encode the snapshot as a delta against baseline and wrap it in a MSG_GAME_STATE_DELTA frame.
+     */
+    public void encodeDelta(GameState baseline, GameState state) {
+        long start = System.nanoTime();
+        payload.reset();
+        SnapshotDeltaCodec.writeDelta(baseline, state, payload, deltaContext);
+        WireProtocol.encodeFrame(WireProtocol.MSG_GAME_STATE_DELTA, payload, frame);
+        lastEncodeNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Backing array of the last encoded frame - only the first frameLength() bytes are valid.
+     */
+    public byte[] frameBytes() {
+        return frame.array();
+    }
+
+    public int frameLength() {
+        return frame.size();
+    }
+
+    public int payloadLength() {
+        return payload.size();
+    }
+
+    public long getLastEncodeNanos() {
+        return lastEncodeNanos;
+    }
+}
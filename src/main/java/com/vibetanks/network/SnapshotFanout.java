@@ -0,0 +1,203 @@
+package com.vibetanks.network;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns one tick's snapshot into the frame each receiver needs.
+ *
+ * Receivers that acknowledged a snapshot still in the history get a delta against it;
+ * everyone else (new clients, clients that asked for a full snapshot, clients too far
+ * behind) gets the full snapshot. Each distinct frame is encoded at most once per tick
+ * and the same immutable byte[] is shared by every receiver that needs it.
+ *
+ * Receivers on weak links can ask for reduced detail: the same snapshot without its
+ * cosmetic sections. Deltas are always taken against the full-detail history - the cosmetic
+ * sections are sent whole whenever they differ, so a reduced receiver ends up with them
+ * empty whichever stream its baseline came from. The other way round, a receiver back at
+ * full detail may hold a baseline it decoded without cosmetics; deltas against such a
+ * baseline are taken against its reduced form, so the cosmetic sections are sent again.
+ *
+ * Receivers that negotiated compression get the frame run through a FrameCompressor,
+ * again once per distinct frame per tick.
+ *
+ * Sound events are one-shot, so a receiver that skipped snapshots (a send divisor, a
+ * congested link, a dropped unsent snapshot) gets the events of the snapshots it missed
+ * along with the next one it is sent - as far back as the history reaches.
+ *
+ * Not thread-safe - owned by the tick/send thread.
+ */
+public class SnapshotFanout {
+    public static final int HISTORY_SIZE = 64; // ~1 second at 60 Hz
+
+    private final SnapshotHistory history = new SnapshotHistory(HISTORY_SIZE);
+    private final SnapshotEncoder encoder = new SnapshotEncoder();
+    // Keyed by baseline and how many skipped ticks' sound events the frame carries
+    private final Map<Long, byte[]> frames = new HashMap<>();
+    private final Map<Long, byte[]> reducedFrames = new HashMap<>();
+    private final Map<Long, byte[]> restoredFrames = new HashMap<>(); // Full detail against a reduced baseline
+    private final Map<byte[], byte[]> compressedFrames = new IdentityHashMap<>(); // Raw frame -> compressed
+    private FrameCompressor compressor;
+    private GameState current;
+    private GameState reduced;
+    private byte[] fullFrame;
+    private byte[] reducedFullFrame;
+    private long nextSequence = 1;
+
+    /**
+     * Start a new tick: stamp the snapshot's sequence and send time and remember it as a
+     * future baseline. The snapshot must not be modified afterwards.
+     */
+    public void begin(GameState state) {
+        state.sequence = nextSequence++;
+        state.serverTimeMs = System.nanoTime() / 1_000_000;
+        history.put(state);
+        current = state;
+        reduced = null;
+        fullFrame = null;
+        reducedFullFrame = null;
+        frames.clear();
+        reducedFrames.clear();
+        restoredFrames.clear();
+        compressedFrames.clear();
+    }
+
+    /**
+     * Frame for a receiver whose latest acknowledged snapshot is ackedSequence (0 = none).
+     */
+    public byte[] frameFor(long ackedSequence) {
+        return frameFor(ackedSequence, false);
+    }
+
+    /**
+     * @param reducedDetail leave out dancing characters and burning tiles
+     * @param compressed wrap the frame in MSG_COMPRESSED when that makes it smaller
+     */
+    public byte[] frameFor(long ackedSequence, boolean reducedDetail, boolean compressed) {
+        return frameFor(ackedSequence, current.sequence - 1, reducedDetail, compressed);
+    }
+
+    /**
+     * @param sentSequence the latest snapshot the receiver was sent (0 = none); sound events
+     *        of the snapshots it skipped since then ride along with this one
+     * @param reducedDetail leave out dancing characters and burning tiles
+     * @param compressed wrap the frame in MSG_COMPRESSED when that makes it smaller
+     */
+    public byte[] frameFor(long ackedSequence, long sentSequence, boolean reducedDetail, boolean compressed) {
+        return frameFor(ackedSequence, sentSequence, 0, reducedDetail, compressed);
+    }
+
+    /**
+     * @param sentSequence the latest snapshot the receiver was sent (0 = none); sound events
+     *        of the snapshots it skipped since then ride along with this one
+     * @param reducedUntil the latest snapshot the receiver was sent at reduced detail (0 = none);
+     *        a baseline up to it may be missing its cosmetics at the receiver
+     * @param reducedDetail leave out dancing characters and burning tiles
+     * @param compressed wrap the frame in MSG_COMPRESSED when that makes it smaller
+     */
+    public byte[] frameFor(long ackedSequence, long sentSequence, long reducedUntil,
+                           boolean reducedDetail, boolean compressed) {
+        byte[] frame = frameFor(ackedSequence, sentSequence, reducedUntil, reducedDetail);
+        if (!compressed || compressor() == null) {
+            return frame;
+        }
+        return compressedFrames.computeIfAbsent(frame, compressor::compress);
+    }
+
+    /**
+     * @param reducedDetail leave out dancing characters and burning tiles
+     */
+    public byte[] frameFor(long ackedSequence, boolean reducedDetail) {
+        return frameFor(ackedSequence, current.sequence - 1, 0, reducedDetail);
+    }
+
+    private byte[] frameFor(long ackedSequence, long sentSequence, long reducedUntil, boolean reducedDetail) {
+        GameState baseline = ackedSequence < current.sequence ? history.get(ackedSequence) : null;
+        int carried = skippedTicks(sentSequence);
+        if (baseline == null && carried == 0) {
+            return reducedDetail ? reducedFullFrame() : fullFrame();
+        }
+        boolean restore = !reducedDetail && baseline != null && ackedSequence <= reducedUntil;
+        Map<Long, byte[]> cache = reducedDetail ? reducedFrames : restore ? restoredFrames : frames;
+        long key = (baseline == null ? 0 : ackedSequence) * HISTORY_SIZE + carried;
+        byte[] frame = cache.get(key);
+        if (frame == null) {
+            GameState state = withSkippedSounds(reducedDetail ? reduced() : current, carried);
+            if (baseline == null) {
+                encoder.encode(state);
+            } else {
+                encoder.encodeDelta(restore ? baseline.withoutCosmetics() : baseline, state);
+            }
+            frame = Arrays.copyOf(encoder.frameBytes(), encoder.frameLength());
+            cache.put(key, frame);
+        }
+        return frame;
+    }
+
+    // How far back the oldest skipped snapshot with sound events is, 0 if there is none
+    private int skippedTicks(long sentSequence) {
+        if (sentSequence <= 0) return 0; // New receivers don't need old sounds
+        long oldest = Math.max(sentSequence + 1, current.sequence - HISTORY_SIZE + 1);
+        for (long sequence = oldest; sequence < current.sequence; sequence++) {
+            GameState skipped = history.get(sequence);
+            if (skipped != null && !skipped.soundEvents.isEmpty()) {
+                return (int) (current.sequence - sequence);
+            }
+        }
+        return 0;
+    }
+
+    private GameState withSkippedSounds(GameState state, int skipped) {
+        if (skipped == 0) return state;
+        List<GameState.SoundEvent> events = new ArrayList<>();
+        for (long sequence = current.sequence - skipped; sequence <= current.sequence; sequence++) {
+            GameState earlier = history.get(sequence);
+            if (earlier != null) {
+                events.addAll(earlier.soundEvents);
+            }
+        }
+        return state.withSoundEvents(events);
+    }
+
+    public byte[] fullFrame() {
+        if (fullFrame == null) {
+            encoder.encode(current);
+            fullFrame = Arrays.copyOf(encoder.frameBytes(), encoder.frameLength());
+        }
+        return fullFrame;
+    }
+
+    private byte[] reducedFullFrame() {
+        if (reducedFullFrame == null) {
+            encoder.encode(reduced());
+            reducedFullFrame = Arrays.copyOf(encoder.frameBytes(), encoder.frameLength());
+        }
+        return reducedFullFrame;
+    }
+
+    /**
+     * The compressor's counters, or null if no receiver needed compression yet.
+     */
+    public FrameCompressor getCompressor() {
+        return compressor;
+    }
+
+    // Null when there is no dictionary - clients cannot negotiate compression then anyway
+    private FrameCompressor compressor() {
+        if (compressor == null && CompressionDictionary.get() != null) {
+            compressor = new FrameCompressor(CompressionDictionary.get());
+        }
+        return compressor;
+    }
+
+    private GameState reduced() {
+        if (reduced == null) {
+            reduced = current.withoutCosmetics();
+        }
+        return reduced;
+    }
+}
@@ -0,0 +1,39 @@
+package com.vibetanks.network;
+
+import java.util.Arrays;
+
+/**
+ * Ring buffer of recent snapshots indexed by sequence number.
+ * Senders keep the snapshots they sent so they can delta-encode against whatever a
+ * client acknowledged; receivers keep the ones they decoded as delta baselines.
+ *
+ * Not thread-safe - owned by a single sending or receiving thread.
+ */
+public class SnapshotHistory {
+    private final GameState[] ring;
+
+    public SnapshotHistory(int capacity) {
+        this.ring = new GameState[capacity];
+    }
+
+    public void put(GameState state) {
+        ring[slot(state.sequence)] = state;
+    }
+
+    /**
+     * @return the snapshot with this sequence, or null if it was never stored or has been overwritten
+     */
+    public GameState get(long sequence) {
+        if (sequence <= 0) return null;
+        GameState state = ring[slot(sequence)];
+        return state != null && state.sequence == sequence ? state : null;
+    }
+
+    public void clear() {
+        Arrays.fill(ring, null);
+    }
+
+    private int slot(long sequence) {
+        return (int) Math.floorMod(sequence, (long) ring.length);
+    }
+}
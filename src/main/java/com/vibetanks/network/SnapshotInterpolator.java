@@ -0,0 +1,140 @@
+package com.vibetanks.network;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Time-stamped snapshot buffer for rendering remote entities smoothly on clients.
+ *
+ * Snapshots are stamped with the sender's clock (GameState.serverTimeMs) and the client's
+ * arrival time. Remote entities are drawn at a render time slightly behind the newest
+ * snapshot, interpolating between the two snapshots around it, so late or bunched packets
+ * no longer show up as jumps. The delay adapts: one snapshot interval plus twice the
+ * observed arrival jitter, within [MIN_DELAY_MS, MAX_DELAY_MS]. If the buffer runs dry
+ * the last motion is extrapolated for at most MAX_EXTRAPOLATION_MS, then entities hold.
+ *
+ * add() is called by the network receive thread, sample() by the game loop.
+ */
+public class SnapshotInterpolator {
+    static final int MAX_SNAPSHOTS = 32;
+    static final long MIN_DELAY_MS = 5;
+    static final long MAX_DELAY_MS = 250;
+    static final long MAX_EXTRAPOLATION_MS = 100;
+    private static final double SMOOTHING = 0.1;     // EWMA weight for interval and jitter
+    private static final double OFFSET_DRIFT = 0.01; // How fast the clock offset may grow
+
+    /**
+     * Snapshots around the render time. alpha is 0 at from, 1 at to, above 1 when extrapolating.
+     */
+    public record Sample(GameState from, GameState to, double alpha) {
+        public double lerp(double a, double b) {
+            return a + (b - a) * alpha;
+        }
+    }
+
+    private final ArrayDeque<GameState> snapshots = new ArrayDeque<>();
+    private boolean hasOffset;
+    private double clockOffsetMs; // Client arrival time minus server time on the fastest path
+    private double intervalMs;    // Typical spacing between snapshots (server clock)
+    private double jitterMs;      // Typical extra arrival delay beyond the fastest path
+
+    /**
+     * Buffer a snapshot that arrived at the given client time.
+     */
+    public synchronized void add(GameState state, long arrivalMs) {
+        GameState newest = snapshots.peekLast();
+        if (newest != null && state.serverTimeMs <= newest.serverTimeMs) {
+            if (state.serverTimeMs + MAX_DELAY_MS * 4 < newest.serverTimeMs) {
+                clear(); // Sender clock went backwards - new host or server restart
+            } else {
+                return; // Out of order or duplicate
+            }
+        }
+
+        double offset = arrivalMs - state.serverTimeMs;
+        if (!hasOffset || offset < clockOffsetMs) {
+            clockOffsetMs = offset; // A faster path is the better estimate
+            hasOffset = true;
+        } else {
+            clockOffsetMs += (offset - clockOffsetMs) * OFFSET_DRIFT; // Follow slow clock drift
+        }
+        jitterMs += ((offset - clockOffsetMs) - jitterMs) * SMOOTHING;
+
+        newest = snapshots.peekLast();
+        if (newest != null) {
+            long interval = state.serverTimeMs - newest.serverTimeMs;
+            intervalMs = intervalMs == 0 ? interval : intervalMs + (interval - intervalMs) * SMOOTHING;
+        }
+
+        snapshots.addLast(state);
+        while (snapshots.size() > MAX_SNAPSHOTS) {
+            snapshots.removeFirst();
+        }
+    }
+
+    /**
+     * Current render delay behind the newest snapshot's timeline.
+     */
+    public synchronized long getDelayMs() {
+        long delay = Math.round(intervalMs + 2 * jitterMs);
+        return Math.max(MIN_DELAY_MS, Math.min(MAX_DELAY_MS, delay));
+    }
+
+    /**
+     * Snapshots to render from at the given client time, or null if nothing is buffered.
+     */
+    public synchronized Sample sample(long nowMs) {
+        if (snapshots.isEmpty()) {
+            return null;
+        }
+        double renderTime = nowMs - clockOffsetMs - getDelayMs();
+
+        GameState first = snapshots.peekFirst();
+        if (renderTime <= first.serverTimeMs || snapshots.size() == 1) {
+            GameState only = renderTime <= first.serverTimeMs ? first : snapshots.peekLast();
+            return new Sample(only, only, 0);
+        }
+
+        GameState from = null;
+        GameState to = null;
+        Iterator<GameState> it = snapshots.iterator();
+        GameState previous = it.next();
+        while (it.hasNext()) {
+            GameState next = it.next();
+            if (renderTime < next.serverTimeMs) {
+                from = previous;
+                to = next;
+                break;
+            }
+            previous = next;
+        }
+
+        if (to == null) {
+            // Underrun: continue the last motion for a bounded time
+            Iterator<GameState> back = snapshots.descendingIterator();
+            to = back.next();
+            from = back.next();
+            renderTime = Math.min(renderTime, to.serverTimeMs + MAX_EXTRAPOLATION_MS);
+        } else {
+            // Snapshots before 'from' are no longer needed
+            while (snapshots.peekFirst() != from) {
+                snapshots.removeFirst();
+            }
+        }
+
+        double span = to.serverTimeMs - from.serverTimeMs;
+        double alpha = span > 0 ? (renderTime - from.serverTimeMs) / span : 1;
+        return new Sample(from, to, alpha);
+    }
+
+    public synchronized int size() {
+        return snapshots.size();
+    }
+
+    public synchronized void clear() {
+        snapshots.clear();
+        hasOffset = false;
+        intervalMs = 0;
+        jitterMs = 0;
+    }
+}
@@ -0,0 +1,234 @@
+package com.vibetanks.network;
+
+import com.vibetanks.util.GameLogger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Client side of the UDP transport (see UdpServerTransport).
+ *
+ * sendReliable() is for control frames (join, restart/next-level requests); sendInput() sends
+ * the newest input frame together with the previous INPUT_REDUNDANCY - 1 in one unreliable
+ * datagram, so a single lost packet costs no input - the server drops the duplicates by
+ * sequence number. sendUnreliable() sends one frame once (pings). Received frames are
+ * handed to the FrameHandler on the client's I/O thread.
+ */
+public class UdpClient {
+    private static final GameLogger LOG = GameLogger.getLogger(UdpClient.class);
+    static final int INPUT_REDUNDANCY = 3;
+    private static final long SELECT_TIMEOUT_MS = 5;
+
+    private final InetSocketAddress server;
+    private final FrameDecoder.FrameHandler handler;
+    private final PacketSimulator simulator;
+    private final ReliableChannel reliable = new ReliableChannel();
+    private final ConnectionStats stats = new ConnectionStats();
+    private DatagramChannel channel;
+    private Selector selector;
+    private Thread ioThread;
+    private volatile boolean open = false;
+
+    // Datagrams queued by game threads, sent by the I/O thread
+    private final Queue<byte[]> outbound = new ConcurrentLinkedQueue<>();
+    private final ArrayDeque<byte[]> recentInputs = new ArrayDeque<>(INPUT_REDUNDANCY);
+
+    // Only touched on the I/O thread
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(UdpPacket.MAX_DATAGRAM_SIZE);
+    private final byte[] packet = new byte[UdpPacket.MAX_DATAGRAM_SIZE];
+    private final WireReader packetReader = new WireReader();
+    private final WireReader frameReader = new WireReader();
+    private final WireReader payloadReader = new WireReader();
+    private final PacketSimulator.Sender socketSender = (p, to) -> {
+        stats.addBytesOut(p.length);
+        channel.write(ByteBuffer.wrap(p));
+    };
+    private final PacketSimulator.Sender sender;
+
+    public UdpClient(InetSocketAddress server, FrameDecoder.FrameHandler handler) {
+        this(server, handler, null);
+    }
+
+    /**
+     * @param simulator applied to every outgoing datagram, or null for a real network
+     */
+    public UdpClient(InetSocketAddress server, FrameDecoder.FrameHandler handler, PacketSimulator simulator) {
+        this.server = server;
+        this.handler = handler;
+        this.simulator = simulator;
+        this.sender = simulator != null ? (p, to) -> simulator.send(p, to, socketSender) : socketSender;
+    }
+
+    public void connect() throws IOException {
+        channel = DatagramChannel.open();
+        channel.connect(server);
+        channel.configureBlocking(false);
+        selector = Selector.open();
+        channel.register(selector, SelectionKey.OP_READ);
+        open = true;
+
+        ioThread = new Thread(this::runLoop, "UdpClient");
+        ioThread.setDaemon(true);
+        ioThread.start();
+    }
+
+    /**
+     * Send a frame reliably and in order.
+     */
+    public void sendReliable(int type, WireWriter payload) {
+        if (!open) return;
+        outbound.offer(reliable.wrap(encode(type, payload), System.currentTimeMillis()));
+        selector.wakeup();
+    }
+
+    /**
+     * Send an input frame unreliably, piggybacking the previous inputs for redundancy.
+     */
+    public void sendInput(int type, WireWriter payload) {
+        if (!open) return;
+        byte[] datagram;
+        synchronized (recentInputs) {
+            if (recentInputs.size() == INPUT_REDUNDANCY) {
+                recentInputs.removeFirst();
+            }
+            recentInputs.addLast(encode(type, payload));
+            datagram = UdpPacket.unreliable(recentInputs.toArray(new byte[0][])); // Oldest first
+        }
+        outbound.offer(datagram);
+        selector.wakeup();
+    }
+
+    /**
+     * Send a frame once in its own datagram; it may be lost.
+     */
+    public void sendUnreliable(int type, WireWriter payload) {
+        if (!open) return;
+        outbound.offer(UdpPacket.unreliable(encode(type, payload)));
+        selector.wakeup();
+    }
+
+    private static byte[] encode(int type, WireWriter payload) {
+        WireWriter frame = new WireWriter(payload.size() + 6);
+        WireProtocol.encodeFrame(type, payload, frame);
+        return frame.toByteArray();
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Traffic on this socket; RTT and loss are filled in by whoever handles MSG_PONG.
+     */
+    public ConnectionStats getStats() {
+        return stats;
+    }
+
+    private void runLoop() {
+        while (open) {
+            try {
+                selector.select(SELECT_TIMEOUT_MS);
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    it.next();
+                    it.remove();
+                    receiveAll();
+                }
+                byte[] p;
+                while ((p = outbound.poll()) != null) {
+                    sender.send(p, server);
+                }
+                for (byte[] resend : reliable.due(System.currentTimeMillis())) {
+                    sender.send(resend, server);
+                }
+                if (simulator != null) {
+                    simulator.flushDue(socketSender);
+                }
+            } catch (ClosedSelectorException e) {
+                break;
+            } catch (IOException e) {
+                if (open) {
+                    LOG.warn("UDP connection lost: {}", e.getMessage());
+                    open = false;
+                }
+            }
+        }
+        try {
+            selector.close();
+            channel.close();
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+
+    private void receiveAll() throws IOException {
+        while (true) {
+            readBuffer.clear();
+            SocketAddress from = channel.receive(readBuffer);
+            if (from == null) {
+                return;
+            }
+            readBuffer.flip();
+            int length = readBuffer.remaining();
+            if (length == 0) continue;
+            stats.addBytesIn(length);
+            readBuffer.get(packet, 0, length);
+            packetReader.reset(packet, 1, length - 1);
+
+            switch (packet[0] & 0xFF) {
+                case UdpPacket.UNRELIABLE -> UdpPacket.readFrames(packetReader, frameReader, handler);
+                case UdpPacket.RELIABLE -> {
+                    long seq = packetReader.readVarLong();
+                    byte[] frame = new byte[packetReader.remaining()];
+                    packetReader.readBytes(frame, 0, frame.length);
+                    List<byte[]> ready = reliable.receive(seq, frame);
+                    sender.send(reliable.ackPacket(), server);
+                    for (byte[] f : ready) {
+                        payloadReader.reset(f, 0, f.length);
+                        UdpPacket.readFrames(payloadReader, frameReader, handler);
+                    }
+                }
+                case UdpPacket.ACK -> reliable.onAck(packetReader.readVarLong());
+                case UdpPacket.DISCONNECT -> {
+                    LOG.info("Server closed the connection");
+                    open = false;
+                    return;
+                }
+                default -> throw new IOException("Unknown datagram kind " + (packet[0] & 0xFF));
+            }
+        }
+    }
+
+    /**
+     * Tell the server we are leaving (best effort) and stop the I/O thread.
+     */
+    public void close() {
+        if (!open) return;
+        try {
+            // Before clearing open - the I/O thread closes the channel as soon as it sees that
+            channel.write(ByteBuffer.wrap(UdpPacket.disconnect()));
+        } catch (IOException e) {
+            // Server may already be gone
+        }
+        open = false;
+        selector.wakeup();
+        if (ioThread != null && ioThread != Thread.currentThread()) {
+            try {
+                ioThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
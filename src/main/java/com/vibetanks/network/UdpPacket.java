@@ -0,0 +1,78 @@
+package com.vibetanks.network;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+
+/**
+ * Datagram layout for the UDP transport. Every datagram starts with a kind byte:
+ *
+ *   UNRELIABLE  [0][frame][frame]...          snapshots and redundant inputs, may be lost
+ *   RELIABLE    [1][varlong seq][frame]       control messages, resent until acknowledged
+ *   ACK         [2][varlong next expected]    cumulative ack for the reliable stream
+ *   DISCONNECT  [3]                           peer is leaving (clean exit)
+ *
+ * Frames inside a datagram use the same [varint length][type][payload] framing as TCP,
+ * so message handlers are shared between both transports. Datagrams are kept within the
+ * max packet size agreed in the Handshake; a frame that would not fit is sent as
+ * FrameSplitter pieces, each in a datagram of its own.
+ */
+public final class UdpPacket {
+    public static final int UNRELIABLE = 0;
+    public static final int RELIABLE = 1;
+    public static final int ACK = 2;
+    public static final int DISCONNECT = 3;
+
+    // Largest UDP payload over IPv4 - the most a datagram we receive can hold
+    public static final int MAX_DATAGRAM_SIZE = 65507;
+    // Fits the 1280-byte IPv6 minimum MTU after IP and UDP headers, so IP never fragments it;
+    // the most the server sends in one datagram
+    public static final int SAFE_DATAGRAM_SIZE = 1200;
+    // Kind byte plus, for RELIABLE, the varlong sequence at its widest
+    public static final int HEADER_SIZE = 11;
+
+    private UdpPacket() {
+    }
+
+    /**
+     * Dispatch every complete frame remaining in the reader.
+     * @param frameReader reused for each frame's payload
+     */
+    public static void readFrames(WireReader r, WireReader frameReader, FrameDecoder.FrameHandler handler) throws IOException {
+        while (r.remaining() > 0) {
+            int length = r.readVarInt();
+            if (length < 1 || length > r.remaining()) {
+                throw new StreamCorruptedException("Invalid frame length in datagram: " + length);
+            }
+            int type = r.readUnsignedByte();
+            int start = r.position();
+            frameReader.reset(r.array(), start, length - 1);
+            handler.onFrame(type, frameReader);
+            r.skip(length - 1);
+        }
+    }
+
+    /**
+     * Single-byte DISCONNECT datagram.
+     */
+    public static byte[] disconnect() {
+        return new byte[]{DISCONNECT};
+    }
+
+    /**
+     * UNRELIABLE datagram carrying the given complete frames.
+     */
+    public static byte[] unreliable(byte[]... frames) {
+        int size = 1;
+        for (byte[] f : frames) {
+            size += f.length;
+        }
+        byte[] packet = new byte[size];
+        packet[0] = UNRELIABLE;
+        int pos = 1;
+        for (byte[] f : frames) {
+            System.arraycopy(f, 0, packet, pos, f.length);
+            pos += f.length;
+        }
+        return packet;
+    }
+}
@@ -0,0 +1,138 @@
+package com.vibetanks.network;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+
+/**
+ * Framing for the binary protocol shared by the host (NetworkManager) and DedicatedServer.
+ *
+ * Frame layout: [varint length][type byte][payload]
+ * where length counts the type byte plus the payload.
+ */
+public final class WireProtocol {
+    // Message types
+    public static final int MSG_PLAYER_NUMBER = 1;  // host -> client: varint player number
+    public static final int MSG_GAME_STATE = 2;     // host -> client: GameStateCodec snapshot
+    public static final int MSG_PLAYER_INPUT = 3;   // client -> host: GameStateCodec input
+    public static final int MSG_JOIN = 4;           // client -> host: Handshake.Join - room code (null = matchmaking), versions, capabilities
+    public static final int MSG_ROOM_JOINED = 5;    // server -> client: room code, sent before MSG_PLAYER_NUMBER
+    public static final int MSG_GAME_STATE_DELTA = 6; // host -> client: SnapshotDeltaCodec delta vs an acked snapshot
+    public static final int MSG_FULL_SNAPSHOT_REQUEST = 7; // client -> host: empty, next snapshot must be full
+    public static final int MSG_PING = 8;           // either way: varlong id, varlong sender time (ms)
+    public static final int MSG_PONG = 9;           // either way: the MSG_PING payload echoed back
+    public static final int MSG_COMPRESSED = 10;    // host -> client: FrameCompressor frame wrapping another message
+    public static final int MSG_SNAPSHOT_ACK = 11;  // spectator -> host: varlong latest snapshot (spectators send no inputs)
+    public static final int MSG_WELCOME = 12;       // host -> client: Handshake.Welcome, the first answer to MSG_JOIN
+    public static final int MSG_JOIN_REJECTED = 13; // host -> client: varint reason, string message; the host then closes
+    public static final int MSG_FRAGMENT = 14;      // host -> client: FrameSplitter piece of a frame over the max packet size
+
+    // Bump when a message type is added or a payload layout changes (see Handshake)
+    public static final int PROTOCOL_VERSION = 3;
+
+    // Guard against corrupt length prefixes allocating huge buffers
+    public static final int MAX_FRAME_SIZE = 1 << 20;
+
+    private WireProtocol() {
+    }
+
+    /**
+     * Write one frame whose payload is the current content of the writer.
+     */
+    public static void writeFrame(OutputStream out, int type, WireWriter payload) throws IOException {
+        writeFrame(out, type, payload.array(), 0, payload.size());
+    }
+
+    public static void writeFrame(OutputStream out, int type, byte[] payload, int off, int len) throws IOException {
+        writeFrameHeader(out, type, len);
+        out.write(payload, off, len);
+    }
+
+    /**
+     * Build a complete frame (header + payload) into dest so it can be written
+     * to any number of sockets with a single write each.
+     */
+    public static void encodeFrame(int type, WireWriter payload, WireWriter dest) {
+        dest.reset();
+        dest.writeVarInt(payload.size() + 1);
+        dest.writeByte(type);
+        dest.writeBytes(payload.array(), 0, payload.size());
+    }
+
+    /**
+     * Bytes a frame with this payload length occupies on the wire, header included.
+     */
+    public static int frameSize(int payloadLength) {
+        int length = payloadLength + 1;
+        int header = 1;
+        while ((length & ~0x7F) != 0) {
+            header++;
+            length >>>= 7;
+        }
+        return header + payloadLength + 1;
+    }
+
+    private static void writeFrameHeader(OutputStream out, int type, int payloadLength) throws IOException {
+        int length = payloadLength + 1;
+        while ((length & ~0x7F) != 0) {
+            out.write((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        out.write(length);
+        out.write(type);
+    }
+
+    /**
+     * Blocking read of one frame. The payload is copied into the reader's buffer
+     * (grown if needed) and the reader is positioned at the start of it.
+     * @return the message type
+     */
+    public static int readFrame(DataInputStream in, FrameBuffer into) throws IOException {
+        int length = readLength(in);
+        if (length < 1 || length > MAX_FRAME_SIZE) {
+            throw new StreamCorruptedException("Invalid frame length: " + length);
+        }
+        int type = in.readUnsignedByte();
+        int payloadLength = length - 1;
+        byte[] buf = into.ensureCapacity(payloadLength);
+        in.readFully(buf, 0, payloadLength);
+        into.reader.reset(buf, 0, payloadLength);
+        return type;
+    }
+
+    private static int readLength(DataInputStream in) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Connection closed");
+            }
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new StreamCorruptedException("Malformed frame length");
+    }
+
+    /**
+     * Reusable receive buffer for readFrame - one per receiving thread.
+     */
+    public static final class FrameBuffer {
+        private byte[] buf = new byte[4096];
+        private final WireReader reader = new WireReader();
+
+        byte[] ensureCapacity(int size) {
+            if (buf.length < size) {
+                buf = new byte[Math.max(size, buf.length * 2)];
+            }
+            return buf;
+        }
+
+        public WireReader reader() {
+            return reader;
+        }
+    }
+}
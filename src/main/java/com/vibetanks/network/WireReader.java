@@ -0,0 +1,148 @@
+package com.vibetanks.network;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Cursor over a byte slice in the binary wire format written by WireWriter.
+ * Can be re-pointed at a new slice with reset() to avoid per-frame allocation.
+ */
+public final class WireReader {
+    private byte[] buf;
+    private int pos;
+    private int limit;
+
+    public WireReader() {
+        this(new byte[0], 0, 0);
+    }
+
+    public WireReader(byte[] buf) {
+        this(buf, 0, buf.length);
+    }
+
+    public WireReader(byte[] buf, int off, int len) {
+        reset(buf, off, len);
+    }
+
+    public void reset(byte[] buf, int off, int len) {
+        this.buf = buf;
+        this.pos = off;
+        this.limit = off + len;
+    }
+
+    public int remaining() {
+        return limit - pos;
+    }
+
+    public int position() {
+        return pos;
+    }
+
+    byte[] array() {
+        return buf;
+    }
+
+    private void require(int n) throws IOException {
+        if (n < 0) {
+            throw new StreamCorruptedException("Negative wire length " + n);
+        }
+        if (limit - pos < n) {
+            throw new EOFException("Wire data truncated: need " + n + " bytes, have " + (limit - pos));
+        }
+    }
+
+    public int readByte() throws IOException {
+        require(1);
+        return buf[pos++];
+    }
+
+    public int readUnsignedByte() throws IOException {
+        return readByte() & 0xFF;
+    }
+
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    public void readBytes(byte[] dst, int off, int len) throws IOException {
+        require(len);
+        System.arraycopy(buf, pos, dst, off, len);
+        pos += len;
+    }
+
+    public void skip(int n) throws IOException {
+        require(n);
+        pos += n;
+    }
+
+    public int readVarInt() throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new StreamCorruptedException("Malformed varint");
+    }
+
+    public long readVarLong() throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new StreamCorruptedException("Malformed varlong");
+    }
+
+    public int readSignedVarInt() throws IOException {
+        int raw = readVarInt();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    public long readSignedVarLong() throws IOException {
+        long raw = readVarLong();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    public int readShort() throws IOException {
+        require(2);
+        int value = ((buf[pos] & 0xFF) << 8) | (buf[pos + 1] & 0xFF);
+        pos += 2;
+        return (short) value;
+    }
+
+    public long readLong() throws IOException {
+        require(8);
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (buf[pos++] & 0xFF);
+        }
+        return value;
+    }
+
+    public double readDouble() throws IOException {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    public String readString() throws IOException {
+        int lenPlusOne = readVarInt();
+        if (lenPlusOne == 0) {
+            return null;
+        }
+        int len = lenPlusOne - 1;
+        if (len < 0) {
+            throw new StreamCorruptedException("Negative string length " + len);
+        }
+        require(len);
+        String value = new String(buf, pos, len, StandardCharsets.UTF_8);
+        pos += len;
+        return value;
+    }
+}
@@ -0,0 +1,136 @@
+package com.vibetanks.network;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer for the binary wire format.
+ * Reused across frames - call reset() before encoding the next message.
+ *
+ * Integers are written as LEB128 varints, signed values use zigzag encoding
+ * so small negatives (e.g. -1 "none" markers) stay one byte.
+ */
+public final class WireWriter {
+    private byte[] buf;
+    private int pos;
+
+    public WireWriter() {
+        this(1024);
+    }
+
+    public WireWriter(int initialCapacity) {
+        this.buf = new byte[Math.max(16, initialCapacity)];
+    }
+
+    /**
+     * Discard written content but keep the backing array for reuse.
+     */
+    public void reset() {
+        pos = 0;
+    }
+
+    public int size() {
+        return pos;
+    }
+
+    /**
+     * Backing array - only the first size() bytes are valid.
+     */
+    public byte[] array() {
+        return buf;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, pos);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buf, 0, pos);
+    }
+
+    private void ensureCapacity(int extra) {
+        int required = pos + extra;
+        if (required > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(required, buf.length * 2));
+        }
+    }
+
+    public void writeByte(int value) {
+        ensureCapacity(1);
+        buf[pos++] = (byte) value;
+    }
+
+    public void writeBoolean(boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    public void writeBytes(byte[] src, int off, int len) {
+        ensureCapacity(len);
+        System.arraycopy(src, off, buf, pos, len);
+        pos += len;
+    }
+
+    /**
+     * Unsigned varint (7 bits per byte, high bit = continuation).
+     */
+    public void writeVarInt(int value) {
+        ensureCapacity(5);
+        while ((value & ~0x7F) != 0) {
+            buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[pos++] = (byte) value;
+    }
+
+    public void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[pos++] = (byte) value;
+    }
+
+    /**
+     * Zigzag-encoded signed varint.
+     */
+    public void writeSignedVarInt(int value) {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    public void writeSignedVarLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public void writeShort(int value) {
+        ensureCapacity(2);
+        buf[pos++] = (byte) (value >>> 8);
+        buf[pos++] = (byte) value;
+    }
+
+    public void writeLong(long value) {
+        ensureCapacity(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buf[pos++] = (byte) (value >>> shift);
+        }
+    }
+
+    public void writeDouble(double value) {
+        writeLong(Double.doubleToLongBits(value));
+    }
+
+    /**
+     * Nullable UTF-8 string: varint (length + 1), 0 = null.
+     */
+    public void writeString(String value) {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length + 1);
+        writeBytes(bytes, 0, bytes.length);
+    }
+}
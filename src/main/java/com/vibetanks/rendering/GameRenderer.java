@@ -57,7 +57,7 @@ public class GameRenderer {
      * Render the main game world (map, entities, effects).
      */
     public void renderGameWorld(GameMap gameMap, Base base, List<PowerUp> powerUps,
-                                 EasterEgg easterEgg, List<Bullet> bullets, List<Laser> lasers,
+                                 EasterEgg easterEgg, BulletStore bullets, List<Laser> lasers,
                                  List<Tank> playerTanks, List<Tank> enemyTanks,
                                  int playerFreezeDuration, int enemyFreezeDuration,
                                  UFO ufo, int ufoLostMessageTimer, int ufoKilledMessageTimer) {
@@ -81,9 +81,7 @@ public class GameRenderer {
         }
 
         // Render bullets
-        for (Bullet bullet : bullets) {
-            bullet.render(gc);
-        }
+        bullets.render(gc);
 
         // Render lasers
         for (Laser laser : lasers) {
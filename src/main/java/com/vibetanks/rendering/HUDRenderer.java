@@ -241,6 +241,23 @@ public class HUDRenderer {
         }
     }
 
+    /**
+     * Render network link quality (RTT, jitter, loss, traffic) in the bottom-left corner.
+     * @param lines one line per connection, e.g. "Host: RTT 42 ms, jitter 3 ms | loss 0.0% | ..."
+     */
+    public void renderNetworkStats(List<String> lines) {
+        if (lines.isEmpty()) return;
+        double lineHeight = 14;
+        double top = height - 8 - lines.size() * lineHeight;
+        gc.setFill(Color.rgb(0, 0, 0, 0.5));
+        gc.fillRect(4, top - 2, 470, lines.size() * lineHeight + 6);
+        gc.setFill(Color.LIGHTGRAY);
+        gc.setFont(Font.font("Monospaced", 11));
+        for (int i = 0; i < lines.size(); i++) {
+            gc.fillText(lines.get(i), 8, top + (i + 1) * lineHeight - 2);
+        }
+    }
+
     /**
      * Render pause indicator for multiplayer games.
      */
@@ -0,0 +1,125 @@
+package com.vibetanks.server;
+
+import com.vibetanks.network.ConnectionStats;
+import com.vibetanks.network.InputQueue;
+import com.vibetanks.network.WireProtocol;
+import com.vibetanks.network.WireReader;
+import com.vibetanks.network.WireWriter;
+
+import java.io.IOException;
+
+/**
+ * A connected player as seen by the dedicated server.
+ * Created on connect, assigned to a room and player slot when the client joins.
+ */
+class ClientConnection {
+    final ServerConnection connection;
+    private volatile GameRoom room;
+    private volatile int playerNumber;
+    private volatile boolean active = true;
+    volatile boolean cleanDisconnect = false; // True if player clicked exit (vs network error)
+
+    // Delta snapshot baseline: latest snapshot the client acknowledged (0 = none)
+    private volatile long ackedSnapshot;
+    private volatile boolean fullSnapshotRequested;
+    // Sound events: latest snapshot sent, and where the events of that frame started (room tick only)
+    private long sentSnapshot;
+    private long sentSoundsSince;
+    private long reducedUntil; // Latest snapshot sent at reduced detail (room tick only)
+    // Agreed in the handshake
+    volatile boolean compression; // FrameCompressor frames
+    volatile boolean delta;       // Delta snapshots - without it every snapshot is full
+    volatile boolean spectator;   // Joined to watch: player number 0, inputs ignored
+    private final WireWriter pingPayload = new WireWriter(16); // Room tick only
+    final CongestionController congestion = new CongestionController(); // Room tick only
+    final InputQueue inputs = new InputQueue(); // Filled by the transport, drained one per room tick
+
+    ClientConnection(ServerConnection connection) {
+        this.connection = connection;
+    }
+
+    GameRoom getRoom() { return room; }
+    int getPlayerNumber() { return playerNumber; }
+
+    void assign(GameRoom room, int playerNumber) {
+        this.room = room;
+        this.playerNumber = playerNumber;
+    }
+
+    // Acks can arrive out of order over UDP - never move the baseline backwards
+    void ackSnapshot(long sequence) {
+        if (sequence > ackedSnapshot) {
+            this.ackedSnapshot = sequence;
+        }
+    }
+
+    void requestFullSnapshot() { this.fullSnapshotRequested = true; }
+
+    /**
+     * Baseline to delta-encode the next snapshot against; 0 forces a full snapshot.
+     */
+    long takeSnapshotBaseline() {
+        if (!delta) return 0;
+        if (fullSnapshotRequested) {
+            fullSnapshotRequested = false;
+            return 0;
+        }
+        return ackedSnapshot;
+    }
+
+    /**
+     * Snapshot whose sound events the client already has: the latest one sent, unless that
+     * frame is still queued and the next one will replace it - then whatever it started from.
+     */
+    long soundsSince() {
+        return connection.hasPendingSnapshot() ? sentSoundsSince : sentSnapshot;
+    }
+
+    void snapshotSent(long sequence, long soundsSince, boolean reducedDetail) {
+        this.sentSnapshot = sequence;
+        this.sentSoundsSince = soundsSince;
+        if (reducedDetail) {
+            this.reducedUntil = sequence;
+        }
+    }
+
+    /**
+     * Latest snapshot sent without cosmetics; baselines up to it may lack them at the client.
+     */
+    long getReducedUntil() {
+        return reducedUntil;
+    }
+
+    /**
+     * Ping the client if the previous ping is ConnectionStats.PING_INTERVAL_MS old.
+     */
+    void pingIfDue(long nowMs) {
+        pingPayload.reset();
+        if (connection.getStats().writePingIfDue(nowMs, pingPayload)) {
+            WireWriter frame = new WireWriter(pingPayload.size() + 2);
+            WireProtocol.encodeFrame(WireProtocol.MSG_PING, pingPayload, frame);
+            connection.sendUnreliable(frame.toByteArray());
+        }
+    }
+
+    /**
+     * Echo a client's MSG_PING back as MSG_PONG.
+     */
+    void answerPing(WireReader ping) throws IOException {
+        WireWriter pong = new WireWriter(16);
+        ConnectionStats.writePong(ping, pong);
+        WireWriter frame = new WireWriter(pong.size() + 2);
+        WireProtocol.encodeFrame(WireProtocol.MSG_PONG, pong, frame);
+        connection.sendUnreliable(frame.toByteArray());
+    }
+
+    ConnectionStats getStats() { return connection.getStats(); }
+
+    boolean isActive() { return active && connection.isOpen(); }
+    void setActive(boolean active) { this.active = active; }
+
+    void close() {
+        active = false;
+        connection.close();
+    }
+}
@@ -0,0 +1,109 @@
+package com.vibetanks.server;
+
+/**
+ * Picks the snapshot rate and detail level for one client from how well its link keeps up.
+ *
+ * Levels, from best to worst:
+ * 0 - every snapshot, full detail
+ * 1 - every snapshot, without cosmetics (dancing characters, burning tiles)
+ * 2 - every 2nd snapshot, without cosmetics
+ * 3 - every 4th snapshot, without cosmetics
+ *
+ * The link counts as congested when its send queue is backing up, when a snapshot had to
+ * be replaced before it left, or when the RTT climbs well above the lowest RTT seen (a
+ * queue building somewhere along the path). Congestion steps one level down at most every
+ * DECREASE_INTERVAL_MS; RECOVERY_INTERVAL_MS without congestion steps one level back up,
+ * so a link that can't take the higher rate settles just below it.
+ *
+ * The rate agreed in the handshake (a client asking for fewer snapshots, spectators) is the
+ * base: congestion divides it further.
+ *
+ * Owned by the room tick - not thread-safe.
+ */
+class CongestionController {
+    static final int MAX_LEVEL = 3;
+    static final long DECREASE_INTERVAL_MS = 500;
+    static final long RECOVERY_INTERVAL_MS = 2000;
+    static final int QUEUE_THRESHOLD_BYTES = 8 * 1024;
+    static final long RTT_INFLATION_MS = 50; // Above the minimum RTT by this much (and 2x) = queueing
+
+    private int level;
+    private long lastDecreaseMs = Long.MIN_VALUE / 2;
+    private long healthySinceMs = Long.MIN_VALUE / 2;
+    private boolean started;
+    private long lastDropped;
+    private long minRttMs = -1;
+    private long broadcasts;
+    private int baseDivisor = 1;
+
+    /**
+     * Feed the latest link measurements; call once per room broadcast.
+     * @param rttMs smoothed RTT, or -1 if not measured yet
+     * @return true if the level changed
+     */
+    boolean update(long nowMs, int queuedBytes, long droppedSnapshots, long rttMs) {
+        if (!started) {
+            started = true;
+            healthySinceMs = nowMs;
+            lastDropped = droppedSnapshots;
+        }
+        boolean dropped = droppedSnapshots > lastDropped;
+        lastDropped = droppedSnapshots;
+
+        boolean rttInflated = false;
+        if (rttMs >= 0) {
+            if (minRttMs < 0 || rttMs < minRttMs) {
+                minRttMs = rttMs;
+            }
+            rttInflated = rttMs > minRttMs + RTT_INFLATION_MS && rttMs > 2 * minRttMs;
+        }
+
+        if (queuedBytes > QUEUE_THRESHOLD_BYTES || dropped || rttInflated) {
+            healthySinceMs = nowMs;
+            if (level < MAX_LEVEL && nowMs - lastDecreaseMs >= DECREASE_INTERVAL_MS) {
+                level++;
+                lastDecreaseMs = nowMs;
+                return true;
+            }
+        } else if (level > 0 && nowMs - healthySinceMs >= RECOVERY_INTERVAL_MS) {
+            level--;
+            healthySinceMs = nowMs;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Whether this broadcast goes to the client; call once per room broadcast after update().
+     */
+    boolean shouldSend() {
+        return broadcasts++ % getSendDivisor() == 0;
+    }
+
+    /**
+     * Send at most one of every divisor room broadcasts, however healthy the link.
+     */
+    void setBaseDivisor(int divisor) {
+        this.baseDivisor = Math.max(1, divisor);
+    }
+
+    /**
+     * The client gets one of every getSendDivisor() room broadcasts.
+     */
+    int getSendDivisor() {
+        return baseDivisor * (level <= 1 ? 1 : 1 << (level - 1));
+    }
+
+    boolean isReducedDetail() {
+        return level >= 1;
+    }
+
+    int getLevel() {
+        return level;
+    }
+
+    String describe() {
+        String rate = getSendDivisor() == 1 ? "full rate" : "1/" + getSendDivisor() + " rate";
+        return isReducedDetail() ? rate + ", reduced detail" : rate;
+    }
+}
@@ -1,51 +1,96 @@
 package com.vibetanks.server;
 
 import com.vibetanks.core.GameSettings;
-import com.vibetanks.network.GameState;
+import com.vibetanks.network.GameStateCodec;
+import com.vibetanks.network.Handshake;
 import com.vibetanks.network.PlayerInput;
+import com.vibetanks.network.WireProtocol;
+import com.vibetanks.network.WireReader;
 import com.vibetanks.util.GameLogger;
 
-import java.io.*;
-import java.net.*;
-import java.util.*;
-import java.util.concurrent.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Dedicated server for VibeTanks - runs headless without graphics.
- * Manages game state and synchronizes all connected players.
+ * Hosts any number of independent rooms (matches of up to MAX_PLAYERS each)
+ * and synchronizes the players in each of them.
  *
- * Usage: java -cp <classpath> com.vibetanks.server.DedicatedServer [port]
+ * Usage: java -cp <classpath> com.vibetanks.server.DedicatedServer [port] [--udp]
+ *        [--tick-rate=HZ] [--send-rate=HZ] [--record=DIR]
+ *
+ * --udp serves clients over UDP instead of TCP (clients join with "udp:host").
+ * --tick-rate is how often rooms simulate (default 60), --send-rate how often they
+ * send snapshots (default 30, at most the tick rate). Clients interpolate between
+ * snapshots, so a lower send rate saves bandwidth and CPU without visible stutter.
+ * --record writes every game to a MatchRecorder file in DIR, for replay with
+ * "replay:FILE" in the join dialog.
+ *
+ * Clients joining with the spectator capability ("spectate:host#CODE") watch a running room
+ * without a player slot; SpectatorRelay fans one such stream out to many viewers.
  */
 public class DedicatedServer {
     private static final GameLogger LOG = GameLogger.getLogger(DedicatedServer.class);
     private static final int DEFAULT_PORT = 25565;
-    private static final int MAX_PLAYERS = 4;
+    private static final int MAX_PLAYERS = 4; // Per room
     private static final long FRAME_TIME_NS = 16_666_667; // ~60 FPS
+    private static final int DEFAULT_TICK_RATE = (int) Math.round(1_000_000_000.0 / FRAME_TIME_NS);
+    private static final int DEFAULT_SEND_RATE = 30;
+    private static final String USAGE =
+        "Usage: java -cp <classpath> com.vibetanks.server.DedicatedServer [port] [--udp] [--tick-rate=HZ] [--send-rate=HZ] [--record=DIR]";
+    private static final long STATUS_INTERVAL_MS = 5000;
+    private static final long REJECT_CLOSE_DELAY_MS = 500; // Time for MSG_JOIN_REJECTED to leave
 
     private final int port;
-    private ServerSocket serverSocket;
+    private final boolean udp;
+    private final int tickRate;
+    private final int sendRate;
+    private Path recordDirectory;
+    private volatile int snapshotRate; // Snapshots per second a room sends, for the handshake
+    private ServerTransport transport;
+    private RoomManager roomManager;
     private volatile boolean running = false;
-    private volatile boolean gameStarted = false;
 
-    // Connected clients
-    private final List<ClientConnection> clients = new CopyOnWriteArrayList<>();
-    private final Map<Integer, PlayerInput> playerInputs = new ConcurrentHashMap<>();
+    public DedicatedServer(int port) {
+        this(port, false);
+    }
 
-    // Game state (headless) - synchronized access required
-    private ServerGameState gameState;
-    private final Object gameStateLock = new Object();
-    private boolean gameOverLogged = false;
-    private boolean victoryLogged = false;
+    public DedicatedServer(int port, boolean udp) {
+        this(port, udp, DEFAULT_TICK_RATE, DEFAULT_SEND_RATE);
+    }
 
-    public DedicatedServer(int port) {
+    /**
+     * @param tickRate simulation steps per second
+     * @param sendRate snapshots per second, rounded to a whole number of ticks
+     */
+    public DedicatedServer(int port, boolean udp, int tickRate, int sendRate) {
         this.port = port;
+        this.udp = udp;
+        this.tickRate = Math.max(1, tickRate);
+        this.sendRate = Math.max(1, Math.min(sendRate, this.tickRate));
+    }
+
+    /**
+     * Record every game to a file in directory. Call before start().
+     */
+    public void setRecordDirectory(Path directory) {
+        this.recordDirectory = directory;
     }
 
     public void start() {
         try {
-            serverSocket = new ServerSocket();
-            serverSocket.setReuseAddress(true);
-            serverSocket.bind(new InetSocketAddress(port));
+            int threads = Runtime.getRuntime().availableProcessors();
+            long tickNanos = 1_000_000_000L / tickRate;
+            int ticksPerSnapshot = Math.round((float) tickRate / sendRate);
+            snapshotRate = Math.max(1, Math.round((float) tickRate / ticksPerSnapshot));
+            roomManager = new RoomManager(MAX_PLAYERS, tickNanos, ticksPerSnapshot, threads);
+            roomManager.setRecordDirectory(recordDirectory);
+            TransportHandler handler = new TransportHandler();
+            transport = udp ? new UdpServerTransport(port, handler) : new NioServerTransport(port, handler);
+            transport.start();
             running = true;
 
             // Configure logging for server mode
@@ -54,370 +99,207 @@ public class DedicatedServer {
             LOG.info("========================================");
             LOG.info("  VibeTanks Dedicated Server");
             LOG.info("========================================");
-            LOG.info("Server started on port {}", port);
+            LOG.info("Server started on {} port {}", udp ? "UDP" : "TCP", port);
+            LOG.info("Rooms: up to {} players each, ticked on {} threads", MAX_PLAYERS, threads);
+            LOG.info("Simulation: {} Hz, snapshots: {} Hz", tickRate,
+                String.format("%.1f", (double) tickRate / ticksPerSnapshot));
+            if (recordDirectory != null) {
+                LOG.info("Recording games to {}", recordDirectory.toAbsolutePath());
+            }
             LOG.info("Game settings:");
             LOG.info("  - Player speed: {}%", GameSettings.getPlayerSpeedMultiplier() * 100);
             LOG.info("  - Enemy speed: {}%", GameSettings.getEnemySpeedMultiplier() * 100);
             LOG.info("  - Player shoot speed: {}%", GameSettings.getPlayerShootSpeedMultiplier() * 100);
             LOG.info("  - Enemy shoot speed: {}%", GameSettings.getEnemyShootSpeedMultiplier() * 100);
             LOG.info("Waiting for players to connect...");
-            LOG.info("Game will start when first player connects.");
+            LOG.info("A room starts when its first player joins.");
             LOG.info("----------------------------------------");
 
-            // Start accept thread
-            Thread acceptThread = new Thread(this::acceptClients, "AcceptThread");
-            acceptThread.start();
-
-            // Main game loop
-            runGameLoop();
+            runStatusLoop();
 
         } catch (IOException e) {
             LOG.error("Failed to start server: {}", e.getMessage());
             e.printStackTrace();
+            stop();
         }
     }
 
-    private void acceptClients() {
-        while (running) {
-            try {
-                if (clients.size() >= MAX_PLAYERS) {
-                    Thread.sleep(1000);
-                    continue;
-                }
-
-                Socket clientSocket = serverSocket.accept();
-                int playerNum = clients.size() + 1;
-
-                LOG.info("Player {} connected from {}", playerNum, clientSocket.getInetAddress().getHostAddress());
-
-                // Create output stream first
-                ObjectOutputStream out = new ObjectOutputStream(clientSocket.getOutputStream());
-                out.flush();
-
-                // Create input stream
-                ObjectInputStream in = new ObjectInputStream(clientSocket.getInputStream());
-
-                // Send player number
-                out.writeObject(Integer.valueOf(playerNum));
-                out.flush();
+    /**
+     * Transport callbacks - run on the selector thread, never on a room tick.
+     */
+    private class TransportHandler implements ServerTransport.Listener {
 
-                ClientConnection client = new ClientConnection(clientSocket, playerNum, in, out);
-                clients.add(client);
+        @Override
+        public void onConnect(ServerConnection connection) {
+            LOG.info("Client connected from {}", connection.getRemoteAddress());
+            connection.attach(new ClientConnection(connection));
+        }
 
-                // Start receiving inputs from this client
-                Thread receiveThread = new Thread(() -> receiveFromClient(client),
-                    "ReceiveThread-P" + playerNum);
-                receiveThread.setDaemon(true);
-                receiveThread.start();
+        @Override
+        public void onFrame(ServerConnection connection, int type, WireReader payload) throws IOException {
+            ClientConnection client = (ClientConnection) connection.attachment();
+            if (client == null || !client.isActive()) return;
+
+            // Latency probes work before and after joining a room
+            if (type == WireProtocol.MSG_PING) {
+                client.answerPing(payload);
+                return;
+            } else if (type == WireProtocol.MSG_PONG) {
+                client.getStats().onPong(payload, System.nanoTime() / 1_000_000);
+                return;
+            }
 
-                // Start game on first connection
-                if (!gameStarted && clients.size() >= 1) {
-                    startGame();
-                }
+            if (client.getRoom() == null && !join(client, type, payload)) {
+                return;
+            }
 
-                // If game already running, add player to game or handle reconnection
-                if (gameStarted) {
-                    synchronized (gameStateLock) {
-                        if (gameState != null) {
-                            // Check if this is a reconnection (player was in grace period)
-                            if (gameState.isPlayerDisconnected(playerNum)) {
-                                gameState.handlePlayerReconnect(playerNum);
-                                LOG.info("Player {} reconnected to the game", playerNum);
-                            } else {
-                                gameState.addPlayer(playerNum);
-                                LOG.info("Player {} joined the game in progress", playerNum);
-                            }
-                        }
-                    }
-                }
+            if (type == WireProtocol.MSG_PLAYER_INPUT) {
+                if (client.spectator) return; // Watching only
+                PlayerInput input = GameStateCodec.readPlayerInput(payload);
+                client.ackSnapshot(input.ackSnapshotSequence);
+                // Duplicates (UDP repeats inputs) are dropped, missed inputs rebuilt from the history
+                client.inputs.offer(input);
+            } else if (type == WireProtocol.MSG_SNAPSHOT_ACK) {
+                // Spectators acknowledge snapshots without inputs
+                client.ackSnapshot(payload.readVarLong());
+            } else if (type == WireProtocol.MSG_FULL_SNAPSHOT_REQUEST) {
+                client.requestFullSnapshot();
+            }
+        }
 
-                LOG.info("Total players: {}", clients.size());
+        // First frame: the handshake, then a room. False if the client was turned away.
+        private boolean join(ClientConnection client, int type, WireReader payload) throws IOException {
+            // Anything but a JOIN comes from a client older than the handshake
+            Handshake.Join join = type == WireProtocol.MSG_JOIN ? Handshake.Join.read(payload)
+                : Handshake.NO_JOIN;
+            String problem = join.incompatibility();
+            if (problem != null) {
+                reject(client, Handshake.REJECT_VERSION, problem);
+                return false;
+            }
 
-            } catch (IOException e) {
-                if (running) {
-                    LOG.error("Error accepting connection: {}", e.getMessage());
+            client.compression = join.has(Handshake.CAP_COMPRESSION);
+            client.delta = join.has(Handshake.CAP_DELTA);
+            client.spectator = join.has(Handshake.CAP_SPECTATOR);
+            int divisor = Handshake.sendDivisor(join, snapshotRate, client.spectator ? GameRoom.SPECTATOR_SEND_DIVISOR : 1);
+            client.congestion.setBaseDivisor(divisor);
+            int packetSize = Handshake.maxPacketSize(join, client.connection.getMaxPacketSize());
+            client.connection.setMaxPacketSize(packetSize);
+
+            // A seat first, so the client gets exactly one of WELCOME and JOIN_REJECTED
+            String code = join.roomCode();
+            GameRoom room = client.spectator ? roomManager.spectate(client, code) : roomManager.join(client, code);
+            if (room == null) {
+                if (client.spectator) {
+                    reject(client, Handshake.REJECT_NO_ROOM, code != null ? "Room " + code + " is not running" : "No game to watch");
+                } else {
+                    reject(client, Handshake.REJECT_FULL, "Room " + code + " is full");
                 }
-            } catch (InterruptedException e) {
-                break;
+                return false;
             }
+            // Before the room's frames, so it is always the first thing the client reads
+            client.connection.send(Handshake.welcomeFrame(Handshake.welcome(join, snapshotRate, divisor, packetSize)));
+            // Seated by the room's next tick - never wait for one on this thread
+            room.admit(client);
+            return true;
         }
-    }
 
-    private void receiveFromClient(ClientConnection client) {
-        try {
-            while (running && client.isActive()) {
-                Object obj = client.in.readObject();
-                if (obj instanceof PlayerInput) {
-                    playerInputs.put(client.playerNumber, (PlayerInput) obj);
-                }
-            }
-        } catch (java.io.EOFException e) {
-            // Clean disconnect (player clicked exit) - remove immediately
-            if (running && client.isActive()) {
-                LOG.info("Player {} exited the game", client.playerNumber);
-                client.setActive(false);
+        private void reject(ClientConnection client, int reason, String message) {
+            LOG.info("Rejecting {}: {}", client.connection.getRemoteAddress(), message);
+            client.connection.send(Handshake.rejectFrame(reason, message));
+            client.setActive(false);
+            // Closing at once would discard the queued rejection
+            CompletableFuture.delayedExecutor(REJECT_CLOSE_DELAY_MS, TimeUnit.MILLISECONDS).execute(client::close);
+        }
+
+        @Override
+        public void onDisconnect(ServerConnection connection, boolean clean) {
+            ClientConnection client = (ClientConnection) connection.attachment();
+            if (client == null || !running || !client.isActive()) return;
+            String where = client.getRoom() != null ? client.getRoom().getCode() : "lobby";
+            String who = client.spectator ? "Spectator" : "Player " + client.getPlayerNumber();
+            if (clean) {
+                // Clean disconnect (player clicked exit) - remove immediately
+                LOG.info("{} ({}) exited the game", who, where);
                 client.cleanDisconnect = true; // Mark as intentional exit
+            } else {
+                // Network error - will use grace period
+                LOG.info("{} ({}) disconnected (network issue)", who, where);
             }
-        } catch (Exception e) {
-            // Network error - will use grace period
-            if (running && client.isActive()) {
-                LOG.info("Player {} disconnected (network issue): {}", client.playerNumber, e.getMessage());
-                client.setActive(false);
-            }
+            client.setActive(false);
         }
     }
 
-    private void startGame() {
-        LOG.info("========================================");
-        LOG.info("  GAME STARTING!");
-        LOG.info("========================================");
-
-        gameStarted = true;
-        gameState = new ServerGameState(clients.size());
-    }
-
-    private void runGameLoop() {
-        long lastFrameTime = System.nanoTime();
-        int frameCount = 0;
-        long lastFpsTime = System.currentTimeMillis();
-
-        LOG.info("Game loop started, waiting for connections...");
-
+    // Rooms tick on the RoomManager pool; the main thread only reports status
+    private void runStatusLoop() {
         while (running) {
-            long now = System.nanoTime();
-            long elapsed = now - lastFrameTime;
-
-            // Only process frame if enough time has passed (~60 FPS)
-            if (elapsed >= FRAME_TIME_NS) {
-                lastFrameTime = now;
-
-                if (gameStarted) {
-                    // Collect inputs atomically outside the lock to reduce lock contention
-                    Map<Integer, PlayerInput> frameInputs = new HashMap<>();
-                    for (int i = 1; i <= MAX_PLAYERS; i++) {
-                        PlayerInput input = playerInputs.remove(i);
-                        if (input != null) {
-                            frameInputs.put(i, input);
-                        }
-                    }
-
-                    // Build state inside lock, broadcast outside
-                    GameState stateToSend = null;
-                    synchronized (gameStateLock) {
-                        if (gameState != null) {
-                            // Update connected player count
-                            gameState.setConnectedPlayers(getActiveClientCount());
-
-                            // Process collected player inputs
-                            for (Map.Entry<Integer, PlayerInput> entry : frameInputs.entrySet()) {
-                                gameState.processInput(entry.getKey(), entry.getValue());
-                            }
-
-                            // Update game state
-                            gameState.update();
-
-                            // Build network state (immutable snapshot)
-                            stateToSend = gameState.buildNetworkState();
-
-                            // Handle game over / victory using already-collected inputs
-                            if (gameState.isGameOver()) {
-                                if (!gameOverLogged) {
-                                    LOG.warn("GAME OVER - Press ENTER to restart");
-                                    gameOverLogged = true;
-                                }
-                                // Check for restart requests from collected inputs
-                                for (PlayerInput input : frameInputs.values()) {
-                                    if (input != null && input.requestRestart) {
-                                        LOG.info("Restarting game by player request");
-                                        gameState.restartLevel();
-                                        gameOverLogged = false;
-                                        victoryLogged = false;
-                                        break;
-                                    }
-                                }
-                            } else if (gameState.isVictory()) {
-                                if (!victoryLogged) {
-                                    LOG.info("VICTORY - Level {} complete", gameState.getCurrentLevel());
-                                    victoryLogged = true;
-                                }
-                                // Check for next level requests from collected inputs
-                                for (PlayerInput input : frameInputs.values()) {
-                                    if (input != null && input.requestNextLevel) {
-                                        LOG.info("Starting next level by player request");
-                                        gameState.nextLevel();
-                                        gameOverLogged = false;
-                                        victoryLogged = false;
-                                        break;
-                                    }
-                                }
-                            }
-
-                            frameCount++;
-                        }
-                    }
-
-                    // Broadcast state OUTSIDE the lock to prevent blocking game loop
-                    if (stateToSend != null) {
-                        broadcastState(stateToSend);
-                    }
-                }
-
-                // Print status every 5 seconds
-                long currentTime = System.currentTimeMillis();
-                if (currentTime - lastFpsTime >= 5000) {
-                    if (gameStarted) {
-                        synchronized (gameStateLock) {
-                            if (gameState != null) {
-                                double fps = frameCount / 5.0;
-                                LOG.info("Server FPS: {} | Players: {}/{} | Level: {} | Enemies: {}",
-                                    String.format("%.1f", fps), getActiveClientCount(), MAX_PLAYERS,
-                                    gameState.getCurrentLevel(), gameState.getRemainingEnemies());
-                            }
-                        }
-                    } else {
-                        LOG.info("Waiting for players... ({} connected)", getActiveClientCount());
-                    }
-                    frameCount = 0;
-                    lastFpsTime = currentTime;
-                }
-
-                // Clean up disconnected clients and notify game state
-                int beforeCount = clients.size();
-                for (ClientConnection client : clients) {
-                    if (!client.isActive()) {
-                        // Notify game state - immediate removal for clean exit, grace period for network issues
-                        synchronized (gameStateLock) {
-                            if (gameState != null) {
-                                gameState.handlePlayerDisconnect(client.playerNumber, client.cleanDisconnect);
-                            }
-                        }
-                    }
-                }
-                clients.removeIf(c -> !c.isActive());
-                int afterCount = clients.size();
-
-                // If all players disconnected, reset to waiting state
-                if (beforeCount > 0 && afterCount == 0 && gameStarted) {
-                    LOG.info("All players disconnected - resetting to waiting state");
-                    synchronized (gameStateLock) {
-                        gameStarted = false;
-                        gameState = null;
-                        gameOverLogged = false;
-                        victoryLogged = false;
-                    }
-                }
+            try {
+                Thread.sleep(STATUS_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (roomManager.getRoomCount() > 0) {
+                roomManager.logStatus(STATUS_INTERVAL_MS / 1000.0);
             } else {
-                // Sleep for the remaining time until next frame
-                // Use nanosecond precision to maintain accurate 60 FPS
-                long remainingNs = FRAME_TIME_NS - elapsed;
-                if (remainingNs > 1_000_000) { // More than 1ms remaining
-                    try {
-                        // Sleep with nanosecond precision
-                        long sleepMs = remainingNs / 1_000_000;
-                        int sleepNs = (int) (remainingNs % 1_000_000);
-                        Thread.sleep(sleepMs, sleepNs);
-                    } catch (InterruptedException e) {
-                        break;
-                    }
-                } else if (remainingNs > 0) {
-                    // Less than 1ms - busy wait for precision
-                    long waitUntil = lastFrameTime + FRAME_TIME_NS;
-                    while (System.nanoTime() < waitUntil) {
-                        Thread.yield();
-                    }
-                }
+                LOG.info("Waiting for players... (no active rooms)");
             }
         }
     }
 
-    private void broadcastState(GameState state) {
-        for (ClientConnection client : clients) {
-            if (client.isActive()) {
-                try {
-                    client.out.writeObject(state);
-                    client.out.flush();
-                    client.out.reset();
-                } catch (IOException e) {
-                    LOG.warn("Failed to send to Player {}", client.playerNumber);
-                    client.setActive(false);
-                }
-            }
-        }
+    boolean isRunning() {
+        return running;
     }
 
-    private int getActiveClientCount() {
-        int count = 0;
-        for (ClientConnection c : clients) {
-            if (c.isActive()) count++;
-        }
-        return count;
+    public RoomManager getRoomManager() {
+        return roomManager;
     }
 
     public void stop() {
         running = false;
         LOG.info("Shutting down server...");
 
-        for (ClientConnection client : clients) {
-            client.close();
+        if (roomManager != null) {
+            roomManager.shutdown();
         }
-        clients.clear();
 
-        try {
-            if (serverSocket != null && !serverSocket.isClosed()) {
-                serverSocket.close();
-            }
-        } catch (IOException e) {
-            LOG.error("Error closing server socket: {}", e.getMessage());
+        if (transport != null) {
+            transport.close();
         }
 
         LOG.info("Server stopped.");
     }
 
-    // Client connection wrapper
-    private static class ClientConnection {
-        final Socket socket;
-        final int playerNumber;
-        final ObjectInputStream in;
-        final ObjectOutputStream out;
-        private volatile boolean active = true;
-        volatile boolean cleanDisconnect = false; // True if player clicked exit (vs network error)
-
-        ClientConnection(Socket socket, int playerNumber, ObjectInputStream in, ObjectOutputStream out) {
-            this.socket = socket;
-            this.playerNumber = playerNumber;
-            this.in = in;
-            this.out = out;
-        }
-
-        boolean isActive() { return active; }
-        void setActive(boolean active) { this.active = active; }
-
-        void close() {
-            active = false;
-            try {
-                if (in != null) in.close();
-                if (out != null) out.close();
-                if (socket != null) socket.close();
-            } catch (IOException e) {
-                // Ignore
-            }
-        }
-    }
-
     public static void main(String[] args) {
         int port = DEFAULT_PORT;
-
-        if (args.length > 0) {
+        boolean udp = false;
+        int tickRate = DEFAULT_TICK_RATE;
+        int sendRate = DEFAULT_SEND_RATE;
+        Path recordDirectory = null;
+
+        for (String arg : args) {
+            if (arg.equals("--udp")) {
+                udp = true;
+                continue;
+            }
             try {
-                port = Integer.parseInt(args[0]);
+                if (arg.startsWith("--tick-rate=")) {
+                    tickRate = Integer.parseInt(arg.substring("--tick-rate=".length()));
+                } else if (arg.startsWith("--send-rate=")) {
+                    sendRate = Integer.parseInt(arg.substring("--send-rate=".length()));
+                } else if (arg.startsWith("--record=")) {
+                    recordDirectory = Paths.get(arg.substring("--record=".length()));
+                } else {
+                    port = Integer.parseInt(arg);
+                }
             } catch (NumberFormatException e) {
-                GameLogger.getLogger(DedicatedServer.class).error("Invalid port number: {}", args[0]);
-                GameLogger.getLogger(DedicatedServer.class).error("Usage: java -cp <classpath> com.vibetanks.server.DedicatedServer [port]");
+                GameLogger.getLogger(DedicatedServer.class).error("Invalid argument: {}", arg);
+                GameLogger.getLogger(DedicatedServer.class).error(USAGE);
                 System.exit(1);
             }
         }
 
-        DedicatedServer server = new DedicatedServer(port);
+        DedicatedServer server = new DedicatedServer(port, udp, tickRate, sendRate);
+        server.setRecordDirectory(recordDirectory);
 
         // Handle shutdown gracefully
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
@@ -0,0 +1,547 @@
+package com.vibetanks.server;
+
+import com.vibetanks.network.FrameCompressor;
+import com.vibetanks.network.GameState;
+import com.vibetanks.network.MatchRecorder;
+import com.vibetanks.network.PlayerInput;
+import com.vibetanks.network.SnapshotFanout;
+import com.vibetanks.network.WireProtocol;
+import com.vibetanks.network.WireWriter;
+import com.vibetanks.util.GameLogger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One match on the dedicated server: a ServerGameState plus the clients playing in it.
+ * Rooms are created and ticked by RoomManager; a room's tick never runs concurrently
+ * with itself, but different rooms tick in parallel on the pool.
+ *
+ * The simulation runs every tick, snapshots go out every ticksPerSnapshot ticks.
+ * Each client's inputs wait in its InputQueue and are applied one per tick, and
+ * one-shot events from skipped ticks are carried by the next snapshot. Each client's
+ * CongestionController can further thin out and slim down the snapshots it gets.
+ *
+ * Spectators get the same shared frames as players at a fraction of the rate, hold no
+ * player slot and send only snapshot acks. A room closes when its last player leaves,
+ * whoever is still watching.
+ *
+ * Joins arrive on the transport's I/O thread, which serves every connection and so must
+ * never wait for a tick: it only reserves a seat under the small seat lock and hands the
+ * client over with admit(). The next tick seats it in the game and sends its join frames.
+ *
+ * With a record directory set, each game is recorded (snapshots and applied inputs,
+ * by tick number) to its own MatchRecorder file.
+ */
+class GameRoom {
+    private static final GameLogger LOG = GameLogger.getLogger(GameRoom.class);
+    static final int MAX_SPECTATORS = 16;         // More viewers should go through a SpectatorRelay
+    static final int SPECTATOR_SEND_DIVISOR = 2;  // Spectators get at most every Nth snapshot (set in the handshake)
+
+    private final String code;
+    private final boolean matchmade; // Open to matchmaking (false for rooms joined by code)
+    private final int maxPlayers;
+    private final int ticksPerSnapshot;
+    private final double tickMillis;
+    private long tickNumber;
+
+    private final List<ClientConnection> clients = new CopyOnWriteArrayList<>();
+    private final List<ClientConnection> spectators = new CopyOnWriteArrayList<>();
+
+    // Seats by player number, reserved on the I/O thread and freed by the tick - guarded by itself
+    private final ClientConnection[] seats;
+    private int spectatorSeats;
+    private volatile boolean closed = false; // Set under the seat lock
+    // Clients with a seat, waiting for the next tick to join the game
+    private final Queue<ClientConnection> arrivals = new ConcurrentLinkedQueue<>();
+
+    // Game state (headless) - synchronized access required
+    private ServerGameState gameState;
+    private final Object gameStateLock = new Object();
+    private boolean gameOverLogged = false;
+    private boolean victoryLogged = false;
+    private Path recordDirectory;
+    private volatile MatchRecorder recorder; // Created with the game, closed with the room
+
+    // Each distinct snapshot frame (full, or delta per acked baseline) is encoded once per tick
+    private final SnapshotFanout snapshotFanout = new SnapshotFanout();
+    private final AtomicLong snapshotBytes = new AtomicLong();
+    private final AtomicLong snapshotsSent = new AtomicLong();
+    // Compression benchmark: snapshot bytes before/after for clients that negotiated it
+    private final AtomicLong compressionRawBytes = new AtomicLong();
+    private final AtomicLong compressionBytes = new AtomicLong();
+    private final AtomicLong compressionNanos = new AtomicLong();
+    private final AtomicLong compressionFrames = new AtomicLong();
+
+    // Tick timing, reset by each status report
+    private volatile long lastTickNanos;
+    private final AtomicLong maxTickNanos = new AtomicLong();
+    private final AtomicLong totalTickNanos = new AtomicLong();
+    private final AtomicLong tickCount = new AtomicLong();
+
+    // This tick's input per player number; only touched by the tick
+    private final PlayerInput[] frameInputs;
+
+    ScheduledFuture<?> tickTask;
+
+    GameRoom(String code, boolean matchmade, int maxPlayers) {
+        this(code, matchmade, maxPlayers, 1, TimeUnit.SECONDS.toNanos(1) / 60);
+    }
+
+    GameRoom(String code, boolean matchmade, int maxPlayers, int ticksPerSnapshot, long tickNanos) {
+        this.code = code;
+        this.matchmade = matchmade;
+        this.maxPlayers = maxPlayers;
+        this.ticksPerSnapshot = Math.max(1, ticksPerSnapshot);
+        this.tickMillis = tickNanos / 1_000_000.0;
+        this.seats = new ClientConnection[maxPlayers + 1];
+        this.frameInputs = new PlayerInput[maxPlayers + 1];
+    }
+
+    String getCode() { return code; }
+    void setRecordDirectory(Path recordDirectory) { this.recordDirectory = recordDirectory; }
+    boolean isMatchmade() { return matchmade; }
+
+    /**
+     * Reserve the lowest free player slot for a client; admit() then hands it to the game.
+     * @return the player number, or -1 if the room is full or already closed
+     */
+    int join(ClientConnection client) {
+        synchronized (seats) {
+            if (closed) return -1;
+            for (int playerNum = 1; playerNum <= maxPlayers; playerNum++) {
+                if (seats[playerNum] == null) {
+                    seats[playerNum] = client;
+                    client.assign(this, playerNum);
+                    return playerNum;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Reserve a spectator seat (player number 0); admit() then hands it to the game.
+     * @return false if the room is closed or has MAX_SPECTATORS already
+     */
+    boolean joinSpectator(ClientConnection client) {
+        synchronized (seats) {
+            if (closed || spectatorSeats >= MAX_SPECTATORS) return false;
+            spectatorSeats++;
+            client.assign(this, 0);
+            return true;
+        }
+    }
+
+    /**
+     * Hand a client with a seat to the next tick, which sends its room and player number
+     * and then snapshots. Frames sent to it before this call stay ahead of the room's.
+     */
+    void admit(ClientConnection client) {
+        arrivals.offer(client);
+    }
+
+    // Tick thread, under gameStateLock
+    private void seatArrivals() {
+        ClientConnection client;
+        while ((client = arrivals.poll()) != null) {
+            int playerNum = client.getPlayerNumber();
+            sendJoinFrames(client, playerNum);
+            // Added after the join frames are queued so no snapshot can overtake them
+            if (client.spectator) {
+                spectators.add(client);
+                LOG.info("Room {}: Spectator joined from {} ({} watching)",
+                    code, client.connection.getRemoteAddress(), spectators.size());
+                continue;
+            }
+            clients.add(client);
+
+            // If game already running, add player to game or handle reconnection
+            if (gameState != null) {
+                // Check if this is a reconnection (player was in grace period)
+                if (gameState.isPlayerDisconnected(playerNum)) {
+                    gameState.handlePlayerReconnect(playerNum);
+                    LOG.info("Room {}: Player {} reconnected to the game", code, playerNum);
+                } else {
+                    gameState.addPlayer(playerNum);
+                    LOG.info("Room {}: Player {} joined the game in progress", code, playerNum);
+                }
+            }
+            LOG.info("Room {}: Player {} joined from {} ({}/{})",
+                code, playerNum, client.connection.getRemoteAddress(), clients.size(), maxPlayers);
+        }
+    }
+
+    private void sendJoinFrames(ClientConnection client, int playerNum) {
+        WireWriter payload = new WireWriter(32);
+        WireWriter frame = new WireWriter(32);
+
+        payload.writeString(code);
+        WireProtocol.encodeFrame(WireProtocol.MSG_ROOM_JOINED, payload, frame);
+        client.connection.send(frame.toByteArray());
+
+        payload.reset();
+        payload.writeVarInt(playerNum);
+        WireProtocol.encodeFrame(WireProtocol.MSG_PLAYER_NUMBER, payload, frame);
+        client.connection.send(frame.toByteArray());
+    }
+
+    /**
+     * Run one simulation step and, every ticksPerSnapshot ticks, broadcast the snapshot.
+     * Called by RoomManager's pool.
+     */
+    void tick() {
+        long start = System.nanoTime();
+
+        // Take one queued input per player outside the lock to reduce lock contention
+        Arrays.fill(frameInputs, null);
+        for (ClientConnection client : clients) {
+            frameInputs[client.getPlayerNumber()] = client.inputs.poll();
+        }
+
+        // Build state inside lock, broadcast outside
+        boolean sendSnapshot = ++tickNumber % ticksPerSnapshot == 0;
+        GameState stateToSend = null;
+        synchronized (gameStateLock) {
+            if (closed) return;
+            seatArrivals();
+            if (gameState == null) {
+                startGame();
+            }
+
+            // Update connected player count
+            gameState.setConnectedPlayers(getPlayerCount());
+
+            // Process collected player inputs, rewinding their shots to what each player saw
+            for (ClientConnection client : clients) {
+                gameState.setViewDelayTicks(client.getPlayerNumber(), viewDelayTicks(client));
+            }
+            for (int playerNum = 1; playerNum <= maxPlayers; playerNum++) {
+                PlayerInput input = frameInputs[playerNum];
+                if (input == null) continue;
+                if (recorder != null) {
+                    recorder.recordInput(tickNumber, playerNum, input);
+                }
+                gameState.processInput(playerNum, input);
+            }
+
+            // Update game state
+            gameState.update();
+
+            // Build network state (immutable snapshot) - collects events since the last one
+            if (sendSnapshot) {
+                stateToSend = gameState.buildNetworkState();
+            }
+
+            // Handle game over / victory using already-collected inputs
+            if (gameState.isGameOver()) {
+                if (!gameOverLogged) {
+                    LOG.warn("Room {}: GAME OVER - Press ENTER to restart", code);
+                    gameOverLogged = true;
+                }
+                // Check for restart requests from collected inputs
+                for (PlayerInput input : frameInputs) {
+                    if (input != null && input.requestRestart) {
+                        LOG.info("Room {}: Restarting game by player request", code);
+                        gameState.restartLevel();
+                        gameOverLogged = false;
+                        victoryLogged = false;
+                        break;
+                    }
+                }
+            } else if (gameState.isVictory()) {
+                if (!victoryLogged) {
+                    LOG.info("Room {}: VICTORY - Level {} complete", code, gameState.getCurrentLevel());
+                    victoryLogged = true;
+                }
+                // Check for next level requests from collected inputs
+                for (PlayerInput input : frameInputs) {
+                    if (input != null && input.requestNextLevel) {
+                        LOG.info("Room {}: Starting next level by player request", code);
+                        gameState.nextLevel();
+                        gameOverLogged = false;
+                        victoryLogged = false;
+                        break;
+                    }
+                }
+            }
+        }
+
+        // Broadcast state OUTSIDE the lock to prevent blocking game loop
+        if (stateToSend != null) {
+            broadcastState(stateToSend);
+        }
+        removeDisconnectedClients();
+
+        long elapsed = System.nanoTime() - start;
+        lastTickNanos = elapsed;
+        totalTickNanos.addAndGet(elapsed);
+        tickCount.incrementAndGet();
+        maxTickNanos.accumulateAndGet(elapsed, Math::max);
+    }
+
+    /**
+     * Estimated age in ticks of the enemy positions a client is looking at: the snapshot took
+     * half a round trip to arrive, the client renders about one snapshot interval behind the
+     * newest (interpolation), and its input then waited in the input queue. 0 until the RTT is known.
+     */
+    private int viewDelayTicks(ClientConnection client) {
+        long rttMs = client.getStats().getRttMs();
+        if (rttMs < 0) return 0;
+        int interpolationTicks = ticksPerSnapshot * client.congestion.getSendDivisor();
+        return (int) Math.round(rttMs / 2.0 / tickMillis) + interpolationTicks + client.inputs.size();
+    }
+
+    private void startGame() {
+        LOG.info("Room {}: GAME STARTING with {} player(s)", code, clients.size());
+        gameState = new ServerGameState(Math.max(1, clients.size()));
+        if (recordDirectory != null) {
+            try {
+                recorder = MatchRecorder.create(MatchRecorder.newFile(recordDirectory, code));
+                LOG.info("Room {}: Recording to {}", code, recorder.getFile());
+            } catch (IOException e) {
+                LOG.warn("Room {}: Cannot record match: {}", code, e.getMessage());
+            }
+        }
+    }
+
+    // Finish the recording, if any (file writes happen on the recorder's thread)
+    private void stopRecording() {
+        MatchRecorder r = recorder;
+        recorder = null;
+        if (r != null) {
+            r.close();
+        }
+    }
+
+    private void broadcastState(GameState state) {
+        if (clients.isEmpty()) return;
+
+        snapshotFanout.begin(state);
+        MatchRecorder r = recorder;
+        if (r != null) {
+            r.recordSnapshot(tickNumber, state);
+        }
+        long nowMs = System.nanoTime() / 1_000_000;
+        // Frames are immutable and shared between clients with the same baseline and detail.
+        // Never blocks: a client that is behind just has its unsent snapshot replaced.
+        for (ClientConnection client : clients) {
+            if (client.isActive()) {
+                client.pingIfDue(nowMs);
+                if (adaptSnapshotRate(client, nowMs)) {
+                    sendSnapshot(client, state);
+                }
+            }
+        }
+        // Spectators reuse the same frames; their lower rate keeps many of them cheap
+        for (ClientConnection spectator : spectators) {
+            if (spectator.isActive()) {
+                spectator.pingIfDue(nowMs);
+                if (adaptSnapshotRate(spectator, nowMs)) {
+                    sendSnapshot(spectator, state);
+                }
+            }
+        }
+
+        // Move this tick's compression counters where the status report can read them
+        FrameCompressor compressor = snapshotFanout.getCompressor();
+        if (compressor != null && compressor.getFrameCount() > 0) {
+            compressionRawBytes.addAndGet(compressor.getRawBytes());
+            compressionBytes.addAndGet(compressor.getCompressedBytes());
+            compressionNanos.addAndGet(compressor.getCompressNanos());
+            compressionFrames.addAndGet(compressor.getFrameCount());
+            compressor.resetStats();
+        }
+    }
+
+    // Sound events of snapshots the client skipped or had dropped unsent come along
+    private void sendSnapshot(ClientConnection client, GameState state) {
+        long soundsSince = client.soundsSince();
+        boolean reducedDetail = client.congestion.isReducedDetail();
+        byte[] frame = snapshotFanout.frameFor(client.takeSnapshotBaseline(), soundsSince,
+            client.getReducedUntil(), reducedDetail, client.compression);
+        client.connection.sendSnapshot(frame);
+        client.snapshotSent(state.sequence, soundsSince, reducedDetail);
+        snapshotBytes.addAndGet(frame.length);
+        snapshotsSent.incrementAndGet();
+    }
+
+    /**
+     * Update the client's congestion level from its link measurements.
+     * @return whether the client gets this broadcast
+     */
+    private boolean adaptSnapshotRate(ClientConnection client, long nowMs) {
+        CongestionController congestion = client.congestion;
+        ServerConnection c = client.connection;
+        // Back at full detail, SnapshotFanout resends the cosmetics the client went without
+        if (congestion.update(nowMs, c.getQueuedBytes(), c.getDroppedSnapshots(), c.getStats().getRttMs())) {
+            LOG.info("Room {}: Player {} snapshots now {}", code, client.getPlayerNumber(), congestion.describe());
+        }
+        return congestion.shouldSend();
+    }
+
+    // Clean up disconnected clients and notify game state; close the room once empty
+    private void removeDisconnectedClients() {
+        for (ClientConnection client : clients) {
+            if (!client.isActive()) {
+                // Immediate removal for clean exit, grace period for network issues
+                synchronized (gameStateLock) {
+                    if (gameState != null) {
+                        gameState.handlePlayerDisconnect(client.getPlayerNumber(), client.cleanDisconnect);
+                    }
+                }
+                clients.remove(client);
+                synchronized (seats) {
+                    seats[client.getPlayerNumber()] = null;
+                }
+            }
+        }
+        for (ClientConnection spectator : spectators) {
+            if (!spectator.isActive()) {
+                spectators.remove(spectator);
+                synchronized (seats) {
+                    spectatorSeats--;
+                }
+                LOG.info("Room {}: Spectator left ({} watching)", code, spectators.size());
+            }
+        }
+
+        // Seats reserved but not yet admitted keep the room open
+        boolean empty;
+        synchronized (seats) {
+            empty = !closed && seatCount() == 0;
+            if (empty) {
+                closed = true;
+            }
+        }
+        if (empty) {
+            LOG.info("Room {}: All players disconnected - closing room", code);
+            synchronized (gameStateLock) {
+                gameState = null;
+                stopRecording();
+            }
+        }
+        if (closed) {
+            closeSpectators();
+        }
+    }
+
+    // Spectators, and anyone still waiting to be seated
+    private void closeSpectators() {
+        for (ClientConnection spectator : spectators) {
+            spectator.close();
+        }
+        spectators.clear();
+        ClientConnection client;
+        while ((client = arrivals.poll()) != null) {
+            client.close();
+        }
+    }
+
+    // Under the seat lock
+    private int seatCount() {
+        int count = 0;
+        for (int playerNum = 1; playerNum <= maxPlayers; playerNum++) {
+            if (seats[playerNum] != null) count++;
+        }
+        return count;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Close the room and every client in it (server shutdown).
+     */
+    void close() {
+        List<ClientConnection> seated = new ArrayList<>();
+        synchronized (seats) {
+            closed = true;
+            for (ClientConnection client : seats) {
+                if (client != null) seated.add(client);
+            }
+        }
+        synchronized (gameStateLock) {
+            gameState = null;
+            stopRecording();
+        }
+        for (ClientConnection client : seated) {
+            client.close();
+        }
+        clients.clear();
+        closeSpectators();
+    }
+
+    /**
+     * Players with a seat, including those the next tick has yet to seat in the game.
+     */
+    int getPlayerCount() {
+        int count = 0;
+        synchronized (seats) {
+            for (int playerNum = 1; playerNum <= maxPlayers; playerNum++) {
+                if (seats[playerNum] != null && seats[playerNum].isActive()) count++;
+            }
+        }
+        return count;
+    }
+
+    int getSpectatorCount() {
+        synchronized (seats) {
+            return spectatorSeats;
+        }
+    }
+
+    long getLastTickNanos() {
+        return lastTickNanos;
+    }
+
+    /**
+     * Log ticks per second, players, level and tick cost since the previous report, then reset.
+     */
+    void logStatus(double intervalSeconds) {
+        long ticks = tickCount.getAndSet(0);
+        long total = totalTickNanos.getAndSet(0);
+        long max = maxTickNanos.getAndSet(0);
+        long sent = snapshotsSent.getAndSet(0);
+        long bytes = snapshotBytes.getAndSet(0);
+        long compressedFrames = compressionFrames.getAndSet(0);
+        long compressedRaw = compressionRawBytes.getAndSet(0);
+        long compressed = compressionBytes.getAndSet(0);
+        long compressNanos = compressionNanos.getAndSet(0);
+
+        // Per-client send queue depth and link quality
+        int peakQueued = 0;
+        long dropped = 0;
+        long nowMs = System.nanoTime() / 1_000_000;
+        for (ClientConnection client : clients) {
+            ServerConnection c = client.connection;
+            int peak = c.takePeakQueuedBytes();
+            peakQueued = Math.max(peakQueued, peak);
+            dropped += c.getDroppedSnapshots();
+            LOG.debug("Room {} | Player {} send queue: {} frames, {} B (peak {} B), {} stale snapshots dropped",
+                code, client.getPlayerNumber(), c.getQueuedFrames(), c.getQueuedBytes(), peak,
+                c.getDroppedSnapshots());
+            LOG.info("Room {} | Player {} | {} | {}", code, client.getPlayerNumber(), c.getStats().describe(nowMs),
+                client.congestion.describe());
+        }
+
+        synchronized (gameStateLock) {
+            if (gameState == null) return;
+            LOG.info("Room {} | FPS: {} | Players: {}/{} | Spectators: {} | Level: {} | Enemies: {}"
+                    + " | Tick avg {} ms, max {} ms | Snapshot avg {} B | Send queue peak {} B, {} snapshots dropped",
+                code, String.format("%.1f", ticks / intervalSeconds), getPlayerCount(), maxPlayers, spectators.size(),
+                gameState.getCurrentLevel(), gameState.getRemainingEnemies(),
+                String.format("%.2f", ticks > 0 ? total / (ticks * 1_000_000.0) : 0.0),
+                String.format("%.2f", max / 1_000_000.0), sent > 0 ? bytes / sent : 0, peakQueued, dropped);
+            if (compressedFrames > 0) {
+                LOG.info("Room {} | Compressed {} distinct frames: {} B -> {} B ({}%), {} us/frame",
+                    code, compressedFrames, compressedRaw, compressed, Math.round(100.0 * compressed / compressedRaw),
+                    compressNanos / compressedFrames / 1000);
+            }
+        }
+    }
+}
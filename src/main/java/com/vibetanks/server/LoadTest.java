@@ -0,0 +1,286 @@
+package com.vibetanks.server;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.vibetanks.network.ConnectionStats;
+import com.vibetanks.util.GameLogger;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test: starts a DedicatedServer in this JVM and connects N scripted clients
+ * (LoadTestBot) to it over loopback, then writes a report of server tick times, snapshot
+ * sizes, snapshot latency, per-client RTT and GC pauses.
+ *
+ * Usage: java -cp <classpath> com.vibetanks.server.LoadTest [--clients=N] [--duration=SEC]
+ *        [--warmup=SEC] [--udp] [--tick-rate=HZ] [--send-rate=HZ] [--report=FILE]
+ *        [--max-tick-p99-ms=MS] [--max-snapshot-p99-bytes=BYTES]
+ *   or:  mvn -Ploadtest exec:java -Dexec.args="--clients=64"
+ *
+ * Measurements start after the warmup (rooms created, JIT warmed up). With the --max-*
+ * limits set the exit code is 1 when a limit is exceeded or a client lost its connection,
+ * so the test can gate network-performance changes.
+ */
+public class LoadTest {
+    private static final GameLogger LOG = GameLogger.getLogger(LoadTest.class);
+    private static final String USAGE = "Usage: java -cp <classpath> com.vibetanks.server.LoadTest [--clients=N]"
+        + " [--duration=SEC] [--warmup=SEC] [--udp] [--tick-rate=HZ] [--send-rate=HZ] [--report=FILE]"
+        + " [--max-tick-p99-ms=MS] [--max-snapshot-p99-bytes=BYTES]";
+    private static final long CONNECT_SPACING_MS = 5; // Don't open every connection in the same instant
+
+    private int clients = 16;
+    private int durationSeconds = 30;
+    private int warmupSeconds = 5;
+    private boolean udp;
+    private int tickRate = 60;
+    private int sendRate = 30;
+    private Path reportFile = Paths.get("loadtest-report.txt");
+    private double maxTickP99Ms = -1;
+    private long maxSnapshotP99Bytes = -1;
+
+    private final LatencyHistogram gcPausesMs = new LatencyHistogram();
+    private final List<NotificationEmitter> gcEmitters = new ArrayList<>();
+    private final NotificationListener gcListener = (notification, handback) -> {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) return;
+        GarbageCollectionNotificationInfo info =
+            GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        // Concurrent cycles run beside the application - only count stop-the-world pauses
+        String name = info.getGcName();
+        if (!name.contains("Concurrent") && !name.contains("Cycles")) {
+            gcPausesMs.record(info.getGcInfo().getDuration());
+        }
+    };
+
+    public static void main(String[] args) throws Exception {
+        LoadTest test = new LoadTest();
+        for (String arg : args) {
+            try {
+                test.parse(arg);
+            } catch (IllegalArgumentException e) {
+                LOG.error("Invalid argument: {}", arg);
+                LOG.error(USAGE);
+                System.exit(2);
+            }
+        }
+        System.exit(test.run() ? 0 : 1);
+    }
+
+    private void parse(String arg) {
+        String value = arg.contains("=") ? arg.substring(arg.indexOf('=') + 1) : "";
+        if (arg.equals("--udp")) udp = true;
+        else if (arg.startsWith("--clients=")) clients = Integer.parseInt(value);
+        else if (arg.startsWith("--duration=")) durationSeconds = Integer.parseInt(value);
+        else if (arg.startsWith("--warmup=")) warmupSeconds = Integer.parseInt(value);
+        else if (arg.startsWith("--tick-rate=")) tickRate = Integer.parseInt(value);
+        else if (arg.startsWith("--send-rate=")) sendRate = Integer.parseInt(value);
+        else if (arg.startsWith("--report=")) reportFile = Paths.get(value);
+        else if (arg.startsWith("--max-tick-p99-ms=")) maxTickP99Ms = Double.parseDouble(value);
+        else if (arg.startsWith("--max-snapshot-p99-bytes=")) maxSnapshotP99Bytes = Long.parseLong(value);
+        else throw new IllegalArgumentException(arg);
+    }
+
+    /**
+     * @return false if a --max-* limit was exceeded or a client lost its connection
+     */
+    boolean run() throws Exception {
+        int port = freePort();
+        DedicatedServer server = new DedicatedServer(port, udp, tickRate, sendRate);
+        Thread serverThread = new Thread(server::start, "LoadTestServer");
+        serverThread.setDaemon(true);
+        serverThread.start();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!server.isRunning()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IOException("Server did not start on port " + port);
+            }
+            Thread.sleep(20);
+        }
+
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+        List<LoadTestBot> bots = new ArrayList<>();
+        ScheduledExecutorService inputLoop = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "LoadTestInput");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            LOG.info("Connecting {} {} clients to port {}", clients, udp ? "UDP" : "TCP", port);
+            for (int i = 1; i <= clients; i++) {
+                LoadTestBot bot = new LoadTestBot(i, address, udp, i);
+                bot.connect();
+                bots.add(bot);
+                Thread.sleep(CONNECT_SPACING_MS);
+            }
+            // Clients send one input per frame, like the game loop
+            inputLoop.scheduleAtFixedRate(() -> {
+                for (LoadTestBot bot : bots) {
+                    bot.tick();
+                }
+            }, 0, 1_000_000_000L / 60, TimeUnit.NANOSECONDS);
+
+            Thread.sleep(warmupSeconds * 1000L);
+            RoomManager rooms = server.getRoomManager();
+            rooms.getTickTimes().reset();
+            long startMs = System.nanoTime() / 1_000_000;
+            for (LoadTestBot bot : bots) {
+                bot.snapshotBytes.reset();
+                bot.snapshotLatencyMs.reset();
+                bot.getStats().getBytesInPerSecond(startMs); // Starts the traffic rate window
+            }
+            installGcListener();
+            long gcCountStart = gcCount();
+            long gcTimeStart = gcTimeMs();
+
+            LOG.info("Measuring for {} s", durationSeconds);
+            Thread.sleep(durationSeconds * 1000L);
+
+            String report = report(rooms, bots, gcCount() - gcCountStart, gcTimeMs() - gcTimeStart);
+            removeGcListener();
+            Files.writeString(reportFile, report);
+            LOG.info("Report written to {}\n{}", reportFile.toAbsolutePath(), report);
+            return withinLimits(rooms, bots);
+        } finally {
+            inputLoop.shutdownNow();
+            for (LoadTestBot bot : bots) {
+                bot.close();
+            }
+            server.stop();
+        }
+    }
+
+    private String report(RoomManager rooms, List<LoadTestBot> bots, long gcCount, long gcTimeMs) {
+        LatencyHistogram snapshotBytes = new LatencyHistogram();
+        LatencyHistogram snapshotLatency = new LatencyHistogram();
+        LatencyHistogram rtt = new LatencyHistogram();
+        for (LoadTestBot bot : bots) {
+            snapshotBytes.add(bot.snapshotBytes);
+            snapshotLatency.add(bot.snapshotLatencyMs);
+            if (bot.getStats().getRttMs() >= 0) {
+                rtt.record(bot.getStats().getRttMs());
+            }
+        }
+
+        StringWriter text = new StringWriter();
+        PrintWriter out = new PrintWriter(text);
+        out.printf("VibeTanks load test%n");
+        out.printf("Clients: %d over %s | Rooms: %d | Tick: %d Hz | Snapshots: %d Hz | Measured: %d s after %d s warmup%n",
+            clients, udp ? "UDP" : "TCP", rooms.getRoomCount(), tickRate, sendRate, durationSeconds, warmupSeconds);
+        out.printf("Tick threads: %d | CPUs: %d | Heap used: %d MB%n", rooms.getThreadCount(),
+            Runtime.getRuntime().availableProcessors(),
+            (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) / (1024 * 1024));
+        out.println();
+
+        LatencyHistogram ticks = rooms.getTickTimes();
+        out.printf("%-28s %10s %9s %9s %9s %9s %9s %9s%n", "", "count", "mean", "p50", "p90", "p99", "p99.9", "max");
+        row(out, "Server tick (ms)", ticks, 1e-6);
+        row(out, "Snapshot size (bytes)", snapshotBytes, 1);
+        row(out, "Snapshot latency (ms)", snapshotLatency, 1);
+        row(out, "Client RTT (ms)", rtt, 1);
+        row(out, "GC pause (ms)", gcPausesMs, 1);
+        out.printf("GC: %d collections, %d ms total (%.2f%% of wall time)%n",
+            gcCount, gcTimeMs, 100.0 * gcTimeMs / (durationSeconds * 1000.0));
+        out.println();
+
+        long nowMs = System.nanoTime() / 1_000_000;
+        out.println("Per client:");
+        for (LoadTestBot bot : bots) {
+            ConnectionStats stats = bot.getStats();
+            out.printf("  bot-%-4d room %-6s player %d | %s | snapshots %d, avg %.0f B, latency p99 %d ms"
+                    + " | full snapshot requests %d%s%n",
+                bot.getId(), bot.getRoomCode(), bot.getPlayerNumber(), stats.describe(nowMs),
+                bot.snapshotBytes.getCount(), bot.snapshotBytes.getMean(), bot.snapshotLatencyMs.percentile(99),
+                bot.getFullSnapshotRequests(), bot.isConnected() ? "" : " | DISCONNECTED: " + bot.getFailure());
+        }
+        out.flush();
+        return text.toString();
+    }
+
+    private static void row(PrintWriter out, String label, LatencyHistogram h, double scale) {
+        out.printf("%-28s %10d %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n", label, h.getCount(), h.getMean() * scale,
+            h.percentile(50) * scale, h.percentile(90) * scale, h.percentile(99) * scale,
+            h.percentile(99.9) * scale, h.getMax() * scale);
+    }
+
+    private boolean withinLimits(RoomManager rooms, List<LoadTestBot> bots) {
+        boolean ok = true;
+        for (LoadTestBot bot : bots) {
+            if (!bot.isConnected()) {
+                LOG.error("bot-{} lost its connection: {}", bot.getId(), bot.getFailure());
+                ok = false;
+            }
+        }
+        double tickP99Ms = rooms.getTickTimes().percentile(99) / 1e6;
+        if (maxTickP99Ms >= 0 && tickP99Ms > maxTickP99Ms) {
+            LOG.error("Tick p99 {} ms exceeds the limit of {} ms", String.format("%.2f", tickP99Ms), maxTickP99Ms);
+            ok = false;
+        }
+        if (maxSnapshotP99Bytes >= 0) {
+            LatencyHistogram sizes = new LatencyHistogram();
+            bots.forEach(bot -> sizes.add(bot.snapshotBytes));
+            if (sizes.percentile(99) > maxSnapshotP99Bytes) {
+                LOG.error("Snapshot p99 {} B exceeds the limit of {} B", sizes.percentile(99), maxSnapshotP99Bytes);
+                ok = false;
+            }
+        }
+        return ok;
+    }
+
+    private void installGcListener() {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(gcListener, null, null);
+                gcEmitters.add(emitter);
+            }
+        }
+    }
+
+    private void removeGcListener() {
+        for (NotificationEmitter emitter : gcEmitters) {
+            try {
+                emitter.removeNotificationListener(gcListener);
+            } catch (ListenerNotFoundException ignored) {
+            }
+        }
+        gcEmitters.clear();
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+            .mapToLong(gc -> Math.max(0, gc.getCollectionCount())).sum();
+    }
+
+    private static long gcTimeMs() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+            .mapToLong(gc -> Math.max(0, gc.getCollectionTime())).sum();
+    }
+
+    private int freePort() throws IOException {
+        if (udp) {
+            try (DatagramSocket socket = new DatagramSocket(0)) {
+                return socket.getLocalPort();
+            }
+        }
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.vibetanks.server;
+
+import com.vibetanks.network.CompressionDictionary;
+import com.vibetanks.network.ConnectionStats;
+import com.vibetanks.network.FrameCompressor;
+import com.vibetanks.network.FrameDecoder;
+import com.vibetanks.network.FrameSplitter;
+import com.vibetanks.network.GameState;
+import com.vibetanks.network.GameStateCodec;
+import com.vibetanks.network.Handshake;
+import com.vibetanks.network.InputHistory;
+import com.vibetanks.network.PlayerInput;
+import com.vibetanks.network.SnapshotDeltaCodec;
+import com.vibetanks.network.SnapshotFanout;
+import com.vibetanks.network.SnapshotHistory;
+import com.vibetanks.network.UdpClient;
+import com.vibetanks.network.UdpPacket;
+import com.vibetanks.network.WireProtocol;
+import com.vibetanks.network.WireReader;
+import com.vibetanks.network.WireWriter;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Random;
+
+/**
+ * One scripted client for LoadTest, speaking the same protocol as NetworkManager: JOIN with
+ * capabilities, sequenced inputs with history and snapshot acks, delta and compressed
+ * snapshots, pings both ways.
+ *
+ * Inputs are random but player-like - a direction held for a while, occasional shots - and
+ * bots ask for a restart or the next level when the round ends, so rooms keep playing.
+ * tick() runs on the LoadTest scheduler; frames arrive on the TCP reader thread or the UDP
+ * I/O thread.
+ */
+class LoadTestBot implements FrameDecoder.FrameHandler {
+    private final int id;
+    private final Random random;
+    private final InetSocketAddress server;
+    private final boolean udp;
+
+    // Written by the receive thread, read by the report
+    final LatencyHistogram snapshotBytes = new LatencyHistogram();
+    final LatencyHistogram snapshotLatencyMs = new LatencyHistogram(); // Server send time -> decoded here
+
+    private final SnapshotHistory received = new SnapshotHistory(SnapshotFanout.HISTORY_SIZE);
+    private final SnapshotDeltaCodec.Context deltaContext = new SnapshotDeltaCodec.Context();
+    private final FrameCompressor decompressor;
+    private final FrameSplitter fragments = new FrameSplitter();
+    private final InputHistory inputHistory = new InputHistory();
+    private final WireWriter inputBuffer = new WireWriter(64);
+    private final WireWriter pingBuffer = new WireWriter(16);
+    private ConnectionStats stats = new ConnectionStats();
+    private Socket socket;
+    private DataOutputStream out;
+    private UdpClient udpClient;
+
+    private volatile boolean connected;
+    private volatile String failure;
+    private volatile int playerNumber;
+    private volatile String roomCode;
+    private volatile long lastSnapshotSequence;
+    private volatile boolean roundOver; // Game over or victory in the last snapshot
+    private long sequence;
+    private int heldDirection;
+    private long fullSnapshotRequests;
+
+    LoadTestBot(int id, InetSocketAddress server, boolean udp, long seed) {
+        this.id = id;
+        this.server = server;
+        this.udp = udp;
+        this.random = new Random(seed);
+        byte[] dictionary = CompressionDictionary.get();
+        this.decompressor = dictionary != null ? new FrameCompressor(dictionary) : null;
+    }
+
+    /**
+     * Connect and send JOIN (null room code = matchmaking).
+     */
+    void connect() throws IOException {
+        WireWriter join = new WireWriter();
+        Handshake.join(null, false, 0, udp ? UdpPacket.SAFE_DATAGRAM_SIZE : 0).write(join);
+
+        if (udp) {
+            UdpClient client = new UdpClient(server, this);
+            client.connect();
+            udpClient = client;
+            stats = client.getStats();
+            connected = true;
+            client.sendReliable(WireProtocol.MSG_JOIN, join);
+        } else {
+            socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.connect(server, 5000);
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            connected = true;
+            send(WireProtocol.MSG_JOIN, join, true);
+            Thread reader = new Thread(this::readLoop, "LoadTestBot-" + id);
+            reader.setDaemon(true);
+            reader.start();
+        }
+    }
+
+    private void readLoop() {
+        WireProtocol.FrameBuffer frame = new WireProtocol.FrameBuffer();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            while (connected) {
+                int type = WireProtocol.readFrame(in, frame);
+                stats.addBytesIn(WireProtocol.frameSize(frame.reader().remaining()));
+                onFrame(type, frame.reader());
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void onFrame(int type, WireReader payload) throws IOException {
+        switch (type) {
+            case WireProtocol.MSG_COMPRESSED -> {
+                if (decompressor == null) throw new StreamCorruptedException("Compressed frame without a dictionary");
+                int size = WireProtocol.frameSize(payload.remaining());
+                int inner = decompressor.decompress(payload);
+                onSnapshot(inner, decompressor.reader(), size);
+            }
+            case WireProtocol.MSG_FRAGMENT -> {
+                int inner = fragments.add(payload);
+                if (inner >= 0) onFrame(inner, fragments.reader());
+            }
+            case WireProtocol.MSG_GAME_STATE, WireProtocol.MSG_GAME_STATE_DELTA ->
+                onSnapshot(type, payload, WireProtocol.frameSize(payload.remaining()));
+            case WireProtocol.MSG_PING -> {
+                WireWriter pong = new WireWriter(16);
+                ConnectionStats.writePong(payload, pong);
+                send(WireProtocol.MSG_PONG, pong, false);
+            }
+            case WireProtocol.MSG_PONG -> stats.onPong(payload, System.nanoTime() / 1_000_000);
+            case WireProtocol.MSG_PLAYER_NUMBER -> playerNumber = payload.readVarInt();
+            case WireProtocol.MSG_ROOM_JOINED -> roomCode = payload.readString();
+            case WireProtocol.MSG_JOIN_REJECTED -> fail(new IOException(Handshake.readReject(payload)));
+            default -> { }
+        }
+    }
+
+    private void onSnapshot(int type, WireReader payload, int wireBytes) throws IOException {
+        GameState state;
+        if (type == WireProtocol.MSG_GAME_STATE) {
+            state = GameStateCodec.readGameState(payload);
+        } else if (type == WireProtocol.MSG_GAME_STATE_DELTA) {
+            state = SnapshotDeltaCodec.readDelta(payload, received::get, deltaContext);
+            if (state == null) {
+                fullSnapshotRequests++;
+                send(WireProtocol.MSG_FULL_SNAPSHOT_REQUEST, new WireWriter(0), true);
+                return;
+            }
+        } else {
+            throw new StreamCorruptedException("Unexpected compressed message type " + type);
+        }
+        // Server and bots share the JVM, so nanoTime-based send times are directly comparable
+        snapshotLatencyMs.record(System.nanoTime() / 1_000_000 - state.serverTimeMs);
+        snapshotBytes.record(wireBytes);
+        if (state.sequence > lastSnapshotSequence) {
+            received.put(state);
+            lastSnapshotSequence = state.sequence;
+            roundOver = state.gameOver || state.victory;
+        }
+    }
+
+    /**
+     * Send this frame's input (and a ping when one is due).
+     */
+    void tick() {
+        if (!connected || playerNumber == 0) return;
+
+        // Hold a direction like a player would, changing it now and then
+        if (sequence == 0 || random.nextInt(40) == 0) {
+            heldDirection = random.nextInt(5); // 0 = stand still
+        }
+        PlayerInput input = PlayerInput.fromButtons(heldDirection, ++sequence);
+        input.shoot = random.nextInt(10) == 0;
+        input.requestRestart = roundOver;
+        input.requestNextLevel = roundOver;
+        input.nickname = sequence == 1 ? "bot-" + id : null;
+        input.ackSnapshotSequence = lastSnapshotSequence;
+        inputHistory.attach(input);
+
+        inputBuffer.reset();
+        GameStateCodec.writePlayerInput(input, inputBuffer);
+        send(WireProtocol.MSG_PLAYER_INPUT, inputBuffer, input.requestRestart);
+
+        pingBuffer.reset();
+        if (stats.writePingIfDue(System.nanoTime() / 1_000_000, pingBuffer)) {
+            send(WireProtocol.MSG_PING, pingBuffer, false);
+        }
+    }
+
+    // Over UDP, plain inputs go unreliably with redundancy like NetworkManager's
+    private void send(int type, WireWriter payload, boolean reliable) {
+        if (!connected) return;
+        if (udpClient != null) {
+            if (type == WireProtocol.MSG_PLAYER_INPUT && !reliable) {
+                udpClient.sendInput(type, payload);
+            } else if (reliable) {
+                udpClient.sendReliable(type, payload);
+            } else {
+                udpClient.sendUnreliable(type, payload);
+            }
+            return;
+        }
+        try {
+            synchronized (out) {
+                WireProtocol.writeFrame(out, type, payload);
+                out.flush();
+            }
+            stats.addBytesOut(WireProtocol.frameSize(payload.size()));
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void fail(IOException e) {
+        if (connected) {
+            failure = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            connected = false;
+        }
+    }
+
+    void close() {
+        connected = false;
+        if (udpClient != null) {
+            udpClient.close();
+        }
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    int getId() { return id; }
+    boolean isConnected() { return connected && (udpClient == null || udpClient.isOpen()); }
+    String getFailure() { return failure; }
+    int getPlayerNumber() { return playerNumber; }
+    String getRoomCode() { return roomCode; }
+    ConnectionStats getStats() { return stats; }
+    long getFullSnapshotRequests() { return fullSnapshotRequests; }
+}
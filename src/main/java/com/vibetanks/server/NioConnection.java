@@ -0,0 +1,285 @@
+package com.vibetanks.server;
+
+import com.vibetanks.network.ConnectionStats;
+import com.vibetanks.network.FrameDecoder;
+import com.vibetanks.network.FrameSplitter;
+import com.vibetanks.network.WireProtocol;
+import com.vibetanks.util.GameLogger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * One non-blocking client socket owned by NioServerTransport.
+ *
+ * send() and sendSnapshot() may be called from any thread (normally a room tick) and
+ * never block: frames are queued and written by the selector thread when the socket is
+ * writable. Reading, frame decoding and writing all happen on the selector thread.
+ *
+ * Control frames are queued reliably up to MAX_QUEUED_BYTES; a client that falls that far
+ * behind is dropped. Snapshots use a single slot - a newer snapshot replaces an older one
+ * that has not started sending yet, so a slow link gets fewer, fresher snapshots instead
+ * of an ever-growing backlog.
+ *
+ * A frame over the agreed max packet size is queued as its FrameSplitter pieces, back to back.
+ */
+public class NioConnection implements ServerConnection {
+    private static final GameLogger LOG = GameLogger.getLogger(NioConnection.class);
+    private static final int WRITE_BUFFER_SIZE = 32 * 1024;
+    static final int MAX_QUEUED_BYTES = 256 * 1024;
+
+    private final NioServerTransport transport;
+    private final SocketChannel channel;
+    private final String remoteAddress;
+    final FrameDecoder decoder = new FrameDecoder();
+    private final ConnectionStats stats = new ConnectionStats();
+    SelectionKey key;
+
+    // Outbound frames, each an immutable byte[] that may be shared with other connections
+    private final Queue<byte[]> outbound = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<byte[]> pendingSnapshot = new AtomicReference<>();
+    private final AtomicInteger queuedFrames = new AtomicInteger();
+    private final AtomicInteger queuedBytes = new AtomicInteger();
+    private final AtomicInteger peakQueuedBytes = new AtomicInteger();
+    private final AtomicLong droppedSnapshots = new AtomicLong();
+    private final AtomicBoolean writeScheduled = new AtomicBoolean(false);
+    private final AtomicInteger fragmentIds = new AtomicInteger();
+    private volatile int maxPacketSize = WireProtocol.MAX_FRAME_SIZE;
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+    private byte[] currentFrame;
+    private int currentOffset;
+
+    private volatile boolean open = true;
+    private volatile Object attachment;
+
+    NioConnection(NioServerTransport transport, SocketChannel channel) {
+        this.transport = transport;
+        this.channel = channel;
+        this.remoteAddress = describe(channel);
+    }
+
+    private static String describe(SocketChannel channel) {
+        try {
+            SocketAddress address = channel.getRemoteAddress();
+            if (address instanceof InetSocketAddress inet) {
+                return inet.getAddress().getHostAddress();
+            }
+            return String.valueOf(address);
+        } catch (IOException e) {
+            return "unknown";
+        }
+    }
+
+    /**
+     * Queue a complete frame for reliable, in-order sending.
+     * The array must not be modified afterwards.
+     */
+    @Override
+    public void send(byte[] frame) {
+        if (!open) return;
+        frame = fit(frame);
+        int queued = queuedBytes.addAndGet(frame.length);
+        if (queued > MAX_QUEUED_BYTES) {
+            LOG.warn("Send queue to {} exceeded {} bytes - dropping client", remoteAddress, MAX_QUEUED_BYTES);
+            close();
+            return;
+        }
+        queuedFrames.incrementAndGet();
+        outbound.offer(frame);
+        recordQueueDepth(queued);
+        scheduleWrite();
+    }
+
+    /**
+     * Queue a snapshot, replacing any older snapshot that has not started sending.
+     * Queued control frames are always written before the snapshot.
+     * The array must not be modified afterwards.
+     */
+    @Override
+    public void sendSnapshot(byte[] frame) {
+        if (!open) return;
+        frame = fit(frame);
+        byte[] stale = pendingSnapshot.getAndSet(frame);
+        int queued;
+        if (stale != null) {
+            droppedSnapshots.incrementAndGet();
+            queued = queuedBytes.addAndGet(frame.length - stale.length);
+        } else {
+            queuedFrames.incrementAndGet();
+            queued = queuedBytes.addAndGet(frame.length);
+        }
+        recordQueueDepth(queued);
+        scheduleWrite();
+    }
+
+    private byte[] fit(byte[] frame) {
+        int max = maxPacketSize;
+        return frame.length > max ? FrameSplitter.fit(frame, max, fragmentIds.incrementAndGet() & Integer.MAX_VALUE) : frame;
+    }
+
+    @Override
+    public int getMaxPacketSize() {
+        return maxPacketSize;
+    }
+
+    @Override
+    public void setMaxPacketSize(int bytes) {
+        this.maxPacketSize = bytes;
+    }
+
+    @Override
+    public boolean hasPendingSnapshot() {
+        return pendingSnapshot.get() != null;
+    }
+
+    private void recordQueueDepth(int queued) {
+        peakQueuedBytes.accumulateAndGet(queued, Math::max);
+    }
+
+    private void scheduleWrite() {
+        if (writeScheduled.compareAndSet(false, true)) {
+            transport.scheduleWrite(this);
+        }
+    }
+
+    // Next frame to write: control frames first, then the latest snapshot
+    private byte[] pollFrame() {
+        byte[] frame = outbound.poll();
+        if (frame == null) {
+            frame = pendingSnapshot.getAndSet(null);
+        }
+        if (frame != null) {
+            queuedFrames.decrementAndGet();
+            queuedBytes.addAndGet(-frame.length);
+        }
+        return frame;
+    }
+
+    private boolean hasQueued() {
+        return !outbound.isEmpty() || pendingSnapshot.get() != null;
+    }
+
+    /**
+     * Called on the selector thread. Writes as much queued data as the socket accepts.
+     * @return true if everything queued was written
+     */
+    boolean flush() throws IOException {
+        while (true) {
+            // Fill the direct buffer from queued frames
+            while (writeBuffer.hasRemaining()) {
+                if (currentFrame == null) {
+                    currentFrame = pollFrame();
+                    currentOffset = 0;
+                    if (currentFrame == null) break;
+                }
+                int n = Math.min(writeBuffer.remaining(), currentFrame.length - currentOffset);
+                writeBuffer.put(currentFrame, currentOffset, n);
+                currentOffset += n;
+                if (currentOffset == currentFrame.length) {
+                    currentFrame = null;
+                }
+            }
+
+            writeBuffer.flip();
+            if (writeBuffer.hasRemaining()) {
+                stats.addBytesOut(channel.write(writeBuffer));
+            }
+            boolean socketFull = writeBuffer.hasRemaining();
+            writeBuffer.compact();
+
+            if (socketFull) {
+                return false;
+            }
+            if (currentFrame == null && !hasQueued()) {
+                // Clear the flag, then re-check to avoid losing a concurrent send()
+                writeScheduled.set(false);
+                if (!hasQueued() || !writeScheduled.compareAndSet(false, true)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    SocketChannel channel() {
+        return channel;
+    }
+
+    /**
+     * Frames queued but not yet handed to the socket.
+     */
+    @Override
+    public int getQueuedFrames() {
+        return queuedFrames.get();
+    }
+
+    @Override
+    public int getQueuedBytes() {
+        return queuedBytes.get();
+    }
+
+    /**
+     * Highest queued byte count since the last call.
+     */
+    @Override
+    public int takePeakQueuedBytes() {
+        return peakQueuedBytes.getAndSet(queuedBytes.get());
+    }
+
+    /**
+     * Snapshots replaced by a newer one before they were sent.
+     */
+    @Override
+    public long getDroppedSnapshots() {
+        return droppedSnapshots.get();
+    }
+
+    @Override
+    public ConnectionStats getStats() {
+        return stats;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public String getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    @Override
+    public void attach(Object attachment) {
+        this.attachment = attachment;
+    }
+
+    @Override
+    public Object attachment() {
+        return attachment;
+    }
+
+    /**
+     * Close the socket. Safe to call from any thread; pending frames are discarded.
+     */
+    @Override
+    public void close() {
+        open = false;
+        outbound.clear();
+        pendingSnapshot.set(null);
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.vibetanks.server;
+
+import com.vibetanks.util.GameLogger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Event-driven TCP transport for the dedicated server.
+ * A single selector thread handles accept, read and write for every connection,
+ * so one process can serve hundreds of sockets without a thread per client and
+ * the game loop never blocks on a socket.
+ */
+public class NioServerTransport implements ServerTransport {
+    private static final GameLogger LOG = GameLogger.getLogger(NioServerTransport.class);
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final int port;
+    private final Listener listener;
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread selectorThread;
+    private volatile boolean running = false;
+
+    // Shared by all connections - only touched on the selector thread
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    private final Queue<NioConnection> pendingWrites = new ConcurrentLinkedQueue<>();
+
+    public NioServerTransport(int port, Listener listener) {
+        this.port = port;
+        this.listener = listener;
+    }
+
+    @Override
+    public void start() throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.socket().setReuseAddress(true);
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+
+        selectorThread = new Thread(this::runSelector, "NioSelector");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+    @Override
+    public int getLocalPort() {
+        return serverChannel != null ? serverChannel.socket().getLocalPort() : port;
+    }
+
+    void scheduleWrite(NioConnection connection) {
+        pendingWrites.offer(connection);
+        Selector s = selector;
+        if (s != null) {
+            s.wakeup();
+        }
+    }
+
+    private void runSelector() {
+        while (running) {
+            try {
+                selector.select();
+                processPendingWrites();
+
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid()) continue;
+
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        NioConnection connection = (NioConnection) key.attachment();
+                        if (key.isReadable()) {
+                            read(connection);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            write(connection);
+                        }
+                    }
+                }
+            } catch (ClosedSelectorException e) {
+                break;
+            } catch (IOException e) {
+                if (running) {
+                    LOG.error("Selector error: {}", e.getMessage());
+                }
+            } catch (RuntimeException e) {
+                // This thread serves every connection - keep it alive
+                LOG.error("Selector error", e);
+            }
+        }
+        closeAll();
+        LOG.debug("Selector thread exiting");
+    }
+
+    // Runs on the selector thread once the loop has stopped
+    private void closeAll() {
+        try {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof NioConnection connection) {
+                    connection.close();
+                }
+            }
+            selector.close();
+            serverChannel.close();
+        } catch (IOException | ClosedSelectorException e) {
+            LOG.debug("Error closing transport: {}", e.getMessage());
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            NioConnection connection = new NioConnection(this, channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            listener.onConnect(connection);
+        }
+    }
+
+    private void read(NioConnection connection) {
+        try {
+            while (true) {
+                readBuffer.clear();
+                int n = connection.channel().read(readBuffer);
+                if (n < 0) {
+                    disconnect(connection, true);
+                    return;
+                }
+                if (n == 0) {
+                    return;
+                }
+                connection.getStats().addBytesIn(n);
+                readBuffer.flip();
+                connection.decoder.feed(readBuffer, (type, payload) -> listener.onFrame(connection, type, payload));
+                if (connection.decoder.isLegacyStream()) {
+                    LOG.info("Closing {}: client from before the binary protocol", connection.getRemoteAddress());
+                    disconnect(connection, false);
+                    return;
+                }
+                if (!connection.isOpen()) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            // Includes a truncated payload - a protocol error, not the player leaving
+            LOG.debug("Read error from {}: {}", connection.getRemoteAddress(), e.getMessage());
+            disconnect(connection, false);
+        } catch (RuntimeException e) {
+            // A frame the handler could not cope with costs only this connection
+            LOG.error("Frame from " + connection.getRemoteAddress() + " failed", e);
+            disconnect(connection, false);
+        }
+    }
+
+    private void write(NioConnection connection) {
+        try {
+            if (connection.flush()) {
+                connection.key.interestOps(SelectionKey.OP_READ);
+            }
+        } catch (IOException e) {
+            LOG.debug("Write error to {}: {}", connection.getRemoteAddress(), e.getMessage());
+            disconnect(connection, false);
+        }
+    }
+
+    private void processPendingWrites() {
+        NioConnection connection;
+        while ((connection = pendingWrites.poll()) != null) {
+            if (!connection.isOpen() || connection.key == null || !connection.key.isValid()) continue;
+            try {
+                // Try to write immediately; only wait for OP_WRITE if the socket buffer is full
+                if (!connection.flush()) {
+                    connection.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                }
+            } catch (IOException e) {
+                LOG.debug("Write error to {}: {}", connection.getRemoteAddress(), e.getMessage());
+                disconnect(connection, false);
+            }
+        }
+    }
+
+    // Listener runs first so it can still tell a live client from one the server already closed
+    private void disconnect(NioConnection connection, boolean clean) {
+        if (!connection.isOpen()) return;
+        listener.onDisconnect(connection, clean);
+        connection.close();
+    }
+
+    @Override
+    public void close() {
+        if (!running) return;
+        running = false;
+        selector.wakeup();
+        if (selectorThread != null) {
+            try {
+                selectorThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.vibetanks.server;
+
+import com.vibetanks.core.Tank;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Where each tank was over the last MAX_FRAMES ticks, for lag-compensated hit detection.
+ *
+ * A client sees enemies where they were half a round trip plus its interpolation delay
+ * ago. When its shot reaches the server, the shot is checked against the positions from
+ * that moment (rewind) instead of where the enemies have moved since.
+ *
+ * Frames are kept in flat primitive arrays sized up front, so record() and rewind() never
+ * allocate. Tanks are matched by identity; a frame holds at most MAX_TANKS of them.
+ * Owned by the room tick - not thread-safe.
+ */
+class PositionHistory {
+    static final int MAX_FRAMES = 32; // ~0.5 s at 60 Hz - the furthest a shot is rewound
+    static final int MAX_TANKS = 32;
+
+    private final Tank[] tanks = new Tank[MAX_FRAMES * MAX_TANKS];
+    private final double[] xs = new double[MAX_FRAMES * MAX_TANKS];
+    private final double[] ys = new double[MAX_FRAMES * MAX_TANKS];
+    private final int[] counts = new int[MAX_FRAMES];
+    private int newest = -1; // Frame index of the latest record()
+    private int frames;
+
+    // Result of the last successful rewind()
+    private double x, y;
+
+    /**
+     * Store the current positions of the live tanks as the newest frame.
+     */
+    void record(List<Tank> list) {
+        newest = (newest + 1) % MAX_FRAMES;
+        int base = newest * MAX_TANKS;
+        int n = 0;
+        for (int i = 0; i < list.size() && n < MAX_TANKS; i++) {
+            Tank tank = list.get(i);
+            if (!tank.isAlive()) continue;
+            tanks[base + n] = tank;
+            xs[base + n] = tank.getX();
+            ys[base + n] = tank.getY();
+            n++;
+        }
+        // Drop references left from the frame this one overwrote
+        for (int i = n; i < counts[newest]; i++) {
+            tanks[base + i] = null;
+        }
+        counts[newest] = n;
+        frames = Math.min(frames + 1, MAX_FRAMES);
+    }
+
+    /**
+     * Look up where a tank was ticksBack frames ago (1 = the newest frame); read it with getX()/getY().
+     * @return false if that frame is not kept or the tank was not alive in it
+     */
+    boolean rewind(Tank tank, int ticksBack) {
+        if (ticksBack < 1 || ticksBack > frames) return false;
+        int frame = Math.floorMod(newest - ticksBack + 1, MAX_FRAMES);
+        int base = frame * MAX_TANKS;
+        for (int i = 0; i < counts[frame]; i++) {
+            if (tanks[base + i] == tank) {
+                x = xs[base + i];
+                y = ys[base + i];
+                return true;
+            }
+        }
+        return false;
+    }
+
+    double getX() { return x; }
+    double getY() { return y; }
+
+    int getFrameCount() { return frames; }
+
+    /**
+     * Forget every frame, e.g. when a new level replaces all tanks.
+     */
+    void clear() {
+        Arrays.fill(tanks, null);
+        Arrays.fill(counts, 0);
+        frames = 0;
+    }
+}
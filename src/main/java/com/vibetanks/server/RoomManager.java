@@ -0,0 +1,230 @@
+package com.vibetanks.server;
+
+import com.vibetanks.util.GameLogger;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hosts many independent matches in one server process.
+ *
+ * Rooms are created on demand when a client joins and destroyed once their last
+ * player leaves. Clients join either by room code (friends sharing a code) or by
+ * matchmaking into the fullest open room. Every room ticks at a fixed rate on a
+ * shared scheduler pool sized to the machine's cores, and sends a snapshot every
+ * ticksPerSnapshot ticks.
+ */
+public class RoomManager {
+    private static final GameLogger LOG = GameLogger.getLogger(RoomManager.class);
+    private static final String CODE_ALPHABET = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789"; // No 0/O, 1/I
+    private static final int CODE_LENGTH = 5;
+    private static final int MAX_CODE_LENGTH = 16;
+
+    private final int maxPlayersPerRoom;
+    private final long tickNanos;
+    private final int ticksPerSnapshot;
+    private final int threads;
+    private final ScheduledExecutorService tickPool;
+    private final Map<String, GameRoom> rooms = new ConcurrentHashMap<>();
+    private final LatencyHistogram tickTimes = new LatencyHistogram(); // Every room tick, in nanoseconds
+    private volatile Path recordDirectory; // Record every game here when set
+
+    public RoomManager(int maxPlayersPerRoom, long tickNanos, int threads) {
+        this(maxPlayersPerRoom, tickNanos, 1, threads);
+    }
+
+    public RoomManager(int maxPlayersPerRoom, long tickNanos, int ticksPerSnapshot, int threads) {
+        this.maxPlayersPerRoom = maxPlayersPerRoom;
+        this.tickNanos = tickNanos;
+        this.ticksPerSnapshot = Math.max(1, ticksPerSnapshot);
+        this.threads = threads;
+
+        AtomicInteger threadId = new AtomicInteger();
+        this.tickPool = Executors.newScheduledThreadPool(threads, r -> {
+            Thread t = new Thread(r, "RoomTick-" + threadId.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Record the games of rooms created from now on to MatchRecorder files in directory
+     * (null to stop).
+     */
+    public void setRecordDirectory(Path directory) {
+        this.recordDirectory = directory;
+    }
+
+    /**
+     * Put a client into a room.
+     * @param requestedCode room code to join (created if it does not exist), or null for matchmaking
+     * @return the room the client was seated in, or null if the requested room is full
+     */
+    synchronized GameRoom join(ClientConnection client, String requestedCode) {
+        String code = normalizeCode(requestedCode);
+        if (code != null) {
+            GameRoom room = rooms.get(code);
+            if (room == null || room.isClosed()) {
+                room = createRoom(code, false);
+            }
+            return room.join(client) > 0 ? room : null;
+        }
+
+        // Matchmaking: fill the fullest open room first to keep rooms dense
+        GameRoom best = null;
+        int bestCount = -1;
+        for (GameRoom room : rooms.values()) {
+            if (!room.isMatchmade()) continue;
+            int count = room.getPlayerCount();
+            if (count < maxPlayersPerRoom && count > bestCount) {
+                best = room;
+                bestCount = count;
+            }
+        }
+        if (best != null && best.join(client) > 0) {
+            return best;
+        }
+
+        GameRoom room = createRoom(generateCode(), true);
+        return room.join(client) > 0 ? room : null;
+    }
+
+    /**
+     * Seat a spectator. Spectators never create rooms.
+     * @param requestedCode room to watch, or null for the room with the most players
+     * @return the room, or null if there is no such room or it has no spectator seats left
+     */
+    synchronized GameRoom spectate(ClientConnection client, String requestedCode) {
+        String code = normalizeCode(requestedCode);
+        GameRoom room = null;
+        if (code != null) {
+            room = rooms.get(code);
+        } else {
+            for (GameRoom candidate : rooms.values()) {
+                if (room == null || candidate.getPlayerCount() > room.getPlayerCount()) {
+                    room = candidate;
+                }
+            }
+        }
+        return room != null && room.joinSpectator(client) ? room : null;
+    }
+
+    private GameRoom createRoom(String code, boolean matchmade) {
+        GameRoom room = new GameRoom(code, matchmade, maxPlayersPerRoom, ticksPerSnapshot, tickNanos);
+        room.setRecordDirectory(recordDirectory);
+        rooms.put(code, room);
+        room.tickTask = tickPool.scheduleAtFixedRate(() -> tickRoom(room),
+            tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+        LOG.info("Created {} room {} ({} rooms)", matchmade ? "public" : "private", code, rooms.size());
+        return room;
+    }
+
+    private void tickRoom(GameRoom room) {
+        long start = System.nanoTime();
+        try {
+            room.tick();
+            tickTimes.record(System.nanoTime() - start);
+        } catch (RuntimeException e) {
+            // Never let an exception escape - it would silently cancel the room's schedule
+            LOG.error("Room " + room.getCode() + " tick failed", e);
+        }
+        if (room.isClosed()) {
+            destroyRoom(room);
+        }
+    }
+
+    private synchronized void destroyRoom(GameRoom room) {
+        // Conditional remove: a new room may already have taken over the code
+        if (rooms.remove(room.getCode(), room)) {
+            LOG.info("Destroyed room {} ({} rooms)", room.getCode(), rooms.size());
+        }
+        if (room.tickTask != null) {
+            room.tickTask.cancel(false);
+        }
+    }
+
+    static String normalizeCode(String code) {
+        if (code == null) return null;
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < code.length() && sb.length() < MAX_CODE_LENGTH; i++) {
+            char c = Character.toUpperCase(code.charAt(i));
+            if ((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+                sb.append(c);
+            }
+        }
+        return sb.length() > 0 ? sb.toString() : null;
+    }
+
+    private String generateCode() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] chars = new char[CODE_LENGTH];
+        String code;
+        do {
+            for (int i = 0; i < CODE_LENGTH; i++) {
+                chars[i] = CODE_ALPHABET.charAt(random.nextInt(CODE_ALPHABET.length()));
+            }
+            code = new String(chars);
+        } while (rooms.containsKey(code));
+        return code;
+    }
+
+    public int getRoomCount() {
+        return rooms.size();
+    }
+
+    public int getPlayerCount() {
+        int count = 0;
+        for (GameRoom room : rooms.values()) {
+            count += room.getPlayerCount();
+        }
+        return count;
+    }
+
+    public int getThreadCount() {
+        return threads;
+    }
+
+    /**
+     * Slowest most recent tick across all rooms, in nanoseconds.
+     */
+    public long getMaxLastTickNanos() {
+        long max = 0;
+        for (GameRoom room : rooms.values()) {
+            max = Math.max(max, room.getLastTickNanos());
+        }
+        return max;
+    }
+
+    /**
+     * Duration of every room tick since the server started (or the last reset), for load tests.
+     */
+    LatencyHistogram getTickTimes() {
+        return tickTimes;
+    }
+
+    Collection<GameRoom> getRooms() {
+        return rooms.values();
+    }
+
+    /**
+     * Log a summary line plus one line per room.
+     */
+    void logStatus(double intervalSeconds) {
+        LOG.info("Rooms: {} | Players: {} | Tick threads: {} | Slowest tick: {} ms",
+            rooms.size(), getPlayerCount(), threads,
+            String.format("%.2f", getMaxLastTickNanos() / 1_000_000.0));
+        for (GameRoom room : rooms.values()) {
+            room.logStatus(intervalSeconds);
+        }
+    }
+
+    public synchronized void shutdown() {
+        tickPool.shutdownNow();
+        for (GameRoom room : rooms.values()) {
+            room.close();
+        }
+        rooms.clear();
+    }
+}
@@ -0,0 +1,83 @@
+package com.vibetanks.server;
+
+import com.vibetanks.network.ConnectionStats;
+
+/**
+ * One client as seen by a ServerTransport.
+ *
+ * send() delivers control frames reliably and in order. sendSnapshot() is for state that
+ * is superseded every tick: the transport may drop it in favour of a newer snapshot.
+ * Both may be called from any thread and never block.
+ */
+public interface ServerConnection {
+
+    /**
+     * Queue a complete frame for reliable, in-order delivery. The array must not be modified afterwards.
+     */
+    void send(byte[] frame);
+
+    /**
+     * Send a snapshot frame; an older unsent snapshot may be dropped. The array must not be modified afterwards.
+     */
+    void sendSnapshot(byte[] frame);
+
+    /**
+     * True while a snapshot is queued that a newer sendSnapshot() would replace unsent.
+     */
+    default boolean hasPendingSnapshot() {
+        return false;
+    }
+
+    /**
+     * Largest frame - over UDP, datagram - this connection sends; larger frames go out as
+     * FrameSplitter pieces. Starts at the transport's limit.
+     */
+    int getMaxPacketSize();
+
+    /**
+     * Apply the max packet size agreed in the handshake, before anything else is sent.
+     */
+    void setMaxPacketSize(int bytes);
+
+    /**
+     * Send a small frame that may be lost (pings). Over TCP this is the same as send().
+     */
+    default void sendUnreliable(byte[] frame) {
+        send(frame);
+    }
+
+    boolean isOpen();
+
+    String getRemoteAddress();
+
+    void attach(Object attachment);
+
+    Object attachment();
+
+    /**
+     * Frames queued but not yet handed to the network (or not yet acknowledged, for UDP).
+     */
+    int getQueuedFrames();
+
+    int getQueuedBytes();
+
+    /**
+     * Highest queued byte count since the last call.
+     */
+    int takePeakQueuedBytes();
+
+    /**
+     * Snapshots dropped before reaching the network.
+     */
+    long getDroppedSnapshots();
+
+    /**
+     * Traffic counters plus RTT, jitter and loss measured by pings.
+     */
+    ConnectionStats getStats();
+
+    /**
+     * Close the connection. Safe to call from any thread; pending frames are discarded.
+     */
+    void close();
+}
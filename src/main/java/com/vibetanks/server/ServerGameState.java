@@ -24,7 +24,7 @@ public class ServerGameState {
     private GameMap gameMap;
     private List<Tank> playerTanks;
     private List<Tank> enemyTanks;
-    private List<Bullet> bullets;
+    private BulletStore bullets;
     private List<Laser> lasers;
     private List<PowerUp> powerUps;
     private Base base;
@@ -49,6 +49,14 @@ public class ServerGameState {
     // Player stats (consolidated)
     private PlayerStats playerStats;
     private String[] playerNicknames;
+    private final long[] lastInputSequences = new long[4]; // Reported back to clients for reconciliation
+
+    // Lag compensation: player shots are checked against enemies as that player saw them
+    private final PositionHistory enemyHistory = new PositionHistory();
+    private final int[] viewDelayTicks = new int[4];
+
+    // One-shot events since the last snapshot - snapshots may be built less often than update() runs
+    private final List<GameState.SoundEvent> pendingSoundEvents = new ArrayList<>();
 
     // Freeze timers
     private int enemyFreezeDuration = 0;
@@ -98,7 +106,7 @@ public class ServerGameState {
     }
 
     public void setConnectedPlayers(int count) {
-        this.actualConnectedPlayers = count;
+        this.actualConnectedPlayers = Math.min(count, 4);
         // Add tanks for new players if needed
         while (playerTanks.size() < count && playerTanks.size() < 4) {
             int i = playerTanks.size();
@@ -147,6 +155,7 @@ public class ServerGameState {
         if (playerNumber < 1 || playerNumber > 4) return;
 
         int index = playerNumber - 1;
+        lastInputSequences[index] = 0; // New connection numbers its inputs afresh
 
         // Check if player was in grace period
         if (playerDisconnectTimers[index] >= 0) {
@@ -217,7 +226,7 @@ public class ServerGameState {
             gameMap.regenerateCurrentLevel();
         }
 
-        bullets = new ArrayList<>();
+        bullets = new BulletStore();
         lasers = new ArrayList<>();
         powerUps = new ArrayList<>();
         base = new Base(GameConstants.BASE_X, GameConstants.BASE_Y);
@@ -247,6 +256,7 @@ public class ServerGameState {
 
         // Initialize enemies
         enemyTanks = new ArrayList<>();
+        enemyHistory.clear();
         enemySpawner = new EnemySpawner(TOTAL_ENEMIES, MAX_ENEMIES_ON_SCREEN, gameMap);
 
         // Reset game state
@@ -271,8 +281,12 @@ public class ServerGameState {
     }
 
     public void addPlayer(int playerNumber) {
+        if (playerNumber >= 1 && playerNumber <= lastInputSequences.length) {
+            lastInputSequences[playerNumber - 1] = 0;
+        }
+
         // Add tanks if needed
-        while (playerTanks.size() < playerNumber) {
+        while (playerTanks.size() < Math.min(playerNumber, 4)) {
             int idx = playerTanks.size();
             if (idx < 4) {
                 double[] pos = GameConstants.getPlayerStartPosition(idx);
@@ -301,6 +315,9 @@ public class ServerGameState {
 
     public void processInput(int playerNumber, PlayerInput input) {
         if (playerNumber < 1 || playerNumber > playerTanks.size()) return;
+        if (input.sequenceNumber > 0 && playerNumber <= lastInputSequences.length) {
+            lastInputSequences[playerNumber - 1] = input.sequenceNumber;
+        }
 
         Tank player = playerTanks.get(playerNumber - 1);
         if (!player.isAlive()) {
@@ -328,15 +345,24 @@ public class ServerGameState {
             }
         }
 
-        // Shooting
+        // Shooting - the client fired at what it saw viewDelay ticks ago
         if (input.shoot) {
+            int viewDelay = viewDelayTicks[playerNumber - 1];
             if (player.hasLaser()) {
                 Laser laser = player.shootLaser(soundManager);
                 if (laser != null) {
                     lasers.add(laser);
+                    hitRewoundEnemies(laser, viewDelay);
                 }
             } else {
+                int firstNew = bullets.size();
                 player.shoot(bullets, soundManager);
+                // New bullets are at the end; a removal only swaps in one already caught up.
+                // Bullets cancelled by an opposing one are marked and removed afterwards.
+                for (int i = bullets.size() - 1; i >= firstNew; i--) {
+                    catchUpBullet(bullets.slot(i), viewDelay);
+                }
+                bullets.removeMarked();
             }
         }
 
@@ -377,6 +403,57 @@ public class ServerGameState {
         }
     }
 
+    /**
+     * How many ticks behind the server a player's view of the enemies is (half the RTT plus
+     * the client's interpolation delay). Shots from that player are rewound by this much,
+     * up to PositionHistory.MAX_FRAMES.
+     */
+    public void setViewDelayTicks(int playerNumber, int ticks) {
+        if (playerNumber < 1 || playerNumber > viewDelayTicks.length) return;
+        viewDelayTicks[playerNumber - 1] = Math.max(0, Math.min(ticks, PositionHistory.MAX_FRAMES));
+    }
+
+    /**
+     * A bullet the client fired viewDelay ticks ago (in its view) only now reaches the server.
+     * Fly it through those ticks with the same checks as a normal tick, against the enemy
+     * positions of each tick as the client saw the shot; everything else is where it is now.
+     * Whatever is left of the flight continues in the present. An opposing bullet it runs
+     * into only marks both, for the caller to remove.
+     */
+    void catchUpBullet(int slot, int viewDelay) {
+        for (int ticksBack = Math.min(viewDelay, enemyHistory.getFrameCount()); ticksBack >= 1; ticksBack--) {
+            if (stepBullet(slot, ticksBack) || cancelOpposingBullet(slot) || hitUfo(slot)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * A new laser also hits enemies that were in the beam when the client fired but have
+     * moved out since; enemies in the beam now are hit by updateLasers().
+     */
+    void hitRewoundEnemies(Laser laser, int viewDelay) {
+        int ticksBack = Math.min(viewDelay, enemyHistory.getFrameCount());
+        if (ticksBack < 1) return;
+        for (int i = 0; i < enemyTanks.size(); i++) {
+            Tank enemy = enemyTanks.get(i);
+            if (enemy.isAlive() && !laser.collidesWith(enemy) && enemyHistory.rewind(enemy, ticksBack)
+                    && laser.collidesWith(enemyHistory.getX(), enemyHistory.getY(), enemy.getSize())) {
+                laserHitEnemy(laser, enemy);
+            }
+        }
+    }
+
+    void recordEnemyPositions() {
+        enemyHistory.record(enemyTanks);
+    }
+
+    // Package-private access for the lag compensation tests
+    GameMap getGameMap() { return gameMap; }
+    List<Tank> getEnemyTanks() { return enemyTanks; }
+    BulletStore getBullets() { return bullets; }
+    void setUfo(UFO ufo) { this.ufo = ufo; }
+
     private void tryTakeLifeFromTeammate(int playerIndex) {
         Tank deadPlayer = playerTanks.get(playerIndex);
         if (deadPlayer.isAlive() || deadPlayer.isWaitingToRespawn()) return;
@@ -516,6 +593,9 @@ public class ServerGameState {
         // Update lasers
         updateLasers();
 
+        // Positions clients will see in this tick's snapshot, for rewinding their shots
+        recordEnemyPositions();
+
         // Update map (burning tiles, etc.)
         gameMap.update();
 
@@ -556,89 +636,128 @@ public class ServerGameState {
     }
 
     private void updateBullets() {
-        Iterator<Bullet> iter = bullets.iterator();
-        while (iter.hasNext()) {
-            Bullet bullet = iter.next();
-            bullet.update();
-
-            // Check map collision (pass soundManager to play tree burn sound)
-            if (gameMap.checkBulletCollision(bullet, soundManager)) {
-                notifyBulletDestroyed(bullet);
-                iter.remove();
-                continue;
-            }
-
-            // Check out of bounds
-            if (bullet.isOutOfBounds(MAP_SIZE * TILE_SIZE, MAP_SIZE * TILE_SIZE)) {
-                if (!bullet.handleWraparound(gameMap, MAP_SIZE * TILE_SIZE, MAP_SIZE * TILE_SIZE)) {
-                    notifyBulletDestroyed(bullet);
-                    iter.remove();
-                    continue;
-                }
+        // Removal swaps the last bullet into place, so i only advances past bullets that stay
+        for (int i = 0; i < bullets.size(); ) {
+            if (!stepBullet(bullets.slot(i), 0)) {
+                i++;
             }
+        }
 
-            boolean removed = false;
+        // Remove dead enemies
+        enemyTanks.removeIf(e -> !e.isAlive());
+    }
 
-            // Player bullets hit enemies
-            if (!bullet.isFromEnemy()) {
-                for (Tank enemy : enemyTanks) {
-                    if (enemy.isAlive() && bullet.collidesWith(enemy)) {
-                        // Power bullets (can break steel) deal 2 damage, normal bullets deal 1
-                        int damageCount = bullet.getPower() >= 2 ? 2 : 1;
-                        boolean dropPowerUp = false;
-                        for (int i = 0; i < damageCount && enemy.isAlive(); i++) {
-                            dropPowerUp = enemy.damage() || dropPowerUp;
-                        }
+    /**
+     * Move a bullet one tick and resolve what it hits, with enemies where they were
+     * ticksBack ticks ago (0 = now).
+     * @return whether the bullet was removed
+     */
+    private boolean stepBullet(int slot, int ticksBack) {
+        bullets.update(slot);
+
+        // Check map collision (pass soundManager to play tree burn sound)
+        if (gameMap.checkBulletCollision(bullets, slot, soundManager)) {
+            notifyBulletDestroyed(slot);
+            bullets.remove(slot);
+            return true;
+        }
 
-                        // Handle power-up drops (POWER type drops on each hit, others on death with 30% chance)
-                        if (dropPowerUp || (!enemy.isAlive() && Math.random() < 0.3)) {
-                            spawnPowerUp();
-                        }
+        // Bullets leaving the map are removed (no wrapping)
+        if (bullets.isOutOfBounds(slot, MAP_SIZE * TILE_SIZE, MAP_SIZE * TILE_SIZE)) {
+            notifyBulletDestroyed(slot);
+            bullets.remove(slot);
+            return true;
+        }
 
-                        if (!enemy.isAlive()) {
-                            int killer = bullet.getOwnerPlayerNumber();
-                            if (killer >= 1 && killer <= 4) {
-                                playerStats.recordKill(killer - 1, enemy.getEnemyType());
-                            }
-                        }
-                        notifyBulletDestroyed(bullet);
-                        iter.remove();
-                        removed = true;
-                        break;
-                    }
+        // Player bullets hit enemies
+        if (!bullets.isFromEnemy(slot)) {
+            for (int e = 0; e < enemyTanks.size(); e++) {
+                Tank enemy = enemyTanks.get(e);
+                if (enemy.isAlive() && hitsEnemy(slot, enemy, ticksBack)) {
+                    hitEnemy(bullets.getPower(slot), bullets.getOwnerPlayerNumber(slot), enemy);
+                    notifyBulletDestroyed(slot);
+                    bullets.remove(slot);
+                    return true;
                 }
-            } else {
-                // Enemy bullets hit players
-                for (Tank player : playerTanks) {
-                    if (player.isAlive() && !player.hasShield() && !player.hasPauseShield()
-                            && bullet.collidesWith(player)) {
-                        player.damage();
-                        if (!player.isAlive() && !player.isWaitingToRespawn() && player.getLives() > 0) {
-                            // Lives already decremented by damage() - just respawn
-                            int idx = playerTanks.indexOf(player);
-                            LOG.info("Player {} will respawn in 1 second (lives: {})", idx + 1, player.getLives());
-                            double[] pos = GameConstants.getPlayerStartPosition(idx);
-                            player.respawn(pos[0], pos[1]);
-                        }
-                        notifyBulletDestroyed(bullet);
-                        iter.remove();
-                        removed = true;
-                        break;
+            }
+        } else {
+            // Enemy bullets hit players
+            for (int p = 0; p < playerTanks.size(); p++) {
+                Tank player = playerTanks.get(p);
+                if (player.isAlive() && !player.hasShield() && !player.hasPauseShield()
+                        && bullets.collidesWith(slot, player)) {
+                    player.damage();
+                    if (!player.isAlive() && !player.isWaitingToRespawn() && player.getLives() > 0) {
+                        // Lives already decremented by damage() - just respawn
+                        int idx = playerTanks.indexOf(player);
+                        LOG.info("Player {} will respawn in 1 second (lives: {})", idx + 1, player.getLives());
+                        double[] pos = GameConstants.getPlayerStartPosition(idx);
+                        player.respawn(pos[0], pos[1]);
                     }
+                    notifyBulletDestroyed(slot);
+                    bullets.remove(slot);
+                    return true;
                 }
             }
+        }
 
-            // Base collision
-            if (!removed && bullet.collidesWith(base)) {
-                base.destroy();
-                gameOver = true;
-                notifyBulletDestroyed(bullet);
-                iter.remove();
+        // Base collision
+        if (bullets.collidesWith(slot, base)) {
+            base.destroy();
+            gameOver = true;
+            notifyBulletDestroyed(slot);
+            bullets.remove(slot);
+            return true;
+        }
+        return false;
+    }
+
+    private boolean hitsEnemy(int slot, Tank enemy, int ticksBack) {
+        if (ticksBack == 0) {
+            return bullets.collidesWith(slot, enemy);
+        }
+        return enemyHistory.rewind(enemy, ticksBack)
+            && Collider.checkSquare(bullets.getX(slot), bullets.getY(slot), bullets.getSize(slot),
+                enemyHistory.getX(), enemyHistory.getY(), enemy.getSize());
+    }
+
+    /**
+     * processBulletToBulletCollisions() for one bullet: marks it and the first opposing
+     * bullet it touches.
+     * @return whether it was cancelled
+     */
+    private boolean cancelOpposingBullet(int slot) {
+        for (int i = 0; i < bullets.size(); i++) {
+            int other = bullets.slot(i);
+            if (other != slot && !bullets.isMarked(other)
+                    && bullets.isFromEnemy(other) != bullets.isFromEnemy(slot) && bullets.collidesWith(slot, other)) {
+                bullets.mark(slot);
+                bullets.mark(other);
+                return true;
             }
         }
+        return false;
+    }
 
-        // Remove dead enemies
-        enemyTanks.removeIf(e -> !e.isAlive());
+    private void hitEnemy(int bulletPower, int killer, Tank enemy) {
+        // Power bullets (can break steel) deal 2 damage, normal bullets deal 1
+        int damageCount = bulletPower >= 2 ? 2 : 1;
+        boolean dropPowerUp = false;
+        for (int i = 0; i < damageCount && enemy.isAlive(); i++) {
+            dropPowerUp = enemy.damage() || dropPowerUp;
+        }
+
+        // Handle power-up drops (POWER type drops on each hit, others on death with 30% chance)
+        if (dropPowerUp || (!enemy.isAlive() && Math.random() < 0.3)) {
+            spawnPowerUp();
+        }
+
+        if (!enemy.isAlive()) {
+            if (killer >= 1 && killer <= 4) {
+                playerStats.recordKill(killer - 1, enemy.getEnemyType());
+            }
+            pendingSoundEvents.add(new GameState.SoundEvent(GameState.SoundType.EXPLOSION));
+        }
     }
 
     /**
@@ -647,28 +766,26 @@ public class ServerGameState {
      * Same-team bullets pass through each other.
      */
     private void processBulletToBulletCollisions() {
-        List<Bullet> toRemove = new ArrayList<>();
-
         for (int i = 0; i < bullets.size(); i++) {
-            Bullet b1 = bullets.get(i);
-            if (toRemove.contains(b1)) continue;
+            int b1 = bullets.slot(i);
+            if (bullets.isMarked(b1)) continue;
 
             for (int j = i + 1; j < bullets.size(); j++) {
-                Bullet b2 = bullets.get(j);
-                if (toRemove.contains(b2)) continue;
+                int b2 = bullets.slot(j);
+                if (bullets.isMarked(b2)) continue;
 
                 // Only opposing bullets collide (player vs enemy)
-                if (b1.isFromEnemy() != b2.isFromEnemy()) {
-                    if (b1.collidesWith(b2)) {
-                        toRemove.add(b1);
-                        toRemove.add(b2);
+                if (bullets.isFromEnemy(b1) != bullets.isFromEnemy(b2)) {
+                    if (bullets.collidesWith(b1, b2)) {
+                        bullets.mark(b1);
+                        bullets.mark(b2);
                         break;
                     }
                 }
             }
         }
 
-        bullets.removeAll(toRemove);
+        bullets.removeMarked();
     }
 
     private void updateLasers() {
@@ -686,15 +803,7 @@ public class ServerGameState {
             if (!laser.isFromEnemy()) {
                 for (Tank enemy : enemyTanks) {
                     if (enemy.isAlive() && laser.collidesWith(enemy)) {
-                        for (int i = 0; i < 3 && enemy.isAlive(); i++) {
-                            enemy.damage();
-                        }
-                        if (!enemy.isAlive()) {
-                            int killer = laser.getOwnerPlayerNumber();
-                            if (killer >= 1 && killer <= 4) {
-                                playerStats.recordKill(killer - 1, enemy.getEnemyType());
-                            }
-                        }
+                        laserHitEnemy(laser, enemy);
                     }
                 }
                 // UFO hit
@@ -722,6 +831,19 @@ public class ServerGameState {
         enemyTanks.removeIf(e -> !e.isAlive());
     }
 
+    private void laserHitEnemy(Laser laser, Tank enemy) {
+        for (int i = 0; i < 3 && enemy.isAlive(); i++) {
+            enemy.damage();
+        }
+        if (!enemy.isAlive()) {
+            int killer = laser.getOwnerPlayerNumber();
+            if (killer >= 1 && killer <= 4) {
+                playerStats.recordKill(killer - 1, enemy.getEnemyType());
+            }
+            pendingSoundEvents.add(new GameState.SoundEvent(GameState.SoundType.EXPLOSION));
+        }
+    }
+
     private void updatePowerUps() {
         Iterator<PowerUp> iter = powerUps.iterator();
         while (iter.hasNext()) {
@@ -786,19 +908,8 @@ public class ServerGameState {
             ufo.update(bullets, mapPixelSize, mapPixelSize, soundManager);
 
             // Check bullet hits on UFO
-            Iterator<Bullet> iter = bullets.iterator();
-            while (iter.hasNext()) {
-                Bullet bullet = iter.next();
-                if (ufo.collidesWith(bullet)) {
-                    boolean destroyed = ufo.damage();
-                    notifyBulletDestroyed(bullet);
-                    iter.remove();
-                    if (destroyed) {
-                        // Spawn easter egg at random position
-                        double[] eggPos = GameLogic.findPowerUpSpawnPosition(gameMap, TILE_SIZE);
-                        easterEgg = new EasterEgg(eggPos[0], eggPos[1]);
-                        LOG.info("UFO destroyed! Easter egg spawned at random position");
-                    }
+            for (int i = 0; i < bullets.size(); i++) {
+                if (hitUfo(bullets.slot(i))) {
                     break;
                 }
             }
@@ -810,6 +921,26 @@ public class ServerGameState {
         }
     }
 
+    /**
+     * A bullet touching the live UFO damages it and is removed.
+     * @return whether it hit
+     */
+    private boolean hitUfo(int slot) {
+        if (ufo == null || !ufo.isAlive() || !ufo.collidesWith(bullets, slot)) {
+            return false;
+        }
+        boolean destroyed = ufo.damage();
+        notifyBulletDestroyed(slot);
+        bullets.remove(slot);
+        if (destroyed) {
+            // Spawn easter egg at random position
+            double[] eggPos = GameLogic.findPowerUpSpawnPosition(gameMap, TILE_SIZE);
+            easterEgg = new EasterEgg(eggPos[0], eggPos[1]);
+            LOG.info("UFO destroyed! Easter egg spawned at random position");
+        }
+        return true;
+    }
+
     private void updateEasterEgg() {
         if (easterEgg == null) return;
 
@@ -963,8 +1094,8 @@ public class ServerGameState {
         powerUps.add(new PowerUp(pos[0], pos[1]));
     }
 
-    private void notifyBulletDestroyed(Bullet bullet) {
-        GameLogic.notifyBulletDestroyed(bullet, playerTanks);
+    private void notifyBulletDestroyed(int slot) {
+        GameLogic.notifyBulletDestroyed(bullets, slot, playerTanks);
     }
 
     public GameState buildNetworkState() {
@@ -988,6 +1119,7 @@ public class ServerGameState {
             }
             state.players[i].copyFromTank(tank, playerStats.getKills(i), playerStats.getScore(i),
                 playerStats.getLevelScore(i), nickname, playerStats.getKillsByTypeArray(i));
+            state.players[i].lastInputSequence = lastInputSequences[i];
         }
 
         // Enemies
@@ -1006,17 +1138,18 @@ public class ServerGameState {
         }
 
         // Bullets
-        for (Bullet bullet : bullets) {
+        for (int i = 0; i < bullets.size(); i++) {
+            int slot = bullets.slot(i);
             state.bullets.add(new GameState.BulletData(
-                bullet.getId(),
-                bullet.getX(), bullet.getY(),
-                bullet.getDirection().ordinal(),
-                bullet.isFromEnemy(),
-                bullet.getPower(),
-                bullet.canDestroyTrees(),
-                bullet.getOwnerPlayerNumber(),
-                bullet.getSize(),
-                bullet.isRainbow()
+                bullets.getId(slot),
+                bullets.getX(slot), bullets.getY(slot),
+                bullets.getDirection(slot).ordinal(),
+                bullets.isFromEnemy(slot),
+                bullets.getPower(slot),
+                bullets.canDestroyTrees(slot),
+                bullets.getOwnerPlayerNumber(slot),
+                bullets.getSize(slot),
+                bullets.isRainbow(slot)
             ));
         }
 
@@ -1114,6 +1247,10 @@ public class ServerGameState {
         state.hostPlayerShootSpeed = GameSettings.getPlayerShootSpeedMultiplier();
         state.hostEnemyShootSpeed = GameSettings.getEnemyShootSpeedMultiplier();
 
+        // Everything that happened since the previous snapshot
+        state.soundEvents.addAll(pendingSoundEvents);
+        pendingSoundEvents.clear();
+
         return state;
     }
 
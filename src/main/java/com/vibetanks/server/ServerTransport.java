@@ -0,0 +1,35 @@
+package com.vibetanks.server;
+
+import com.vibetanks.network.WireReader;
+
+import java.io.IOException;
+
+/**
+ * Network transport used by DedicatedServer: TCP (NioServerTransport) or UDP (UdpServerTransport).
+ */
+public interface ServerTransport {
+
+    /**
+     * Transport events, all delivered on the transport's I/O thread.
+     */
+    interface Listener {
+        void onConnect(ServerConnection connection);
+        void onFrame(ServerConnection connection, int type, WireReader payload) throws IOException;
+        /**
+         * @param clean true if the peer closed the connection (player exited), false on network error
+         */
+        void onDisconnect(ServerConnection connection, boolean clean);
+    }
+
+    /**
+     * Bind the port and start the I/O thread.
+     */
+    void start() throws IOException;
+
+    int getLocalPort();
+
+    /**
+     * Stop the I/O thread and close every connection.
+     */
+    void close();
+}
@@ -0,0 +1,120 @@
+package com.vibetanks.server;
+
+import com.vibetanks.network.CompressionDictionary;
+import com.vibetanks.network.FrameCompressor;
+import com.vibetanks.network.GameState;
+import com.vibetanks.network.GameStateCodec;
+import com.vibetanks.network.PlayerInput;
+import com.vibetanks.network.SnapshotDeltaCodec;
+import com.vibetanks.network.WireProtocol;
+import com.vibetanks.network.WireWriter;
+import com.vibetanks.util.GameLogger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Rebuilds the snapshot compression dictionary (CompressionDictionary.RESOURCE).
+ *
+ * Plays headless sessions with bot inputs, records the full and delta snapshot payloads the
+ * server would send, trains a dictionary on one session and benchmarks it on another:
+ * bytes and compression time per frame, with and without the dictionary.
+ *
+ * Rerun after changing GameStateCodec or SnapshotDeltaCodec, then commit the new resource -
+ * clients and servers only compress when their dictionaries match.
+ *
+ * Usage: java -cp vibe-tanks.jar com.vibetanks.server.SnapshotDictionaryTool [output file]
+ */
+public class SnapshotDictionaryTool {
+    private static final GameLogger LOG = GameLogger.getLogger(SnapshotDictionaryTool.class);
+
+    private static final String DEFAULT_OUTPUT = "src/main/resources" + CompressionDictionary.RESOURCE;
+    private static final int PLAYERS = 2;
+    private static final int TICKS = 60 * 60;     // One minute of play per session
+    private static final int FULL_INTERVAL = 30;  // Record a full snapshot every N ticks...
+    private static final int DELTA_INTERVAL = 5;  // ...and a delta against the previous tick every N
+
+    public static void main(String[] args) throws IOException {
+        Path output = Paths.get(args.length > 0 ? args[0] : DEFAULT_OUTPUT);
+
+        List<byte[]> training = record(1);
+        List<byte[]> test = record(2);
+        LOG.info("Recorded {} training and {} test payloads", training.size(), test.size());
+
+        long start = System.nanoTime();
+        byte[] dictionary = CompressionDictionary.train(training, CompressionDictionary.MAX_SIZE);
+        LOG.info("Trained {} byte dictionary in {} ms", dictionary.length, (System.nanoTime() - start) / 1_000_000);
+
+        LOG.info("Without dictionary: {}", benchmark(new byte[0], test));
+        LOG.info("With dictionary:    {}", benchmark(dictionary, test));
+
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        Files.write(output, dictionary);
+        LOG.info("Wrote {}", output.toAbsolutePath());
+    }
+
+    /**
+     * Play one session with random bot inputs and return the snapshot payloads it produced.
+     */
+    static List<byte[]> record(long seed) {
+        Random random = new Random(seed);
+        ServerGameState game = new ServerGameState(PLAYERS);
+        PlayerInput[] held = new PlayerInput[PLAYERS];
+        List<byte[]> payloads = new ArrayList<>();
+        WireWriter payload = new WireWriter(4096);
+        GameState previous = null;
+
+        for (int tick = 1; tick <= TICKS; tick++) {
+            for (int p = 0; p < PLAYERS; p++) {
+                // Hold a direction for a while like a player would, firing now and then
+                if (held[p] == null || random.nextInt(30) == 0) {
+                    held[p] = PlayerInput.fromButtons(1 + random.nextInt(4), 0);
+                }
+                PlayerInput input = PlayerInput.fromButtons(held[p].packButtons(), tick);
+                input.shoot = random.nextInt(8) == 0;
+                input.nickname = tick == 1 ? "Player" + (p + 1) : null;
+                game.processInput(p + 1, input);
+            }
+            game.update();
+            if (game.isGameOver()) {
+                game.restartLevel();
+            } else if (game.isVictory()) {
+                game.nextLevel();
+            }
+
+            GameState state = game.buildNetworkState();
+            state.sequence = tick;
+            if (tick % FULL_INTERVAL == 0) {
+                payload.reset();
+                GameStateCodec.writeGameState(state, payload);
+                payloads.add(payload.toByteArray());
+            } else if (previous != null && tick % DELTA_INTERVAL == 0) {
+                payload.reset();
+                SnapshotDeltaCodec.writeDelta(previous, state, payload);
+                payloads.add(payload.toByteArray());
+            }
+            previous = state;
+        }
+        return payloads;
+    }
+
+    private static String benchmark(byte[] dictionary, List<byte[]> payloads) {
+        FrameCompressor compressor = new FrameCompressor(dictionary);
+        WireWriter payload = new WireWriter(4096);
+        WireWriter frame = new WireWriter(4096);
+        for (byte[] p : payloads) {
+            payload.reset();
+            payload.writeBytes(p, 0, p.length);
+            WireProtocol.encodeFrame(WireProtocol.MSG_GAME_STATE, payload, frame);
+            compressor.compress(frame.toByteArray());
+        }
+        return compressor.describe();
+    }
+}
@@ -0,0 +1,605 @@
+package com.vibetanks.server;
+
+import com.vibetanks.network.CompressionDictionary;
+import com.vibetanks.network.ConnectionStats;
+import com.vibetanks.network.FrameCompressor;
+import com.vibetanks.network.FrameDecoder;
+import com.vibetanks.network.FrameSplitter;
+import com.vibetanks.network.GameState;
+import com.vibetanks.network.GameStateCodec;
+import com.vibetanks.network.Handshake;
+import com.vibetanks.network.SnapshotDeltaCodec;
+import com.vibetanks.network.SnapshotEncoder;
+import com.vibetanks.network.SnapshotFanout;
+import com.vibetanks.network.SnapshotHistory;
+import com.vibetanks.network.UdpClient;
+import com.vibetanks.network.UdpPacket;
+import com.vibetanks.network.WireProtocol;
+import com.vibetanks.network.WireReader;
+import com.vibetanks.network.WireWriter;
+import com.vibetanks.util.GameLogger;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spectator relay: watches one room of a DedicatedServer (or a player host) as a single
+ * spectator and re-broadcasts its snapshot stream to many viewers, so a tournament stream
+ * costs the simulation host one connection however many people watch.
+ *
+ * Usage: java -cp <classpath> com.vibetanks.server.SpectatorRelay [udp:]host[:port][#CODE]
+ *        [--port=N] [--udp] [--max-viewers=N]
+ *   or:  mvn -Pspectator-relay exec:java -Dexec.args="game.example.com#ABCDE"
+ *
+ * Viewers join the relay with "spectate:relayhost:port" (add "udp:" after "spectate:" when
+ * the relay runs with --udp). Without #CODE the server picks its fullest room.
+ *
+ * Snapshots are forwarded as the bytes the server encoded - compressed frames to viewers
+ * that negotiated compression, the same frame unwrapped for the rest. The relay decodes
+ * each snapshot only to keep its own delta baselines. A delta is forwarded to a viewer
+ * whose acknowledged snapshots include its baseline; any other viewer (just joined, fell
+ * behind, asked for a full snapshot) gets the snapshot re-encoded in full, once per
+ * upstream frame and shared. Viewer inputs are ignored. A viewer whose previous frame is
+ * replaced unsent by a slow link gets this one re-encoded to carry that frame's sound events.
+ *
+ * Viewers go through the same handshake as with the server. They get every snapshot the
+ * relay receives - its upstream rate, which the relay reports in MSG_WELCOME; a lower rate
+ * asked for in JOIN is not applied, as skipping snapshots would turn every delta into a
+ * full re-encode. Viewers that did not offer CAP_DELTA always get full snapshots.
+ *
+ * Upstream frames arrive on one thread (the TCP reader or the UdpClient I/O thread), which
+ * also does the fan-out; viewer frames arrive on the viewer transport's I/O thread.
+ */
+public class SpectatorRelay implements FrameDecoder.FrameHandler {
+    private static final GameLogger LOG = GameLogger.getLogger(SpectatorRelay.class);
+    private static final String UDP_PREFIX = "udp:";
+    private static final int DEFAULT_UPSTREAM_PORT = 25565;
+    private static final int DEFAULT_PORT = 25566;
+    private static final int DEFAULT_MAX_VIEWERS = 256;
+    private static final long STATUS_INTERVAL_MS = 5000;
+    private static final long REJECT_CLOSE_DELAY_MS = 500;
+    private static final String USAGE = "Usage: java -cp <classpath> com.vibetanks.server.SpectatorRelay"
+        + " [udp:]host[:port][#CODE] [--port=N] [--udp] [--max-viewers=N]";
+
+    /**
+     * A connected viewer. Remembers which snapshots it acknowledged, the same window of
+     * SnapshotFanout.HISTORY_SIZE sequences its client keeps as delta baselines.
+     */
+    static final class Viewer {
+        final ServerConnection connection;
+        final boolean compression;
+        final boolean delta;
+        private final long[] acked = new long[SnapshotFanout.HISTORY_SIZE];
+        private volatile boolean fullRequested;
+        // Sound events: latest snapshot sent, and where the events of that frame started (upstream thread only)
+        private long sentSnapshot;
+        private long sentSoundsSince;
+
+        Viewer(ServerConnection connection, boolean compression, boolean delta) {
+            this.connection = connection;
+            this.compression = compression;
+            this.delta = delta;
+        }
+
+        synchronized void ack(long sequence) {
+            if (sequence > 0) {
+                acked[slot(sequence)] = sequence;
+            }
+        }
+
+        /**
+         * True if the viewer acknowledged this snapshot and has not since overwritten it.
+         */
+        synchronized boolean hasAcked(long sequence) {
+            return sequence > 0 && acked[slot(sequence)] == sequence;
+        }
+
+        void requestFullSnapshot() {
+            fullRequested = true;
+        }
+
+        boolean takeFullRequest() {
+            if (!fullRequested) return false;
+            fullRequested = false;
+            return true;
+        }
+
+        private int slot(long sequence) {
+            return (int) Math.floorMod(sequence, (long) acked.length);
+        }
+    }
+
+    private final InetSocketAddress upstream;
+    private final boolean upstreamUdp;
+    private final String roomCode;
+    private final int port;
+    private final boolean udp;
+    private final int maxViewers;
+    private final List<Viewer> viewers = new CopyOnWriteArrayList<>();
+    private ServerTransport transport;
+    private Socket socket;
+    private DataOutputStream out;
+    private UdpClient udpClient;
+    private volatile boolean running;
+    private volatile String joinedRoom; // Code the server put us in
+    private volatile Handshake.Welcome welcome; // What upstream agreed to; viewers wait for it
+
+    // Upstream thread only
+    private final SnapshotHistory received = new SnapshotHistory(SnapshotFanout.HISTORY_SIZE);
+    private final FrameCompressor decompressor;
+    private final FrameCompressor compressor;
+    private final FrameSplitter fragments = new FrameSplitter();
+    private final SnapshotEncoder encoder = new SnapshotEncoder();
+    private final SnapshotDeltaCodec.Context deltaContext = new SnapshotDeltaCodec.Context();
+    private final WireWriter ackBuffer = new WireWriter(10);
+    private long lastSequence;
+    private long baselineSequence; // Set by the readDelta lookup: what the current delta is against
+    private GameState current;
+    private long currentBaseline;  // 0 for a full snapshot
+    private byte[] plainFrame;
+    private byte[] compressedFrame; // Null when upstream sent it uncompressed
+    private byte[] fullFrame;
+    private byte[] compressedFullFrame;
+
+    // Read by the status log
+    private final AtomicLong snapshots = new AtomicLong();
+    private final AtomicLong forwarded = new AtomicLong();
+    private final AtomicLong reencoded = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+
+    public SpectatorRelay(InetSocketAddress upstream, boolean upstreamUdp, String roomCode,
+                          int port, boolean udp, int maxViewers) {
+        this.upstream = upstream;
+        this.upstreamUdp = upstreamUdp;
+        this.roomCode = roomCode;
+        this.port = port;
+        this.udp = udp;
+        this.maxViewers = maxViewers;
+        byte[] dictionary = CompressionDictionary.get();
+        this.decompressor = dictionary != null ? new FrameCompressor(dictionary) : null;
+        this.compressor = dictionary != null ? new FrameCompressor(dictionary) : null;
+    }
+
+    /**
+     * Open the viewer port, join upstream as a spectator and relay until upstream drops.
+     */
+    public void run() throws IOException {
+        transport = udp ? new UdpServerTransport(port, new ViewerHandler()) : new NioServerTransport(port, new ViewerHandler());
+        transport.start();
+        running = true;
+        GameLogger.configureForServer();
+        try {
+            connectUpstream();
+            LOG.info("Relaying {}{} to viewers on {} port {}", upstream,
+                roomCode != null ? " room " + roomCode : "", udp ? "UDP" : "TCP", transport.getLocalPort());
+            runStatusLoop();
+        } finally {
+            close();
+        }
+    }
+
+    private void connectUpstream() throws IOException {
+        WireWriter join = new WireWriter();
+        Handshake.join(roomCode, true, 0, upstreamUdp ? UdpPacket.SAFE_DATAGRAM_SIZE : 0).write(join);
+        if (upstreamUdp) {
+            UdpClient client = new UdpClient(upstream, this);
+            client.connect();
+            udpClient = client;
+            client.sendReliable(WireProtocol.MSG_JOIN, join);
+        } else {
+            socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.connect(upstream, 5000);
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            sendUpstream(WireProtocol.MSG_JOIN, join, true);
+            Thread reader = new Thread(this::readLoop, "SpectatorRelay-upstream");
+            reader.setDaemon(true);
+            reader.start();
+        }
+    }
+
+    private void readLoop() {
+        WireProtocol.FrameBuffer frame = new WireProtocol.FrameBuffer();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            while (running) {
+                int type = WireProtocol.readFrame(in, frame);
+                onFrame(type, frame.reader());
+            }
+        } catch (IOException e) {
+            if (running) {
+                LOG.warn("Upstream connection lost: {}", e.getMessage());
+            }
+        }
+        running = false;
+    }
+
+    @Override
+    public void onFrame(int type, WireReader payload) throws IOException {
+        switch (type) {
+            case WireProtocol.MSG_COMPRESSED -> {
+                if (decompressor == null) throw new StreamCorruptedException("Compressed frame without a dictionary");
+                byte[] body = remainingBytes(payload);
+                int inner = decompressor.decompress(new WireReader(body));
+                onSnapshot(inner, remainingBytes(decompressor.reader()), frame(type, body));
+            }
+            case WireProtocol.MSG_FRAGMENT -> {
+                int inner = fragments.add(payload);
+                if (inner >= 0) onFrame(inner, fragments.reader());
+            }
+            case WireProtocol.MSG_GAME_STATE, WireProtocol.MSG_GAME_STATE_DELTA ->
+                onSnapshot(type, remainingBytes(payload), null);
+            case WireProtocol.MSG_PING -> {
+                WireWriter pong = new WireWriter(16);
+                ConnectionStats.writePong(payload, pong);
+                sendUpstream(WireProtocol.MSG_PONG, pong, false);
+            }
+            case WireProtocol.MSG_WELCOME -> {
+                Handshake.Welcome agreed = Handshake.Welcome.read(payload);
+                String problem = agreed.incompatibility();
+                if (problem != null) {
+                    LOG.error("Cannot watch {}: {}", upstream, problem);
+                    running = false;
+                    return;
+                }
+                welcome = agreed;
+            }
+            case WireProtocol.MSG_JOIN_REJECTED -> {
+                LOG.error("Upstream rejected the relay: {}", Handshake.readReject(payload));
+                running = false;
+            }
+            case WireProtocol.MSG_ROOM_JOINED -> {
+                joinedRoom = payload.readString();
+                LOG.info("Watching room {}", joinedRoom);
+            }
+            default -> { } // Player number (always 0) and pongs
+        }
+    }
+
+    private static byte[] remainingBytes(WireReader payload) throws IOException {
+        byte[] bytes = new byte[payload.remaining()];
+        payload.readBytes(bytes, 0, bytes.length);
+        return bytes;
+    }
+
+    private static byte[] frame(int type, byte[] payload) throws IOException {
+        ByteArrayOutputStream frame = new ByteArrayOutputStream(payload.length + 6);
+        WireProtocol.writeFrame(frame, type, payload, 0, payload.length);
+        return frame.toByteArray();
+    }
+
+    /**
+     * @param compressed the upstream MSG_COMPRESSED frame the payload came out of, or null
+     */
+    private void onSnapshot(int type, byte[] payload, byte[] compressed) throws IOException {
+        WireReader reader = new WireReader(payload);
+        GameState state;
+        long baseline = 0;
+        if (type == WireProtocol.MSG_GAME_STATE) {
+            state = GameStateCodec.readGameState(reader);
+        } else if (type == WireProtocol.MSG_GAME_STATE_DELTA) {
+            baselineSequence = 0;
+            state = SnapshotDeltaCodec.readDelta(reader, sequence -> {
+                baselineSequence = sequence;
+                return received.get(sequence);
+            }, deltaContext);
+            if (state == null) {
+                sendUpstream(WireProtocol.MSG_FULL_SNAPSHOT_REQUEST, new WireWriter(0), true);
+                return;
+            }
+            baseline = baselineSequence;
+        } else {
+            throw new StreamCorruptedException("Unexpected compressed message type " + type);
+        }
+        // Over UDP snapshots can overtake each other - viewers only get newer ones
+        if (state.sequence <= lastSequence) return;
+        received.put(state);
+        lastSequence = state.sequence;
+        snapshots.incrementAndGet();
+
+        ackBuffer.reset();
+        ackBuffer.writeVarLong(state.sequence);
+        sendUpstream(WireProtocol.MSG_SNAPSHOT_ACK, ackBuffer, false);
+
+        forward(state, baseline, frame(type, payload), compressed);
+    }
+
+    /**
+     * Make state the current snapshot and send it to every viewer.
+     * @param baseline sequence the frames are a delta against, 0 if they are a full snapshot
+     * @param compressed the MSG_COMPRESSED form of plainFrame, or null
+     */
+    void forward(GameState state, long baseline, byte[] plainFrame, byte[] compressed) {
+        this.current = state;
+        this.currentBaseline = baseline;
+        this.plainFrame = plainFrame;
+        this.compressedFrame = compressed;
+        this.fullFrame = null;
+        this.compressedFullFrame = null;
+        for (Viewer viewer : viewers) {
+            if (!viewer.connection.isOpen()) {
+                viewers.remove(viewer);
+                continue;
+            }
+            // Snapshot whose sound events the viewer has, unless its last frame is about to be replaced
+            long soundsSince = viewer.connection.hasPendingSnapshot() ? viewer.sentSoundsSince : viewer.sentSnapshot;
+            List<GameState.SoundEvent> sounds = droppedSounds(soundsSince);
+            byte[] frame = sounds == null ? frameFor(viewer) : frameWithSounds(viewer, sounds);
+            viewer.connection.sendSnapshot(frame);
+            viewer.sentSnapshot = state.sequence;
+            viewer.sentSoundsSince = soundsSince;
+            bytesOut.addAndGet(frame.length);
+        }
+    }
+
+    /**
+     * The current snapshot as this viewer can decode it.
+     */
+    byte[] frameFor(Viewer viewer) {
+        boolean fullRequested = viewer.takeFullRequest();
+        if (currentBaseline == 0 || (viewer.delta && !fullRequested && viewer.hasAcked(currentBaseline))) {
+            forwarded.incrementAndGet();
+            return viewer.compression && compressedFrame != null ? compressedFrame : plainFrame;
+        }
+        reencoded.incrementAndGet();
+        if (fullFrame == null) {
+            encoder.encode(current);
+            fullFrame = Arrays.copyOf(encoder.frameBytes(), encoder.frameLength());
+        }
+        if (!viewer.compression || compressor == null) {
+            return fullFrame;
+        }
+        if (compressedFullFrame == null) {
+            compressedFullFrame = compressor.compress(fullFrame);
+        }
+        return compressedFullFrame;
+    }
+
+    // Sound events from the snapshots after soundsSince up to the current one, or null if only the current one has any
+    private List<GameState.SoundEvent> droppedSounds(long soundsSince) {
+        if (soundsSince <= 0) return null;
+        List<GameState.SoundEvent> sounds = null;
+        long oldest = Math.max(soundsSince + 1, current.sequence - SnapshotFanout.HISTORY_SIZE + 1);
+        for (long sequence = oldest; sequence < current.sequence; sequence++) {
+            GameState dropped = received.get(sequence);
+            if (dropped != null && !dropped.soundEvents.isEmpty()) {
+                if (sounds == null) {
+                    sounds = new ArrayList<>();
+                }
+                sounds.addAll(dropped.soundEvents);
+            }
+        }
+        if (sounds != null) {
+            sounds.addAll(current.soundEvents);
+        }
+        return sounds;
+    }
+
+    /**
+     * The current snapshot re-encoded for one viewer with other sound events - a delta
+     * against the upstream baseline where frameFor() would have forwarded one.
+     */
+    private byte[] frameWithSounds(Viewer viewer, List<GameState.SoundEvent> sounds) {
+        boolean fullRequested = viewer.takeFullRequest();
+        GameState baseline = viewer.delta && !fullRequested && viewer.hasAcked(currentBaseline)
+            ? received.get(currentBaseline) : null;
+        reencoded.incrementAndGet();
+        GameState state = current.withSoundEvents(sounds);
+        if (baseline != null) {
+            encoder.encodeDelta(baseline, state);
+        } else {
+            encoder.encode(state);
+        }
+        byte[] frame = Arrays.copyOf(encoder.frameBytes(), encoder.frameLength());
+        return viewer.compression && compressor != null ? compressor.compress(frame) : frame;
+    }
+
+    private void sendUpstream(int type, WireWriter payload, boolean reliable) {
+        if (udpClient != null) {
+            if (reliable) {
+                udpClient.sendReliable(type, payload);
+            } else {
+                udpClient.sendUnreliable(type, payload);
+            }
+            return;
+        }
+        try {
+            synchronized (out) {
+                WireProtocol.writeFrame(out, type, payload);
+                out.flush();
+            }
+        } catch (IOException e) {
+            if (running) {
+                LOG.warn("Upstream connection lost: {}", e.getMessage());
+            }
+            running = false;
+        }
+    }
+
+    /**
+     * Viewer transport callbacks - run on its I/O thread.
+     */
+    private class ViewerHandler implements ServerTransport.Listener {
+
+        @Override
+        public void onConnect(ServerConnection connection) {
+            // Added to viewers once it sends JOIN
+        }
+
+        @Override
+        public void onFrame(ServerConnection connection, int type, WireReader payload) throws IOException {
+            Viewer viewer = (Viewer) connection.attachment();
+            if (viewer == null) {
+                // The room code is ignored - the relay only has one
+                Handshake.Join join = type == WireProtocol.MSG_JOIN ? Handshake.Join.read(payload) : Handshake.NO_JOIN;
+                Handshake.Welcome upstreamWelcome = welcome;
+                String problem = join.incompatibility();
+                if (problem != null) {
+                    reject(connection, Handshake.REJECT_VERSION, problem);
+                } else if (upstreamWelcome == null) {
+                    reject(connection, Handshake.REJECT_NO_ROOM, "Relay is not watching a game yet");
+                } else if (viewers.size() >= maxViewers) {
+                    reject(connection, Handshake.REJECT_FULL, "Relay is full (" + maxViewers + " viewers)");
+                } else {
+                    viewer = new Viewer(connection, join.has(Handshake.CAP_COMPRESSION), join.has(Handshake.CAP_DELTA));
+                }
+                if (viewer == null) return;
+                connection.attach(viewer);
+                int packetSize = Handshake.maxPacketSize(join, connection.getMaxPacketSize());
+                connection.setMaxPacketSize(packetSize);
+                connection.send(Handshake.welcomeFrame(Handshake.welcome(join, upstreamWelcome.snapshotRate(), 1, packetSize)));
+                sendJoinFrames(connection);
+                viewers.add(viewer);
+                LOG.info("Viewer joined from {} ({} watching)", connection.getRemoteAddress(), viewers.size());
+                return;
+            }
+
+            if (type == WireProtocol.MSG_SNAPSHOT_ACK) {
+                viewer.ack(payload.readVarLong());
+            } else if (type == WireProtocol.MSG_PLAYER_INPUT) {
+                // Clients that did not join as spectators still acknowledge through their inputs
+                viewer.ack(GameStateCodec.readPlayerInput(payload).ackSnapshotSequence);
+            } else if (type == WireProtocol.MSG_FULL_SNAPSHOT_REQUEST) {
+                viewer.requestFullSnapshot();
+            } else if (type == WireProtocol.MSG_PING) {
+                WireWriter pong = new WireWriter(16);
+                ConnectionStats.writePong(payload, pong);
+                WireWriter frame = new WireWriter(pong.size() + 2);
+                WireProtocol.encodeFrame(WireProtocol.MSG_PONG, pong, frame);
+                connection.sendUnreliable(frame.toByteArray());
+            }
+        }
+
+        @Override
+        public void onDisconnect(ServerConnection connection, boolean clean) {
+            Viewer viewer = (Viewer) connection.attachment();
+            if (viewer != null && viewers.remove(viewer)) {
+                LOG.info("Viewer {} left ({} watching)", connection.getRemoteAddress(), viewers.size());
+            }
+        }
+
+        private void reject(ServerConnection connection, int reason, String message) {
+            LOG.info("Rejecting {}: {}", connection.getRemoteAddress(), message);
+            connection.send(Handshake.rejectFrame(reason, message));
+            // Closing at once would discard the queued rejection
+            CompletableFuture.delayedExecutor(REJECT_CLOSE_DELAY_MS, TimeUnit.MILLISECONDS).execute(connection::close);
+        }
+
+        private void sendJoinFrames(ServerConnection connection) {
+            WireWriter payload = new WireWriter(32);
+            WireWriter frame = new WireWriter(32);
+            String code = joinedRoom;
+            if (code != null) {
+                payload.writeString(code);
+                WireProtocol.encodeFrame(WireProtocol.MSG_ROOM_JOINED, payload, frame);
+                connection.send(frame.toByteArray());
+                payload.reset();
+            }
+            payload.writeVarInt(0);
+            WireProtocol.encodeFrame(WireProtocol.MSG_PLAYER_NUMBER, payload, frame);
+            connection.send(frame.toByteArray());
+        }
+    }
+
+    private void runStatusLoop() {
+        long lastSnapshots = 0;
+        long lastBytes = 0;
+        while (running && (udpClient == null || udpClient.isOpen())) {
+            try {
+                Thread.sleep(STATUS_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                break;
+            }
+            long snapshotCount = snapshots.get();
+            long byteCount = bytesOut.get();
+            double seconds = STATUS_INTERVAL_MS / 1000.0;
+            LOG.info("Relay: {} viewers, {} snapshots/s from upstream, {} KB/s out ({} forwarded, {} re-encoded full)",
+                viewers.size(), String.format("%.1f", (snapshotCount - lastSnapshots) / seconds),
+                String.format("%.1f", (byteCount - lastBytes) / 1024.0 / seconds), forwarded.get(), reencoded.get());
+            lastSnapshots = snapshotCount;
+            lastBytes = byteCount;
+        }
+        LOG.info("Upstream closed - stopping relay");
+    }
+
+    public void close() {
+        running = false;
+        if (udpClient != null) {
+            udpClient.close();
+        }
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+        if (transport != null) {
+            transport.close();
+        }
+    }
+
+    public static void main(String[] args) {
+        String address = null;
+        int port = DEFAULT_PORT;
+        boolean udp = false;
+        int maxViewers = DEFAULT_MAX_VIEWERS;
+        for (String arg : args) {
+            try {
+                if (arg.equals("--udp")) {
+                    udp = true;
+                } else if (arg.startsWith("--port=")) {
+                    port = Integer.parseInt(arg.substring("--port=".length()));
+                } else if (arg.startsWith("--max-viewers=")) {
+                    maxViewers = Integer.parseInt(arg.substring("--max-viewers=".length()));
+                } else if (address == null && !arg.startsWith("--")) {
+                    address = arg;
+                } else {
+                    throw new NumberFormatException(arg);
+                }
+            } catch (NumberFormatException e) {
+                LOG.error("Invalid argument: {}", arg);
+                LOG.error(USAGE);
+                System.exit(1);
+            }
+        }
+        if (address == null) {
+            LOG.error(USAGE);
+            System.exit(1);
+        }
+
+        boolean upstreamUdp = address.regionMatches(true, 0, UDP_PREFIX, 0, UDP_PREFIX.length());
+        if (upstreamUdp) {
+            address = address.substring(UDP_PREFIX.length());
+        }
+        String code = null;
+        int hash = address.indexOf('#');
+        if (hash >= 0) {
+            code = address.substring(hash + 1).trim();
+            address = address.substring(0, hash);
+        }
+        String host = address.trim();
+        int upstreamPort = DEFAULT_UPSTREAM_PORT;
+        int colon = host.lastIndexOf(':');
+        if (colon > 0 && host.indexOf(':') == colon) {
+            upstreamPort = Integer.parseInt(host.substring(colon + 1));
+            host = host.substring(0, colon);
+        }
+
+        SpectatorRelay relay = new SpectatorRelay(new InetSocketAddress(host, upstreamPort), upstreamUdp,
+            code == null || code.isEmpty() ? null : code, port, udp, maxViewers);
+        Runtime.getRuntime().addShutdownHook(new Thread(relay::close));
+        try {
+            relay.run();
+        } catch (IOException e) {
+            LOG.error("Relay failed: {}", e.getMessage());
+            System.exit(1);
+        }
+    }
+}
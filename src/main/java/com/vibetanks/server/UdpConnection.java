@@ -0,0 +1,230 @@
+package com.vibetanks.server;
+
+import com.vibetanks.network.ConnectionStats;
+import com.vibetanks.network.FrameSplitter;
+import com.vibetanks.network.PacketSimulator;
+import com.vibetanks.network.ReliableChannel;
+import com.vibetanks.network.UdpPacket;
+import com.vibetanks.util.GameLogger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * One client address as seen by UdpServerTransport.
+ *
+ * send() goes through a ReliableChannel: the datagram is resent until the client acks it,
+ * so control frames arrive exactly once and in order. sendSnapshot() is a single unreliable
+ * datagram; as with NioConnection, a snapshot not yet handed to the socket is replaced by a
+ * newer one. sendUnreliable() frames (pings) go out once, in their own datagram.
+ * All may be called from any thread - datagrams are written by the I/O thread.
+ *
+ * No datagram is larger than the agreed max packet size: a frame that would not fit goes
+ * out as FrameSplitter pieces, one per datagram - each reliably for send(), and together
+ * as one replaceable snapshot for sendSnapshot().
+ */
+public class UdpConnection implements ServerConnection {
+    private static final GameLogger LOG = GameLogger.getLogger(UdpConnection.class);
+    static final int MAX_QUEUED_BYTES = NioConnection.MAX_QUEUED_BYTES;
+
+    private final UdpServerTransport transport;
+    private final SocketAddress address;
+    private final String remoteAddress;
+    final ReliableChannel reliable = new ReliableChannel();
+    private final ConnectionStats stats = new ConnectionStats();
+
+    // Datagrams waiting for their first send; reliable resends come from the ReliableChannel
+    private final Queue<byte[]> outbound = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<byte[][]> pendingSnapshot = new AtomicReference<>(); // Its datagrams
+    private final AtomicInteger peakQueuedBytes = new AtomicInteger();
+    private final AtomicLong droppedSnapshots = new AtomicLong();
+    private final AtomicBoolean sendScheduled = new AtomicBoolean(false);
+    private final AtomicInteger fragmentIds = new AtomicInteger();
+    private volatile int maxPacketSize = UdpPacket.SAFE_DATAGRAM_SIZE;
+
+    private volatile boolean open = true;
+    private volatile Object attachment;
+    long lastReceivedMs = System.currentTimeMillis(); // I/O thread only
+
+    UdpConnection(UdpServerTransport transport, SocketAddress address) {
+        this.transport = transport;
+        this.address = address;
+        this.remoteAddress = address instanceof InetSocketAddress inet
+            ? inet.getAddress().getHostAddress() : String.valueOf(address);
+    }
+
+    @Override
+    public void send(byte[] frame) {
+        if (!open) return;
+        if (reliable.pendingBytes() + frame.length > MAX_QUEUED_BYTES) {
+            LOG.warn("Unacknowledged data to {} exceeded {} bytes - dropping client", remoteAddress, MAX_QUEUED_BYTES);
+            close();
+            return;
+        }
+        long nowMs = System.currentTimeMillis();
+        for (byte[] piece : split(frame)) {
+            outbound.offer(reliable.wrap(piece, nowMs));
+        }
+        recordQueueDepth();
+        scheduleSend();
+    }
+
+    @Override
+    public void sendSnapshot(byte[] frame) {
+        if (!open) return;
+        byte[][] datagrams = split(frame);
+        for (int i = 0; i < datagrams.length; i++) {
+            datagrams[i] = UdpPacket.unreliable(datagrams[i]);
+        }
+        if (pendingSnapshot.getAndSet(datagrams) != null) {
+            droppedSnapshots.incrementAndGet();
+        }
+        recordQueueDepth();
+        scheduleSend();
+    }
+
+    @Override
+    public void sendUnreliable(byte[] frame) {
+        if (!open) return;
+        for (byte[] piece : split(frame)) {
+            outbound.offer(UdpPacket.unreliable(piece));
+        }
+        scheduleSend();
+    }
+
+    // The frame, or its pieces if a datagram carrying it would be over the agreed size
+    private byte[][] split(byte[] frame) {
+        int maxFrame = maxPacketSize - UdpPacket.HEADER_SIZE;
+        return FrameSplitter.split(frame, frame.length, maxFrame,
+            frame.length > maxFrame ? fragmentIds.incrementAndGet() & Integer.MAX_VALUE : 0);
+    }
+
+    @Override
+    public int getMaxPacketSize() {
+        return maxPacketSize;
+    }
+
+    @Override
+    public void setMaxPacketSize(int bytes) {
+        this.maxPacketSize = bytes;
+    }
+
+    private void recordQueueDepth() {
+        peakQueuedBytes.accumulateAndGet(getQueuedBytes(), Math::max);
+    }
+
+    private void scheduleSend() {
+        if (sendScheduled.compareAndSet(false, true)) {
+            transport.scheduleSend(this);
+        }
+    }
+
+    /**
+     * Called on the I/O thread: hand queued datagrams to the socket.
+     */
+    void flush(PacketSimulator.Sender sender) throws IOException {
+        sendScheduled.set(false);
+        byte[] packet;
+        while ((packet = outbound.poll()) != null) {
+            send(packet, sender);
+        }
+        byte[][] snapshot = pendingSnapshot.getAndSet(null);
+        if (snapshot != null) {
+            for (byte[] datagram : snapshot) {
+                send(datagram, sender);
+            }
+        }
+    }
+
+    // I/O thread: every datagram to this client goes through here so traffic is counted
+    void send(byte[] packet, PacketSimulator.Sender sender) throws IOException {
+        stats.addBytesOut(packet.length);
+        sender.send(packet, address);
+    }
+
+    SocketAddress address() {
+        return address;
+    }
+
+    /**
+     * Reliable frames sent but not yet acknowledged, plus a pending snapshot.
+     */
+    @Override
+    public int getQueuedFrames() {
+        return reliable.pendingCount() + (pendingSnapshot.get() != null ? 1 : 0);
+    }
+
+    @Override
+    public int getQueuedBytes() {
+        int queued = reliable.pendingBytes();
+        byte[][] snapshot = pendingSnapshot.get();
+        if (snapshot != null) {
+            for (byte[] datagram : snapshot) {
+                queued += datagram.length;
+            }
+        }
+        return queued;
+    }
+
+    @Override
+    public int takePeakQueuedBytes() {
+        return peakQueuedBytes.getAndSet(getQueuedBytes());
+    }
+
+    /**
+     * Snapshots replaced by a newer one before they were sent.
+     */
+    @Override
+    public long getDroppedSnapshots() {
+        return droppedSnapshots.get();
+    }
+
+    @Override
+    public ConnectionStats getStats() {
+        return stats;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public String getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    @Override
+    public void attach(Object attachment) {
+        this.attachment = attachment;
+    }
+
+    @Override
+    public Object attachment() {
+        return attachment;
+    }
+
+    /**
+     * Close from the server side: the I/O thread tells the client with a DISCONNECT datagram.
+     */
+    @Override
+    public void close() {
+        if (!open) return;
+        markClosed();
+        transport.scheduleSend(this);
+    }
+
+    // Peer already gone (DISCONNECT received or timed out) - nothing to tell it
+    void markClosed() {
+        open = false;
+        outbound.clear();
+        pendingSnapshot.set(null);
+    }
+}
@@ -0,0 +1,291 @@
+package com.vibetanks.server;
+
+import com.vibetanks.network.PacketSimulator;
+import com.vibetanks.network.UdpPacket;
+import com.vibetanks.network.WireReader;
+import com.vibetanks.util.GameLogger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * UDP transport for the dedicated server. Snapshots and inputs travel as unreliable
+ * datagrams, so a lost packet never holds up newer state the way a TCP retransmit does;
+ * control frames use a per-client ReliableChannel.
+ *
+ * One datagram socket and one I/O thread serve every client. A client "connects" with its
+ * first reliable datagram (the JOIN frame); it disconnects cleanly with a DISCONNECT datagram
+ * or uncleanly after IDLE_TIMEOUT_MS of silence.
+ *
+ * An optional PacketSimulator applies loss and latency to everything the server sends,
+ * for testing over loopback.
+ */
+public class UdpServerTransport implements ServerTransport {
+    private static final GameLogger LOG = GameLogger.getLogger(UdpServerTransport.class);
+    static final long IDLE_TIMEOUT_MS = 5000;
+    private static final long SELECT_TIMEOUT_MS = 5; // Bounds retransmit and simulator latency
+    private static final int SOCKET_BUFFER_SIZE = 1024 * 1024;
+
+    private final int port;
+    private final Listener listener;
+    private final PacketSimulator simulator;
+    private Selector selector;
+    private DatagramChannel channel;
+    private Thread ioThread;
+    private volatile boolean running = false;
+
+    // Only touched on the I/O thread
+    private final Map<SocketAddress, UdpConnection> peers = new HashMap<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(UdpPacket.MAX_DATAGRAM_SIZE);
+    private final byte[] packet = new byte[UdpPacket.MAX_DATAGRAM_SIZE];
+    private final WireReader packetReader = new WireReader();
+    private final WireReader frameReader = new WireReader();
+    private final WireReader payloadReader = new WireReader();
+    private final PacketSimulator.Sender socketSender = this::sendDatagram;
+    private final PacketSimulator.Sender sender;
+
+    private final Queue<UdpConnection> pendingSends = new ConcurrentLinkedQueue<>();
+
+    public UdpServerTransport(int port, Listener listener) {
+        this(port, listener, null);
+    }
+
+    /**
+     * @param simulator applied to every outgoing datagram, or null for a real network
+     */
+    public UdpServerTransport(int port, Listener listener, PacketSimulator simulator) {
+        this.port = port;
+        this.listener = listener;
+        this.simulator = simulator;
+        this.sender = simulator != null ? (p, to) -> simulator.send(p, to, socketSender) : socketSender;
+    }
+
+    @Override
+    public void start() throws IOException {
+        selector = Selector.open();
+        channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        channel.setOption(StandardSocketOptions.SO_RCVBUF, SOCKET_BUFFER_SIZE);
+        channel.setOption(StandardSocketOptions.SO_SNDBUF, SOCKET_BUFFER_SIZE);
+        channel.bind(new InetSocketAddress(port));
+        channel.register(selector, SelectionKey.OP_READ);
+        running = true;
+
+        ioThread = new Thread(this::runLoop, "UdpSelector");
+        ioThread.setDaemon(true);
+        ioThread.start();
+    }
+
+    @Override
+    public int getLocalPort() {
+        try {
+            if (channel != null && channel.getLocalAddress() instanceof InetSocketAddress local) {
+                return local.getPort();
+            }
+        } catch (IOException e) {
+            // Fall through
+        }
+        return port;
+    }
+
+    void scheduleSend(UdpConnection connection) {
+        pendingSends.offer(connection);
+        Selector s = selector;
+        if (s != null) {
+            s.wakeup();
+        }
+    }
+
+    private void runLoop() {
+        long lastMaintenance = System.currentTimeMillis();
+        while (running) {
+            try {
+                selector.select(SELECT_TIMEOUT_MS);
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    it.next();
+                    it.remove();
+                    receiveAll();
+                }
+                processPendingSends();
+
+                long now = System.currentTimeMillis();
+                if (now - lastMaintenance >= SELECT_TIMEOUT_MS) {
+                    lastMaintenance = now;
+                    maintain(now);
+                }
+                if (simulator != null) {
+                    simulator.flushDue(socketSender);
+                }
+            } catch (ClosedSelectorException e) {
+                break;
+            } catch (IOException e) {
+                if (running) {
+                    LOG.error("UDP transport error: {}", e.getMessage());
+                }
+            } catch (RuntimeException e) {
+                // This thread serves every peer - keep it alive
+                LOG.error("UDP transport error", e);
+            }
+        }
+        closeAll();
+        LOG.debug("UDP I/O thread exiting");
+    }
+
+    // Runs on the I/O thread once the loop has stopped
+    private void closeAll() {
+        for (UdpConnection connection : peers.values()) {
+            try {
+                sendDatagram(UdpPacket.disconnect(), connection.address());
+            } catch (IOException e) {
+                // Best effort
+            }
+            connection.markClosed();
+        }
+        peers.clear();
+        try {
+            selector.close();
+            channel.close();
+        } catch (IOException e) {
+            LOG.debug("Error closing transport: {}", e.getMessage());
+        }
+    }
+
+    private void receiveAll() throws IOException {
+        while (true) {
+            readBuffer.clear();
+            SocketAddress from = channel.receive(readBuffer);
+            if (from == null) {
+                return;
+            }
+            readBuffer.flip();
+            int length = readBuffer.remaining();
+            readBuffer.get(packet, 0, length);
+            handlePacket(from, length);
+        }
+    }
+
+    private void handlePacket(SocketAddress from, int length) {
+        if (length == 0) return;
+        int kind = packet[0] & 0xFF;
+        UdpConnection connection = peers.get(from);
+        if (connection == null) {
+            // Only the first reliable frame of a session opens a connection; stray datagrams
+            // from a client we already dropped must not join it to a room again
+            if (kind != UdpPacket.RELIABLE) return;
+            connection = new UdpConnection(this, from);
+            peers.put(from, connection);
+            listener.onConnect(connection);
+        }
+        connection.lastReceivedMs = System.currentTimeMillis();
+        connection.getStats().addBytesIn(length);
+
+        UdpConnection c = connection;
+        try {
+            packetReader.reset(packet, 1, length - 1);
+            switch (kind) {
+                case UdpPacket.UNRELIABLE ->
+                    UdpPacket.readFrames(packetReader, frameReader, (type, payload) -> deliver(c, type, payload));
+                case UdpPacket.RELIABLE -> {
+                    long seq = packetReader.readVarLong();
+                    byte[] frame = new byte[packetReader.remaining()];
+                    packetReader.readBytes(frame, 0, frame.length);
+                    List<byte[]> ready = c.reliable.receive(seq, frame);
+                    c.send(c.reliable.ackPacket(), sender);
+                    for (byte[] f : ready) {
+                        payloadReader.reset(f, 0, f.length);
+                        UdpPacket.readFrames(payloadReader, frameReader, (type, payload) -> deliver(c, type, payload));
+                    }
+                }
+                case UdpPacket.ACK -> c.reliable.onAck(packetReader.readVarLong());
+                case UdpPacket.DISCONNECT -> disconnect(c, true);
+                default -> throw new IOException("Unknown datagram kind " + kind);
+            }
+        } catch (IOException e) {
+            LOG.debug("Bad datagram from {}: {}", c.getRemoteAddress(), e.getMessage());
+            disconnect(c, false);
+        } catch (RuntimeException e) {
+            // A frame the handler could not cope with costs only this peer
+            LOG.error("Datagram from " + c.getRemoteAddress() + " failed", e);
+            disconnect(c, false);
+        }
+    }
+
+    private void deliver(UdpConnection connection, int type, WireReader payload) throws IOException {
+        if (connection.isOpen()) {
+            listener.onFrame(connection, type, payload);
+        }
+    }
+
+    private void processPendingSends() throws IOException {
+        UdpConnection connection;
+        while ((connection = pendingSends.poll()) != null) {
+            if (connection.isOpen()) {
+                connection.flush(sender);
+            } else if (peers.remove(connection.address(), connection)) {
+                // Closed by the server (e.g. room full) - tell the client
+                sender.send(UdpPacket.disconnect(), connection.address());
+            }
+        }
+    }
+
+    // Retransmit unacknowledged reliable frames and expire silent clients
+    private void maintain(long now) throws IOException {
+        Iterator<UdpConnection> it = peers.values().iterator();
+        while (it.hasNext()) {
+            UdpConnection connection = it.next();
+            if (now - connection.lastReceivedMs > IDLE_TIMEOUT_MS) {
+                it.remove();
+                if (connection.isOpen()) {
+                    listener.onDisconnect(connection, false);
+                    connection.markClosed();
+                }
+                continue;
+            }
+            for (byte[] p : connection.reliable.due(now)) {
+                connection.send(p, sender);
+            }
+        }
+    }
+
+    // Listener runs first so it can still tell a live client from one the server already closed
+    private void disconnect(UdpConnection connection, boolean clean) {
+        peers.remove(connection.address(), connection);
+        if (!connection.isOpen()) return;
+        listener.onDisconnect(connection, clean);
+        connection.markClosed();
+    }
+
+    // A full socket buffer silently drops the datagram - the same as loss on the wire
+    private void sendDatagram(byte[] data, SocketAddress to) throws IOException {
+        channel.send(ByteBuffer.wrap(data), to);
+    }
+
+    @Override
+    public void close() {
+        if (!running) return;
+        running = false;
+        selector.wakeup();
+        if (ioThread != null) {
+            try {
+                ioThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -2,7 +2,7 @@ package com.vibetanks.ui;
 
 import com.vibetanks.audio.SoundManager;
 import com.vibetanks.core.Base;
-import com.vibetanks.core.Bullet;
+import com.vibetanks.core.BulletStore;
 import com.vibetanks.core.Direction;
 import com.vibetanks.core.GameMap;
 import com.vibetanks.core.GameSettings;
@@ -93,11 +93,11 @@ public class InputHandler {
         });
     }
 
-    public void handleInput(GameMap map, List<Bullet> bullets, List<Laser> lasers, SoundManager soundManager, List<Tank> allTanks, Base base) {
+    public void handleInput(GameMap map, BulletStore bullets, List<Laser> lasers, SoundManager soundManager, List<Tank> allTanks, Base base) {
         handleInput(map, bullets, lasers, soundManager, allTanks, base, false);
     }
 
-    public void handleInput(GameMap map, List<Bullet> bullets, List<Laser> lasers, SoundManager soundManager, List<Tank> allTanks, Base base, boolean movementFrozen) {
+    public void handleInput(GameMap map, BulletStore bullets, List<Laser> lasers, SoundManager soundManager, List<Tank> allTanks, Base base, boolean movementFrozen) {
         // Check if local multiplayer mode
         if (GameSettings.isLocalMultiplayerMode() && playerTanks.size() >= 2) {
             // Local 2-player mode: Player 1 = WASD + SPACE, Player 2 = Arrows + ENTER
@@ -112,7 +112,7 @@ public class InputHandler {
     /**
      * Handle shooting for a player with the specified shoot key.
      */
-    private void handleShooting(Tank player, KeyCode shootKey, List<Bullet> bullets, List<Laser> lasers, SoundManager soundManager) {
+    private void handleShooting(Tank player, KeyCode shootKey, BulletStore bullets, List<Laser> lasers, SoundManager soundManager) {
         if (pressedKeys.contains(shootKey)) {
             if (player.hasLaser()) {
                 Laser laser = player.shootLaser(soundManager);
@@ -126,7 +126,7 @@ public class InputHandler {
     }
 
     // Single player input handler (arrows or WASD + SPACE)
-    private void handlePlayerInput(Tank player, GameMap map, List<Bullet> bullets, List<Laser> lasers, SoundManager soundManager, List<Tank> allTanks, Base base, boolean movementFrozen) {
+    private void handlePlayerInput(Tank player, GameMap map, BulletStore bullets, List<Laser> lasers, SoundManager soundManager, List<Tank> allTanks, Base base, boolean movementFrozen) {
         if (!player.isAlive()) return;
 
         boolean isMoving = false;
@@ -151,7 +151,7 @@ public class InputHandler {
     }
 
     // Player 1 input handler for local multiplayer (WASD + SPACE)
-    private void handlePlayer1Input(Tank player, GameMap map, List<Bullet> bullets, List<Laser> lasers, SoundManager soundManager, List<Tank> allTanks, Base base, boolean movementFrozen) {
+    private void handlePlayer1Input(Tank player, GameMap map, BulletStore bullets, List<Laser> lasers, SoundManager soundManager, List<Tank> allTanks, Base base, boolean movementFrozen) {
         if (!player.isAlive()) return;
 
         boolean isMoving = false;
@@ -176,7 +176,7 @@ public class InputHandler {
     }
 
     // Player 2 input handler for local multiplayer (Arrows + ENTER)
-    private void handlePlayer2Input(Tank player, GameMap map, List<Bullet> bullets, List<Laser> lasers, SoundManager soundManager, List<Tank> allTanks, Base base, boolean movementFrozen) {
+    private void handlePlayer2Input(Tank player, GameMap map, BulletStore bullets, List<Laser> lasers, SoundManager soundManager, List<Tank> allTanks, Base base, boolean movementFrozen) {
         if (!player.isAlive()) return;
 
         boolean isMoving = false;
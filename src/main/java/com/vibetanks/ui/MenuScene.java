@@ -514,7 +514,7 @@ public class MenuScene {
 
         // IP input field
         TextField ipField = new TextField();
-        ipField.setPromptText("Enter IP address...");
+        ipField.setPromptText("IP address (or IP#ROOM, udp:IP)...");
         ipField.setStyle("-fx-background-color: #444; -fx-text-fill: white; -fx-prompt-text-fill: gray;");
         ipField.setFont(Font.font("Arial", 14));
 
@@ -656,7 +656,9 @@ public class MenuScene {
                 Alert alert = new Alert(Alert.AlertType.ERROR);
                 alert.setTitle("Connection Failed");
                 alert.setHeaderText("Could not connect to host");
-                alert.setContentText("Make sure the IP address is correct and the host is ready.");
+                String reason = network.getJoinError();
+                alert.setContentText(reason != null ? reason
+                    : "Make sure the IP address is correct and the host is ready.");
                 alert.showAndWait();
             }
         });
@@ -0,0 +1,246 @@
+package com.vibetanks.core;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@DisplayName("BulletStore")
+class BulletStoreTest {
+
+    private BulletStore bullets;
+
+    @BeforeEach
+    void setUp() {
+        Bullet.resetIdCounter();
+        bullets = new BulletStore();
+    }
+
+    private int spawn(double x, double y) {
+        return bullets.add(x, y, Direction.RIGHT, false, 1, false, 1, 8, false);
+    }
+
+    private Set<Long> liveIds() {
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < bullets.size(); i++) {
+            ids.add(bullets.getId(bullets.slot(i)));
+        }
+        return ids;
+    }
+
+    @Nested
+    @DisplayName("Columns")
+    class Columns {
+
+        @Test
+        @DisplayName("add stores every field")
+        void addStoresEveryField() {
+            int slot = bullets.add(10, 20, Direction.LEFT, true, 2, true, 3, 32, true);
+
+            assertEquals(10, bullets.getX(slot));
+            assertEquals(20, bullets.getY(slot));
+            assertEquals(Direction.LEFT, bullets.getDirection(slot));
+            assertTrue(bullets.isFromEnemy(slot));
+            assertEquals(2, bullets.getPower(slot));
+            assertTrue(bullets.canDestroyTrees(slot));
+            assertEquals(3, bullets.getOwnerPlayerNumber(slot));
+            assertEquals(32, bullets.getSize(slot));
+            assertTrue(bullets.isRainbow(slot));
+        }
+
+        @Test
+        @DisplayName("ids come from the shared Bullet counter")
+        void idsShareBulletCounter() {
+            int first = spawn(0, 0);
+            Bullet object = new Bullet(0, 0, Direction.UP, false, 1, false);
+            int second = spawn(0, 0);
+
+            assertEquals(1, bullets.getId(first));
+            assertEquals(2, object.getId());
+            assertEquals(3, bullets.getId(second));
+        }
+
+        @Test
+        @DisplayName("add(Bullet) keeps the bullet's id and get copies it back")
+        void addBulletRoundTrips() {
+            Bullet bullet = new Bullet(42, 5, 6, Direction.DOWN, true, 2, false, 0, 8, false);
+            int slot = bullets.add(bullet);
+
+            Bullet copy = bullets.get(slot);
+            assertEquals(42, copy.getId());
+            assertEquals(5, copy.getX());
+            assertEquals(Direction.DOWN, copy.getDirection());
+            assertTrue(copy.isFromEnemy());
+            assertEquals(2, copy.getPower());
+        }
+
+        @Test
+        @DisplayName("update moves like Bullet.update")
+        void updateMatchesBullet() {
+            Bullet bullet = new Bullet(100, 100, Direction.UP, false, 1, false);
+            int slot = bullets.add(bullet);
+
+            bullet.update();
+            bullets.update(slot);
+
+            assertEquals(bullet.getX(), bullets.getX(slot));
+            assertEquals(bullet.getY(), bullets.getY(slot));
+        }
+    }
+
+    @Nested
+    @DisplayName("Removal")
+    class Removal {
+
+        @Test
+        @DisplayName("remove swaps the last bullet into place")
+        void removeSwapsLastIntoPlace() {
+            int a = spawn(0, 0);
+            int b = spawn(10, 0);
+            int c = spawn(20, 0);
+
+            bullets.remove(a);
+
+            assertEquals(2, bullets.size());
+            assertEquals(c, bullets.slot(0));
+            assertEquals(b, bullets.slot(1));
+            assertEquals(Set.of(2L, 3L), liveIds());
+        }
+
+        @Test
+        @DisplayName("slots keep their data when others are removed")
+        void slotsAreStable() {
+            int a = spawn(0, 0);
+            int b = spawn(10, 0);
+            int c = spawn(20, 0);
+
+            bullets.remove(b);
+
+            assertEquals(0, bullets.getX(a));
+            assertEquals(20, bullets.getX(c));
+            assertEquals(3, bullets.getId(c));
+            assertEquals(c, bullets.find(3));
+            assertEquals(-1, bullets.find(2));
+        }
+
+        @Test
+        @DisplayName("freed slots are reused")
+        void freedSlotsAreReused() {
+            spawn(0, 0);
+            int b = spawn(10, 0);
+            bullets.remove(b);
+
+            assertEquals(b, spawn(30, 0));
+            assertEquals(30, bullets.getX(b));
+            assertFalse(bullets.isMarked(b));
+        }
+
+        @Test
+        @DisplayName("removing while iterating visits every bullet once")
+        void removeDuringIteration() {
+            for (int i = 0; i < 10; i++) {
+                spawn(i, 0);
+            }
+
+            int visited = 0;
+            for (int i = 0; i < bullets.size(); ) {
+                int slot = bullets.slot(i);
+                visited++;
+                if ((int) bullets.getX(slot) % 2 == 0) {
+                    bullets.remove(slot);
+                } else {
+                    i++;
+                }
+            }
+
+            assertEquals(10, visited);
+            assertEquals(Set.of(2L, 4L, 6L, 8L, 10L), liveIds());
+        }
+
+        @Test
+        @DisplayName("removeMarked removes only marked bullets")
+        void removeMarked() {
+            int a = spawn(0, 0);
+            spawn(10, 0);
+            int c = spawn(20, 0);
+            bullets.mark(a);
+            bullets.mark(c);
+            bullets.mark(c);
+
+            bullets.removeMarked();
+
+            assertEquals(Set.of(2L), liveIds());
+        }
+
+        @Test
+        @DisplayName("clear empties the store")
+        void clearEmpties() {
+            spawn(0, 0);
+            spawn(10, 0);
+            bullets.clear();
+
+            assertTrue(bullets.isEmpty());
+            assertEquals(0, spawn(0, 0));
+        }
+    }
+
+    @Nested
+    @DisplayName("Growth and Allocation")
+    class GrowthAndAllocation {
+
+        @Test
+        @DisplayName("store grows past its initial capacity")
+        void growsPastInitialCapacity() {
+            for (int i = 0; i < 1000; i++) {
+                spawn(i, i);
+            }
+
+            assertEquals(1000, bullets.size());
+            int slot = bullets.find(1000);
+            assertEquals(999, bullets.getX(slot));
+        }
+
+        @Test
+        @DisplayName("bursts of spawns and removals allocate nothing once grown")
+        void burstsDoNotAllocate() {
+            assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+            Runnable burst = () -> {
+                for (int i = 0; i < 200; i++) {
+                    spawn(i, 0);
+                }
+                for (int i = 0; i < bullets.size(); ) {
+                    int slot = bullets.slot(i);
+                    bullets.update(slot);
+                    if (bullets.isOutOfBounds(slot, 100, 100)) {
+                        bullets.remove(slot);
+                    } else {
+                        i++;
+                    }
+                }
+                while (!bullets.isEmpty()) {
+                    bullets.remove(bullets.slot(0));
+                }
+            };
+            burst.run(); // Grow the arrays
+
+            long threadId = Thread.currentThread().getId();
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < 100; i++) {
+                burst.run();
+            }
+            long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+            // 100 bursts of 200 bullets; allow for the measurement itself
+            assertTrue(allocated < 16 * 1024, "allocated " + allocated + " bytes");
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.vibetanks.core;
+
+import com.vibetanks.util.GameLogger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares repairing a FlowField after each destroyed tile with rebuilding it from scratch.
+ *
+ * Generates levels with LevelGenerator and plays each one out the way a match wears it
+ * down: bricks and trees are shot away one at a time in random order, and after every hit
+ * the shared field is repaired while a second field is rebuilt from the same map. Reports
+ * the mean and worst time of both per hit, and fails if any distance differs. Uses its
+ * own seeded Random, so runs are repeatable and leave GameConstants.RANDOM alone.
+ *
+ * Usage: mvn -Pflowfield-benchmark test-compile exec:java [-Dexec.args=levels]
+ */
+public class FlowFieldBenchmark {
+    private static final GameLogger LOG = GameLogger.getLogger(FlowFieldBenchmark.class);
+    private static final int MAP_SIZE = 26;
+    private static final int WARMUP_LEVELS = 20;
+
+    public static void main(String[] args) {
+        int levels = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        GameMap map = new GameMap(MAP_SIZE, MAP_SIZE);
+        Random random = new Random(1);
+        LevelGenerator generator = new LevelGenerator(MAP_SIZE, MAP_SIZE, random);
+
+        run(map, generator, random, WARMUP_LEVELS); // JIT
+        long[] result = run(map, generator, random, levels);
+        long hits = result[0];
+        LOG.info("{} levels, {} tile hits", levels, hits);
+        LOG.info("Repair:  {} us mean, {} us worst", String.format("%.2f", result[1] / 1000.0 / hits), result[2] / 1000);
+        LOG.info("Rebuild: {} us mean, {} us worst", String.format("%.2f", result[3] / 1000.0 / hits), result[4] / 1000);
+        LOG.info("Speedup: {}x", String.format("%.1f", (double) result[3] / result[1]));
+    }
+
+    // [hits, repair total ns, repair worst ns, rebuild total ns, rebuild worst ns]
+    private static long[] run(GameMap map, LevelGenerator generator, Random random, int levels) {
+        long[] result = new long[5];
+        List<Integer> targets = new ArrayList<>();
+        GameMap.TileType[][] tiles = new GameMap.TileType[MAP_SIZE][MAP_SIZE];
+        for (int level = 1; level <= levels; level++) {
+            generator.generateRandomLevel(tiles, level);
+            for (int row = 0; row < MAP_SIZE; row++) {
+                for (int col = 0; col < MAP_SIZE; col++) {
+                    map.setTile(row, col, tiles[row][col]);
+                }
+            }
+            FlowField shared = map.getFlowField(false);
+            FlowField scratch = new FlowField(map, GameMap.Capability.TANK);
+
+            targets.clear();
+            for (int row = 0; row < MAP_SIZE; row++) {
+                for (int col = 0; col < MAP_SIZE; col++) {
+                    GameMap.TileType tile = map.getTile(row, col);
+                    if (tile == GameMap.TileType.BRICK || tile == GameMap.TileType.TREES) {
+                        targets.add(row * MAP_SIZE + col);
+                    }
+                }
+            }
+            Collections.shuffle(targets, random);
+
+            for (int target : targets) {
+                map.setTile(target / MAP_SIZE, target % MAP_SIZE, GameMap.TileType.EMPTY);
+
+                long start = System.nanoTime();
+                map.getFlowField(false);
+                long repair = System.nanoTime() - start;
+                start = System.nanoTime();
+                scratch.rebuild();
+                long rebuild = System.nanoTime() - start;
+
+                result[0]++;
+                result[1] += repair;
+                result[2] = Math.max(result[2], repair);
+                result[3] += rebuild;
+                result[4] = Math.max(result[4], rebuild);
+                verify(shared, scratch);
+            }
+        }
+        return result;
+    }
+
+    private static void verify(FlowField repaired, FlowField rebuilt) {
+        for (int row = 0; row < MAP_SIZE; row++) {
+            for (int col = 0; col < MAP_SIZE; col++) {
+                if (repaired.distanceAt(row, col) != rebuilt.distanceAt(row, col)) {
+                    throw new IllegalStateException("Repaired distance differs at " + row + "," + col);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.vibetanks.core;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("FlowField")
+class FlowFieldTest {
+
+    private static final int SIZE = 26;
+    private static final int BASE_ROW = 24;
+    private static final int BASE_COL = 12;
+
+    private GameMap map;
+    private int[][] layout;
+
+    @BeforeEach
+    void setUp() {
+        map = new GameMap(SIZE, SIZE);
+        // Open field with ground along the bottom, like generated levels
+        layout = new int[SIZE][SIZE];
+        for (int col = 0; col < SIZE; col++) {
+            layout[SIZE - 1][col] = GameMap.TileType.GROUND.ordinal();
+        }
+    }
+
+    private void fillRow(int row, GameMap.TileType type) {
+        for (int col = 0; col < SIZE; col++) {
+            layout[row][col] = type.ordinal();
+        }
+    }
+
+    private FlowField field(boolean canSwim) {
+        map.importTiles(layout);
+        return map.getFlowField(canSwim);
+    }
+
+    // Every distance of the shared field matches a field built from scratch
+    private void assertMatchesRebuild(boolean canSwim) {
+        FlowField repaired = map.getFlowField(canSwim);
+        FlowField fresh = new FlowField(map, canSwim ? GameMap.Capability.SWIMMING_TANK : GameMap.Capability.TANK);
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                assertEquals(fresh.distanceAt(row, col), repaired.distanceAt(row, col),
+                    "distance at " + row + "," + col + (canSwim ? " swimming" : " walking"));
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Distances")
+    class Distances {
+
+        @Test
+        @DisplayName("open tiles are their step count from the base")
+        void openTilesCountSteps() {
+            FlowField field = field(false);
+
+            assertEquals(0, field.distanceAt(BASE_ROW, BASE_COL));
+            assertEquals(4, field.distanceAt(20, 12));
+            assertEquals(7, field.distanceAt(24, 5));
+        }
+
+        @Test
+        @DisplayName("empty edges connect across the map")
+        void wrapsAcrossEmptyEdges() {
+            layout[SIZE - 1][BASE_COL] = GameMap.TileType.EMPTY.ordinal();
+            FlowField field = field(false);
+
+            // Up through the top edge, in at the bottom
+            assertEquals(2, field.distanceAt(0, BASE_COL));
+            assertEquals(Direction.UP, field.directionAt(0, BASE_COL, Direction.DOWN));
+        }
+
+        @Test
+        @DisplayName("a steel wall is walked around through its gap")
+        void steelIsWalkedAround() {
+            fillRow(20, GameMap.TileType.STEEL);
+            layout[20][3] = GameMap.TileType.EMPTY.ordinal();
+            FlowField field = field(false);
+
+            assertEquals(FlowField.UNREACHABLE, field.distanceAt(20, 12));
+            assertEquals(Direction.LEFT, field.directionAt(19, 12, Direction.DOWN));
+            // 9 across to the gap, 2 through it, 3 down and 9 back
+            assertEquals(23, field.distanceAt(19, 12));
+        }
+
+        @Test
+        @DisplayName("bricks cost more than open tiles but can be crossed")
+        void bricksAreCrossedAtACost() {
+            fillRow(20, GameMap.TileType.BRICK);
+            FlowField field = field(false);
+
+            assertEquals(3 + FlowField.BRICK_COST, field.distanceAt(20, 12));
+            assertEquals(4 + FlowField.BRICK_COST, field.distanceAt(19, 12));
+            assertEquals(Direction.DOWN, field.directionAt(19, 12, Direction.LEFT));
+        }
+
+        @Test
+        @DisplayName("a short detour beats shooting through a brick")
+        void detourBeatsBrick() {
+            fillRow(20, GameMap.TileType.BRICK);
+            layout[20][11] = GameMap.TileType.EMPTY.ordinal();
+            FlowField field = field(false);
+
+            assertEquals(Direction.LEFT, field.directionAt(19, 12, Direction.DOWN));
+            assertEquals(7, field.distanceAt(19, 12));
+        }
+
+        @Test
+        @DisplayName("water stops tanks that cannot swim")
+        void waterNeedsSwimming() {
+            fillRow(20, GameMap.TileType.WATER);
+            map.importTiles(layout);
+
+            FlowField walking = map.getFlowField(false);
+            FlowField swimming = map.getFlowField(true);
+
+            assertEquals(FlowField.UNREACHABLE, walking.distanceAt(10, 12));
+            assertNull(walking.directionAt(10, 12, Direction.DOWN));
+            assertEquals(14, swimming.distanceAt(10, 12));
+            assertEquals(Direction.DOWN, swimming.directionAt(10, 12, Direction.LEFT));
+        }
+
+        @Test
+        @DisplayName("following the field from any reachable tile reaches the base")
+        void followingReachesBase() {
+            fillRow(8, GameMap.TileType.STEEL);
+            layout[8][20] = GameMap.TileType.EMPTY.ordinal();
+            fillRow(16, GameMap.TileType.BRICK);
+            layout[16][0] = GameMap.TileType.STEEL.ordinal();
+            FlowField field = field(false);
+
+            for (int row = 0; row < SIZE; row++) {
+                for (int col = 0; col < SIZE; col++) {
+                    if (field.distanceAt(row, col) == FlowField.UNREACHABLE) continue;
+                    int r = row;
+                    int c = col;
+                    for (int steps = 0; field.distanceAt(r, c) > 0; steps++) {
+                        assertTrue(steps < SIZE * SIZE, "loops from " + row + "," + col);
+                        Direction direction = field.directionAt(r, c, Direction.UP);
+                        assertNotNull(direction, "stuck at " + r + "," + c);
+                        int before = field.distanceAt(r, c);
+                        r = Math.floorMod(r + direction.getDy(), SIZE);
+                        c = Math.floorMod(c + direction.getDx(), SIZE);
+                        assertTrue(field.distanceAt(r, c) < before);
+                    }
+                    assertEquals(BASE_ROW, r);
+                    assertEquals(BASE_COL, c);
+                }
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Directions")
+    class Directions {
+
+        @Test
+        @DisplayName("the preferred direction wins ties")
+        void preferredWinsTies() {
+            FlowField field = field(false);
+
+            // Above and left of the base, down and right are equally good
+            assertEquals(Direction.DOWN, field.directionAt(20, 8, Direction.DOWN));
+            assertEquals(Direction.RIGHT, field.directionAt(20, 8, Direction.RIGHT));
+            assertEquals(Direction.DOWN, field.directionAt(20, 8, Direction.UP));
+        }
+
+        @Test
+        @DisplayName("no direction at the base")
+        void noDirectionAtBase() {
+            assertNull(field(false).directionAt(BASE_ROW, BASE_COL, Direction.UP));
+        }
+
+        @Test
+        @DisplayName("a tank reads the tile under its centre")
+        void tankUsesCentreTile() {
+            FlowField field = field(false);
+            // Straddling columns 4 and 5 of row 24, centre in column 5
+            Tank tank = new Tank(4 * 32 + 20, 24 * 32 + 2, Direction.UP, false, 0);
+
+            assertEquals(Direction.RIGHT, field.directionFor(tank));
+        }
+    }
+
+    @Nested
+    @DisplayName("Sharing and Rebuilds")
+    class SharingAndRebuilds {
+
+        @Test
+        @DisplayName("all tanks share one field per capability")
+        void fieldIsShared() {
+            map.importTiles(layout);
+
+            assertSame(map.getFlowField(false), map.getFlowField(false));
+            assertSame(map.getFlowField(true), map.getFlowField(true));
+            assertNotSame(map.getFlowField(false), map.getFlowField(true));
+        }
+
+        @Test
+        @DisplayName("a new layout rebuilds the field")
+        void newLayoutRebuilds() {
+            FlowField field = field(false);
+            assertEquals(4, field.distanceAt(20, 12));
+
+            fillRow(21, GameMap.TileType.BRICK);
+            map.importTiles(layout);
+
+            assertSame(field, map.getFlowField(false));
+            assertEquals(3 + FlowField.BRICK_COST, map.getFlowField(false).distanceAt(20, 12));
+        }
+
+        @Test
+        @DisplayName("base protection rebuilds the field")
+        void baseProtectionRebuilds() {
+            FlowField field = field(false);
+
+            map.setBaseProtection(GameMap.TileType.STEEL);
+
+            assertEquals(FlowField.UNREACHABLE, map.getFlowField(false).distanceAt(20, 12));
+            map.resetBaseProtection();
+            assertSame(field, map.getFlowField(false));
+            assertEquals(1 + FlowField.BRICK_COST, field.distanceAt(22, 12));
+        }
+    }
+
+    @Nested
+    @DisplayName("Repairs")
+    class Repairs {
+
+        @Test
+        @DisplayName("a destroyed brick shortens the paths through it")
+        void destroyedBrickShortensPaths() {
+            fillRow(20, GameMap.TileType.BRICK);
+            FlowField field = field(false);
+            assertEquals(4 + FlowField.BRICK_COST, field.distanceAt(19, 12));
+
+            map.setTile(20, 12, GameMap.TileType.EMPTY);
+
+            assertSame(field, map.getFlowField(false));
+            assertEquals(5, field.distanceAt(19, 12));
+            assertEquals(6, field.distanceAt(19, 11));
+            assertMatchesRebuild(false);
+        }
+
+        @Test
+        @DisplayName("a brick shot by a bullet is repaired too")
+        void bulletHitRepairs() {
+            fillRow(20, GameMap.TileType.BRICK);
+            FlowField field = field(false);
+
+            assertTrue(map.checkBulletCollision(new Bullet(12 * 32 + 12, 20 * 32 + 12, Direction.UP, true, 1, false)));
+
+            assertEquals(GameMap.TileType.EMPTY, map.getTile(20, 12));
+            assertEquals(5, map.getFlowField(false).distanceAt(19, 12));
+            assertSame(field, map.getFlowField(false));
+        }
+
+        @Test
+        @DisplayName("a new wall reroutes the paths that ran through it")
+        void newWallReroutes() {
+            FlowField field = field(false);
+
+            for (int col = 4; col < SIZE; col++) {
+                map.setTile(20, col, GameMap.TileType.STEEL);
+            }
+
+            assertSame(field, map.getFlowField(false));
+            assertEquals(FlowField.UNREACHABLE, field.distanceAt(20, 12));
+            assertEquals(Direction.LEFT, field.directionAt(19, 12, Direction.DOWN));
+            // 9 across to column 3, then 5 down and 9 back
+            assertEquals(23, field.distanceAt(19, 12));
+            assertMatchesRebuild(false);
+        }
+
+        @Test
+        @DisplayName("opening and closing a wraparound edge")
+        void wraparoundEdges() {
+            field(false);
+
+            map.setTile(SIZE - 1, BASE_COL, GameMap.TileType.EMPTY);
+            assertEquals(2, map.getFlowField(false).distanceAt(0, BASE_COL));
+            assertMatchesRebuild(false);
+
+            // Trees can be driven through but not wrapped across
+            map.setTile(0, BASE_COL, GameMap.TileType.TREES);
+            assertEquals(24, map.getFlowField(false).distanceAt(0, BASE_COL));
+            assertMatchesRebuild(false);
+        }
+
+        @Test
+        @DisplayName("a new level is rebuilt")
+        void newLevelRebuilds() {
+            field(false);
+            field(true);
+
+            map.nextLevel();
+
+            assertMatchesRebuild(false);
+            assertMatchesRebuild(true);
+        }
+
+        @Test
+        @DisplayName("random play on generated levels matches rebuilding from scratch")
+        void randomPlayMatchesRebuild() {
+            GameMap.TileType[] types = GameMap.TileType.values();
+            Random random = new Random(24);
+            for (int level = 1; level <= 5; level++) {
+                map.setLevelNumber(level);
+                GameConstants.RANDOM.setSeed(level);
+                map.generateRandomLevel();
+                map.getFlowField(false);
+                map.getFlowField(true);
+
+                for (int round = 0; round < 40; round++) {
+                    // Mostly bricks and trees shot away, sometimes something new appears
+                    int changes = 1 + random.nextInt(4);
+                    for (int i = 0; i < changes; i++) {
+                        int row = random.nextInt(SIZE);
+                        int col = random.nextInt(SIZE);
+                        GameMap.TileType tile = map.getTile(row, col);
+                        if (random.nextInt(4) == 0) {
+                            map.setTile(row, col, types[random.nextInt(types.length)]);
+                        } else if (tile == GameMap.TileType.BRICK || tile == GameMap.TileType.TREES) {
+                            map.setTile(row, col, GameMap.TileType.EMPTY);
+                        }
+                    }
+                    assertMatchesRebuild(false);
+                    assertMatchesRebuild(true);
+                }
+            }
+        }
+    }
+}
@@ -340,6 +340,113 @@ class GameMapTest {
             // Far right boundary (beyond map width)
             assertTrue(gameMap.checkTankCollision(MAP_WIDTH * TILE_SIZE, 100, 28));
         }
+
+        @Test
+        @DisplayName("Tank spanning a bitset word boundary sees tiles on both sides")
+        void collisionAcrossWordBoundary() {
+            // Tile index 64 (row 2, col 12) starts the second 64-bit word
+            gameMap.setTile(2, 12, GameMap.TileType.BRICK);
+
+            assertTrue(gameMap.checkTankCollision(11 * TILE_SIZE + 8, 2 * TILE_SIZE, 28));
+            assertFalse(gameMap.checkTankCollision(10 * TILE_SIZE, 2 * TILE_SIZE, 28));
+
+            gameMap.setTile(2, 12, GameMap.TileType.EMPTY);
+            gameMap.setTile(2, 11, GameMap.TileType.STEEL);
+            assertTrue(gameMap.checkTankCollision(11 * TILE_SIZE + 8, 2 * TILE_SIZE, 28));
+        }
+
+        @Test
+        @DisplayName("Passability should follow tile type and capability")
+        void passabilityByCapability() {
+            GameMap.TileType[] types = GameMap.TileType.values();
+            for (int i = 0; i < types.length; i++) {
+                gameMap.setTile(3, i, types[i]);
+            }
+            for (GameMap.Capability capability : GameMap.Capability.values()) {
+                for (int i = 0; i < types.length; i++) {
+                    assertEquals(!capability.isBlockedBy(types[i]), gameMap.isPassable(3, i, capability),
+                        capability + " on " + types[i]);
+                }
+            }
+            assertFalse(gameMap.isPassable(3, 1, GameMap.Capability.TANK));
+            assertTrue(gameMap.isPassable(3, 3, GameMap.Capability.SWIMMING_TANK));
+            assertFalse(gameMap.isPassable(3, 4, GameMap.Capability.TREE_BULLET));
+            assertFalse(gameMap.isPassable(-1, 0, GameMap.Capability.BULLET));
+        }
+
+        @Test
+        @DisplayName("Bullets should break brick, and steel only with power 2")
+        void bulletsBreakTiles() {
+            gameMap.setTile(5, 5, GameMap.TileType.BRICK);
+            gameMap.setTile(5, 7, GameMap.TileType.STEEL);
+
+            assertTrue(gameMap.checkBulletCollision(new Bullet(5 * TILE_SIZE, 5 * TILE_SIZE, Direction.UP, false, 1, false)));
+            assertEquals(GameMap.TileType.EMPTY, gameMap.getTile(5, 5));
+            assertFalse(gameMap.checkTankCollision(5 * TILE_SIZE, 5 * TILE_SIZE, 28));
+
+            assertTrue(gameMap.checkBulletCollision(new Bullet(7 * TILE_SIZE, 5 * TILE_SIZE, Direction.UP, false, 1, false)));
+            assertEquals(GameMap.TileType.STEEL, gameMap.getTile(5, 7));
+            assertTrue(gameMap.checkBulletCollision(new Bullet(7 * TILE_SIZE, 5 * TILE_SIZE, Direction.UP, false, 2, false)));
+            assertEquals(GameMap.TileType.EMPTY, gameMap.getTile(5, 7));
+        }
+
+        @Test
+        @DisplayName("Burning trees should let SAW bullets through")
+        void burningTreesPassBullets() {
+            gameMap.setTile(5, 5, GameMap.TileType.TREES);
+            Bullet normal = new Bullet(5 * TILE_SIZE, 5 * TILE_SIZE, Direction.UP, false, 1, false);
+            Bullet saw = new Bullet(5 * TILE_SIZE, 5 * TILE_SIZE, Direction.UP, false, 1, true);
+
+            assertFalse(gameMap.checkBulletCollision(normal));
+            assertTrue(gameMap.checkBulletCollision(saw)); // Sets it on fire
+            assertTrue(gameMap.hasBurningTiles());
+            assertFalse(gameMap.checkBulletCollision(saw));
+            assertTrue(gameMap.isPassable(5, 5, GameMap.Capability.TREE_BULLET));
+
+            gameMap.importBurningTiles(new HashMap<>());
+            assertFalse(gameMap.isPassable(5, 5, GameMap.Capability.TREE_BULLET));
+        }
+    }
+
+    @Nested
+    @DisplayName("Delta Tracking Tests")
+    class DeltaTrackingTests {
+
+        @Test
+        @DisplayName("New map should have nothing to sync")
+        void newMapIsSynced() {
+            assertTrue(gameMap.exportDeltaTiles().isEmpty());
+            assertFalse(gameMap.needsFullSync());
+        }
+
+        @Test
+        @DisplayName("Changed tiles should be exported until marked synced")
+        void changedTilesExported() {
+            gameMap.markTilesSynced();
+            gameMap.setTile(4, 6, gameMap.getTile(4, 6) == GameMap.TileType.WATER ? GameMap.TileType.ICE : GameMap.TileType.WATER);
+            gameMap.setTile(20, 25, GameMap.TileType.EMPTY == gameMap.getTile(20, 25) ? GameMap.TileType.BRICK : GameMap.TileType.EMPTY);
+
+            java.util.List<int[]> changes = gameMap.exportDeltaTiles();
+            assertEquals(2, changes.size());
+            assertArrayEquals(new int[]{4, 6, gameMap.getTile(4, 6).ordinal()}, changes.get(0));
+            assertArrayEquals(new int[]{20, 25, gameMap.getTile(20, 25).ordinal()}, changes.get(1));
+
+            gameMap.markTilesSynced();
+            assertTrue(gameMap.exportDeltaTiles().isEmpty());
+        }
+
+        @Test
+        @DisplayName("Rewriting most of the map should need a full sync")
+        void largeChangeNeedsFullSync() {
+            gameMap.markTilesSynced();
+            for (int row = 0; row < MAP_HEIGHT; row++) {
+                for (int col = 0; col < MAP_WIDTH; col++) {
+                    gameMap.setTile(row, col, gameMap.getTile(row, col) == GameMap.TileType.ICE
+                        ? GameMap.TileType.EMPTY : GameMap.TileType.ICE);
+                }
+            }
+            assertTrue(gameMap.needsFullSync());
+        }
     }
 
     @Nested
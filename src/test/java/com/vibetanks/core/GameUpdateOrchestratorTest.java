@@ -409,7 +409,7 @@ class GameUpdateOrchestratorTest {
         Base base = new Base(400, 700);
         List<Tank> playerTanks = new ArrayList<>();
         List<Tank> enemyTanks = new ArrayList<>();
-        List<Bullet> bullets = new ArrayList<>();
+        BulletStore bullets = new BulletStore();
         List<Laser> lasers = new ArrayList<>();
         List<PowerUp> powerUps = new ArrayList<>();
         SoundManager soundManager = new SoundManager();
@@ -435,7 +435,7 @@ class GameUpdateOrchestratorTest {
         public List<Tank> getEnemyTanks() { return enemyTanks; }
 
         @Override
-        public List<Bullet> getBullets() { return bullets; }
+        public BulletStore getBullets() { return bullets; }
 
         @Override
         public List<Laser> getLasers() { return lasers; }
@@ -494,7 +494,7 @@ class GameUpdateOrchestratorTest {
         }
 
         @Override
-        public void notifyBulletDestroyed(Bullet bullet) { }
+        public void notifyBulletDestroyed(int slot) { }
 
         @Override
         public List<Tank> getAllTanksCache() {
@@ -195,7 +195,7 @@ class LevelTransitionHandlerTest {
         @Test
         @DisplayName("Should clear all lists")
         void shouldClearAllLists() {
-            List<Bullet> bullets = new ArrayList<>();
+            BulletStore bullets = new BulletStore();
             bullets.add(new Bullet(100, 100, Direction.UP, true, 1, false));
 
             List<Laser> lasers = new ArrayList<>();
@@ -214,7 +214,7 @@ class LevelTransitionHandlerTest {
         @Test
         @DisplayName("Should handle empty lists")
         void shouldHandleEmptyLists() {
-            List<Bullet> bullets = new ArrayList<>();
+            BulletStore bullets = new BulletStore();
             List<Laser> lasers = new ArrayList<>();
             List<PowerUp> powerUps = new ArrayList<>();
 
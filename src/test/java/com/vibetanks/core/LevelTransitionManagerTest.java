@@ -345,7 +345,7 @@ class LevelTransitionManagerTest {
         EnemySpawner enemySpawner = new EnemySpawner(20, 5, gameMap);
         List<Tank> playerTanks = new ArrayList<>();
         List<Tank> enemyTanks = new ArrayList<>();
-        List<Bullet> bullets = new ArrayList<>();
+        BulletStore bullets = new BulletStore();
         List<Laser> lasers = new ArrayList<>();
         List<PowerUp> powerUps = new ArrayList<>();
         List<ExplosionEffect> explosions = new ArrayList<>();
@@ -397,7 +397,7 @@ class LevelTransitionManagerTest {
         public List<Tank> getEnemyTanks() { return enemyTanks; }
 
         @Override
-        public List<Bullet> getBullets() { return bullets; }
+        public BulletStore getBullets() { return bullets; }
 
         @Override
         public List<Laser> getLasers() { return lasers; }
@@ -21,6 +21,7 @@ class ProjectileHandlerTest {
     private List<Tank> playerTanks;
     private Base base;
     private SoundManager soundManager;
+    private BulletStore bullets;
 
     @BeforeEach
     void setUp() {
@@ -29,6 +30,7 @@ class ProjectileHandlerTest {
         playerTanks = new ArrayList<>();
         base = new Base(12 * 32, 24 * 32);
         soundManager = new SoundManager(); // Create real SoundManager (sounds are optional)
+        bullets = new BulletStore();
     }
 
     @Nested
@@ -88,7 +90,7 @@ class ProjectileHandlerTest {
             Bullet bullet = new Bullet(1, -100, 100, Direction.LEFT, false, 1, false, 1, 8);
 
             ProjectileHandler.BulletCollisionResult result = ProjectileHandler.processBullet(
-                    bullet, gameMap, enemyTanks, playerTanks, base, null, 832, 832, soundManager);
+                    bullets, bullets.add(bullet), gameMap, enemyTanks, playerTanks, base, null, 832, 832, soundManager);
 
             assertTrue(result.shouldRemove);
         }
@@ -106,7 +108,7 @@ class ProjectileHandlerTest {
             Bullet bullet = new Bullet(1, 200, 200, Direction.DOWN, false, 1, false, 1, 8);
 
             ProjectileHandler.BulletCollisionResult result = ProjectileHandler.processBullet(
-                    bullet, gameMap, enemyTanks, playerTanks, base, null, 832, 832, soundManager);
+                    bullets, bullets.add(bullet), gameMap, enemyTanks, playerTanks, base, null, 832, 832, soundManager);
 
             assertTrue(result.shouldRemove);
             assertTrue(result.hitEnemy);
@@ -125,7 +127,7 @@ class ProjectileHandlerTest {
             Bullet bullet = new Bullet(1, 100, 100, Direction.DOWN, true, 1, false, 0, 8);
 
             ProjectileHandler.BulletCollisionResult result = ProjectileHandler.processBullet(
-                    bullet, gameMap, enemyTanks, playerTanks, base, null, 832, 832, soundManager);
+                    bullets, bullets.add(bullet), gameMap, enemyTanks, playerTanks, base, null, 832, 832, soundManager);
 
             assertFalse(result.hitPlayer);
             assertFalse(result.hitEnemy);
@@ -142,7 +144,7 @@ class ProjectileHandlerTest {
             Bullet bullet = new Bullet(1, 200, 200, Direction.DOWN, true, 1, false, 0, 8);
 
             ProjectileHandler.BulletCollisionResult result = ProjectileHandler.processBullet(
-                    bullet, gameMap, enemyTanks, playerTanks, base, null, 832, 832, soundManager);
+                    bullets, bullets.add(bullet), gameMap, enemyTanks, playerTanks, base, null, 832, 832, soundManager);
 
             assertTrue(result.shouldRemove);
             assertFalse(result.hitPlayer); // Shield blocked it
@@ -156,7 +158,7 @@ class ProjectileHandlerTest {
             Bullet bullet = new Bullet(1, 12 * 32 + 5, 24 * 32 + 5, Direction.DOWN, true, 1, false, 0, 8);
 
             ProjectileHandler.BulletCollisionResult result = ProjectileHandler.processBullet(
-                    bullet, gameMap, enemyTanks, playerTanks, base, null, 832, 832, soundManager);
+                    bullets, bullets.add(bullet), gameMap, enemyTanks, playerTanks, base, null, 832, 832, soundManager);
 
             assertTrue(result.shouldRemove);
             assertTrue(result.hitBase);
@@ -170,7 +172,6 @@ class ProjectileHandlerTest {
         @Test
         @DisplayName("Two colliding bullets are both removed")
         void collidingBulletsAreRemoved() {
-            List<Bullet> bullets = new ArrayList<>();
             bullets.add(new Bullet(1, 100, 100, Direction.RIGHT, false, 1, false, 1, 8));
             bullets.add(new Bullet(2, 100, 100, Direction.LEFT, true, 1, false, 0, 8));
 
@@ -182,7 +183,6 @@ class ProjectileHandlerTest {
         @Test
         @DisplayName("Non-colliding bullets are not removed")
         void nonCollidingBulletsNotRemoved() {
-            List<Bullet> bullets = new ArrayList<>();
             bullets.add(new Bullet(1, 100, 100, Direction.RIGHT, false, 1, false, 1, 8));
             bullets.add(new Bullet(2, 500, 500, Direction.LEFT, true, 1, false, 0, 8));
 
@@ -190,6 +190,21 @@ class ProjectileHandlerTest {
 
             assertEquals(2, bullets.size());
         }
+
+        @Test
+        @DisplayName("Only the colliding pair is removed")
+        void onlyCollidingPairIsRemoved() {
+            bullets.add(new Bullet(1, 300, 300, Direction.UP, false, 1, false, 1, 8));
+            bullets.add(new Bullet(2, 100, 100, Direction.RIGHT, false, 1, false, 1, 8));
+            bullets.add(new Bullet(3, 600, 600, Direction.UP, true, 1, false, 0, 8));
+            bullets.add(new Bullet(4, 102, 100, Direction.LEFT, true, 1, false, 0, 8));
+
+            ProjectileHandler.processBulletToBulletCollisions(bullets, playerTanks);
+
+            assertEquals(2, bullets.size());
+            assertNotEquals(-1, bullets.find(1));
+            assertNotEquals(-1, bullets.find(3));
+        }
     }
 
     @Nested
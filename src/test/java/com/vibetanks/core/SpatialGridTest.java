@@ -5,9 +5,12 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 @DisplayName("SpatialGrid")
 class SpatialGridTest {
@@ -204,6 +207,125 @@ class SpatialGridTest {
         }
     }
 
+    @Nested
+    @DisplayName("Visitor Queries")
+    class VisitorQueries {
+
+        @Test
+        @DisplayName("entity covering several cells is visited once")
+        void multiCellEntityVisitedOnce() {
+            grid.insertWithSize("tank", 60, 60, 70); // Cells (0,0) to (1,1)
+
+            List<String> seen = new ArrayList<>();
+            grid.forEachNearby(64, 64, seen::add);
+            assertEquals(List.of("tank"), seen);
+            assertEquals(List.of("tank"), grid.getInArea(0, 0, 200, 200));
+        }
+
+        @Test
+        @DisplayName("visitor returning false stops the query at that entity")
+        void visitorCanStop() {
+            grid.insert("e1", 100, 100);
+            grid.insert("e2", 105, 105);
+            grid.insert("e3", 110, 110);
+
+            List<String> seen = new ArrayList<>();
+            String stoppedAt = grid.forEachNearby(100, 100, e -> {
+                seen.add(e);
+                return !e.equals("e2");
+            });
+            assertEquals("e2", stoppedAt);
+            assertEquals(List.of("e1", "e2"), seen);
+            assertNull(grid.forEachNearby(100, 100, e -> true));
+        }
+
+        @Test
+        @DisplayName("inserting after a query is seen by the next query")
+        void insertAfterQueryIsSeen() {
+            grid.insert("e1", 100, 100);
+            assertEquals(1, grid.getNearby(100, 100).size());
+
+            grid.insert("e2", 100, 100);
+            assertEquals(List.of("e1", "e2"), grid.getNearby(100, 100));
+        }
+
+        @Test
+        @DisplayName("grid grows past its initial capacity")
+        void growsWithEntityCount() {
+            for (int i = 0; i < 1000; i++) {
+                grid.insertWithSize("e" + i, (i * 13) % MAP_SIZE, (i * 29) % MAP_SIZE, 32);
+            }
+            assertEquals(1000, grid.getInArea(0, 0, MAP_SIZE, MAP_SIZE).size());
+
+            grid.clear();
+            grid.insert("only", 10, 10);
+            assertEquals(List.of("only"), grid.getInArea(0, 0, MAP_SIZE, MAP_SIZE));
+        }
+
+        @Test
+        @DisplayName("index queries report insertion order and may stop early")
+        void indexQueriesReportInsertionOrder() {
+            grid.insert(null, 500, 500);
+            grid.insert(null, 100, 100);
+            grid.insert(null, 110, 100);
+
+            List<Integer> seen = new ArrayList<>();
+            assertEquals(-1, grid.forEachIndexNearby(100, 100, index -> seen.add(index)));
+            assertEquals(List.of(1, 2), seen);
+            assertEquals(2, grid.forEachIndexNearby(100, 100, index -> index != 2));
+        }
+
+        @Test
+        @DisplayName("nested query on the same grid is rejected")
+        void nestedQueryRejected() {
+            grid.insert("e1", 100, 100);
+            assertThrows(IllegalStateException.class,
+                () -> grid.forEachNearby(100, 100, e -> grid.forEachInCell(100, 100, inner -> true) == null));
+            // The grid is usable again afterwards
+            assertEquals(List.of("e1"), grid.getInCell(100, 100));
+        }
+
+        @Test
+        @DisplayName("rebuild and queries allocate nothing once warmed up")
+        void queriesDoNotAllocate() {
+            assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+            String[] bullets = new String[300];
+            for (int i = 0; i < bullets.length; i++) {
+                bullets[i] = "b" + i;
+            }
+            int[] visited = new int[1];
+            SpatialGrid.Visitor<String> counter = e -> {
+                visited[0]++;
+                return true;
+            };
+            Runnable frame = () -> {
+                grid.clear();
+                for (int i = 0; i < bullets.length; i++) {
+                    grid.insert(bullets[i], (i * 37) % MAP_SIZE, (i * 53) % MAP_SIZE);
+                }
+                for (int i = 0; i < bullets.length; i++) {
+                    grid.forEachNearby((i * 37) % MAP_SIZE, (i * 53) % MAP_SIZE, counter);
+                }
+            };
+            for (int i = 0; i < 200; i++) {
+                frame.run();
+            }
+
+            long threadId = Thread.currentThread().getId();
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < 100; i++) {
+                frame.run();
+            }
+            long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+            assertTrue(visited[0] > 0);
+            // 100 frames of 300 inserts and queries; allow for the measurement itself
+            assertTrue(allocated < 16 * 1024, "allocated " + allocated + " bytes");
+        }
+    }
+
     @Nested
     @DisplayName("Statistics")
     class Statistics {
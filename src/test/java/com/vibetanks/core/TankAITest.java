@@ -1,10 +1,13 @@
 package com.vibetanks.core;
 
+import com.vibetanks.audio.SoundManager;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @DisplayName("TankAI Tests")
@@ -60,4 +63,56 @@ class TankAITest {
             assertNotNull(ai);
         }
     }
+
+    @Nested
+    @DisplayName("Stuck Handling Tests")
+    class StuckHandlingTests {
+
+        private GameMap map;
+        private BulletStore bullets;
+
+        @BeforeEach
+        void setUpMap() {
+            // Open map with ground along the bottom; base at row 24, column 12
+            map = new GameMap(26, 26);
+            int[][] layout = new int[26][26];
+            for (int col = 0; col < 26; col++) {
+                layout[25][col] = GameMap.TileType.GROUND.ordinal();
+            }
+            map.importTiles(layout);
+            bullets = new BulletStore();
+        }
+
+        // Enemy tank in column 12 just below row 10, facing up into it
+        private Tank stuckUnder(GameMap.TileType blocker) {
+            map.setTile(10, 12, blocker);
+            Tank tank = new Tank(12 * 32, 11 * 32, Direction.UP, false, 0);
+            TankAI tankAi = new TankAI(tank.getX(), tank.getY());
+            Base base = new Base(GameConstants.BASE_X, GameConstants.BASE_Y);
+            SoundManager sound = new SoundManager();
+            for (int frame = 0; frame <= GameConstants.AI_STUCK_THRESHOLD + 1; frame++) {
+                tankAi.update(tank, new TankPhysics(), map, bullets, List.of(tank), base, sound);
+            }
+            return tank;
+        }
+
+        @Test
+        @DisplayName("Tank stuck on a brick should shoot it instead of turning")
+        void stuckOnBrickShoots() {
+            Tank tank = stuckUnder(GameMap.TileType.BRICK);
+
+            assertEquals(Direction.UP, tank.getDirection());
+            assertEquals(1, bullets.size());
+            assertEquals(Direction.UP, bullets.getDirection(bullets.slot(0)));
+        }
+
+        @Test
+        @DisplayName("Tank stuck on steel should turn towards the base")
+        void stuckOnSteelTurnsTowardsBase() {
+            Tank tank = stuckUnder(GameMap.TileType.STEEL);
+
+            assertEquals(Direction.DOWN, tank.getDirection());
+            assertTrue(bullets.isEmpty());
+        }
+    }
 }
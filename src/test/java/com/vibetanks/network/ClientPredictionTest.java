@@ -0,0 +1,163 @@
+package com.vibetanks.network;
+
+import com.vibetanks.core.Base;
+import com.vibetanks.core.Direction;
+import com.vibetanks.core.GameMap;
+import com.vibetanks.core.Tank;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ClientPrediction Tests")
+class ClientPredictionTest {
+
+    private ClientPrediction prediction;
+    private GameMap gameMap;
+    private Base base;
+    private Tank tank;
+    private List<Tank> allTanks;
+
+    @BeforeEach
+    void setUp() {
+        prediction = new ClientPrediction();
+        gameMap = new GameMap(26, 26);
+        for (int row = 0; row < 26; row++) {
+            for (int col = 0; col < 26; col++) {
+                gameMap.setTile(row, col, GameMap.TileType.EMPTY);
+            }
+        }
+        base = new Base(12 * 32, 24 * 32);
+        tank = new Tank(200, 400, Direction.UP, true, 1);
+        allTanks = new ArrayList<>(List.of(tank));
+    }
+
+    // Move the local tank and record the input, as the client game loop does
+    private void moveLocally(long sequence, Direction direction) {
+        if (direction != null) {
+            tank.move(direction, gameMap, allTanks, base);
+        }
+        prediction.record(sequence, direction);
+    }
+
+    private PlayerData serverState(double x, double y, Direction direction, long lastInputSequence) {
+        PlayerData p = new PlayerData(1);
+        p.x = x;
+        p.y = y;
+        p.direction = direction.ordinal();
+        p.alive = true;
+        p.lastInputSequence = lastInputSequence;
+        return p;
+    }
+
+    @Nested
+    @DisplayName("Reconciliation Tests")
+    class ReconciliationTests {
+
+        @Test
+        @DisplayName("Snapshot agreeing with the prediction should leave the tank in place")
+        void agreeingSnapshotShouldNotCorrect() {
+            moveLocally(1, Direction.UP);
+            moveLocally(2, Direction.UP);
+            double ackedY = tank.getY();
+            moveLocally(3, Direction.UP);
+            moveLocally(4, Direction.RIGHT);
+            double x = tank.getX();
+            double y = tank.getY();
+
+            prediction.reconcile(serverState(200, ackedY, Direction.UP, 2), tank, gameMap, allTanks, base);
+
+            assertEquals(x, tank.getX());
+            assertEquals(y, tank.getY());
+            assertEquals(Direction.RIGHT, tank.getDirection());
+            assertEquals(0, prediction.getLastCorrection());
+            assertEquals(2, prediction.getPendingCount());
+        }
+
+        @Test
+        @DisplayName("Disagreeing snapshot should rewind to the host and replay pending inputs")
+        void disagreeingSnapshotShouldReplay() {
+            moveLocally(1, Direction.UP);
+            moveLocally(2, Direction.UP);
+            moveLocally(3, Direction.UP);
+            double step = 400 - tank.getY();
+
+            // Host blocked input 1 entirely; inputs 2 and 3 are still in flight
+            prediction.reconcile(serverState(200, 400, Direction.UP, 1), tank, gameMap, allTanks, base);
+
+            assertEquals(200, tank.getX());
+            assertEquals(400 - step * 2 / 3, tank.getY(), 1e-9);
+            assertTrue(prediction.getLastCorrection() > 0);
+        }
+
+        @Test
+        @DisplayName("Inputs that did not move the tank should replay as no-ops")
+        void idleInputsShouldNotMove() {
+            moveLocally(1, null);
+            moveLocally(2, null);
+
+            prediction.reconcile(serverState(100, 100, Direction.LEFT, 1), tank, gameMap, allTanks, base);
+
+            assertEquals(100, tank.getX());
+            assertEquals(100, tank.getY());
+            assertEquals(Direction.LEFT, tank.getDirection());
+        }
+
+        @Test
+        @DisplayName("Host that has not applied any input should not move the tank")
+        void noAckShouldBeIgnored() {
+            moveLocally(1, Direction.UP);
+            double y = tank.getY();
+
+            prediction.reconcile(serverState(0, 0, Direction.DOWN, 0), tank, gameMap, allTanks, base);
+
+            assertEquals(y, tank.getY());
+            assertEquals(1, prediction.getPendingCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("Buffer Tests")
+    class BufferTests {
+
+        @Test
+        @DisplayName("Acknowledged inputs should be dropped")
+        void ackShouldDropInputs() {
+            for (int i = 1; i <= 10; i++) {
+                prediction.record(i, Direction.UP);
+            }
+
+            prediction.acknowledge(7);
+
+            assertEquals(3, prediction.getPendingCount());
+        }
+
+        @Test
+        @DisplayName("Full buffer should forget the oldest input")
+        void fullBufferShouldWrap() {
+            for (int i = 1; i <= ClientPrediction.BUFFER_SIZE + 5; i++) {
+                prediction.record(i, Direction.UP);
+            }
+
+            assertEquals(ClientPrediction.BUFFER_SIZE, prediction.getPendingCount());
+            prediction.acknowledge(ClientPrediction.BUFFER_SIZE);
+            assertEquals(5, prediction.getPendingCount());
+        }
+
+        @Test
+        @DisplayName("Clear should drop every pending input")
+        void clearShouldEmpty() {
+            prediction.record(1, Direction.UP);
+            prediction.record(2, Direction.DOWN);
+
+            prediction.clear();
+
+            assertEquals(0, prediction.getPendingCount());
+        }
+    }
+}
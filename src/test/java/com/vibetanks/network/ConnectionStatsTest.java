@@ -0,0 +1,162 @@
+package com.vibetanks.network;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ConnectionStats Tests")
+class ConnectionStatsTest {
+
+    private ConnectionStats stats;
+
+    @BeforeEach
+    void setUp() {
+        stats = new ConnectionStats();
+    }
+
+    // Ping at sentMs, answered by an echoing peer at receivedMs
+    private void roundTrip(long sentMs, long receivedMs) throws IOException {
+        WireWriter ping = new WireWriter();
+        assertTrue(stats.writePingIfDue(sentMs, ping));
+        WireWriter pong = new WireWriter();
+        ConnectionStats.writePong(new WireReader(ping.toByteArray()), pong);
+        stats.onPong(new WireReader(pong.toByteArray()), receivedMs);
+    }
+
+    @Nested
+    @DisplayName("Ping Tests")
+    class PingTests {
+
+        @Test
+        @DisplayName("RTT should be unknown before the first pong")
+        void rttShouldStartUnknown() {
+            assertEquals(-1, stats.getRttMs());
+            assertTrue(stats.describe(0).startsWith("RTT -"));
+        }
+
+        @Test
+        @DisplayName("Pings should be spaced by PING_INTERVAL_MS")
+        void pingsShouldBeRateLimited() {
+            assertTrue(stats.writePingIfDue(0, new WireWriter()));
+            assertFalse(stats.writePingIfDue(ConnectionStats.PING_INTERVAL_MS - 1, new WireWriter()));
+            assertTrue(stats.writePingIfDue(ConnectionStats.PING_INTERVAL_MS, new WireWriter()));
+        }
+
+        @Test
+        @DisplayName("First pong should set the RTT directly")
+        void firstPongShouldSetRtt() throws IOException {
+            roundTrip(1000, 1040);
+
+            assertEquals(40, stats.getRttMs());
+            assertEquals(20, stats.getJitterMs());
+        }
+
+        @Test
+        @DisplayName("Later samples should be smoothed")
+        void rttShouldBeSmoothed() throws IOException {
+            roundTrip(1000, 1040);
+            roundTrip(2000, 2120);
+
+            // 40 + (120 - 40) / 8
+            assertEquals(50, stats.getRttMs());
+        }
+
+        @Test
+        @DisplayName("Duplicate pong should be ignored")
+        void duplicatePongShouldBeIgnored() throws IOException {
+            WireWriter ping = new WireWriter();
+            stats.writePingIfDue(1000, ping);
+            WireWriter pong = new WireWriter();
+            ConnectionStats.writePong(new WireReader(ping.toByteArray()), pong);
+
+            stats.onPong(new WireReader(pong.toByteArray()), 1040);
+            stats.onPong(new WireReader(pong.toByteArray()), 1900);
+
+            assertEquals(40, stats.getRttMs());
+        }
+
+        @Test
+        @DisplayName("Pong for a ping never sent should be ignored")
+        void unknownPongShouldBeIgnored() throws IOException {
+            WireWriter pong = new WireWriter();
+            pong.writeVarLong(7);
+            pong.writeVarLong(1000);
+
+            stats.onPong(new WireReader(pong.toByteArray()), 1040);
+
+            assertEquals(-1, stats.getRttMs());
+        }
+    }
+
+    @Nested
+    @DisplayName("Loss Tests")
+    class LossTests {
+
+        @Test
+        @DisplayName("Unanswered pings should count as lost only after the timeout")
+        void lossShouldWaitForTimeout() throws IOException {
+            roundTrip(0, 30);
+            stats.writePingIfDue(1000, new WireWriter()); // Never answered
+
+            assertEquals(0, stats.getLossPercent(1000 + ConnectionStats.PING_TIMEOUT_MS));
+            assertEquals(50, stats.getLossPercent(1001 + ConnectionStats.PING_TIMEOUT_MS), 1e-9);
+        }
+
+        @Test
+        @DisplayName("All pings answered should mean no loss")
+        void noLossWhenAllAnswered() throws IOException {
+            for (int i = 0; i < 20; i++) {
+                long t = i * ConnectionStats.PING_INTERVAL_MS;
+                roundTrip(t, t + 25);
+            }
+
+            assertEquals(0, stats.getLossPercent(100_000));
+            assertEquals(25, stats.getRttMs());
+        }
+    }
+
+    @Nested
+    @DisplayName("Traffic Tests")
+    class TrafficTests {
+
+        @Test
+        @DisplayName("Byte counters should accumulate")
+        void bytesShouldAccumulate() {
+            stats.addBytesIn(100);
+            stats.addBytesIn(50);
+            stats.addBytesOut(7);
+
+            assertEquals(150, stats.getBytesIn());
+            assertEquals(7, stats.getBytesOut());
+        }
+
+        @Test
+        @DisplayName("Rates should cover the span since the previous sample")
+        void ratesShouldBePerSecond() {
+            stats.getBytesInPerSecond(0); // Starts the first window
+            stats.addBytesIn(3000);
+            stats.addBytesOut(1000);
+
+            assertEquals(0, stats.getBytesInPerSecond(500), "Window not complete yet");
+            assertEquals(1500, stats.getBytesInPerSecond(2000), 1e-9);
+            assertEquals(500, stats.getBytesOutPerSecond(2000), 1e-9);
+        }
+    }
+
+    @Test
+    @DisplayName("Frame size should include the length prefix and type byte")
+    void frameSizeShouldMatchEncoding() {
+        for (int payload : new int[]{0, 1, 126, 127, 128, 20_000}) {
+            WireWriter body = new WireWriter();
+            body.writeBytes(new byte[payload], 0, payload);
+            WireWriter frame = new WireWriter();
+            WireProtocol.encodeFrame(WireProtocol.MSG_PING, body, frame);
+            assertEquals(frame.size(), WireProtocol.frameSize(payload), "payload " + payload);
+        }
+    }
+}
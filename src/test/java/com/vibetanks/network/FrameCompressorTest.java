@@ -0,0 +1,170 @@
+package com.vibetanks.network;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("FrameCompressor Tests")
+class FrameCompressorTest {
+
+    private static byte[] frame(int type, byte[] payload) {
+        WireWriter body = new WireWriter();
+        body.writeBytes(payload, 0, payload.length);
+        WireWriter frame = new WireWriter();
+        WireProtocol.encodeFrame(type, body, frame);
+        return frame.toByteArray();
+    }
+
+    // Repetitive payload resembling a snapshot: the same record with a changing field
+    private static byte[] snapshotLike(int seed) {
+        WireWriter w = new WireWriter();
+        for (int i = 0; i < 40; i++) {
+            w.writeString("Player" + (i % 4));
+            w.writeVarInt(seed + i);
+            w.writeDouble(12.5);
+            w.writeBoolean(true);
+        }
+        return w.toByteArray();
+    }
+
+    private static WireReader readFrame(byte[] frame, int expectedType) throws IOException {
+        WireProtocol.FrameBuffer buffer = new WireProtocol.FrameBuffer();
+        int type = WireProtocol.readFrame(new DataInputStream(new ByteArrayInputStream(frame)), buffer);
+        assertEquals(expectedType, type);
+        return buffer.reader();
+    }
+
+    @Nested
+    @DisplayName("Round Trip Tests")
+    class RoundTripTests {
+
+        @Test
+        @DisplayName("Compressed frame should restore the original type and payload")
+        void shouldRoundTrip() throws IOException {
+            byte[] dictionary = snapshotLike(1000);
+            byte[] payload = snapshotLike(7);
+            byte[] compressed = new FrameCompressor(dictionary).compress(frame(WireProtocol.MSG_GAME_STATE, payload));
+
+            FrameCompressor receiver = new FrameCompressor(dictionary);
+            int type = receiver.decompress(readFrame(compressed, WireProtocol.MSG_COMPRESSED));
+
+            assertEquals(WireProtocol.MSG_GAME_STATE, type);
+            byte[] restored = new byte[receiver.reader().remaining()];
+            receiver.reader().readBytes(restored, 0, restored.length);
+            assertArrayEquals(payload, restored);
+        }
+
+        @Test
+        @DisplayName("One compressor should handle many frames in a row")
+        void shouldReuseCompressor() throws IOException {
+            byte[] dictionary = snapshotLike(1000);
+            FrameCompressor sender = new FrameCompressor(dictionary);
+            FrameCompressor receiver = new FrameCompressor(dictionary);
+
+            for (int i = 0; i < 5; i++) {
+                byte[] payload = snapshotLike(i);
+                byte[] compressed = sender.compress(frame(WireProtocol.MSG_GAME_STATE_DELTA, payload));
+                assertEquals(WireProtocol.MSG_GAME_STATE_DELTA,
+                    receiver.decompress(readFrame(compressed, WireProtocol.MSG_COMPRESSED)));
+                assertEquals(payload.length, receiver.reader().remaining());
+            }
+            assertEquals(5, sender.getFrameCount());
+        }
+
+        @Test
+        @DisplayName("Different dictionary should be rejected")
+        void wrongDictionaryShouldFail() throws IOException {
+            byte[] compressed = new FrameCompressor(snapshotLike(1000))
+                .compress(frame(WireProtocol.MSG_GAME_STATE, snapshotLike(7)));
+            FrameCompressor receiver = new FrameCompressor(new byte[]{1, 2, 3});
+
+            assertThrows(IOException.class,
+                () -> receiver.decompress(readFrame(compressed, WireProtocol.MSG_COMPRESSED)));
+        }
+
+        @Test
+        @DisplayName("Oversized raw length should be rejected")
+        void oversizedLengthShouldFail() {
+            WireWriter body = new WireWriter();
+            body.writeByte(WireProtocol.MSG_GAME_STATE);
+            body.writeVarInt(WireProtocol.MAX_FRAME_SIZE + 1);
+            WireReader reader = new WireReader(body.toByteArray());
+
+            assertThrows(StreamCorruptedException.class, () -> new FrameCompressor(new byte[1]).decompress(reader));
+        }
+    }
+
+    @Nested
+    @DisplayName("Size Tests")
+    class SizeTests {
+
+        @Test
+        @DisplayName("Frame that does not shrink should pass through unchanged")
+        void incompressibleShouldPassThrough() {
+            byte[] raw = frame(WireProtocol.MSG_PLAYER_NUMBER, new byte[]{2});
+            assertSame(raw, new FrameCompressor(new byte[0]).compress(raw));
+        }
+
+        @Test
+        @DisplayName("Dictionary should make frames smaller than plain deflate")
+        void dictionaryShouldHelp() {
+            List<byte[]> samples = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                samples.add(snapshotLike(i * 100));
+            }
+            byte[] dictionary = CompressionDictionary.train(samples, CompressionDictionary.MAX_SIZE);
+            byte[] raw = frame(WireProtocol.MSG_GAME_STATE, snapshotLike(5000));
+
+            int plain = new FrameCompressor(new byte[0]).compress(raw).length;
+            int primed = new FrameCompressor(dictionary).compress(raw).length;
+            assertTrue(primed < plain, "primed " + primed + " vs plain " + plain);
+        }
+
+        @Test
+        @DisplayName("Counters should track bytes in and out")
+        void countersShouldTrackBytes() {
+            FrameCompressor compressor = new FrameCompressor(new byte[0]);
+            byte[] raw = frame(WireProtocol.MSG_GAME_STATE, snapshotLike(1));
+            byte[] out = compressor.compress(raw);
+
+            assertEquals(raw.length, compressor.getRawBytes());
+            assertEquals(out.length, compressor.getCompressedBytes());
+            compressor.resetStats();
+            assertEquals(0, compressor.getFrameCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("Training Tests")
+    class TrainingTests {
+
+        @Test
+        @DisplayName("Dictionary should respect the size limit")
+        void shouldRespectMaxSize() {
+            List<byte[]> samples = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                samples.add(snapshotLike(i));
+            }
+            assertTrue(CompressionDictionary.train(samples, 300).length <= 300);
+        }
+
+        @Test
+        @DisplayName("Strings found in only one sample should be left out")
+        void uniqueSamplesShouldGiveEmptyDictionary() {
+            byte[] a = new byte[512];
+            byte[] b = new byte[512];
+            for (int i = 0; i < 512; i++) {
+                a[i] = (byte) i;
+                b[i] = (byte) (i * 7 + 3);
+            }
+            assertEquals(0, CompressionDictionary.train(Arrays.asList(a, b), 1024).length);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.vibetanks.network;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("FrameDecoder Tests")
+class FrameDecoderTest {
+
+    private FrameDecoder decoder;
+    private List<String> received;
+    private FrameDecoder.FrameHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        decoder = new FrameDecoder(16);
+        received = new ArrayList<>();
+        handler = (type, payload) -> received.add(type + ":" + payload.readString());
+    }
+
+    private static byte[] frame(int type, String text) throws IOException {
+        WireWriter payload = new WireWriter();
+        payload.writeString(text);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WireProtocol.writeFrame(out, type, payload);
+        return out.toByteArray();
+    }
+
+    @Nested
+    @DisplayName("Reassembly Tests")
+    class ReassemblyTests {
+
+        @Test
+        @DisplayName("Frame fed one byte at a time should be delivered once complete")
+        void byteByByteShouldReassemble() throws IOException {
+            byte[] bytes = frame(3, "hello");
+
+            for (int i = 0; i < bytes.length - 1; i++) {
+                decoder.feed(bytes, i, 1, handler);
+                assertTrue(received.isEmpty());
+            }
+            decoder.feed(bytes, bytes.length - 1, 1, handler);
+
+            assertEquals(List.of("3:hello"), received);
+            assertEquals(0, decoder.buffered());
+        }
+
+        @Test
+        @DisplayName("Several frames in one chunk should all be delivered in order")
+        void multipleFramesInOneChunk() throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.write(frame(1, "a"));
+            out.write(frame(2, "bb"));
+            out.write(frame(3, "ccc"));
+
+            decoder.feed(ByteBuffer.wrap(out.toByteArray()), handler);
+
+            assertEquals(List.of("1:a", "2:bb", "3:ccc"), received);
+        }
+
+        @Test
+        @DisplayName("Partial trailing frame should be kept for the next chunk")
+        void partialTailShouldBeBuffered() throws IOException {
+            byte[] first = frame(1, "first");
+            byte[] second = frame(2, "a much longer second frame that grows the buffer");
+            byte[] all = new byte[first.length + second.length];
+            System.arraycopy(first, 0, all, 0, first.length);
+            System.arraycopy(second, 0, all, first.length, second.length);
+
+            int split = first.length + 4;
+            decoder.feed(all, 0, split, handler);
+            assertEquals(List.of("1:first"), received);
+            assertEquals(4, decoder.buffered());
+
+            decoder.feed(all, split, all.length - split, handler);
+            assertEquals(2, received.size());
+            assertEquals(0, decoder.buffered());
+        }
+    }
+
+    @Nested
+    @DisplayName("Validation Tests")
+    class ValidationTests {
+
+        @Test
+        @DisplayName("Zero length frame should be rejected")
+        void zeroLengthShouldFail() {
+            assertThrows(StreamCorruptedException.class,
+                () -> decoder.feed(new byte[]{0}, 0, 1, handler));
+        }
+
+        @Test
+        @DisplayName("Oversized frame length should be rejected before buffering")
+        void oversizedLengthShouldFail() {
+            WireWriter header = new WireWriter();
+            header.writeVarInt(WireProtocol.MAX_FRAME_SIZE + 1);
+            assertThrows(StreamCorruptedException.class,
+                () -> decoder.feed(header.toByteArray(), 0, header.size(), handler));
+        }
+
+        @Test
+        @DisplayName("Java serialization header should be recognised as a legacy stream")
+        void serializationHeaderShouldBeLegacy() throws IOException {
+            decoder.feed(new byte[]{(byte) 0xAC, (byte) 0xED, 0x00, 0x05}, 0, 4, handler);
+
+            assertTrue(decoder.isLegacyStream());
+            assertTrue(received.isEmpty());
+        }
+
+        @Test
+        @DisplayName("Stream that delivered a frame should never count as legacy")
+        void framedStreamShouldNotBeLegacy() throws IOException {
+            byte[] first = frame(WireProtocol.MSG_JOIN, "A");
+            decoder.feed(first, 0, first.length, handler);
+            decoder.feed(new byte[]{(byte) 0xAC, (byte) 0xED}, 0, 2, handler);
+
+            assertFalse(decoder.isLegacyStream());
+        }
+    }
+}
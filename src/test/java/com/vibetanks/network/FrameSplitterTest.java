@@ -0,0 +1,176 @@
+package com.vibetanks.network;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("FrameSplitter Tests")
+class FrameSplitterTest {
+
+    private static byte[] frame(int type, int payloadLength) {
+        WireWriter body = new WireWriter();
+        for (int i = 0; i < payloadLength; i++) {
+            body.writeByte(i * 31);
+        }
+        WireWriter frame = new WireWriter();
+        WireProtocol.encodeFrame(type, body, frame);
+        return frame.toByteArray();
+    }
+
+    // Feed one MSG_FRAGMENT frame to the receiver
+    private static int add(FrameSplitter receiver, byte[] piece) throws IOException {
+        WireReader r = new WireReader(piece);
+        assertEquals(r.readVarInt(), r.remaining());
+        assertEquals(WireProtocol.MSG_FRAGMENT, r.readUnsignedByte());
+        return receiver.add(r);
+    }
+
+    private static byte[] payload(FrameSplitter receiver) throws IOException {
+        byte[] payload = new byte[receiver.reader().remaining()];
+        receiver.reader().readBytes(payload, 0, payload.length);
+        return payload;
+    }
+
+    private static byte[] payloadOf(byte[] frame) throws IOException {
+        WireReader r = new WireReader(frame);
+        r.readVarInt();
+        r.readUnsignedByte();
+        byte[] payload = new byte[r.remaining()];
+        r.readBytes(payload, 0, payload.length);
+        return payload;
+    }
+
+    @Nested
+    @DisplayName("Split Tests")
+    class SplitTests {
+
+        @Test
+        @DisplayName("Frame that fits should go out unchanged")
+        void smallFrameShouldNotBeSplit() {
+            byte[] frame = frame(WireProtocol.MSG_GAME_STATE, 100);
+            byte[][] pieces = FrameSplitter.split(frame, frame.length, 512, 1);
+
+            assertEquals(1, pieces.length);
+            assertSame(frame, pieces[0]);
+            assertSame(frame, FrameSplitter.fit(frame, 512, 1));
+        }
+
+        @Test
+        @DisplayName("Every piece should be within the max size")
+        void piecesShouldFit() {
+            byte[] frame = frame(WireProtocol.MSG_GAME_STATE, 5000);
+            byte[][] pieces = FrameSplitter.split(frame, frame.length, 512, 1);
+
+            assertTrue(pieces.length > 1);
+            for (byte[] piece : pieces) {
+                assertTrue(piece.length <= 512, "piece of " + piece.length + " bytes");
+            }
+        }
+
+        @Test
+        @DisplayName("Stream form should be the pieces back to back")
+        void fitShouldJoinPieces() throws IOException {
+            byte[] frame = frame(WireProtocol.MSG_GAME_STATE, 3000);
+            byte[] joined = FrameSplitter.fit(frame, 1000, 7);
+
+            FrameSplitter receiver = new FrameSplitter();
+            WireReader stream = new WireReader(joined);
+            int type = -1;
+            while (stream.remaining() > 0) {
+                int length = stream.readVarInt();
+                assertEquals(WireProtocol.MSG_FRAGMENT, stream.readUnsignedByte());
+                byte[] piece = new byte[length - 1];
+                stream.readBytes(piece, 0, piece.length);
+                type = receiver.add(new WireReader(piece));
+            }
+            assertEquals(WireProtocol.MSG_GAME_STATE, type);
+            assertArrayEquals(payloadOf(frame), payload(receiver));
+        }
+    }
+
+    @Nested
+    @DisplayName("Reassembly Tests")
+    class ReassemblyTests {
+
+        @Test
+        @DisplayName("Pieces in any order should restore the frame once")
+        void shouldReassembleOutOfOrder() throws IOException {
+            byte[] frame = frame(WireProtocol.MSG_GAME_STATE_DELTA, 2000);
+            byte[][] pieces = FrameSplitter.split(frame, frame.length, 600, 3);
+            FrameSplitter receiver = new FrameSplitter();
+
+            for (int i = pieces.length - 1; i > 0; i--) {
+                assertEquals(-1, add(receiver, pieces[i]));
+            }
+            assertEquals(-1, add(receiver, pieces[1])); // Duplicate
+            assertEquals(WireProtocol.MSG_GAME_STATE_DELTA, add(receiver, pieces[0]));
+            assertArrayEquals(payloadOf(frame), payload(receiver));
+        }
+
+        @Test
+        @DisplayName("Interleaved frames should both complete")
+        void interleavedFramesShouldComplete() throws IOException {
+            byte[] first = frame(WireProtocol.MSG_GAME_STATE, 1500);
+            byte[] second = frame(WireProtocol.MSG_ROOM_JOINED, 1500);
+            byte[][] a = FrameSplitter.split(first, first.length, 600, 1);
+            byte[][] b = FrameSplitter.split(second, second.length, 600, 2);
+            FrameSplitter receiver = new FrameSplitter();
+
+            for (int i = 0; i < a.length - 1; i++) {
+                assertEquals(-1, add(receiver, a[i]));
+                assertEquals(-1, add(receiver, b[i]));
+            }
+            assertEquals(WireProtocol.MSG_GAME_STATE, add(receiver, a[a.length - 1]));
+            assertArrayEquals(payloadOf(first), payload(receiver));
+            assertEquals(WireProtocol.MSG_ROOM_JOINED, add(receiver, b[b.length - 1]));
+            assertArrayEquals(payloadOf(second), payload(receiver));
+        }
+
+        @Test
+        @DisplayName("A frame missing a piece should be forgotten once newer frames take its slot")
+        void lostPieceShouldDropOnlyThatFrame() throws IOException {
+            FrameSplitter receiver = new FrameSplitter();
+            byte[] lost = frame(WireProtocol.MSG_GAME_STATE, 1500);
+            add(receiver, FrameSplitter.split(lost, lost.length, 600, 1)[0]);
+
+            byte[] frame = frame(WireProtocol.MSG_GAME_STATE, 1500);
+            for (int id = 2; id < 10; id++) {
+                byte[][] pieces = FrameSplitter.split(frame, frame.length, 600, id);
+                int type = -1;
+                for (byte[] piece : pieces) {
+                    type = add(receiver, piece);
+                }
+                assertEquals(WireProtocol.MSG_GAME_STATE, type);
+            }
+        }
+
+        @Test
+        @DisplayName("Piece of the wrong size should be rejected")
+        void wrongSizeShouldBeRejected() {
+            WireWriter w = new WireWriter();
+            w.writeVarInt(1);
+            w.writeVarInt(0); // Index
+            w.writeVarInt(2); // Count
+            w.writeVarInt(100); // Frame length, so 50 bytes a piece
+            w.writeBytes(new byte[49], 0, 49);
+            assertThrows(StreamCorruptedException.class, () -> new FrameSplitter().add(new WireReader(w.toByteArray())));
+        }
+
+        @Test
+        @DisplayName("Count or index out of range should be rejected")
+        void badHeaderShouldBeRejected() {
+            WireWriter w = new WireWriter();
+            w.writeVarInt(1);
+            w.writeVarInt(2); // Index
+            w.writeVarInt(2); // Count
+            w.writeVarInt(100);
+            w.writeBytes(new byte[50], 0, 50);
+            assertThrows(StreamCorruptedException.class, () -> new FrameSplitter().add(new WireReader(w.toByteArray())));
+        }
+    }
+}
@@ -17,7 +17,7 @@ class GameStateBuilderTest {
 
     private List<Tank> playerTanks;
     private List<Tank> enemyTanks;
-    private List<Bullet> bullets;
+    private BulletStore bullets;
     private List<Laser> lasers;
     private List<PowerUp> powerUps;
     private int[] playerKills;
@@ -36,7 +36,7 @@ class GameStateBuilderTest {
     void setUp() {
         playerTanks = new ArrayList<>();
         enemyTanks = new ArrayList<>();
-        bullets = new ArrayList<>();
+        bullets = new BulletStore();
         lasers = new ArrayList<>();
         powerUps = new ArrayList<>();
         playerKills = new int[4];
@@ -244,14 +244,16 @@ class GameStateBuilderTest {
         }
 
         @Test
-        @DisplayName("build should skip null bullets")
-        void buildShouldSkipNullBullets() {
-            bullets.add(new Bullet(100, 100, Direction.UP, false, 1, false));
-            bullets.add(null);
+        @DisplayName("build should skip removed bullets")
+        void buildShouldSkipRemovedBullets() {
+            int removed = bullets.add(new Bullet(1, 100, 100, Direction.UP, false, 1, false, 0, 8));
+            bullets.add(new Bullet(2, 200, 100, Direction.UP, false, 1, false, 0, 8));
+            bullets.remove(removed);
 
             GameState state = buildState();
 
             assertEquals(1, state.bullets.size());
+            assertEquals(2, state.bullets.get(0).id);
         }
     }
 
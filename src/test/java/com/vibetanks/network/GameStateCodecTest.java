@@ -0,0 +1,441 @@
+package com.vibetanks.network;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import java.io.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("GameStateCodec Tests")
+class GameStateCodecTest {
+
+    private WireWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        writer = new WireWriter();
+    }
+
+    private GameState roundTrip(GameState state) throws IOException {
+        writer.reset();
+        GameStateCodec.writeGameState(state, writer);
+        WireReader reader = new WireReader(writer.toByteArray());
+        GameState decoded = GameStateCodec.readGameState(reader);
+        assertEquals(0, reader.remaining(), "Decoder should consume the whole payload");
+        return decoded;
+    }
+
+    private static GameState populatedState() {
+        GameState state = new GameState();
+        state.gameOver = true;
+        state.victoryConditionMet = true;
+        state.victoryDelayTimer = 120;
+        state.remainingEnemies = 7;
+        state.totalEnemiesLeft = 11;
+        state.connectedPlayers = 3;
+        state.levelNumber = 4;
+        state.bossKillerPlayerIndex = 2;
+        state.bossKillPowerUpReward = -1;
+        state.enemyFreezeDuration = 300;
+        state.playerFreezeDuration = 5;
+        state.enemyTeamSpeedBoostDuration = 900;
+        state.baseAlive = true;
+        state.baseShowFlag = true;
+        state.baseFlagHeight = 12.5;
+        state.baseCatMode = true;
+        state.catEscaping = true;
+        state.catEscapeX = 400.25;
+        state.catEscapeY = 780;
+        state.catEscapeFrame = 17;
+        state.toyX = 420;
+        state.toyY = 790.5;
+        state.toyType = 2;
+
+        state.players[1].x = 512.75;
+        state.players[1].y = 768;
+        state.players[1].direction = 3;
+        state.players[1].lives = 2;
+        state.players[1].respawnTimer = 30;
+        state.players[1].pendingRespawnX = 256;
+        state.players[1].pendingRespawnY = 768;
+        state.players[1].score = 12345;
+        state.players[1].killsByType[5] = 1;
+        state.players[1].hasShip = true;
+        state.players[1].machinegunCount = 3;
+        state.players[1].nickname = "Танкист";
+        state.players[1].lastInputSequence = 987654321L;
+        state.players[3].connected = false;
+
+        state.enemies.add(new GameState.EnemyData(100.5, 200, 1, true, 5, 12, 14, 1.3, 1.5, -1));
+        state.enemies.add(new GameState.EnemyData(0, 0, 0, false, 0, 0, 1, 0, 1, 6));
+        state.bullets.add(new GameState.BulletData(123456789L, 10.5, 20.25, 2, true, 2, true, 0, 12, true));
+        state.lasers.add(new GameState.LaserData(42L, 32, 64, 0, false, 1, 15, 600.5));
+        state.powerUps.add(new GameState.PowerUpData(9L, 96, 128, 8, 600));
+
+        state.tileChanges.add(new GameState.TileChange(3, 4, 0));
+        state.mapTiles = new int[][]{{0, 1, 2}, {3, 4, 5}, {6, 0, 1}};
+        state.burningTiles.add(new GameState.BurningTileData(5, 7, 45));
+
+        state.dancingInitialized = true;
+        state.dancingCharacters.add(new GameState.DancingCharacterData(1.5, 2.5, true, 3, 1, 4));
+        state.victoryDancingGirls.add(new GameState.DancingGirlData(10, 20, 5, 2, 3, 1));
+
+        state.ufoData = new GameState.UFOData(300, 150, -1.5, 0.25, true, 3, 1200, false);
+        state.ufoLostMessageTimer = 60;
+        state.easterEggData = new GameState.EasterEggData(200, 300, 900);
+
+        state.hostPlayerSpeed = 1.5;
+        state.hostEnemyShootSpeed = 0.75;
+        state.soundEvents.add(new GameState.SoundEvent(GameState.SoundType.LASER, 2));
+        state.soundEvents.add(new GameState.SoundEvent(GameState.SoundType.VICTORY));
+        return state;
+    }
+
+    @Nested
+    @DisplayName("GameState Round Trip Tests")
+    class GameStateRoundTripTests {
+
+        @Test
+        @DisplayName("Default state should round trip")
+        void defaultStateShouldRoundTrip() throws IOException {
+            GameState decoded = roundTrip(new GameState());
+
+            assertEquals(4, decoded.players.length);
+            assertEquals(-1, decoded.bossKillerPlayerIndex);
+            assertNull(decoded.mapTiles);
+            assertNull(decoded.ufoData);
+            assertNull(decoded.easterEggData);
+            assertTrue(decoded.enemies.isEmpty());
+            assertEquals(1.0, decoded.hostEnemySpeed);
+        }
+
+        @Test
+        @DisplayName("Scalar fields should round trip")
+        void scalarFieldsShouldRoundTrip() throws IOException {
+            GameState decoded = roundTrip(populatedState());
+
+            assertTrue(decoded.gameOver);
+            assertFalse(decoded.victory);
+            assertTrue(decoded.victoryConditionMet);
+            assertEquals(120, decoded.victoryDelayTimer);
+            assertEquals(7, decoded.remainingEnemies);
+            assertEquals(11, decoded.totalEnemiesLeft);
+            assertEquals(3, decoded.connectedPlayers);
+            assertEquals(4, decoded.levelNumber);
+            assertEquals(2, decoded.bossKillerPlayerIndex);
+            assertEquals(-1, decoded.bossKillPowerUpReward);
+            assertEquals(300, decoded.enemyFreezeDuration);
+            assertEquals(5, decoded.playerFreezeDuration);
+            assertEquals(900, decoded.enemyTeamSpeedBoostDuration);
+            assertEquals(1.5, decoded.hostPlayerSpeed);
+            assertEquals(0.75, decoded.hostEnemyShootSpeed);
+        }
+
+        @Test
+        @DisplayName("Base and cat escape fields should round trip")
+        void baseFieldsShouldRoundTrip() throws IOException {
+            GameState decoded = roundTrip(populatedState());
+
+            assertTrue(decoded.baseAlive);
+            assertTrue(decoded.baseShowFlag);
+            assertEquals(12.5, decoded.baseFlagHeight);
+            assertTrue(decoded.baseCatMode);
+            assertTrue(decoded.catEscaping);
+            assertEquals(400.25, decoded.catEscapeX);
+            assertEquals(17, decoded.catEscapeFrame);
+            assertEquals(790.5, decoded.toyY);
+            assertEquals(2, decoded.toyType);
+        }
+
+        @Test
+        @DisplayName("Entity lists should round trip")
+        void entityListsShouldRoundTrip() throws IOException {
+            GameState decoded = roundTrip(populatedState());
+
+            assertEquals(2, decoded.enemies.size());
+            GameState.EnemyData boss = decoded.enemies.get(0);
+            assertEquals(100.5, boss.x);
+            assertEquals(1, boss.direction);
+            assertEquals(5, boss.enemyType);
+            assertEquals(14, boss.maxHealth);
+            assertEquals(1.3, boss.tempSpeedBoost, GameStateCodec.SPEED_STEP / 2);
+            assertEquals(-1, boss.colorOverrideIndex);
+            assertEquals(6, decoded.enemies.get(1).colorOverrideIndex);
+
+            GameState.BulletData bullet = decoded.bullets.get(0);
+            assertEquals(123456789L, bullet.id);
+            assertEquals(20.25, bullet.y);
+            assertTrue(bullet.fromEnemy);
+            assertTrue(bullet.canDestroyTrees);
+            assertTrue(bullet.rainbow);
+            assertEquals(12, bullet.size);
+
+            GameState.LaserData laser = decoded.lasers.get(0);
+            assertEquals(42L, laser.id);
+            assertEquals(600.5, laser.length);
+            assertEquals(1, laser.ownerPlayerNumber);
+
+            GameState.PowerUpData powerUp = decoded.powerUps.get(0);
+            assertEquals(8, powerUp.type);
+            assertEquals(600, powerUp.lifetime);
+        }
+
+        @Test
+        @DisplayName("Map data should round trip")
+        void mapDataShouldRoundTrip() throws IOException {
+            GameState decoded = roundTrip(populatedState());
+
+            assertArrayEquals(new int[]{3, 4, 5}, decoded.mapTiles[1]);
+            assertEquals(1, decoded.tileChanges.size());
+            assertEquals(4, decoded.tileChanges.get(0).col);
+            assertEquals(45, decoded.burningTiles.get(0).framesRemaining);
+        }
+
+        @Test
+        @DisplayName("Celebration, UFO and sound data should round trip")
+        void celebrationUfoAndSoundsShouldRoundTrip() throws IOException {
+            GameState decoded = roundTrip(populatedState());
+
+            assertTrue(decoded.dancingInitialized);
+            assertTrue(decoded.dancingCharacters.get(0).isAlien);
+            assertEquals(3, decoded.victoryDancingGirls.get(0).dressColorIndex);
+
+            assertNotNull(decoded.ufoData);
+            assertEquals(-1.5, decoded.ufoData.dx);
+            assertFalse(decoded.ufoData.movingRight);
+            assertEquals(1200, decoded.ufoData.lifetime);
+            assertEquals(60, decoded.ufoLostMessageTimer);
+            assertEquals(900, decoded.easterEggData.lifetime);
+
+            assertEquals(2, decoded.soundEvents.size());
+            assertEquals(GameState.SoundType.LASER, decoded.soundEvents.get(0).type);
+            assertEquals(2, decoded.soundEvents.get(0).playerNumber);
+        }
+
+        @Test
+        @DisplayName("Binary snapshot should be smaller than Java serialization")
+        void binarySnapshotShouldBeSmallerThanJavaSerialization() throws IOException {
+            GameState state = populatedState();
+            writer.reset();
+            GameStateCodec.writeGameState(state, writer);
+
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+                oos.writeObject(state);
+            }
+
+            assertTrue(writer.size() * 4 < baos.size(),
+                "binary=" + writer.size() + " serialized=" + baos.size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Quantization Tests")
+    class QuantizationTests {
+
+        @Test
+        @DisplayName("Values on the fixed-point grid should round trip exactly")
+        void gridValuesShouldBeExact() throws IOException {
+            GameState state = new GameState();
+            state.enemies.add(new GameState.EnemyData(831.875, -16.125, 2, true, 1, 1, 1, 0.00390625, 2.5, -1));
+            state.bullets.add(new GameState.BulletData(1, 0.125, 415.5, 0, false, 1, false, 1, 8, false));
+            state.ufoData = new GameState.UFOData(-48, 120.375, 1.75, -0.5, true, 3, 100, true);
+
+            GameState decoded = roundTrip(state);
+            GameState.EnemyData enemy = decoded.enemies.get(0);
+            assertEquals(831.875, enemy.x);
+            assertEquals(-16.125, enemy.y);
+            assertEquals(0.00390625, enemy.tempSpeedBoost);
+            assertEquals(0.125, decoded.bullets.get(0).x);
+            assertEquals(-48, decoded.ufoData.x);
+            assertEquals(-0.5, decoded.ufoData.dy);
+        }
+
+        @Test
+        @DisplayName("Other values should be rounded to the nearest step")
+        void offGridValuesShouldRound() throws IOException {
+            GameState state = new GameState();
+            state.players[0].x = 101.3;
+            state.enemies.add(new GameState.EnemyData(33.3333, 64.06, 0, true, 0, 1, 1, 0, 1.3, -1));
+
+            GameState decoded = roundTrip(state);
+            assertEquals(101.25, decoded.players[0].x);
+            assertEquals(GameStateCodec.quantizePosition(33.3333), decoded.enemies.get(0).x);
+            assertEquals(64.0, decoded.enemies.get(0).y);
+            assertEquals(1.3, decoded.enemies.get(0).speedMultiplier, GameStateCodec.SPEED_STEP / 2);
+            assertEquals(101.3, decoded.players[0].x, GameStateCodec.POSITION_STEP / 2);
+        }
+
+        @Test
+        @DisplayName("Decoded snapshot should re-encode to the same bytes")
+        void decodedStateShouldReencodeIdentically() throws IOException {
+            GameState state = populatedState();
+            state.players[0].x = 77.77;
+            state.enemies.get(0).y = 1.0 / 3;
+            GameState decoded = roundTrip(state);
+            byte[] first = writer.toByteArray();
+
+            writer.reset();
+            GameStateCodec.writeGameState(decoded, writer);
+            assertArrayEquals(first, writer.toByteArray());
+        }
+
+        @Test
+        @DisplayName("Playfield coordinates should take two bytes")
+        void coordinatesShouldTakeTwoBytes() {
+            GameStateCodec.writePosition(26 * 32, writer);
+            assertEquals(2, writer.size());
+            writer.reset();
+            GameStateCodec.writePosition(-26 * 32, writer);
+            assertEquals(2, writer.size());
+        }
+
+        @Test
+        @DisplayName("Out-of-range and NaN values should saturate instead of wrapping")
+        void extremeValuesShouldSaturate() {
+            assertEquals(Integer.MAX_VALUE * GameStateCodec.POSITION_STEP, GameStateCodec.quantizePosition(1e300));
+            assertEquals(Integer.MIN_VALUE * GameStateCodec.POSITION_STEP, GameStateCodec.quantizePosition(-1e300));
+            assertEquals(0, GameStateCodec.quantizePosition(Double.NaN));
+        }
+
+        @Test
+        @DisplayName("Entity records should be several times smaller than raw doubles")
+        void entityRecordsShouldShrink() {
+            GameState.EnemyData enemy = new GameState.EnemyData(412.5, 300.25, 1, true, 3, 4, 4, 0, 1.5, -1);
+            GameStateCodec.writeEnemy(enemy, writer);
+            int enemyBytes = writer.size();
+            writer.reset();
+            GameStateCodec.writeBullet(new GameState.BulletData(9, 412.5, 300.25, 1, false, 1, false, 1, 8, false), writer);
+            int bulletBytes = writer.size();
+
+            // Four doubles alone used to take 32 bytes per enemy, two took 16 per bullet
+            assertTrue(enemyBytes <= 14, "enemy=" + enemyBytes);
+            assertTrue(bulletBytes <= 10, "bullet=" + bulletBytes);
+        }
+    }
+
+    @Nested
+    @DisplayName("PlayerData Tests")
+    class PlayerDataTests {
+
+        @Test
+        @DisplayName("PlayerData should round trip")
+        void playerDataShouldRoundTrip() throws IOException {
+            GameState decoded = roundTrip(populatedState());
+            PlayerData p = decoded.players[1];
+
+            assertEquals(2, p.playerNumber);
+            assertEquals(512.75, p.x);
+            assertEquals(3, p.direction);
+            assertEquals(2, p.lives);
+            assertEquals(30, p.respawnTimer);
+            assertEquals(256, p.pendingRespawnX);
+            assertEquals(12345, p.score);
+            assertEquals(1, p.killsByType[5]);
+            assertTrue(p.hasShip);
+            assertFalse(p.hasGun);
+            assertEquals(3, p.machinegunCount);
+            assertEquals("Танкист", p.nickname);
+            assertEquals(987654321L, p.lastInputSequence);
+            assertFalse(decoded.players[3].connected);
+            assertNull(decoded.players[0].nickname);
+        }
+    }
+
+    @Nested
+    @DisplayName("PlayerInput Tests")
+    class PlayerInputTests {
+
+        @Test
+        @DisplayName("PlayerInput should round trip")
+        void playerInputShouldRoundTrip() throws IOException {
+            PlayerInput input = new PlayerInput(false, true, false, false, true);
+            input.requestRestart = true;
+            input.paused = true;
+            input.posX = -1;
+            input.posY = 333.5;
+            input.direction = 1;
+            input.nickname = "Bob";
+            input.sequenceNumber = 99999L;
+            input.timestamp = System.currentTimeMillis();
+
+            GameStateCodec.writePlayerInput(input, writer);
+            PlayerInput decoded = GameStateCodec.readPlayerInput(new WireReader(writer.toByteArray()));
+
+            assertFalse(decoded.up);
+            assertTrue(decoded.down);
+            assertTrue(decoded.shoot);
+            assertFalse(decoded.requestLife);
+            assertTrue(decoded.requestRestart);
+            assertTrue(decoded.paused);
+            assertEquals(-1, decoded.posX);
+            assertEquals(333.5, decoded.posY);
+            assertEquals(1, decoded.direction);
+            assertEquals("Bob", decoded.nickname);
+            assertEquals(99999L, decoded.sequenceNumber);
+            assertEquals(input.timestamp, decoded.timestamp);
+            assertNull(decoded.history);
+        }
+
+        @Test
+        @DisplayName("Input history should round trip")
+        void inputHistoryShouldRoundTrip() throws IOException {
+            PlayerInput input = new PlayerInput();
+            input.history = new byte[]{1, (byte) 0x88, 0};
+
+            GameStateCodec.writePlayerInput(input, writer);
+            PlayerInput decoded = GameStateCodec.readPlayerInput(new WireReader(writer.toByteArray()));
+
+            assertArrayEquals(input.history, decoded.history);
+        }
+
+        @Test
+        @DisplayName("Oversized input history should be rejected")
+        void oversizedHistoryShouldBeRejected() {
+            PlayerInput input = new PlayerInput();
+            input.history = new byte[InputHistory.SIZE + 1];
+
+            GameStateCodec.writePlayerInput(input, writer);
+
+            assertThrows(IOException.class,
+                () -> GameStateCodec.readPlayerInput(new WireReader(writer.toByteArray())));
+        }
+    }
+
+    @Nested
+    @DisplayName("Error Handling Tests")
+    class ErrorHandlingTests {
+
+        @Test
+        @DisplayName("Truncated snapshot should throw EOFException")
+        void truncatedSnapshotShouldThrow() {
+            GameStateCodec.writeGameState(populatedState(), writer);
+            byte[] truncated = java.util.Arrays.copyOf(writer.toByteArray(), writer.size() / 2);
+
+            assertThrows(EOFException.class, () -> GameStateCodec.readGameState(new WireReader(truncated)));
+        }
+
+        @Test
+        @DisplayName("Unknown codec version should be rejected")
+        void unknownVersionShouldBeRejected() {
+            GameStateCodec.writeGameState(new GameState(), writer);
+            byte[] data = writer.toByteArray();
+            data[0] = (byte) (GameStateCodec.CODEC_VERSION + 1);
+
+            assertThrows(StreamCorruptedException.class, () -> GameStateCodec.readGameState(new WireReader(data)));
+        }
+
+        @Test
+        @DisplayName("Negative map size should be rejected as corrupt")
+        void negativeMapSizeShouldBeRejected() {
+            writer.writeVarInt(-1);
+            writer.writeVarInt(26);
+            byte[] data = writer.toByteArray();
+
+            assertThrows(StreamCorruptedException.class, () -> GameStateCodec.readMapTiles(new WireReader(data)));
+        }
+    }
+}
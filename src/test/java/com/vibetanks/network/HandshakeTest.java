@@ -0,0 +1,212 @@
+package com.vibetanks.network;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Handshake Tests")
+class HandshakeTest {
+
+    private static Handshake.Join roundTrip(Handshake.Join join) throws IOException {
+        WireWriter w = new WireWriter();
+        join.write(w);
+        WireReader r = new WireReader(w.toByteArray());
+        Handshake.Join read = Handshake.Join.read(r);
+        assertEquals(0, r.remaining());
+        return read;
+    }
+
+    private static WireReader readFrame(byte[] frame, int expectedType) throws IOException {
+        WireReader r = new WireReader(frame);
+        assertEquals(r.readVarInt(), r.remaining());
+        assertEquals(expectedType, r.readUnsignedByte());
+        return r;
+    }
+
+    @Nested
+    @DisplayName("Join Tests")
+    class JoinTests {
+
+        @Test
+        @DisplayName("JOIN from this build should read back and be compatible")
+        void shouldRoundTrip() throws IOException {
+            Handshake.Join join = roundTrip(Handshake.join("ABCDE", false, 20));
+
+            assertEquals("ABCDE", join.roomCode());
+            assertEquals(WireProtocol.PROTOCOL_VERSION, join.protocolVersion());
+            assertEquals(GameStateCodec.CODEC_VERSION, join.codecVersion());
+            assertEquals(20, join.snapshotRate());
+            assertEquals(0, join.maxPacketSize());
+            assertTrue(join.has(Handshake.CAP_DELTA));
+            assertFalse(join.has(Handshake.CAP_SPECTATOR));
+            assertEquals(CompressionDictionary.id() != 0, join.has(Handshake.CAP_COMPRESSION));
+            assertNull(join.incompatibility());
+        }
+
+        @Test
+        @DisplayName("Spectator flag and empty room code should survive")
+        void shouldKeepSpectatorFlag() throws IOException {
+            Handshake.Join join = roundTrip(Handshake.join("", true, 0));
+
+            assertNull(join.roomCode());
+            assertTrue(join.has(Handshake.CAP_SPECTATOR));
+            assertEquals(0, join.snapshotRate());
+        }
+
+        @Test
+        @DisplayName("JOIN with only a room code should read as protocol 0 and be turned away")
+        void codeOnlyJoinShouldBeIncompatible() throws IOException {
+            WireWriter w = new WireWriter();
+            w.writeString("ABCD");
+            Handshake.Join join = Handshake.Join.read(new WireReader(w.toByteArray()));
+
+            assertEquals("ABCD", join.roomCode());
+            assertEquals(0, join.capabilities());
+            assertEquals(0, join.protocolVersion());
+            assertNotNull(join.incompatibility());
+        }
+
+        @Test
+        @DisplayName("JOIN with capabilities but no versions should be turned away")
+        void unversionedJoinShouldBeIncompatible() throws IOException {
+            WireWriter w = new WireWriter();
+            w.writeString(null);
+            w.writeVarInt(Handshake.CAP_SPECTATOR);
+            Handshake.Join join = Handshake.Join.read(new WireReader(w.toByteArray()));
+
+            assertTrue(join.has(Handshake.CAP_SPECTATOR));
+            assertTrue(join.incompatibility().contains("older"));
+        }
+
+        @Test
+        @DisplayName("Newer protocol should be reported as newer")
+        void newerJoinShouldBeIncompatible() {
+            Handshake.Join join = new Handshake.Join(null, 0, WireProtocol.PROTOCOL_VERSION + 1,
+                GameStateCodec.CODEC_VERSION, 0, 0);
+            assertTrue(join.incompatibility().contains("newer"));
+        }
+
+        @Test
+        @DisplayName("JOIN from the previous protocol should be turned away as older")
+        void previousProtocolShouldBeIncompatible() throws IOException {
+            WireWriter w = new WireWriter();
+            w.writeString(null);
+            w.writeVarInt(Handshake.CAP_DELTA);
+            w.writeVarInt(1);
+            w.writeVarInt(GameStateCodec.CODEC_VERSION);
+            w.writeVarInt(1 << 20); // Maximum frame size, since moved to the end
+            w.writeVarInt(0);
+            Handshake.Join join = Handshake.Join.read(new WireReader(w.toByteArray()));
+
+            assertTrue(join.incompatibility().contains("older"));
+        }
+
+        @Test
+        @DisplayName("Max packet size should read back, and as 0 when left out")
+        void maxPacketSizeShouldBeAppended() throws IOException {
+            assertEquals(1200, roundTrip(Handshake.join(null, false, 0, 1200)).maxPacketSize());
+
+            WireWriter w = new WireWriter();
+            w.writeString(null);
+            w.writeVarInt(Handshake.CAP_DELTA);
+            w.writeVarInt(WireProtocol.PROTOCOL_VERSION);
+            w.writeVarInt(GameStateCodec.CODEC_VERSION);
+            w.writeVarInt(30);
+            Handshake.Join join = Handshake.Join.read(new WireReader(w.toByteArray()));
+
+            assertEquals(30, join.snapshotRate());
+            assertEquals(0, join.maxPacketSize());
+            assertNull(join.incompatibility());
+        }
+
+        @Test
+        @DisplayName("Max packet size below the minimum should be turned away")
+        void tinyPacketSizeShouldBeIncompatible() {
+            assertNotNull(Handshake.join(null, false, 0, Handshake.MIN_PACKET_SIZE - 1).incompatibility());
+            assertNull(Handshake.join(null, false, 0, Handshake.MIN_PACKET_SIZE).incompatibility());
+        }
+
+        @Test
+        @DisplayName("Mismatched dictionary id should clear compression")
+        void otherDictionaryShouldClearCompression() throws IOException {
+            WireWriter w = new WireWriter();
+            w.writeString(null);
+            w.writeVarInt(Handshake.CAP_COMPRESSION | Handshake.CAP_DELTA);
+            w.writeVarLong(CompressionDictionary.id() + 1);
+            w.writeVarInt(WireProtocol.PROTOCOL_VERSION);
+            Handshake.Join join = Handshake.Join.read(new WireReader(w.toByteArray()));
+
+            assertFalse(join.has(Handshake.CAP_COMPRESSION));
+            assertTrue(join.has(Handshake.CAP_DELTA));
+            assertEquals(WireProtocol.PROTOCOL_VERSION, join.protocolVersion());
+        }
+
+        @Test
+        @DisplayName("Unknown capability bits should be dropped")
+        void unknownCapabilitiesShouldBeDropped() throws IOException {
+            Handshake.Join join = roundTrip(new Handshake.Join(null, 64 | Handshake.CAP_DELTA,
+                WireProtocol.PROTOCOL_VERSION, GameStateCodec.CODEC_VERSION, 0, 0));
+            assertEquals(Handshake.CAP_DELTA, join.capabilities());
+        }
+    }
+
+    @Nested
+    @DisplayName("Negotiation Tests")
+    class NegotiationTests {
+
+        @Test
+        @DisplayName("Send divisor should keep the client at or under its rate")
+        void divisorShouldMeetRequestedRate() {
+            assertEquals(1, Handshake.sendDivisor(Handshake.join(null, false, 0), 60, 1));
+            assertEquals(3, Handshake.sendDivisor(Handshake.join(null, false, 25), 60, 1));
+            assertEquals(2, Handshake.sendDivisor(Handshake.join(null, false, 30), 60, 1));
+            assertEquals(1, Handshake.sendDivisor(Handshake.join(null, false, 120), 60, 1));
+        }
+
+        @Test
+        @DisplayName("Send divisor should not go below the minimum")
+        void divisorShouldKeepMinimum() {
+            assertEquals(2, Handshake.sendDivisor(Handshake.join(null, true, 0), 60, 2));
+            assertEquals(4, Handshake.sendDivisor(Handshake.join(null, true, 15), 60, 2));
+        }
+
+        @Test
+        @DisplayName("Max packet size should be the client's, within the transport's limit")
+        void packetSizeShouldStayWithinLimit() {
+            assertEquals(1 << 20, Handshake.maxPacketSize(Handshake.join(null, false, 0), 1 << 20));
+            assertEquals(1200, Handshake.maxPacketSize(Handshake.join(null, false, 0, 1200), 1 << 20));
+            assertEquals(1200, Handshake.maxPacketSize(Handshake.join(null, false, 0, 9000), 1200));
+        }
+
+        @Test
+        @DisplayName("Welcome should report the agreed rate and packet size")
+        void welcomeShouldRoundTrip() throws IOException {
+            Handshake.Join join = new Handshake.Join(null, Handshake.CAP_DELTA, WireProtocol.PROTOCOL_VERSION,
+                GameStateCodec.CODEC_VERSION, 25, 4000);
+            int divisor = Handshake.sendDivisor(join, 60, 1);
+            int packetSize = Handshake.maxPacketSize(join, 1 << 20);
+            WireReader r = readFrame(Handshake.welcomeFrame(Handshake.welcome(join, 60, divisor, packetSize)),
+                WireProtocol.MSG_WELCOME);
+            Handshake.Welcome welcome = Handshake.Welcome.read(r);
+
+            assertEquals(20, welcome.snapshotRate());
+            assertEquals(4000, welcome.maxPacketSize());
+            assertEquals(0, r.remaining());
+            assertTrue(welcome.has(Handshake.CAP_DELTA));
+            assertFalse(welcome.has(Handshake.CAP_COMPRESSION));
+            assertNull(welcome.incompatibility());
+        }
+
+        @Test
+        @DisplayName("Rejection should carry its message")
+        void rejectionShouldRoundTrip() throws IOException {
+            WireReader r = readFrame(Handshake.rejectFrame(Handshake.REJECT_FULL, "Room ABCDE is full"),
+                WireProtocol.MSG_JOIN_REJECTED);
+            assertEquals("Room ABCDE is full", Handshake.readReject(r));
+        }
+    }
+}
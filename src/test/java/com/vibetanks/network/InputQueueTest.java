@@ -0,0 +1,189 @@
+package com.vibetanks.network;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("InputQueue Tests")
+class InputQueueTest {
+
+    private InputQueue queue;
+    private InputHistory history;
+
+    @BeforeEach
+    void setUp() {
+        queue = new InputQueue();
+        history = new InputHistory();
+    }
+
+    // Input as the client sends it: sequenced, with the history of the inputs before it
+    private PlayerInput sent(long sequence, boolean shoot) {
+        PlayerInput input = new PlayerInput(false, false, false, true, shoot);
+        input.sequenceNumber = sequence;
+        input.posX = sequence;
+        history.attach(input);
+        return input;
+    }
+
+    @Nested
+    @DisplayName("Ordering Tests")
+    class OrderingTests {
+
+        @Test
+        @DisplayName("Inputs should come out one at a time in order")
+        void inputsShouldBeQueuedInOrder() {
+            queue.offer(sent(1, false));
+            queue.offer(sent(2, false));
+
+            assertEquals(1, queue.poll().sequenceNumber);
+            assertEquals(2, queue.poll().sequenceNumber);
+            assertNull(queue.poll());
+        }
+
+        @Test
+        @DisplayName("Duplicate and out of order inputs should be dropped")
+        void duplicatesShouldBeDropped() {
+            PlayerInput first = sent(1, false);
+            PlayerInput second = sent(2, false);
+
+            assertTrue(queue.offer(second));
+            assertFalse(queue.offer(second));
+            assertFalse(queue.offer(first));
+            assertEquals(1, queue.size());
+        }
+
+        @Test
+        @DisplayName("Unsequenced requests should always be queued")
+        void unsequencedShouldBeQueued() {
+            PlayerInput request = new PlayerInput();
+            request.requestRestart = true;
+
+            assertTrue(queue.offer(request));
+            assertTrue(queue.offer(request));
+            assertEquals(2, queue.size());
+        }
+    }
+
+    @Nested
+    @DisplayName("History Tests")
+    class HistoryTests {
+
+        @Test
+        @DisplayName("Lost inputs should be rebuilt from the next input's history")
+        void lostInputsShouldBeRebuilt() {
+            queue.offer(sent(1, false));
+            queue.poll();
+            sent(2, true);  // Lost - carried a shot
+            sent(3, false); // Lost
+            queue.offer(sent(4, false));
+
+            PlayerInput second = queue.poll();
+            assertEquals(2, second.sequenceNumber);
+            assertTrue(second.shoot, "Shot from the lost input should survive");
+            assertTrue(second.right);
+            assertEquals(-1, second.posX, "Rebuilt inputs carry no position");
+            assertEquals(3, queue.poll().sequenceNumber);
+            assertEquals(4, queue.poll().posX);
+        }
+
+        @Test
+        @DisplayName("History should not reach back past the first input queued")
+        void firstInputShouldNotReplayHistory() {
+            sent(1, true);
+            queue.offer(sent(2, false));
+
+            assertEquals(1, queue.size());
+        }
+
+        @Test
+        @DisplayName("History should only cover InputHistory.SIZE inputs")
+        void historyShouldBeBounded() {
+            for (long seq = 1; seq < 20; seq++) {
+                sent(seq, seq == 19);
+            }
+            PlayerInput last = sent(20, false);
+
+            assertEquals(InputHistory.SIZE, last.history.length);
+            assertTrue(PlayerInput.fromButtons(last.history[0], 19).shoot, "Newest history entry comes first");
+        }
+
+        @Test
+        @DisplayName("Sequence gap on the sender should restart the history")
+        void senderGapShouldResetHistory() {
+            sent(1, false);
+            PlayerInput afterGap = sent(5, false);
+
+            assertEquals(0, afterGap.history.length);
+        }
+
+        @Test
+        @DisplayName("Unsequenced inputs should get no history")
+        void unsequencedShouldHaveNoHistory() {
+            sent(1, false);
+            PlayerInput request = new PlayerInput();
+            history.attach(request);
+
+            assertNull(request.history);
+            assertEquals(1, sent(2, false).history.length, "Request should not break the sequence");
+        }
+    }
+
+    @Nested
+    @DisplayName("Overflow Tests")
+    class OverflowTests {
+
+        @Test
+        @DisplayName("Excess inputs should be folded without losing a shot")
+        void overflowShouldFoldOldest() {
+            queue.offer(sent(1, true));
+            for (long seq = 2; seq <= InputQueue.MAX_BUFFERED + 1; seq++) {
+                queue.offer(sent(seq, false));
+            }
+
+            assertEquals(InputQueue.MAX_BUFFERED, queue.size());
+            PlayerInput folded = queue.poll();
+            assertEquals(2, folded.sequenceNumber);
+            assertTrue(folded.shoot);
+        }
+    }
+
+    @Nested
+    @DisplayName("Merge Tests")
+    class MergeTests {
+
+        @Test
+        @DisplayName("Newer input should decide movement and position")
+        void newerInputShouldWin() {
+            PlayerInput older = new PlayerInput(true, false, false, false, false);
+            older.posX = 10;
+            PlayerInput newer = new PlayerInput(false, false, true, false, false);
+            newer.posX = 12;
+
+            PlayerInput merged = InputQueue.merge(older, newer);
+
+            assertFalse(merged.up);
+            assertTrue(merged.left);
+            assertEquals(12, merged.posX);
+        }
+
+        @Test
+        @DisplayName("Shots and requests from the older input should not be lost")
+        void oneShotFlagsShouldSurvive() {
+            PlayerInput older = new PlayerInput(false, false, false, false, true, true);
+            older.requestRestart = true;
+            older.requestNextLevel = true;
+            older.nickname = "Tanker";
+
+            PlayerInput merged = InputQueue.merge(older, new PlayerInput());
+
+            assertTrue(merged.shoot);
+            assertTrue(merged.requestLife);
+            assertTrue(merged.requestRestart);
+            assertTrue(merged.requestNextLevel);
+            assertEquals("Tanker", merged.nickname);
+        }
+    }
+}
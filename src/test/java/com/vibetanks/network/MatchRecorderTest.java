@@ -0,0 +1,211 @@
+package com.vibetanks.network;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("MatchRecorder Tests")
+class MatchRecorderTest {
+
+    private static final int SNAPSHOTS = MatchRecorder.KEYFRAME_INTERVAL * 2 + 50;
+
+    @TempDir
+    Path dir;
+
+    // Snapshot for a frame: moving tanks and a wall being shot away tile by tile
+    private static GameState state(int frame) {
+        GameState state = new GameState();
+        state.sequence = frame;
+        state.serverTimeMs = 1000 + frame * 33L;
+        state.levelNumber = 2;
+        state.connectedPlayers = 2;
+        state.baseAlive = true;
+        state.mapTiles = new int[26][26];
+        for (int col = 0; col < 26; col++) {
+            state.mapTiles[12][col] = col < frame / 20 ? 0 : 1;
+        }
+        for (int i = 0; i < 2; i++) {
+            state.players[i].x = 100 + i * 200 + frame % 400;
+            state.players[i].y = 600;
+            state.players[i].nickname = "P" + (i + 1);
+        }
+        state.enemies.add(new GameState.EnemyData(50, 40 + frame % 500, 2, true, 0, 1, 1, 0, 1, -1));
+        return state;
+    }
+
+    private static byte[] encode(GameState state) {
+        WireWriter w = new WireWriter();
+        GameStateCodec.writeGameState(state, w);
+        return w.toByteArray();
+    }
+
+    // Frames 1..SNAPSHOTS, each with an input from player 2 applied first
+    private Path record() throws IOException {
+        Path file = dir.resolve("match" + MatchRecorder.FILE_EXTENSION);
+        try (MatchRecorder recorder = MatchRecorder.create(file)) {
+            for (int frame = 1; frame <= SNAPSHOTS; frame++) {
+                PlayerInput input = PlayerInput.fromButtons(1 + frame % 4, frame);
+                input.shoot = frame % 10 == 0;
+                recorder.recordInput(frame, 2, input);
+                recorder.recordSnapshot(frame, state(frame));
+            }
+        }
+        return file;
+    }
+
+    @Nested
+    @DisplayName("Playback Tests")
+    class PlaybackTests {
+
+        @Test
+        @DisplayName("Every snapshot should play back in order")
+        void shouldPlayBackEverySnapshot() throws IOException {
+            try (MatchReplay replay = MatchReplay.open(record())) {
+                for (int frame = 1; frame <= SNAPSHOTS; frame++) {
+                    GameState state = replay.next();
+                    assertNotNull(state, "frame " + frame);
+                    assertEquals(frame, replay.getFrame());
+                    assertArrayEquals(encode(state(frame)), encode(state));
+                }
+                assertNull(replay.next());
+                assertEquals(SNAPSHOTS, replay.getLastFrame());
+            }
+        }
+
+        @Test
+        @DisplayName("Inputs should reach the listener with their frame")
+        void shouldDeliverInputs() throws IOException {
+            List<Long> frames = new ArrayList<>();
+            try (MatchReplay replay = MatchReplay.open(record())) {
+                replay.setInputListener((frame, player, input) -> {
+                    assertEquals(2, player);
+                    assertEquals(frame, input.sequenceNumber);
+                    assertEquals(frame % 10 == 0, input.shoot);
+                    frames.add(frame);
+                });
+                while (replay.next() != null) { }
+            }
+            assertEquals(SNAPSHOTS, frames.size());
+            assertEquals(1L, frames.get(0));
+        }
+
+        @Test
+        @DisplayName("Deltas should keep the file much smaller than full snapshots")
+        void shouldStoreDeltas() throws IOException {
+            long fullBytes = 0;
+            for (int frame = 1; frame <= SNAPSHOTS; frame++) {
+                fullBytes += encode(state(frame)).length;
+            }
+            assertTrue(Files.size(record()) < fullBytes / 3, "recording should be mostly deltas");
+        }
+    }
+
+    @Nested
+    @DisplayName("Seek Tests")
+    class SeekTests {
+
+        @Test
+        @DisplayName("Keyframes should be indexed every interval")
+        void shouldIndexKeyframes() throws IOException {
+            try (MatchReplay replay = MatchReplay.open(record())) {
+                assertArrayEquals(new long[]{1, 1 + MatchRecorder.KEYFRAME_INTERVAL, 1 + 2 * MatchRecorder.KEYFRAME_INTERVAL},
+                    replay.getKeyframes());
+            }
+        }
+
+        @Test
+        @DisplayName("Seek should land on the frame and continue from there")
+        void shouldSeek() throws IOException {
+            try (MatchReplay replay = MatchReplay.open(record())) {
+                int target = MatchRecorder.KEYFRAME_INTERVAL + 77;
+                assertArrayEquals(encode(state(target)), encode(replay.seek(target)));
+                assertArrayEquals(encode(state(target + 1)), encode(replay.next()));
+
+                // Backwards, before the first keyframe and past the end
+                assertArrayEquals(encode(state(5)), encode(replay.seek(5)));
+                assertArrayEquals(encode(state(1)), encode(replay.seek(0)));
+                assertNull(replay.seek(SNAPSHOTS + 1));
+            }
+        }
+
+        @Test
+        @DisplayName("Seek should not report the inputs it skips")
+        void seekShouldSkipInputs() throws IOException {
+            try (MatchReplay replay = MatchReplay.open(record())) {
+                List<Long> frames = new ArrayList<>();
+                replay.setInputListener((frame, player, input) -> frames.add(frame));
+                replay.seek(100);
+                assertTrue(frames.isEmpty());
+                replay.next();
+                assertEquals(List.of(101L), frames);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Damaged File Tests")
+    class DamagedFileTests {
+
+        @Test
+        @DisplayName("Recording without an index should be scanned")
+        void missingIndexShouldBeRebuilt() throws IOException {
+            Path file = record();
+            long[] expected;
+            try (MatchReplay replay = MatchReplay.open(file)) {
+                expected = replay.getKeyframes();
+            }
+            // Cut the file in the middle of the last record, as a crash would
+            byte[] bytes = Files.readAllBytes(file);
+            Files.write(file, Arrays.copyOf(bytes, bytes.length - 100));
+
+            try (MatchReplay replay = MatchReplay.open(file)) {
+                assertArrayEquals(expected, replay.getKeyframes());
+                GameState state = replay.seek(SNAPSHOTS - 20);
+                assertArrayEquals(encode(state(SNAPSHOTS - 20)), encode(state));
+                int played = 0;
+                while (replay.next() != null) {
+                    played++;
+                }
+                assertTrue(played > 0 && played < 20);
+            }
+        }
+
+        @Test
+        @DisplayName("Other files should be rejected")
+        void otherFileShouldFail() throws IOException {
+            Path file = dir.resolve("other.bin");
+            Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+            assertThrows(StreamCorruptedException.class, () -> MatchReplay.open(file));
+        }
+
+        @Test
+        @DisplayName("Recording from another codec version should be rejected")
+        void otherCodecShouldFail() throws IOException {
+            Path file = record();
+            byte[] bytes = Files.readAllBytes(file);
+            bytes[5] = (byte) (GameStateCodec.CODEC_VERSION + 1);
+            Files.write(file, bytes);
+            assertThrows(IOException.class, () -> MatchReplay.open(file));
+        }
+
+        @Test
+        @DisplayName("Existing file should never be overwritten")
+        void shouldNotOverwrite() throws IOException {
+            Path file = record();
+            assertThrows(IOException.class, () -> MatchRecorder.create(file));
+
+            Path first = Files.createFile(MatchRecorder.newFile(dir, "ROOM"));
+            assertNotEquals(first, MatchRecorder.newFile(dir, "ROOM"));
+        }
+    }
+}
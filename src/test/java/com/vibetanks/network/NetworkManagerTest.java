@@ -6,8 +6,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -175,6 +181,30 @@ class NetworkManagerTest {
             assertDoesNotThrow(() -> manager.sendGameState(state));
         }
 
+        @Test
+        @DisplayName("Host with no remote players should still record what it sends")
+        void hostAloneShouldRecord(@TempDir Path directory) throws IOException {
+            assertTrue(manager.startHost());
+            manager.startRecording(directory);
+
+            for (int i = 0; i < 3; i++) {
+                manager.sendGameState(new GameState());
+            }
+            manager.close();
+
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(directory)) {
+                files = listing.toList();
+            }
+            assertEquals(1, files.size());
+            try (MatchReplay replay = MatchReplay.open(files.get(0))) {
+                assertNotNull(replay.next());
+                assertNotNull(replay.next());
+                assertNotNull(replay.next());
+                assertNull(replay.next());
+            }
+        }
+
         @Test
         @DisplayName("getLatestGameState should return null when no states received")
         void getLatestGameStateShouldReturnNullWhenNoStates() {
@@ -304,6 +334,24 @@ class NetworkManagerTest {
             }
         }
 
+        @Test
+        @DisplayName("Host should close a client from before the binary protocol at once")
+        @Timeout(value = 15, unit = TimeUnit.SECONDS)
+        void hostShouldCloseLegacyClient() throws Exception {
+            if (!manager.startHost()) return;
+            Thread.sleep(500);
+
+            try (java.net.Socket socket = new java.net.Socket("127.0.0.1", 25565)) {
+                socket.setSoTimeout(3000);
+                // ObjectOutputStream header: what such a client sends first
+                socket.getOutputStream().write(new byte[]{(byte) 0xAC, (byte) 0xED, 0x00, 0x05});
+                long start = System.currentTimeMillis();
+
+                assertEquals(-1, socket.getInputStream().read());
+                assertTrue(System.currentTimeMillis() - start < 1000);
+            }
+        }
+
         @Test
         @DisplayName("Host should receive client input")
         @Timeout(value = 15, unit = TimeUnit.SECONDS)
@@ -377,6 +425,38 @@ class NetworkManagerTest {
         }
     }
 
+    @Nested
+    @DisplayName("Spectator Tests")
+    class SpectatorTests {
+
+        @Test
+        @DisplayName("Spectator should receive snapshots from a host with no remote players")
+        @Timeout(value = 15, unit = TimeUnit.SECONDS)
+        void spectatorAloneShouldReceiveSnapshots() throws InterruptedException {
+            assertTrue(manager.startHost());
+            NetworkManager watcher = new NetworkManager();
+            try {
+                Thread.sleep(200);
+                assertTrue(watcher.joinHost("spectate:127.0.0.1"));
+                Thread.sleep(200);
+                assertEquals(1, manager.getConnectedPlayerCount());
+
+                GameState state = new GameState();
+                state.levelNumber = 7;
+                GameState received = null;
+                for (int i = 0; i < 100 && received == null; i++) {
+                    manager.sendGameState(state);
+                    Thread.sleep(20);
+                    received = watcher.getLatestGameState();
+                }
+                assertNotNull(received);
+                assertEquals(7, received.levelNumber);
+            } finally {
+                watcher.close();
+            }
+        }
+    }
+
     @Nested
     @DisplayName("Multiple Client Tests")
     class MultipleClientTests {
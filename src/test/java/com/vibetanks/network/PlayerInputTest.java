@@ -358,4 +358,51 @@ class PlayerInputTest {
             assertEquals(3, input.direction);
         }
     }
+
+    @Nested
+    @DisplayName("Button Packing Tests")
+    class ButtonPackingTests {
+
+        @Test
+        @DisplayName("Packed buttons should fit in one byte and round trip")
+        void buttonsShouldRoundTrip() {
+            input = new PlayerInput(false, false, true, false, true, true);
+            input.requestRestart = true;
+            input.paused = true;
+
+            int bits = input.packButtons();
+            PlayerInput unpacked = PlayerInput.fromButtons(bits, 42);
+
+            assertTrue(bits >= 0 && bits <= 0xFF);
+            assertTrue(unpacked.left);
+            assertFalse(unpacked.up || unpacked.down || unpacked.right);
+            assertTrue(unpacked.shoot);
+            assertTrue(unpacked.requestLife);
+            assertTrue(unpacked.requestRestart);
+            assertFalse(unpacked.requestNextLevel);
+            assertTrue(unpacked.paused);
+            assertEquals(42, unpacked.sequenceNumber);
+        }
+
+        @Test
+        @DisplayName("Only the movement key the game would use should be packed")
+        void movementPriorityShouldMatchGame() {
+            input = new PlayerInput(false, true, true, true, false);
+
+            PlayerInput unpacked = PlayerInput.fromButtons(input.packButtons(), 1);
+
+            assertTrue(unpacked.down);
+            assertFalse(unpacked.left || unpacked.right);
+        }
+
+        @Test
+        @DisplayName("Rebuilt input should carry no position")
+        void rebuiltInputShouldHaveNoPosition() {
+            PlayerInput unpacked = PlayerInput.fromButtons(0, 1);
+
+            assertEquals(-1, unpacked.posX);
+            assertEquals(-1, unpacked.posY);
+            assertNull(unpacked.nickname);
+        }
+    }
 }
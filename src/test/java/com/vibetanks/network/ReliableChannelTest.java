@@ -0,0 +1,122 @@
+package com.vibetanks.network;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ReliableChannel Tests")
+class ReliableChannelTest {
+
+    private ReliableChannel sender;
+    private ReliableChannel receiver;
+
+    @BeforeEach
+    void setUp() {
+        sender = new ReliableChannel();
+        receiver = new ReliableChannel();
+    }
+
+    // Feed a RELIABLE datagram into the receiver, returning the payload bytes released
+    private List<Integer> deliver(byte[] packet) throws IOException {
+        WireReader r = new WireReader(packet);
+        assertEquals(UdpPacket.RELIABLE, r.readUnsignedByte());
+        long seq = r.readVarLong();
+        byte[] frame = new byte[r.remaining()];
+        r.readBytes(frame, 0, frame.length);
+        List<Integer> values = new ArrayList<>();
+        for (byte[] f : receiver.receive(seq, frame)) {
+            values.add((int) f[0]);
+        }
+        return values;
+    }
+
+    private static long ackValue(byte[] ack) throws IOException {
+        WireReader r = new WireReader(ack);
+        assertEquals(UdpPacket.ACK, r.readUnsignedByte());
+        return r.readVarLong();
+    }
+
+    @Nested
+    @DisplayName("Ordering Tests")
+    class OrderingTests {
+
+        @Test
+        @DisplayName("Frames arriving out of order should be released in order")
+        void outOfOrderShouldBeReordered() throws IOException {
+            byte[] p0 = sender.wrap(new byte[]{10}, 0);
+            byte[] p1 = sender.wrap(new byte[]{11}, 0);
+            byte[] p2 = sender.wrap(new byte[]{12}, 0);
+
+            assertEquals(List.of(), deliver(p2));
+            assertEquals(List.of(), deliver(p1));
+            assertEquals(List.of(10, 11, 12), deliver(p0));
+            assertEquals(3, ackValue(receiver.ackPacket()));
+        }
+
+        @Test
+        @DisplayName("Duplicates should be delivered only once")
+        void duplicatesShouldBeDropped() throws IOException {
+            byte[] p0 = sender.wrap(new byte[]{1}, 0);
+
+            assertEquals(List.of(1), deliver(p0));
+            assertEquals(List.of(), deliver(p0));
+        }
+
+        @Test
+        @DisplayName("Gap larger than the reorder window should be rejected")
+        void hugeGapShouldFail() {
+            assertThrows(IOException.class,
+                () -> receiver.receive(ReliableChannel.MAX_OUT_OF_ORDER + 1, new byte[]{1}));
+        }
+    }
+
+    @Nested
+    @DisplayName("Retransmit Tests")
+    class RetransmitTests {
+
+        @Test
+        @DisplayName("Unacked frames should be resent after the interval")
+        void unackedShouldBeResent() {
+            byte[] p0 = sender.wrap(new byte[]{1}, 1000);
+
+            assertTrue(sender.due(1000 + ReliableChannel.RESEND_INTERVAL_MS - 1).isEmpty());
+            List<byte[]> due = sender.due(1000 + ReliableChannel.RESEND_INTERVAL_MS);
+            assertEquals(1, due.size());
+            assertSame(p0, due.get(0));
+            // Interval restarts after each resend
+            assertTrue(sender.due(1000 + ReliableChannel.RESEND_INTERVAL_MS + 1).isEmpty());
+        }
+
+        @Test
+        @DisplayName("Cumulative ack should release every frame below it")
+        void ackShouldReleasePending() {
+            sender.wrap(new byte[]{1}, 0);
+            sender.wrap(new byte[]{2}, 0);
+            sender.wrap(new byte[]{3}, 0);
+            assertEquals(3, sender.pendingCount());
+
+            sender.onAck(2);
+
+            assertEquals(1, sender.pendingCount());
+            assertEquals(1, sender.due(ReliableChannel.RESEND_INTERVAL_MS).size());
+        }
+
+        @Test
+        @DisplayName("Pending bytes should track unacknowledged datagrams")
+        void pendingBytesShouldTrack() {
+            byte[] p0 = sender.wrap(new byte[100], 0);
+            assertEquals(p0.length, sender.pendingBytes());
+
+            sender.onAck(1);
+
+            assertEquals(0, sender.pendingBytes());
+        }
+    }
+}
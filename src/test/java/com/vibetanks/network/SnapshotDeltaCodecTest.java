@@ -0,0 +1,257 @@
+package com.vibetanks.network;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import java.io.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("SnapshotDeltaCodec Tests")
+class SnapshotDeltaCodecTest {
+
+    // A mid-level snapshot: full 26x26 map, players, enemies and some projectiles
+    private static GameState gameplayState(long sequence, int frame) {
+        GameState state = new GameState();
+        state.sequence = sequence;
+        state.levelNumber = 3;
+        state.remainingEnemies = 12;
+        state.totalEnemiesLeft = 16;
+        state.connectedPlayers = 2;
+        state.baseAlive = true;
+        state.mapTiles = new int[26][26];
+        for (int row = 0; row < 26; row++) {
+            for (int col = 0; col < 26; col++) {
+                state.mapTiles[row][col] = (row * 7 + col * 3) % 5;
+            }
+        }
+        for (int i = 0; i < 2; i++) {
+            PlayerData p = state.players[i];
+            p.x = 200 + i * 100 + frame;
+            p.y = 700;
+            p.score = 1500;
+            p.nickname = "P" + (i + 1);
+        }
+        state.players[2].connected = false;
+        state.players[3].connected = false;
+        for (int i = 0; i < 4; i++) {
+            state.enemies.add(new GameState.EnemyData(50 + i * 150, 60 + frame * 1.5, 1, true, i, 1, 1, 0, 1, -1));
+        }
+        state.bullets.add(new GameState.BulletData(100, 300, 500 - frame * 4, 0, false, 1, false, 1, 8, false));
+        state.bullets.add(new GameState.BulletData(101, 120, 80 + frame * 4, 1, true, 1, false, 0, 8, false));
+        state.powerUps.add(new GameState.PowerUpData(7, 320, 320, 2, 600 - frame));
+        return state;
+    }
+
+    private static byte[] fullEncoding(GameState state) {
+        WireWriter w = new WireWriter();
+        GameStateCodec.writeGameState(state, w);
+        return w.toByteArray();
+    }
+
+    private static WireWriter delta(GameState baseline, GameState state) {
+        WireWriter w = new WireWriter();
+        SnapshotDeltaCodec.writeDelta(baseline, state, w);
+        return w;
+    }
+
+    private static GameState decode(WireWriter delta, GameState baseline) throws IOException {
+        WireReader reader = new WireReader(delta.toByteArray());
+        GameState decoded = SnapshotDeltaCodec.readDelta(reader,
+            seq -> seq == baseline.sequence ? baseline : null);
+        assertNotNull(decoded);
+        assertEquals(0, reader.remaining(), "Decoder should consume the whole payload");
+        return decoded;
+    }
+
+    private static void assertRoundTrip(GameState baseline, GameState state) throws IOException {
+        GameState decoded = decode(delta(baseline, state), baseline);
+        assertArrayEquals(fullEncoding(state), fullEncoding(decoded));
+    }
+
+    @Nested
+    @DisplayName("Round Trip Tests")
+    class RoundTripTests {
+
+        @Test
+        @DisplayName("Movement below the position resolution should not be sent")
+        void subStepMovementShouldBeSkipped() throws IOException {
+            GameState baseline = gameplayState(1, 0);
+            GameState moved = gameplayState(2, 0);
+            moved.players[0].x += GameStateCodec.POSITION_STEP / 4;
+            moved.enemies.get(0).y += GameStateCodec.POSITION_STEP / 4;
+
+            assertEquals(delta(baseline, gameplayState(2, 0)).size(), delta(baseline, moved).size());
+            assertRoundTrip(baseline, moved);
+        }
+
+        @Test
+        @DisplayName("Moving entities should reconstruct exactly")
+        void movingEntitiesShouldRoundTrip() throws IOException {
+            assertRoundTrip(gameplayState(1, 0), gameplayState(5, 4));
+        }
+
+        @Test
+        @DisplayName("Spawns and despawns keyed by id should reconstruct exactly")
+        void spawnsAndDespawnsShouldRoundTrip() throws IOException {
+            GameState baseline = gameplayState(1, 0);
+            GameState state = gameplayState(2, 1);
+            state.bullets.remove(0);
+            state.bullets.add(new GameState.BulletData(102, 10, 10, 3, false, 2, true, 2, 8, true));
+            state.lasers.add(new GameState.LaserData(9, 32, 64, 0, false, 1, 15, 600.5));
+            state.powerUps.clear();
+            state.enemies.remove(3);
+            state.enemies.get(0).health = 0;
+            state.enemies.get(0).alive = false;
+
+            assertRoundTrip(baseline, state);
+        }
+
+        @Test
+        @DisplayName("Changed sections, players and map tiles should reconstruct exactly")
+        void sectionsAndMapShouldRoundTrip() throws IOException {
+            GameState baseline = gameplayState(1, 0);
+            GameState state = gameplayState(2, 0);
+            state.gameOver = true;
+            state.catEscaping = true;
+            state.catEscapeX = 410;
+            state.ufoData = new GameState.UFOData(300, 150, -1.5, 0.25, true, 3, 1200, false);
+            state.hostEnemySpeed = 1.25;
+            state.burningTiles.add(new GameState.BurningTileData(5, 7, 45));
+            state.players[0].respawnTimer = 30;
+            state.players[0].pendingRespawnX = 256;
+            state.players[0].killsByType[2] = 4;
+            state.players[1].nickname = null;
+            state.players[2].lastInputSequence = 42;
+            state.mapTiles[0][0] = 4;
+            state.mapTiles[25][25] = 3;
+            state.mapTiles[12][13] = 0;
+            state.tileChanges.add(new GameState.TileChange(12, 13, 0));
+            state.soundEvents.add(new GameState.SoundEvent(GameState.SoundType.EXPLOSION, 1));
+
+            assertRoundTrip(baseline, state);
+        }
+
+        @Test
+        @DisplayName("Map appearing or resizing should be sent in full")
+        void mapChangesShouldRoundTrip() throws IOException {
+            GameState baseline = gameplayState(1, 0);
+            baseline.mapTiles = null;
+            assertRoundTrip(baseline, gameplayState(2, 0));
+
+            GameState noMap = gameplayState(3, 0);
+            noMap.mapTiles = null;
+            assertRoundTrip(gameplayState(2, 0), noMap);
+        }
+
+        @Test
+        @DisplayName("Decoding should not share records with the baseline")
+        void decodedShouldNotAliasBaseline() throws IOException {
+            GameState baseline = gameplayState(1, 0);
+            GameState decoded = decode(delta(baseline, gameplayState(2, 0)), baseline);
+
+            assertNotSame(baseline.players[0], decoded.players[0]);
+            assertNotSame(baseline.enemies.get(0), decoded.enemies.get(0));
+            assertNotSame(baseline.mapTiles[0], decoded.mapTiles[0]);
+        }
+    }
+
+    @Nested
+    @DisplayName("Context Reuse Tests")
+    class ContextReuseTests {
+
+        @Test
+        @DisplayName("Reused context should encode and decode like a fresh one")
+        void reusedContextShouldRoundTrip() throws IOException {
+            SnapshotDeltaCodec.Context writeContext = new SnapshotDeltaCodec.Context();
+            SnapshotDeltaCodec.Context readContext = new SnapshotDeltaCodec.Context();
+            GameState baseline = gameplayState(1, 0);
+            for (int frame = 1; frame <= 20; frame++) {
+                GameState state = gameplayState(frame + 1, frame);
+                // Bullets come and go so the id lookups change between frames
+                if (frame % 3 == 0) {
+                    state.bullets.remove(0);
+                }
+                state.bullets.add(new GameState.BulletData(200 + frame, 50, 50, 2, false, 1, false, 1, 8, false));
+
+                WireWriter w = new WireWriter();
+                SnapshotDeltaCodec.writeDelta(baseline, state, w, writeContext);
+                assertArrayEquals(delta(baseline, state).toByteArray(), w.toByteArray());
+
+                GameState base = baseline;
+                GameState decoded = SnapshotDeltaCodec.readDelta(new WireReader(w.toByteArray()),
+                    seq -> base, readContext);
+                assertArrayEquals(fullEncoding(state), fullEncoding(decoded));
+                baseline = decoded;
+            }
+        }
+
+        @Test
+        @DisplayName("Many records should match by id past the initial table size")
+        void manyRecordsShouldMatch() throws IOException {
+            GameState baseline = gameplayState(1, 0);
+            GameState state = gameplayState(2, 1);
+            for (int i = 0; i < 300; i++) {
+                long id = 1000L + i * 64; // Same low bits, to exercise collisions
+                baseline.bullets.add(new GameState.BulletData(id, i, 10, 0, false, 1, false, 1, 8, false));
+                state.bullets.add(new GameState.BulletData(id, i, 10, 0, false, 1, false, 1, 8, false));
+            }
+            state.bullets.get(state.bullets.size() - 1).y = 14;
+
+            assertRoundTrip(baseline, state);
+            // Matched records cost their id and an empty mask, spawns their full encoding
+            assertTrue(delta(baseline, state).size() * 3 < fullEncoding(state).length);
+        }
+    }
+
+    @Nested
+    @DisplayName("Size Tests")
+    class SizeTests {
+
+        @Test
+        @DisplayName("Unchanged state should be an order of magnitude smaller than a full snapshot")
+        void unchangedStateShouldBeTiny() {
+            GameState baseline = gameplayState(1, 0);
+            int full = fullEncoding(gameplayState(2, 0)).length;
+            int delta = delta(baseline, gameplayState(2, 0)).size();
+
+            assertTrue(delta * 10 <= full, "delta=" + delta + " full=" + full);
+        }
+
+        @Test
+        @DisplayName("Steady-state movement should be an order of magnitude smaller than a full snapshot")
+        void steadyStateShouldBeSmall() {
+            GameState baseline = gameplayState(1, 0);
+            GameState state = gameplayState(2, 1);
+            int full = fullEncoding(state).length;
+            int delta = delta(baseline, state).size();
+
+            assertTrue(delta * 5 <= full, "delta=" + delta + " full=" + full);
+        }
+    }
+
+    @Nested
+    @DisplayName("Error Handling Tests")
+    class ErrorHandlingTests {
+
+        @Test
+        @DisplayName("Missing baseline should return null")
+        void missingBaselineShouldReturnNull() throws IOException {
+            WireWriter d = delta(gameplayState(1, 0), gameplayState(2, 1));
+            assertNull(SnapshotDeltaCodec.readDelta(new WireReader(d.toByteArray()), seq -> null));
+        }
+
+        @Test
+        @DisplayName("Delta for an id the baseline does not have should be rejected")
+        void unknownIdShouldFail() {
+            GameState encodedAgainst = gameplayState(1, 0);
+            WireWriter d = delta(encodedAgainst, gameplayState(2, 1));
+
+            GameState wrongBaseline = gameplayState(1, 0);
+            wrongBaseline.bullets.clear();
+            assertThrows(StreamCorruptedException.class,
+                () -> SnapshotDeltaCodec.readDelta(new WireReader(d.toByteArray()), seq -> wrongBaseline));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.vibetanks.network;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import java.io.*;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("SnapshotEncoder Tests")
+class SnapshotEncoderTest {
+
+    private SnapshotEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        encoder = new SnapshotEncoder();
+    }
+
+    @Nested
+    @DisplayName("Frame Encoding Tests")
+    class FrameEncodingTests {
+
+        @Test
+        @DisplayName("Encoded frame should be identical to a stream-written frame")
+        void encodedFrameShouldMatchStreamFrame() throws IOException {
+            GameState state = new GameState();
+            state.levelNumber = 3;
+            state.enemies.add(new GameState.EnemyData(1, 2, 0, true, 0, 1, 1, 0, 1, -1));
+
+            encoder.encode(state);
+
+            WireWriter payload = new WireWriter();
+            GameStateCodec.writeGameState(state, payload);
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            WireProtocol.writeFrame(baos, WireProtocol.MSG_GAME_STATE, payload);
+
+            assertArrayEquals(baos.toByteArray(),
+                Arrays.copyOf(encoder.frameBytes(), encoder.frameLength()));
+            assertEquals(payload.size(), encoder.payloadLength());
+        }
+
+        @Test
+        @DisplayName("Frame should decode back to the snapshot")
+        void frameShouldDecode() throws IOException {
+            GameState state = new GameState();
+            state.levelNumber = 7;
+            encoder.encode(state);
+
+            DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(encoder.frameBytes(), 0, encoder.frameLength()));
+            WireProtocol.FrameBuffer frame = new WireProtocol.FrameBuffer();
+
+            assertEquals(WireProtocol.MSG_GAME_STATE, WireProtocol.readFrame(in, frame));
+            assertEquals(7, GameStateCodec.readGameState(frame.reader()).levelNumber);
+        }
+
+        @Test
+        @DisplayName("Buffers should be reused between encodes")
+        void buffersShouldBeReused() {
+            GameState big = new GameState();
+            for (int i = 0; i < 50; i++) {
+                big.bullets.add(new GameState.BulletData(i, i, i, 0, false, 1, false, 1, 8, false));
+            }
+            encoder.encode(big);
+            byte[] firstArray = encoder.frameBytes();
+            int bigLength = encoder.frameLength();
+
+            encoder.encode(new GameState());
+
+            assertSame(firstArray, encoder.frameBytes());
+            assertTrue(encoder.frameLength() < bigLength);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.vibetanks.network;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("SnapshotFanout Tests")
+class SnapshotFanoutTest {
+
+    private SnapshotFanout fanout;
+
+    @BeforeEach
+    void setUp() {
+        fanout = new SnapshotFanout();
+    }
+
+    private static int frameType(byte[] frame) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame));
+        return WireProtocol.readFrame(in, new WireProtocol.FrameBuffer());
+    }
+
+    private static GameState decode(byte[] frame, GameState baseline) throws IOException {
+        WireProtocol.FrameBuffer buffer = new WireProtocol.FrameBuffer();
+        int type = WireProtocol.readFrame(new DataInputStream(new ByteArrayInputStream(frame)), buffer);
+        return type == WireProtocol.MSG_GAME_STATE
+            ? GameStateCodec.readGameState(buffer.reader())
+            : SnapshotDeltaCodec.readDelta(buffer.reader(), seq -> baseline);
+    }
+
+    private static GameState state(int level) {
+        GameState state = new GameState();
+        state.levelNumber = level;
+        return state;
+    }
+
+    @Nested
+    @DisplayName("Frame Selection Tests")
+    class FrameSelectionTests {
+
+        @Test
+        @DisplayName("Sequences should be stamped in order")
+        void sequencesShouldIncrease() {
+            GameState first = state(1);
+            GameState second = state(1);
+            fanout.begin(first);
+            fanout.begin(second);
+
+            assertEquals(1, first.sequence);
+            assertEquals(2, second.sequence);
+        }
+
+        @Test
+        @DisplayName("Receiver without an ack should get a full snapshot")
+        void noAckShouldGetFull() throws IOException {
+            fanout.begin(state(1));
+            assertEquals(WireProtocol.MSG_GAME_STATE, frameType(fanout.frameFor(0)));
+        }
+
+        @Test
+        @DisplayName("Receiver with a known ack should get a delta")
+        void knownAckShouldGetDelta() throws IOException {
+            fanout.begin(state(1));
+            fanout.begin(state(1));
+            assertEquals(WireProtocol.MSG_GAME_STATE_DELTA, frameType(fanout.frameFor(1)));
+        }
+
+        @Test
+        @DisplayName("Receiver too far behind should get a full snapshot")
+        void evictedAckShouldGetFull() throws IOException {
+            for (int i = 0; i < SnapshotFanout.HISTORY_SIZE + 2; i++) {
+                fanout.begin(state(1));
+            }
+            assertEquals(WireProtocol.MSG_GAME_STATE, frameType(fanout.frameFor(1)));
+        }
+    }
+
+    @Test
+    @DisplayName("Receivers with the same baseline should share one frame")
+    void sameBaselineShouldShareFrame() {
+        fanout.begin(state(1));
+        fanout.begin(state(2));
+        fanout.begin(state(3));
+
+        assertSame(fanout.frameFor(1), fanout.frameFor(1));
+        assertNotSame(fanout.frameFor(1), fanout.frameFor(2));
+        assertSame(fanout.frameFor(0), fanout.frameFor(0));
+    }
+
+    @Nested
+    @DisplayName("Reduced Detail Tests")
+    class ReducedDetailTests {
+
+        private GameState burning(int level) {
+            GameState state = state(level);
+            state.burningTiles.add(new GameState.BurningTileData(3, 4, 20));
+            return state;
+        }
+
+        @Test
+        @DisplayName("Reduced full snapshot should leave out burning tiles")
+        void reducedFullShouldDropCosmetics() throws IOException {
+            fanout.begin(burning(1));
+
+            assertEquals(1, decode(fanout.frameFor(0, false), null).burningTiles.size());
+            assertTrue(decode(fanout.frameFor(0, true), null).burningTiles.isEmpty());
+        }
+
+        @Test
+        @DisplayName("Reduced delta should clear cosmetics held by a full-detail baseline")
+        void reducedDeltaShouldClearCosmetics() throws IOException {
+            fanout.begin(burning(1));
+            GameState baseline = decode(fanout.frameFor(0, false), null);
+            fanout.begin(burning(1));
+
+            GameState state = decode(fanout.frameFor(1, true), baseline);
+
+            assertTrue(state.burningTiles.isEmpty());
+            assertEquals(2, state.sequence);
+        }
+
+        @Test
+        @DisplayName("Full-detail delta against a reduced baseline should resend cosmetics")
+        void fullDeltaAfterReducedShouldRestoreCosmetics() throws IOException {
+            fanout.begin(burning(1));
+            GameState baseline = decode(fanout.frameFor(0, true), null);
+            fanout.begin(burning(1));
+
+            // Unchanged since the baseline, so left out unless the fanout knows it was reduced
+            assertTrue(decode(fanout.frameFor(1, 1, 0, false, false), baseline).burningTiles.isEmpty());
+            GameState state = decode(fanout.frameFor(1, 1, 1, false, false), baseline);
+
+            assertEquals(1, state.burningTiles.size());
+            assertEquals(2, state.sequence);
+        }
+
+        @Test
+        @DisplayName("Baselines after the last reduced snapshot should get the plain delta")
+        void laterBaselineShouldNotRestoreCosmetics() {
+            fanout.begin(burning(1));
+            fanout.begin(burning(1));
+            fanout.begin(burning(1));
+
+            assertSame(fanout.frameFor(2, 2, 1, false, false), fanout.frameFor(2, 2, 0, false, false));
+            assertNotSame(fanout.frameFor(1, 2, 1, false, false), fanout.frameFor(1, 2, 0, false, false));
+        }
+
+        @Test
+        @DisplayName("Full and reduced frames should not be shared")
+        void detailLevelsShouldNotShareFrames() {
+            fanout.begin(burning(1));
+            fanout.begin(burning(2));
+
+            assertNotSame(fanout.frameFor(1, false), fanout.frameFor(1, true));
+            assertSame(fanout.frameFor(1, true), fanout.frameFor(1, true));
+            assertNotSame(fanout.frameFor(0, false), fanout.frameFor(0, true));
+        }
+    }
+
+    @Nested
+    @DisplayName("Sound Event Tests")
+    class SoundEventTests {
+
+        // One explosion per tick, told apart by player number
+        private GameState exploding(int tick) {
+            GameState state = state(1);
+            state.soundEvents.add(new GameState.SoundEvent(GameState.SoundType.EXPLOSION, tick));
+            return state;
+        }
+
+        @Test
+        @DisplayName("Every explosion should arrive at send divisor 2")
+        void skippedExplosionsShouldArrive() throws IOException {
+            List<Integer> heard = new ArrayList<>();
+            GameState baseline = null;
+            long sent = 0;
+            for (int tick = 1; tick <= 21; tick++) {
+                GameState state = exploding(tick);
+                fanout.begin(state);
+                if (tick % 2 == 0) continue; // Sent ticks 1, 3, 5...
+
+                byte[] frame = fanout.frameFor(baseline != null ? baseline.sequence : 0, sent, false, false);
+                sent = state.sequence;
+                baseline = decode(frame, baseline);
+                for (GameState.SoundEvent event : baseline.soundEvents) {
+                    assertEquals(GameState.SoundType.EXPLOSION, event.type);
+                    heard.add(event.playerNumber);
+                }
+            }
+
+            List<Integer> expected = new ArrayList<>();
+            for (int tick = 1; tick <= 21; tick++) {
+                expected.add(tick);
+            }
+            assertEquals(expected, heard);
+        }
+
+        @Test
+        @DisplayName("Receiver sent every snapshot should get only the current events")
+        void currentReceiverShouldGetCurrentEvents() throws IOException {
+            fanout.begin(exploding(1));
+            fanout.begin(exploding(2));
+
+            byte[] frame = fanout.frameFor(0, 1, false, false);
+
+            assertSame(fanout.fullFrame(), frame);
+            assertEquals(1, decode(frame, null).soundEvents.size());
+        }
+
+        @Test
+        @DisplayName("New receiver should not get sounds from before it joined")
+        void newReceiverShouldGetCurrentEvents() throws IOException {
+            fanout.begin(exploding(1));
+            fanout.begin(exploding(2));
+
+            assertEquals(1, decode(fanout.frameFor(0, 0, false, false), null).soundEvents.size());
+        }
+
+        @Test
+        @DisplayName("Receivers that skipped the same snapshots should share a frame")
+        void sameSkipShouldShareFrame() throws IOException {
+            fanout.begin(exploding(1));
+            fanout.begin(exploding(2));
+            fanout.begin(exploding(3));
+
+            byte[] frame = fanout.frameFor(1, 1, false, false);
+
+            assertSame(frame, fanout.frameFor(1, 1, false, false));
+            assertNotSame(frame, fanout.frameFor(1, 2, false, false));
+            assertEquals(2, decode(frame, state(1)).soundEvents.size());
+        }
+
+        @Test
+        @DisplayName("Skipped snapshots without sounds should not cost an extra frame")
+        void quietSkipShouldUsePlainFrame() {
+            fanout.begin(exploding(1));
+            fanout.begin(state(1));
+            fanout.begin(exploding(3));
+
+            assertSame(fanout.frameFor(1, false), fanout.frameFor(1, 1, false, false));
+        }
+    }
+
+    @Nested
+    @DisplayName("Compression Tests")
+    class CompressionTests {
+
+        @Test
+        @DisplayName("Uncompressed receivers should get the plain frame")
+        void uncompressedShouldGetPlainFrame() {
+            fanout.begin(state(1));
+            assertSame(fanout.frameFor(0, false), fanout.frameFor(0, false, false));
+        }
+
+        @Test
+        @DisplayName("Compressed frame should be built once and shared")
+        void compressedFrameShouldBeShared() throws IOException {
+            fanout.begin(state(1));
+            byte[] compressed = fanout.frameFor(0, false, true);
+
+            assertSame(compressed, fanout.frameFor(0, false, true));
+            if (CompressionDictionary.get() != null && compressed != fanout.frameFor(0, false)) {
+                assertEquals(WireProtocol.MSG_COMPRESSED, frameType(compressed));
+                assertTrue(compressed.length < fanout.frameFor(0, false).length);
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.vibetanks.network;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("SnapshotInterpolator Tests")
+class SnapshotInterpolatorTest {
+
+    private static final long LATENCY = 10;
+    private static final long INTERVAL = 50;
+
+    private SnapshotInterpolator interpolator;
+
+    @BeforeEach
+    void setUp() {
+        interpolator = new SnapshotInterpolator();
+    }
+
+    private static GameState snapshot(long serverTimeMs) {
+        GameState state = new GameState();
+        state.serverTimeMs = serverTimeMs;
+        return state;
+    }
+
+    // Snapshots every INTERVAL ms from 0 to lastServerTime, each arriving LATENCY ms later
+    private void feedSteady(long lastServerTime) {
+        for (long t = 0; t <= lastServerTime; t += INTERVAL) {
+            interpolator.add(snapshot(t), t + LATENCY);
+        }
+    }
+
+    @Nested
+    @DisplayName("Interpolation Tests")
+    class InterpolationTests {
+
+        @Test
+        @DisplayName("Empty buffer should return no sample")
+        void emptyShouldReturnNull() {
+            assertNull(interpolator.sample(1000));
+        }
+
+        @Test
+        @DisplayName("Single snapshot should be shown as is")
+        void singleSnapshotShouldHold() {
+            GameState only = snapshot(100);
+            interpolator.add(only, 110);
+
+            SnapshotInterpolator.Sample sample = interpolator.sample(500);
+
+            assertSame(only, sample.from());
+            assertSame(only, sample.to());
+            assertEquals(0, sample.alpha());
+        }
+
+        @Test
+        @DisplayName("Steady stream should render one interval behind the newest snapshot")
+        void steadyStreamShouldInterpolate() {
+            feedSteady(200);
+            assertEquals(INTERVAL, interpolator.getDelayMs());
+
+            // Render time = 235 - 10 - 50 = 175, halfway between 150 and 200
+            SnapshotInterpolator.Sample sample = interpolator.sample(200 + LATENCY + 25);
+
+            assertEquals(150, sample.from().serverTimeMs);
+            assertEquals(200, sample.to().serverTimeMs);
+            assertEquals(0.5, sample.alpha(), 1e-9);
+            assertEquals(15.0, sample.lerp(10, 20), 1e-9);
+        }
+
+        @Test
+        @DisplayName("Snapshots older than the render window should be trimmed")
+        void oldSnapshotsShouldBeTrimmed() {
+            feedSteady(200);
+            assertEquals(5, interpolator.size());
+
+            interpolator.sample(200 + LATENCY + 25);
+
+            assertEquals(2, interpolator.size());
+        }
+
+        @Test
+        @DisplayName("Out of order and duplicate snapshots should be ignored")
+        void outOfOrderShouldBeDropped() {
+            interpolator.add(snapshot(100), 110);
+            interpolator.add(snapshot(50), 115);
+            interpolator.add(snapshot(100), 120);
+
+            assertEquals(1, interpolator.size());
+        }
+
+        @Test
+        @DisplayName("Sender clock jumping far back should restart the buffer")
+        void clockResetShouldClear() {
+            feedSteady(2000);
+
+            interpolator.add(snapshot(0), 3000);
+
+            assertEquals(1, interpolator.size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Underrun Tests")
+    class UnderrunTests {
+
+        @Test
+        @DisplayName("Missing snapshots should extrapolate the last motion")
+        void shouldExtrapolate() {
+            feedSteady(200);
+
+            // Render time = 285 - 10 - 50 = 225, a quarter interval past the newest snapshot
+            SnapshotInterpolator.Sample sample = interpolator.sample(200 + LATENCY + 75);
+
+            assertEquals(150, sample.from().serverTimeMs);
+            assertEquals(200, sample.to().serverTimeMs);
+            assertEquals(1.5, sample.alpha(), 1e-9);
+        }
+
+        @Test
+        @DisplayName("Extrapolation should stop after MAX_EXTRAPOLATION_MS")
+        void extrapolationShouldBeBounded() {
+            feedSteady(200);
+
+            SnapshotInterpolator.Sample sample = interpolator.sample(10_000);
+
+            double maxAlpha = (INTERVAL + SnapshotInterpolator.MAX_EXTRAPOLATION_MS) / (double) INTERVAL;
+            assertEquals(maxAlpha, sample.alpha(), 1e-9);
+        }
+    }
+
+    @Nested
+    @DisplayName("Adaptive Delay Tests")
+    class AdaptiveDelayTests {
+
+        @Test
+        @DisplayName("Jittery arrivals should increase the render delay")
+        void jitterShouldIncreaseDelay() {
+            for (long t = 0; t <= 2000; t += INTERVAL) {
+                long jitter = (t / INTERVAL) % 2 == 0 ? 0 : 40;
+                interpolator.add(snapshot(t), t + LATENCY + jitter);
+            }
+
+            assertTrue(interpolator.getDelayMs() > INTERVAL,
+                "Delay should cover jitter, was " + interpolator.getDelayMs());
+        }
+
+        @Test
+        @DisplayName("Delay should stay within bounds")
+        void delayShouldBeClamped() {
+            assertEquals(SnapshotInterpolator.MIN_DELAY_MS, interpolator.getDelayMs());
+
+            interpolator.add(snapshot(0), 0);
+            interpolator.add(snapshot(5000), 5000);
+
+            assertEquals(SnapshotInterpolator.MAX_DELAY_MS, interpolator.getDelayMs());
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.vibetanks.network;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import java.io.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("WireProtocol Tests")
+class WireProtocolTest {
+
+    @Nested
+    @DisplayName("Varint Tests")
+    class VarintTests {
+
+        @Test
+        @DisplayName("Unsigned varints should round trip across byte boundaries")
+        void unsignedVarintsShouldRoundTrip() throws IOException {
+            int[] values = {0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE};
+            WireWriter w = new WireWriter(16);
+            for (int v : values) {
+                w.writeVarInt(v);
+            }
+            WireReader r = new WireReader(w.toByteArray());
+            for (int v : values) {
+                assertEquals(v, r.readVarInt());
+            }
+            assertEquals(0, r.remaining());
+        }
+
+        @Test
+        @DisplayName("Small values should take one byte")
+        void smallValuesShouldTakeOneByte() {
+            WireWriter w = new WireWriter();
+            w.writeVarInt(127);
+            w.writeSignedVarInt(-1);
+            w.writeSignedVarInt(63);
+            assertEquals(3, w.size());
+        }
+
+        @Test
+        @DisplayName("Signed varints and longs should round trip")
+        void signedValuesShouldRoundTrip() throws IOException {
+            WireWriter w = new WireWriter();
+            w.writeSignedVarInt(-1);
+            w.writeSignedVarInt(Integer.MIN_VALUE);
+            w.writeSignedVarLong(Long.MIN_VALUE);
+            w.writeVarLong(Long.MAX_VALUE);
+            w.writeShort(-1234);
+            w.writeDouble(-0.125);
+
+            WireReader r = new WireReader(w.toByteArray());
+            assertEquals(-1, r.readSignedVarInt());
+            assertEquals(Integer.MIN_VALUE, r.readSignedVarInt());
+            assertEquals(Long.MIN_VALUE, r.readSignedVarLong());
+            assertEquals(Long.MAX_VALUE, r.readVarLong());
+            assertEquals(-1234, r.readShort());
+            assertEquals(-0.125, r.readDouble());
+        }
+
+        @Test
+        @DisplayName("Writer should grow beyond initial capacity")
+        void writerShouldGrow() throws IOException {
+            WireWriter w = new WireWriter(16);
+            for (int i = 0; i < 1000; i++) {
+                w.writeVarInt(i);
+            }
+            WireReader r = new WireReader(w.toByteArray());
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(i, r.readVarInt());
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Framing Tests")
+    class FramingTests {
+
+        @Test
+        @DisplayName("Frames should round trip through a stream")
+        void framesShouldRoundTrip() throws IOException {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            WireWriter payload = new WireWriter();
+            payload.writeVarInt(3);
+            WireProtocol.writeFrame(baos, WireProtocol.MSG_PLAYER_NUMBER, payload);
+
+            payload.reset();
+            GameStateCodec.writeGameState(new GameState(), payload);
+            WireProtocol.writeFrame(baos, WireProtocol.MSG_GAME_STATE, payload);
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(baos.toByteArray()));
+            WireProtocol.FrameBuffer frame = new WireProtocol.FrameBuffer();
+
+            assertEquals(WireProtocol.MSG_PLAYER_NUMBER, WireProtocol.readFrame(in, frame));
+            assertEquals(3, frame.reader().readVarInt());
+
+            assertEquals(WireProtocol.MSG_GAME_STATE, WireProtocol.readFrame(in, frame));
+            assertNotNull(GameStateCodec.readGameState(frame.reader()));
+        }
+
+        @Test
+        @DisplayName("Closed stream should throw EOFException")
+        void closedStreamShouldThrowEof() {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(new byte[0]));
+            assertThrows(EOFException.class, () -> WireProtocol.readFrame(in, new WireProtocol.FrameBuffer()));
+        }
+
+        @Test
+        @DisplayName("Oversized frame length should be rejected")
+        void oversizedFrameShouldBeRejected() {
+            WireWriter header = new WireWriter();
+            header.writeVarInt(WireProtocol.MAX_FRAME_SIZE + 1);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(header.toByteArray()));
+            assertThrows(StreamCorruptedException.class, () -> WireProtocol.readFrame(in, new WireProtocol.FrameBuffer()));
+        }
+    }
+}
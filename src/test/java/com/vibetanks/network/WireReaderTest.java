@@ -0,0 +1,62 @@
+package com.vibetanks.network;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import java.io.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("WireReader Tests")
+class WireReaderTest {
+
+    @Nested
+    @DisplayName("Length Tests")
+    class LengthTests {
+
+        @Test
+        @DisplayName("String should round trip, null included")
+        void stringShouldRoundTrip() throws IOException {
+            WireWriter w = new WireWriter();
+            w.writeString("Vibe");
+            w.writeString(null);
+            w.writeString("");
+
+            WireReader r = new WireReader(w.toByteArray());
+            assertEquals("Vibe", r.readString());
+            assertNull(r.readString());
+            assertEquals("", r.readString());
+            assertEquals(0, r.remaining());
+        }
+
+        @Test
+        @DisplayName("Negative string length should be rejected as corrupt")
+        void negativeStringLengthShouldBeRejected() {
+            // Length plus one of 0xFFFFFFFF: a length of -2
+            byte[] data = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F};
+
+            assertThrows(StreamCorruptedException.class, () -> new WireReader(data).readString());
+        }
+
+        @Test
+        @DisplayName("Negative byte counts should be rejected as corrupt")
+        void negativeCountsShouldBeRejected() {
+            WireReader r = new WireReader(new byte[8]);
+
+            assertThrows(StreamCorruptedException.class, () -> r.readBytes(new byte[8], 0, -1));
+            assertThrows(StreamCorruptedException.class, () -> r.skip(-1));
+            assertEquals(0, r.position());
+        }
+
+        @Test
+        @DisplayName("Length past the end should throw EOFException")
+        void truncatedStringShouldThrow() {
+            WireWriter w = new WireWriter();
+            w.writeString("truncated");
+            byte[] data = java.util.Arrays.copyOf(w.toByteArray(), 4);
+
+            assertThrows(EOFException.class, () -> new WireReader(data).readString());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.vibetanks.server;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CongestionController Tests")
+class CongestionControllerTest {
+
+    private static final long RTT = 20;
+
+    private CongestionController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new CongestionController();
+    }
+
+    private boolean healthy(long nowMs) {
+        return controller.update(nowMs, 0, 0, RTT);
+    }
+
+    private boolean backedUp(long nowMs) {
+        return controller.update(nowMs, CongestionController.QUEUE_THRESHOLD_BYTES + 1, 0, RTT);
+    }
+
+    @Test
+    @DisplayName("Healthy link should get every snapshot in full detail")
+    void healthyLinkShouldStayAtFullRate() {
+        for (long t = 0; t < 10_000; t += 33) {
+            assertFalse(healthy(t));
+        }
+
+        assertEquals(0, controller.getLevel());
+        assertFalse(controller.isReducedDetail());
+        assertEquals(1, controller.getSendDivisor());
+    }
+
+    @Nested
+    @DisplayName("Congestion Tests")
+    class CongestionTests {
+
+        @Test
+        @DisplayName("Backed up queue should step the level down once per interval")
+        void queueShouldLowerLevel() {
+            assertTrue(backedUp(0));
+            assertFalse(backedUp(CongestionController.DECREASE_INTERVAL_MS - 1));
+            assertTrue(backedUp(CongestionController.DECREASE_INTERVAL_MS));
+
+            assertEquals(2, controller.getLevel());
+            assertTrue(controller.isReducedDetail());
+            assertEquals(2, controller.getSendDivisor());
+        }
+
+        @Test
+        @DisplayName("Level should stop at MAX_LEVEL")
+        void levelShouldBeBounded() {
+            for (int i = 0; i < 10; i++) {
+                backedUp(i * CongestionController.DECREASE_INTERVAL_MS);
+            }
+
+            assertEquals(CongestionController.MAX_LEVEL, controller.getLevel());
+            assertEquals(4, controller.getSendDivisor());
+        }
+
+        @Test
+        @DisplayName("Dropped snapshots should count as congestion")
+        void droppedSnapshotsShouldLowerLevel() {
+            controller.update(0, 0, 5, RTT);
+            assertEquals(0, controller.getLevel(), "Drops before the first update are history");
+
+            assertTrue(controller.update(100, 0, 6, RTT));
+        }
+
+        @Test
+        @DisplayName("RTT well above the minimum should count as congestion")
+        void rttInflationShouldLowerLevel() {
+            healthy(0);
+            assertFalse(controller.update(100, 0, 0, 2 * RTT), "Not inflated by RTT_INFLATION_MS yet");
+
+            assertTrue(controller.update(200, 0, 0, RTT + CongestionController.RTT_INFLATION_MS + 1));
+        }
+    }
+
+    @Nested
+    @DisplayName("Recovery Tests")
+    class RecoveryTests {
+
+        @Test
+        @DisplayName("Level should step back up after RECOVERY_INTERVAL_MS without congestion")
+        void shouldRecover() {
+            backedUp(0);
+            backedUp(CongestionController.DECREASE_INTERVAL_MS);
+            long t = CongestionController.DECREASE_INTERVAL_MS;
+
+            assertFalse(healthy(t + CongestionController.RECOVERY_INTERVAL_MS - 1));
+            assertTrue(healthy(t + CongestionController.RECOVERY_INTERVAL_MS));
+            assertEquals(1, controller.getLevel());
+            assertTrue(healthy(t + 2 * CongestionController.RECOVERY_INTERVAL_MS));
+            assertEquals(0, controller.getLevel());
+        }
+    }
+
+    @Test
+    @DisplayName("Send divisor should thin out broadcasts")
+    void shouldSendEveryNth() {
+        for (int i = 0; i < 3; i++) {
+            backedUp(i * CongestionController.DECREASE_INTERVAL_MS);
+        }
+
+        int sent = 0;
+        for (int i = 0; i < 20; i++) {
+            if (controller.shouldSend()) sent++;
+        }
+        assertEquals(5, sent);
+    }
+
+    @Test
+    @DisplayName("Base divisor from the handshake should scale every level")
+    void baseDivisorShouldScaleLevels() {
+        controller.setBaseDivisor(3);
+        assertEquals(3, controller.getSendDivisor());
+
+        for (int i = 0; i < 3; i++) {
+            backedUp(i * CongestionController.DECREASE_INTERVAL_MS);
+        }
+        assertEquals(12, controller.getSendDivisor());
+    }
+}
@@ -1,10 +1,20 @@
 package com.vibetanks.server;
 
+import com.vibetanks.network.Handshake;
+import com.vibetanks.network.WireProtocol;
+import com.vibetanks.network.WireWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Timeout;
 
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -107,6 +117,102 @@ class DedicatedServerTest {
         }
     }
 
+    @Nested
+    @DisplayName("Handshake Tests")
+    class HandshakeTests {
+
+        private DedicatedServer server;
+        private int port;
+        private final List<Socket> sockets = new ArrayList<>();
+
+        @BeforeEach
+        void setUp() throws Exception {
+            try (ServerSocket probe = new ServerSocket(0)) {
+                port = probe.getLocalPort();
+            }
+            server = new DedicatedServer(port);
+            Thread thread = new Thread(server::start, "DedicatedServerTest");
+            thread.setDaemon(true);
+            thread.start();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (true) {
+                try (Socket ignored = new Socket("localhost", port)) {
+                    break;
+                } catch (IOException e) {
+                    if (System.currentTimeMillis() > deadline) throw e;
+                    Thread.sleep(20);
+                }
+            }
+        }
+
+        @AfterEach
+        void tearDown() throws IOException {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+            server.stop();
+        }
+
+        private Socket connect() throws IOException {
+            Socket socket = new Socket("localhost", port);
+            socket.setSoTimeout(3000);
+            sockets.add(socket);
+            return socket;
+        }
+
+        private Socket join(String roomCode) throws IOException {
+            Socket socket = connect();
+            WireWriter payload = new WireWriter();
+            Handshake.join(roomCode, false, 0).write(payload);
+            WireProtocol.writeFrame(socket.getOutputStream(), WireProtocol.MSG_JOIN, payload);
+            return socket;
+        }
+
+        private static int readFrameType(Socket socket, WireProtocol.FrameBuffer frame) throws IOException {
+            return WireProtocol.readFrame(new DataInputStream(socket.getInputStream()), frame);
+        }
+
+        @Test
+        @Timeout(value = 10, unit = TimeUnit.SECONDS)
+        @DisplayName("Seated player should get WELCOME first")
+        void seatedPlayerShouldGetWelcome() throws IOException {
+            Socket socket = join("HELLO");
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            WireProtocol.FrameBuffer frame = new WireProtocol.FrameBuffer();
+
+            assertEquals(WireProtocol.MSG_WELCOME, WireProtocol.readFrame(in, frame));
+            assertEquals(WireProtocol.MSG_ROOM_JOINED, WireProtocol.readFrame(in, frame));
+        }
+
+        @Test
+        @Timeout(value = 10, unit = TimeUnit.SECONDS)
+        @DisplayName("Player turned away from a full room should get only JOIN_REJECTED")
+        void fullRoomShouldOnlyReject() throws IOException {
+            WireProtocol.FrameBuffer frame = new WireProtocol.FrameBuffer();
+            for (int i = 0; i < 4; i++) {
+                assertEquals(WireProtocol.MSG_WELCOME, readFrameType(join("FULL"), frame));
+            }
+            Socket late = join("FULL");
+            DataInputStream in = new DataInputStream(late.getInputStream());
+
+            assertEquals(WireProtocol.MSG_JOIN_REJECTED, WireProtocol.readFrame(in, frame));
+            assertEquals(-1, in.read()); // Closed with nothing after the rejection
+        }
+
+        @Test
+        @Timeout(value = 10, unit = TimeUnit.SECONDS)
+        @DisplayName("Client from before the binary protocol should be closed at once")
+        void legacyClientShouldBeClosed() throws IOException {
+            Socket socket = connect();
+            // ObjectOutputStream header: what such a client sends first
+            socket.getOutputStream().write(new byte[]{(byte) 0xAC, (byte) 0xED, 0x00, 0x05});
+            long start = System.currentTimeMillis();
+
+            assertEquals(-1, socket.getInputStream().read());
+            assertTrue(System.currentTimeMillis() - start < 1000);
+        }
+    }
+
     @Nested
     @DisplayName("Method Existence Tests")
     class MethodExistenceTests {
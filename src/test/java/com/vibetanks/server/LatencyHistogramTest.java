@@ -0,0 +1,107 @@
+package com.vibetanks.server;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("LatencyHistogram Tests")
+class LatencyHistogramTest {
+
+    private LatencyHistogram histogram;
+
+    @BeforeEach
+    void setUp() {
+        histogram = new LatencyHistogram();
+    }
+
+    @Nested
+    @DisplayName("Bucket Tests")
+    class BucketTests {
+
+        @Test
+        @DisplayName("Small values should have their own buckets")
+        void smallValuesShouldBeExact() {
+            for (int v = 0; v < 32; v++) {
+                assertEquals(v, LatencyHistogram.upperBound(LatencyHistogram.index(v)));
+            }
+        }
+
+        @Test
+        @DisplayName("Every value should fall within its bucket bounds")
+        void valuesShouldFallWithinBucket() {
+            for (long v : new long[]{33, 100, 1_000, 16_666_667, 1L << 40, Long.MAX_VALUE}) {
+                int index = LatencyHistogram.index(v);
+                assertTrue(LatencyHistogram.upperBound(index) >= v, "upper bound for " + v);
+                assertTrue(index == 0 || LatencyHistogram.upperBound(index - 1) < v, "previous bucket for " + v);
+            }
+        }
+
+        @Test
+        @DisplayName("Bucket bound should be within 1/16 of the value")
+        void bucketsShouldBeNarrow() {
+            long v = 16_666_667;
+            long bound = LatencyHistogram.upperBound(LatencyHistogram.index(v));
+            assertTrue(bound - v <= v / 16, "bound " + bound);
+        }
+    }
+
+    @Nested
+    @DisplayName("Percentile Tests")
+    class PercentileTests {
+
+        @Test
+        @DisplayName("Empty histogram should report zeros")
+        void emptyShouldBeZero() {
+            assertEquals(0, histogram.percentile(99));
+            assertEquals(0, histogram.getMean());
+        }
+
+        @Test
+        @DisplayName("Percentiles should follow the recorded distribution")
+        void percentilesShouldMatchDistribution() {
+            for (int v = 1; v <= 100; v++) {
+                histogram.record(v);
+            }
+            assertEquals(100, histogram.getCount());
+            assertEquals(50.5, histogram.getMean());
+            assertEquals(100, histogram.getMax());
+            long p50 = histogram.percentile(50);
+            assertTrue(p50 >= 50 && p50 <= 53, "p50 " + p50);
+            long p99 = histogram.percentile(99);
+            assertTrue(p99 >= 99 && p99 <= 100, "p99 " + p99);
+            assertEquals(100, histogram.percentile(100));
+        }
+
+        @Test
+        @DisplayName("Percentile should never exceed the maximum")
+        void percentileShouldNotExceedMax() {
+            histogram.record(1_000_001);
+            assertEquals(1_000_001, histogram.percentile(99.9));
+        }
+
+        @Test
+        @DisplayName("Merged histograms should count both")
+        void addShouldMerge() {
+            LatencyHistogram other = new LatencyHistogram();
+            histogram.record(10);
+            other.record(1000);
+            histogram.add(other);
+
+            assertEquals(2, histogram.getCount());
+            assertEquals(1000, histogram.getMax());
+            assertEquals(10, histogram.percentile(50));
+        }
+
+        @Test
+        @DisplayName("Reset should forget every value")
+        void resetShouldClear() {
+            histogram.record(42);
+            histogram.reset();
+            assertEquals(0, histogram.getCount());
+            assertEquals(0, histogram.percentile(50));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.vibetanks.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.SocketChannel;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("NioConnection Tests")
+class NioConnectionTest {
+
+    private NioConnection connection;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Never started and never flushed - frames stay queued so the queue can be inspected
+        connection = new NioConnection(new NioServerTransport(0, null), SocketChannel.open());
+    }
+
+    @AfterEach
+    void tearDown() {
+        connection.close();
+    }
+
+    @Nested
+    @DisplayName("Drop-Stale Tests")
+    class DropStaleTests {
+
+        @Test
+        @DisplayName("Newer snapshot should replace an unsent one")
+        void newerSnapshotShouldReplaceOlder() {
+            connection.sendSnapshot(new byte[100]);
+            connection.sendSnapshot(new byte[60]);
+            connection.sendSnapshot(new byte[80]);
+
+            assertEquals(1, connection.getQueuedFrames());
+            assertEquals(80, connection.getQueuedBytes());
+            assertEquals(2, connection.getDroppedSnapshots());
+        }
+
+        @Test
+        @DisplayName("Pending snapshot should be reported until replaced or written")
+        void pendingSnapshotShouldBeReported() {
+            assertFalse(connection.hasPendingSnapshot());
+            connection.send(new byte[10]);
+            assertFalse(connection.hasPendingSnapshot());
+            connection.sendSnapshot(new byte[100]);
+            assertTrue(connection.hasPendingSnapshot());
+        }
+
+        @Test
+        @DisplayName("Sounds of a snapshot that will be replaced should be sent again")
+        void replacedSnapshotSoundsShouldCarry() {
+            ClientConnection client = new ClientConnection(connection);
+            client.snapshotSent(5, 3, false);
+            assertEquals(5, client.soundsSince());
+
+            connection.sendSnapshot(new byte[100]);
+            assertEquals(3, client.soundsSince()); // Still queued - the next frame replaces it
+        }
+
+        @Test
+        @DisplayName("Control frames should never be dropped")
+        void controlFramesShouldQueue() {
+            connection.send(new byte[10]);
+            connection.send(new byte[20]);
+            connection.sendSnapshot(new byte[100]);
+
+            assertEquals(3, connection.getQueuedFrames());
+            assertEquals(130, connection.getQueuedBytes());
+            assertEquals(0, connection.getDroppedSnapshots());
+        }
+
+        @Test
+        @DisplayName("Peak queue depth should be reported and reset")
+        void peakShouldResetToCurrent() {
+            connection.sendSnapshot(new byte[500]);
+            connection.sendSnapshot(new byte[100]);
+
+            assertEquals(500, connection.takePeakQueuedBytes());
+            assertEquals(100, connection.takePeakQueuedBytes());
+        }
+    }
+
+    @Nested
+    @DisplayName("Backpressure Tests")
+    class BackpressureTests {
+
+        @Test
+        @DisplayName("Client should be dropped once the control queue overflows")
+        void overflowShouldClose() {
+            byte[] frame = new byte[1024];
+            int frames = NioConnection.MAX_QUEUED_BYTES / frame.length;
+            for (int i = 0; i < frames; i++) {
+                connection.send(frame);
+            }
+            assertTrue(connection.isOpen());
+
+            connection.send(frame);
+
+            assertFalse(connection.isOpen());
+        }
+
+        @Test
+        @DisplayName("Sends after close should be ignored")
+        void sendAfterCloseShouldBeIgnored() {
+            connection.close();
+            connection.send(new byte[10]);
+            connection.sendSnapshot(new byte[10]);
+
+            assertEquals(0, connection.getQueuedFrames());
+        }
+    }
+}
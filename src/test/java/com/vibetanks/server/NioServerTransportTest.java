@@ -0,0 +1,256 @@
+package com.vibetanks.server;
+
+import com.vibetanks.network.FrameSplitter;
+import com.vibetanks.network.WireProtocol;
+import com.vibetanks.network.WireReader;
+import com.vibetanks.network.WireWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.*;
+import java.net.Socket;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("NioServerTransport Tests")
+class NioServerTransportTest {
+
+    private NioServerTransport transport;
+    private final BlockingQueue<ServerConnection> connected = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Integer> frames = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Boolean> disconnects = new LinkedBlockingQueue<>();
+    private static final int FAILING_VALUE = 666; // Makes the listener throw
+
+    @BeforeEach
+    void setUp() throws IOException {
+        transport = new NioServerTransport(0, new ServerTransport.Listener() {
+            @Override
+            public void onConnect(ServerConnection connection) {
+                connected.add(connection);
+            }
+
+            @Override
+            public void onFrame(ServerConnection connection, int type, WireReader payload) throws IOException {
+                int value = payload.readVarInt();
+                if (value == FAILING_VALUE) {
+                    throw new IllegalStateException("Listener failed on purpose");
+                }
+                frames.add(value);
+            }
+
+            @Override
+            public void onDisconnect(ServerConnection connection, boolean clean) {
+                disconnects.add(clean);
+            }
+        });
+        transport.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        transport.close();
+    }
+
+    private static byte[] frame(int type, int value) {
+        WireWriter payload = new WireWriter();
+        payload.writeVarInt(value);
+        WireWriter frame = new WireWriter();
+        WireProtocol.encodeFrame(type, payload, frame);
+        return frame.toByteArray();
+    }
+
+    @Nested
+    @DisplayName("Loopback Tests")
+    class LoopbackTests {
+
+        @Test
+        @Timeout(value = 5, unit = TimeUnit.SECONDS)
+        @DisplayName("Frames should flow in both directions")
+        void framesShouldFlowBothWays() throws Exception {
+            try (Socket socket = new Socket("localhost", transport.getLocalPort())) {
+                ServerConnection connection = connected.take();
+
+                OutputStream out = socket.getOutputStream();
+                out.write(frame(WireProtocol.MSG_PLAYER_INPUT, 42));
+                out.write(frame(WireProtocol.MSG_PLAYER_INPUT, 43));
+                out.flush();
+                assertEquals(42, frames.take());
+                assertEquals(43, frames.take());
+
+                connection.send(frame(WireProtocol.MSG_PLAYER_NUMBER, 2));
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                WireProtocol.FrameBuffer buffer = new WireProtocol.FrameBuffer();
+                assertEquals(WireProtocol.MSG_PLAYER_NUMBER, WireProtocol.readFrame(in, buffer));
+                assertEquals(2, buffer.reader().readVarInt());
+            }
+        }
+
+        @Test
+        @Timeout(value = 5, unit = TimeUnit.SECONDS)
+        @DisplayName("Large backlog should be delivered intact")
+        void largeBacklogShouldBeDelivered() throws Exception {
+            try (Socket socket = new Socket("localhost", transport.getLocalPort())) {
+                ServerConnection connection = connected.take();
+                int count = 20000;
+                for (int i = 0; i < count; i++) {
+                    connection.send(frame(WireProtocol.MSG_GAME_STATE, i));
+                }
+
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                WireProtocol.FrameBuffer buffer = new WireProtocol.FrameBuffer();
+                for (int i = 0; i < count; i++) {
+                    assertEquals(WireProtocol.MSG_GAME_STATE, WireProtocol.readFrame(in, buffer));
+                    assertEquals(i, buffer.reader().readVarInt());
+                }
+            }
+        }
+
+        @Test
+        @Timeout(value = 5, unit = TimeUnit.SECONDS)
+        @DisplayName("Frame over the agreed packet size should arrive as pieces within it")
+        void largeFrameShouldBeSplit() throws Exception {
+            try (Socket socket = new Socket("localhost", transport.getLocalPort())) {
+                ServerConnection connection = connected.take();
+                connection.setMaxPacketSize(1000);
+                WireWriter payload = new WireWriter();
+                payload.writeVarInt(5);
+                payload.writeBytes(new byte[3000], 0, 3000);
+                WireWriter large = new WireWriter();
+                WireProtocol.encodeFrame(WireProtocol.MSG_GAME_STATE, payload, large);
+                connection.sendSnapshot(large.toByteArray());
+
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                WireProtocol.FrameBuffer buffer = new WireProtocol.FrameBuffer();
+                FrameSplitter fragments = new FrameSplitter();
+                int pieces = 0;
+                int type = -1;
+                while (type < 0) {
+                    assertEquals(WireProtocol.MSG_FRAGMENT, WireProtocol.readFrame(in, buffer));
+                    assertTrue(WireProtocol.frameSize(buffer.reader().remaining()) <= 1000);
+                    pieces++;
+                    type = fragments.add(buffer.reader());
+                }
+                assertTrue(pieces > 3);
+                assertEquals(WireProtocol.MSG_GAME_STATE, type);
+                assertEquals(5, fragments.reader().readVarInt());
+                assertEquals(3000, fragments.reader().remaining());
+            }
+        }
+
+        @Test
+        @Timeout(value = 10, unit = TimeUnit.SECONDS)
+        @DisplayName("Stalled reader should get the newest snapshot, not a backlog")
+        void stalledReaderShouldGetNewestSnapshot() throws Exception {
+            try (Socket socket = new Socket("localhost", transport.getLocalPort())) {
+                socket.setReceiveBufferSize(4096);
+                ServerConnection connection = connected.take();
+                connection.send(frame(WireProtocol.MSG_PLAYER_NUMBER, 1));
+
+                // Reader is not reading - snapshots far exceed the socket buffers
+                byte[] padding = new byte[8 * 1024];
+                int count = 500;
+                for (int i = 0; i < count; i++) {
+                    WireWriter payload = new WireWriter();
+                    payload.writeVarInt(i);
+                    payload.writeBytes(padding, 0, padding.length);
+                    WireWriter snapshot = new WireWriter();
+                    WireProtocol.encodeFrame(WireProtocol.MSG_GAME_STATE, payload, snapshot);
+                    connection.sendSnapshot(snapshot.toByteArray());
+                }
+                assertTrue(connection.getDroppedSnapshots() > 0);
+                assertTrue(connection.getQueuedBytes() <= 2 * (padding.length + 16));
+
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                WireProtocol.FrameBuffer buffer = new WireProtocol.FrameBuffer();
+                assertEquals(WireProtocol.MSG_PLAYER_NUMBER, WireProtocol.readFrame(in, buffer));
+
+                int received = 0;
+                int last = -1;
+                while (last != count - 1) {
+                    assertEquals(WireProtocol.MSG_GAME_STATE, WireProtocol.readFrame(in, buffer));
+                    int seq = buffer.reader().readVarInt();
+                    assertTrue(seq > last);
+                    last = seq;
+                    received++;
+                }
+                assertTrue(received < count);
+            }
+        }
+
+        @Test
+        @Timeout(value = 5, unit = TimeUnit.SECONDS)
+        @DisplayName("Peer closing the socket should be a clean disconnect")
+        void peerCloseShouldBeClean() throws Exception {
+            Socket socket = new Socket("localhost", transport.getLocalPort());
+            ServerConnection connection = connected.take();
+            socket.close();
+
+            assertTrue(disconnects.take());
+            // The listener runs just before the transport closes the connection
+            while (connection.isOpen()) {
+                Thread.sleep(10);
+            }
+        }
+
+        @Test
+        @Timeout(value = 5, unit = TimeUnit.SECONDS)
+        @DisplayName("Corrupt frame should be an unclean disconnect")
+        void corruptFrameShouldBeUnclean() throws Exception {
+            try (Socket socket = new Socket("localhost", transport.getLocalPort())) {
+                connected.take();
+                socket.getOutputStream().write(0); // zero frame length
+                socket.getOutputStream().flush();
+
+                assertFalse(disconnects.take());
+            }
+        }
+
+        @Test
+        @Timeout(value = 5, unit = TimeUnit.SECONDS)
+        @DisplayName("Truncated payload should be an unclean disconnect")
+        void truncatedPayloadShouldBeUnclean() throws Exception {
+            try (Socket socket = new Socket("localhost", transport.getLocalPort())) {
+                connected.take();
+                socket.getOutputStream().write(new byte[]{1, WireProtocol.MSG_PLAYER_INPUT}); // type, no payload
+                socket.getOutputStream().flush();
+
+                assertFalse(disconnects.take());
+            }
+        }
+
+        @Test
+        @Timeout(value = 5, unit = TimeUnit.SECONDS)
+        @DisplayName("Listener failure should drop only that connection")
+        void listenerFailureShouldDropOnlyThatConnection() throws Exception {
+            try (Socket bad = new Socket("localhost", transport.getLocalPort());
+                 Socket good = new Socket("localhost", transport.getLocalPort())) {
+                ServerConnection badConnection = connected.take();
+                connected.take();
+                bad.getOutputStream().write(frame(WireProtocol.MSG_PLAYER_INPUT, FAILING_VALUE));
+                bad.getOutputStream().flush();
+
+                assertFalse(disconnects.take());
+                while (badConnection.isOpen()) {
+                    Thread.sleep(10);
+                }
+                good.getOutputStream().write(frame(WireProtocol.MSG_PLAYER_INPUT, 7));
+                good.getOutputStream().flush();
+                assertEquals(7, frames.take());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("close() should be idempotent")
+    void closeShouldBeIdempotent() {
+        assertDoesNotThrow(() -> {
+            transport.close();
+            transport.close();
+        });
+    }
+}
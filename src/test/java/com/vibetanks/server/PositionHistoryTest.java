@@ -0,0 +1,102 @@
+package com.vibetanks.server;
+
+import com.vibetanks.core.Direction;
+import com.vibetanks.core.Tank;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("PositionHistory Tests")
+class PositionHistoryTest {
+
+    private PositionHistory history;
+    private Tank tank;
+
+    @BeforeEach
+    void setUp() {
+        history = new PositionHistory();
+        tank = new Tank(100, 200, Direction.UP, false, 0);
+    }
+
+    // Record ticks frames with the tank moving 1 pixel right per tick
+    private void recordMoving(int ticks) {
+        for (int t = 0; t < ticks; t++) {
+            tank.setPositionAndDirection(100 + t, 200, Direction.RIGHT);
+            history.record(List.of(tank));
+        }
+    }
+
+    @Test
+    @DisplayName("Rewind should return the position from that many ticks ago")
+    void rewindShouldReturnPastPosition() {
+        recordMoving(10);
+
+        assertTrue(history.rewind(tank, 1));
+        assertEquals(109, history.getX());
+        assertTrue(history.rewind(tank, 4));
+        assertEquals(106, history.getX());
+        assertEquals(200, history.getY());
+    }
+
+    @Test
+    @DisplayName("Rewind past the kept frames should fail")
+    void rewindShouldBeBounded() {
+        recordMoving(3);
+
+        assertFalse(history.rewind(tank, 0));
+        assertFalse(history.rewind(tank, 4));
+    }
+
+    @Test
+    @DisplayName("Oldest frames should be overwritten once the ring is full")
+    void ringShouldWrap() {
+        recordMoving(PositionHistory.MAX_FRAMES + 5);
+
+        assertEquals(PositionHistory.MAX_FRAMES, history.getFrameCount());
+        assertTrue(history.rewind(tank, PositionHistory.MAX_FRAMES));
+        assertEquals(105, history.getX());
+    }
+
+    @Test
+    @DisplayName("Tanks not alive or not yet spawned in a frame should not be found")
+    void missingTanksShouldNotRewind() {
+        Tank later = new Tank(300, 300, Direction.DOWN, false, 0);
+        history.record(List.of(tank));
+        history.record(List.of(tank, later));
+
+        assertTrue(history.rewind(later, 1));
+        assertFalse(history.rewind(later, 2));
+
+        tank.setAlive(false);
+        history.record(List.of(tank));
+        assertFalse(history.rewind(tank, 1));
+    }
+
+    @Test
+    @DisplayName("Frames should hold at most MAX_TANKS tanks")
+    void framesShouldBeCapped() {
+        List<Tank> many = new ArrayList<>();
+        for (int i = 0; i <= PositionHistory.MAX_TANKS; i++) {
+            many.add(new Tank(i, 0, Direction.UP, false, 0));
+        }
+        history.record(many);
+
+        assertTrue(history.rewind(many.get(PositionHistory.MAX_TANKS - 1), 1));
+        assertFalse(history.rewind(many.get(PositionHistory.MAX_TANKS), 1));
+    }
+
+    @Test
+    @DisplayName("Clear should forget every frame")
+    void clearShouldForget() {
+        recordMoving(5);
+        history.clear();
+
+        assertEquals(0, history.getFrameCount());
+        assertFalse(history.rewind(tank, 1));
+    }
+}
@@ -0,0 +1,194 @@
+package com.vibetanks.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RoomManager Tests")
+class RoomManagerTest {
+
+    private RoomManager manager;
+    private final NioServerTransport transport = new NioServerTransport(0, null);
+
+    @BeforeEach
+    void setUp() {
+        // Tick period far in the future - these tests only exercise routing
+        manager = new RoomManager(4, TimeUnit.HOURS.toNanos(1), 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.shutdown();
+    }
+
+    private ClientConnection newClient() throws IOException {
+        return new ClientConnection(new NioConnection(transport, SocketChannel.open()));
+    }
+
+    @Nested
+    @DisplayName("Matchmaking Tests")
+    class MatchmakingTests {
+
+        @Test
+        @DisplayName("Matchmaking should fill a room before creating another")
+        void matchmakingShouldFillRoomFirst() throws IOException {
+            GameRoom first = manager.join(newClient(), null);
+            for (int i = 0; i < 3; i++) {
+                assertSame(first, manager.join(newClient(), null));
+            }
+            GameRoom fifth = manager.join(newClient(), null);
+
+            assertNotSame(first, fifth);
+            assertEquals(2, manager.getRoomCount());
+            assertEquals(5, manager.getPlayerCount());
+        }
+
+        @Test
+        @DisplayName("Players should get consecutive slots starting at 1")
+        void playersShouldGetConsecutiveSlots() throws IOException {
+            for (int expected = 1; expected <= 4; expected++) {
+                ClientConnection client = newClient();
+                manager.join(client, null);
+                assertEquals(expected, client.getPlayerNumber());
+            }
+        }
+
+        @Test
+        @DisplayName("Matchmaking should not place players into private rooms")
+        void matchmakingShouldSkipPrivateRooms() throws IOException {
+            GameRoom privateRoom = manager.join(newClient(), "friends");
+            GameRoom publicRoom = manager.join(newClient(), null);
+
+            assertNotSame(privateRoom, publicRoom);
+            assertTrue(publicRoom.isMatchmade());
+            assertFalse(privateRoom.isMatchmade());
+        }
+    }
+
+    @Nested
+    @DisplayName("Room Code Tests")
+    class RoomCodeTests {
+
+        @Test
+        @DisplayName("Same code should join the same room")
+        void sameCodeShouldJoinSameRoom() throws IOException {
+            GameRoom a = manager.join(newClient(), "abc-1");
+            GameRoom b = manager.join(newClient(), "ABC1");
+
+            assertSame(a, b);
+            assertEquals("ABC1", a.getCode());
+        }
+
+        @Test
+        @DisplayName("Full private room should reject further players")
+        void fullRoomShouldReject() throws IOException {
+            for (int i = 0; i < 4; i++) {
+                assertNotNull(manager.join(newClient(), "FULL"));
+            }
+            ClientConnection late = newClient();
+
+            assertNull(manager.join(late, "FULL"));
+            assertNull(late.getRoom());
+        }
+
+        @Test
+        @DisplayName("Codes should be normalized to upper-case alphanumerics")
+        void codesShouldBeNormalized() {
+            assertEquals("ROOM42", RoomManager.normalizeCode(" room-42 "));
+            assertNull(RoomManager.normalizeCode(null));
+            assertNull(RoomManager.normalizeCode("  --  "));
+            assertEquals(16, RoomManager.normalizeCode("A".repeat(40)).length());
+        }
+    }
+
+    @Nested
+    @DisplayName("Spectator Tests")
+    class SpectatorTests {
+
+        @Test
+        @DisplayName("Spectator should watch without taking a player slot")
+        void spectatorShouldNotTakeSlot() throws IOException {
+            GameRoom room = manager.join(newClient(), "CUP");
+            ClientConnection watcher = newClient();
+
+            assertSame(room, manager.spectate(watcher, "cup"));
+            assertEquals(0, watcher.getPlayerNumber());
+            assertEquals(1, room.getPlayerCount());
+            assertEquals(1, room.getSpectatorCount());
+            for (int i = 0; i < 3; i++) {
+                assertNotNull(manager.join(newClient(), "CUP"));
+            }
+        }
+
+        @Test
+        @DisplayName("Spectating an unknown room should not create it")
+        void unknownRoomShouldReject() throws IOException {
+            assertNull(manager.spectate(newClient(), "NOPE"));
+            assertNull(manager.spectate(newClient(), null));
+            assertEquals(0, manager.getRoomCount());
+        }
+
+        @Test
+        @DisplayName("Spectating without a code should pick the fullest room")
+        void shouldPickFullestRoom() throws IOException {
+            manager.join(newClient(), "SMALL");
+            GameRoom big = manager.join(newClient(), "BIG");
+            manager.join(newClient(), "BIG");
+
+            assertSame(big, manager.spectate(newClient(), null));
+        }
+    }
+
+    @Nested
+    @DisplayName("Admission Tests")
+    class AdmissionTests {
+
+        @Test
+        @DisplayName("Join should reserve the seat before any tick runs")
+        void joinShouldReserveSeat() throws IOException {
+            ClientConnection client = newClient();
+            GameRoom room = manager.join(client, "SEAT");
+
+            assertEquals(1, room.getPlayerCount());
+            assertEquals(0, client.connection.getQueuedFrames()); // Join frames come with the tick
+        }
+
+        @Test
+        @DisplayName("Admitted player should get its join frames from the next tick")
+        void tickShouldSeatAdmittedPlayer() throws Exception {
+            manager.shutdown();
+            manager = new RoomManager(4, TimeUnit.MILLISECONDS.toNanos(5), 1);
+            ClientConnection client = newClient();
+            GameRoom room = manager.join(client, "TICK");
+
+            room.admit(client);
+
+            long deadline = System.currentTimeMillis() + 2000;
+            while (client.connection.getQueuedFrames() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue(client.connection.getQueuedFrames() >= 2);
+            assertFalse(room.isClosed());
+        }
+    }
+
+    @Test
+    @DisplayName("Shutdown should close every client")
+    void shutdownShouldCloseClients() throws IOException {
+        ClientConnection client = newClient();
+        manager.join(client, null);
+
+        manager.shutdown();
+
+        assertFalse(client.isActive());
+        assertEquals(0, manager.getRoomCount());
+    }
+}
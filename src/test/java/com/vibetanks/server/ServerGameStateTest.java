@@ -7,12 +7,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
-import org.junit.jupiter.api.Disabled;
+
+import java.time.Duration;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @DisplayName("ServerGameState Tests")
-@Disabled("Requires audio hardware - SoundManager initializes audio in constructor")
 class ServerGameStateTest {
 
     private ServerGameState serverState;
@@ -105,6 +105,14 @@ class ServerGameStateTest {
             assertTrue(state.connectedPlayers <= 4);
         }
 
+        @Test
+        @DisplayName("setConnectedPlayers above 4 should report exactly 4")
+        void setConnectedPlayersReportsAtMost4() {
+            serverState.setConnectedPlayers(6);
+
+            assertEquals(4, serverState.buildNetworkState().connectedPlayers);
+        }
+
         @Test
         @DisplayName("addPlayer should add tank for new player number")
         void addPlayerAddsTank() {
@@ -124,6 +132,12 @@ class ServerGameStateTest {
             GameState state = serverState.buildNetworkState();
             assertNotNull(state);
         }
+
+        @Test
+        @DisplayName("addPlayer above 4 should return")
+        void addPlayerAbove4Returns() {
+            assertTimeoutPreemptively(Duration.ofSeconds(2), () -> serverState.addPlayer(6));
+        }
     }
 
     @Nested
@@ -571,4 +585,128 @@ class ServerGameStateTest {
             assertEquals(1, p3.getId());
         }
     }
+
+    @Nested
+    @DisplayName("Lag Compensation Tests")
+    class LagCompensationTests {
+
+        private static final double ENEMY_Y = 5 * GameConstants.TILE_SIZE;
+        private static final double SEEN_X = 4 * GameConstants.TILE_SIZE;  // Where the client saw the enemy
+        private static final double NOW_X = 16 * GameConstants.TILE_SIZE;  // Where it has moved since
+
+        private Tank enemy;
+        private BulletStore bullets;
+
+        @BeforeEach
+        void setUp() {
+            serverState = new ServerGameState(1);
+            GameMap map = serverState.getGameMap();
+            for (int row = 0; row < map.getHeight(); row++) {
+                for (int col = 0; col < map.getWidth(); col++) {
+                    map.setTile(row, col, GameMap.TileType.EMPTY);
+                }
+            }
+            bullets = serverState.getBullets();
+            bullets.clear();
+            serverState.getEnemyTanks().clear();
+
+            // Recorded where the client saw it, then moved on since the last snapshot
+            enemy = new Tank(SEEN_X, ENEMY_Y, Direction.DOWN, false, 0);
+            serverState.getEnemyTanks().add(enemy);
+            for (int i = 0; i < 8; i++) {
+                serverState.recordEnemyPositions();
+            }
+            enemy.setPosition(NOW_X, ENEMY_Y);
+        }
+
+        // Player 1 bullet flying up from just below a tank-sized spot at x
+        private int shootUpAt(double x) {
+            return bullets.add(x + 12, ENEMY_Y + 34, Direction.UP, false, 1, false, 1, 8, false);
+        }
+
+        @Test
+        @DisplayName("Late bullet should hit the enemy where the client saw it")
+        void catchUpShouldHitRewoundEnemy() {
+            serverState.catchUpBullet(shootUpAt(SEEN_X), 8);
+
+            assertFalse(enemy.isAlive());
+            assertTrue(bullets.isEmpty());
+        }
+
+        @Test
+        @DisplayName("Late bullet should miss the enemy where it is now")
+        void catchUpShouldMissMovedEnemy() {
+            // Flies through the enemy's row while the client still saw the enemy elsewhere
+            int slot = shootUpAt(NOW_X);
+            serverState.catchUpBullet(slot, 8);
+
+            assertTrue(enemy.isAlive());
+            assertEquals(1, bullets.size());
+            assertTrue(bullets.getY(slot) < ENEMY_Y);
+        }
+
+        @Test
+        @DisplayName("Bullet without view delay should not move")
+        void catchUpWithoutDelayShouldDoNothing() {
+            int slot = shootUpAt(SEEN_X);
+            serverState.catchUpBullet(slot, 0);
+
+            assertTrue(enemy.isAlive());
+            assertEquals(ENEMY_Y + 34, bullets.getY(slot));
+        }
+
+        @Test
+        @DisplayName("Late bullet should hit the base")
+        void catchUpShouldHitBase() {
+            bullets.add(GameConstants.BASE_X + 12, GameConstants.BASE_Y - 10, Direction.DOWN,
+                false, 1, false, 1, 8, false);
+            serverState.catchUpBullet(bullets.slot(0), 8);
+
+            assertTrue(serverState.isGameOver());
+            assertTrue(bullets.isEmpty());
+        }
+
+        @Test
+        @DisplayName("Late bullet should hit the UFO")
+        void catchUpShouldHitUfo() {
+            UFO ufo = new UFO(2 * GameConstants.TILE_SIZE, 12 * GameConstants.TILE_SIZE, true);
+            serverState.setUfo(ufo);
+            int slot = bullets.add(ufo.getX() + 20, ufo.getY() + 60, Direction.UP, false, 1, false, 1, 8, false);
+            serverState.catchUpBullet(slot, 8);
+
+            assertEquals(2, ufo.getHealth());
+            assertTrue(bullets.isEmpty());
+        }
+
+        @Test
+        @DisplayName("Late bullet should cancel an opposing bullet")
+        void catchUpShouldCancelOpposingBullet() {
+            double x = 10 * GameConstants.TILE_SIZE;
+            double y = 15 * GameConstants.TILE_SIZE;
+            bullets.add(x, y - 20, Direction.DOWN, true, 1, false, 0, 8, false);
+            int slot = bullets.add(x, y, Direction.UP, false, 1, false, 1, 8, false);
+            serverState.catchUpBullet(slot, 8);
+            bullets.removeMarked();
+
+            assertTrue(bullets.isEmpty());
+        }
+
+        @Test
+        @DisplayName("Laser should hit an enemy that was in the beam when fired")
+        void laserShouldHitRewoundEnemy() {
+            Laser laser = new Laser(SEEN_X + 16, ENEMY_Y + 100, Direction.UP, false, 1);
+            serverState.hitRewoundEnemies(laser, 8);
+
+            assertFalse(enemy.isAlive());
+        }
+
+        @Test
+        @DisplayName("Laser should not hit an enemy that was never in the beam")
+        void laserShouldMissEnemyOutsideBeam() {
+            Laser laser = new Laser(10 * GameConstants.TILE_SIZE, ENEMY_Y + 100, Direction.UP, false, 1);
+            serverState.hitRewoundEnemies(laser, 8);
+
+            assertTrue(enemy.isAlive());
+        }
+    }
 }
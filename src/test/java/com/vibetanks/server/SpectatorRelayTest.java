@@ -0,0 +1,121 @@
+package com.vibetanks.server;
+
+import com.vibetanks.network.GameState;
+import com.vibetanks.network.GameStateCodec;
+import com.vibetanks.network.SnapshotFanout;
+import com.vibetanks.network.WireProtocol;
+import com.vibetanks.network.WireReader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("SpectatorRelay Tests")
+class SpectatorRelayTest {
+
+    private static final byte[] DELTA_FRAME = {2, (byte) WireProtocol.MSG_GAME_STATE_DELTA, 0};
+    private static final byte[] COMPRESSED_FRAME = {2, (byte) WireProtocol.MSG_COMPRESSED, 0};
+
+    private SpectatorRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new SpectatorRelay(new InetSocketAddress("localhost", 1), false, null, 0, false, 8);
+    }
+
+    private static GameState state(long sequence) {
+        GameState state = new GameState();
+        state.sequence = sequence;
+        state.levelNumber = 3;
+        return state;
+    }
+
+    @Nested
+    @DisplayName("Ack Window Tests")
+    class AckWindowTests {
+
+        @Test
+        @DisplayName("Acked snapshots should stay known until overwritten")
+        void ackedShouldStayInWindow() {
+            SpectatorRelay.Viewer viewer = new SpectatorRelay.Viewer(null, false, true);
+            viewer.ack(5);
+            viewer.ack(7);
+
+            assertTrue(viewer.hasAcked(5));
+            assertTrue(viewer.hasAcked(7));
+            assertFalse(viewer.hasAcked(6));
+            assertFalse(viewer.hasAcked(0));
+
+            viewer.ack(5 + SnapshotFanout.HISTORY_SIZE);
+            assertFalse(viewer.hasAcked(5));
+        }
+    }
+
+    @Nested
+    @DisplayName("Forwarding Tests")
+    class ForwardingTests {
+
+        @Test
+        @DisplayName("Delta should be forwarded as-is to a viewer holding its baseline")
+        void deltaShouldBeForwarded() {
+            SpectatorRelay.Viewer plain = new SpectatorRelay.Viewer(null, false, true);
+            SpectatorRelay.Viewer compressed = new SpectatorRelay.Viewer(null, true, true);
+            plain.ack(9);
+            compressed.ack(9);
+
+            relay.forward(state(10), 9, DELTA_FRAME, COMPRESSED_FRAME);
+
+            assertSame(DELTA_FRAME, relay.frameFor(plain));
+            assertSame(COMPRESSED_FRAME, relay.frameFor(compressed));
+        }
+
+        @Test
+        @DisplayName("Viewer without the baseline should get one shared full snapshot")
+        void missingBaselineShouldGetFull() throws IOException {
+            SpectatorRelay.Viewer a = new SpectatorRelay.Viewer(null, false, true);
+            SpectatorRelay.Viewer b = new SpectatorRelay.Viewer(null, false, true);
+            a.ack(3);
+
+            relay.forward(state(10), 9, DELTA_FRAME, null);
+            byte[] full = relay.frameFor(a);
+
+            assertSame(full, relay.frameFor(b));
+            WireReader r = new WireReader(full);
+            assertEquals(r.readVarInt(), r.remaining());
+            assertEquals(WireProtocol.MSG_GAME_STATE, r.readUnsignedByte());
+            GameState decoded = GameStateCodec.readGameState(r);
+            assertEquals(10, decoded.sequence);
+            assertEquals(3, decoded.levelNumber);
+        }
+
+        @Test
+        @DisplayName("Full snapshot request should be honoured once")
+        void fullRequestShouldBeHonouredOnce() {
+            SpectatorRelay.Viewer viewer = new SpectatorRelay.Viewer(null, false, true);
+            viewer.ack(9);
+            viewer.ack(10);
+            viewer.requestFullSnapshot();
+
+            relay.forward(state(10), 9, DELTA_FRAME, null);
+            assertNotSame(DELTA_FRAME, relay.frameFor(viewer));
+
+            relay.forward(state(11), 10, DELTA_FRAME, null);
+            assertSame(DELTA_FRAME, relay.frameFor(viewer));
+        }
+
+        @Test
+        @DisplayName("Viewer without delta support should always get full snapshots")
+        void noDeltaViewerShouldGetFull() {
+            SpectatorRelay.Viewer viewer = new SpectatorRelay.Viewer(null, false, false);
+            viewer.ack(9);
+
+            relay.forward(state(10), 9, DELTA_FRAME, null);
+            assertNotSame(DELTA_FRAME, relay.frameFor(viewer));
+        }
+    }
+}
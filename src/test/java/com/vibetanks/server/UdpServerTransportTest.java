@@ -0,0 +1,281 @@
+package com.vibetanks.server;
+
+import com.vibetanks.network.FrameSplitter;
+import com.vibetanks.network.PacketSimulator;
+import com.vibetanks.network.UdpClient;
+import com.vibetanks.network.UdpPacket;
+import com.vibetanks.network.WireProtocol;
+import com.vibetanks.network.WireReader;
+import com.vibetanks.network.WireWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("UdpServerTransport Tests")
+class UdpServerTransportTest {
+
+    private UdpServerTransport transport;
+    private UdpClient client;
+    private final BlockingQueue<ServerConnection> connected = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Integer> serverFrames = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Boolean> disconnects = new LinkedBlockingQueue<>();
+    private final BlockingQueue<int[]> clientFrames = new LinkedBlockingQueue<>();
+    private static final int FAILING_VALUE = 666; // Makes the listener throw
+
+    private void start(PacketSimulator serverLink, PacketSimulator clientLink) throws IOException {
+        transport = new UdpServerTransport(0, new ServerTransport.Listener() {
+            @Override
+            public void onConnect(ServerConnection connection) {
+                connected.add(connection);
+            }
+
+            @Override
+            public void onFrame(ServerConnection connection, int type, WireReader payload) throws IOException {
+                int value = payload.readVarInt();
+                if (value == FAILING_VALUE) {
+                    throw new IllegalStateException("Listener failed on purpose");
+                }
+                serverFrames.add(value);
+            }
+
+            @Override
+            public void onDisconnect(ServerConnection connection, boolean clean) {
+                disconnects.add(clean);
+            }
+        }, serverLink);
+        transport.start();
+
+        client = new UdpClient(new InetSocketAddress("localhost", transport.getLocalPort()),
+            (type, payload) -> clientFrames.add(new int[]{type, payload.readVarInt()}), clientLink);
+        client.connect();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) client.close();
+        if (transport != null) transport.close();
+    }
+
+    private static WireWriter payload(int value) {
+        WireWriter payload = new WireWriter();
+        payload.writeVarInt(value);
+        return payload;
+    }
+
+    private static byte[] frame(int type, int value) {
+        WireWriter frame = new WireWriter();
+        WireProtocol.encodeFrame(type, payload(value), frame);
+        return frame.toByteArray();
+    }
+
+    @Nested
+    @DisplayName("Loopback Tests")
+    class LoopbackTests {
+
+        @Test
+        @Timeout(value = 5, unit = TimeUnit.SECONDS)
+        @DisplayName("First reliable frame should open a connection and frames should flow both ways")
+        void framesShouldFlowBothWays() throws Exception {
+            start(null, null);
+
+            client.sendReliable(WireProtocol.MSG_JOIN, payload(7));
+            ServerConnection connection = connected.take();
+            assertEquals(7, serverFrames.take());
+
+            connection.send(frame(WireProtocol.MSG_PLAYER_NUMBER, 3));
+            int[] received = clientFrames.take();
+            assertEquals(WireProtocol.MSG_PLAYER_NUMBER, received[0]);
+            assertEquals(3, received[1]);
+
+            connection.sendSnapshot(frame(WireProtocol.MSG_GAME_STATE, 99));
+            received = clientFrames.take();
+            assertEquals(WireProtocol.MSG_GAME_STATE, received[0]);
+            assertEquals(99, received[1]);
+        }
+
+        @Test
+        @Timeout(value = 5, unit = TimeUnit.SECONDS)
+        @DisplayName("Unreliable datagrams from an unknown address should not open a connection")
+        void strayInputShouldBeIgnored() throws Exception {
+            start(null, null);
+
+            client.sendInput(WireProtocol.MSG_PLAYER_INPUT, payload(1));
+
+            assertNull(connected.poll(200, TimeUnit.MILLISECONDS));
+            assertTrue(serverFrames.isEmpty());
+        }
+
+        @Test
+        @Timeout(value = 5, unit = TimeUnit.SECONDS)
+        @DisplayName("Input datagrams should repeat the previous inputs")
+        void inputsShouldBeRedundant() throws Exception {
+            start(null, null);
+            client.sendReliable(WireProtocol.MSG_JOIN, payload(0));
+            connected.take();
+            assertEquals(0, serverFrames.take());
+
+            client.sendInput(WireProtocol.MSG_PLAYER_INPUT, payload(1));
+            assertEquals(1, serverFrames.take());
+            client.sendInput(WireProtocol.MSG_PLAYER_INPUT, payload(2));
+            assertEquals(1, serverFrames.take());
+            assertEquals(2, serverFrames.take());
+        }
+
+        @Test
+        @Timeout(value = 5, unit = TimeUnit.SECONDS)
+        @DisplayName("Client close should be reported as a clean disconnect")
+        void closeShouldDisconnectCleanly() throws Exception {
+            start(null, null);
+            client.sendReliable(WireProtocol.MSG_JOIN, payload(0));
+            ServerConnection connection = connected.take();
+
+            client.close();
+
+            assertTrue(disconnects.take());
+            while (connection.isOpen()) {
+                Thread.sleep(10);
+            }
+        }
+
+        @Test
+        @Timeout(value = 5, unit = TimeUnit.SECONDS)
+        @DisplayName("Listener failure should drop only that peer")
+        void listenerFailureShouldDropOnlyThatPeer() throws Exception {
+            start(null, null);
+            UdpClient bad = new UdpClient(new InetSocketAddress("localhost", transport.getLocalPort()),
+                (type, payload) -> { }, null);
+            bad.connect();
+            try {
+                client.sendReliable(WireProtocol.MSG_JOIN, payload(1));
+                connected.take();
+                assertEquals(1, serverFrames.take());
+
+                bad.sendReliable(WireProtocol.MSG_JOIN, payload(FAILING_VALUE));
+                ServerConnection badConnection = connected.take();
+                assertFalse(disconnects.take());
+                while (badConnection.isOpen()) {
+                    Thread.sleep(10);
+                }
+
+                client.sendReliable(WireProtocol.MSG_PLAYER_INPUT, payload(2));
+                assertEquals(2, serverFrames.take());
+            } finally {
+                bad.close();
+            }
+        }
+
+        @Test
+        @Timeout(value = 5, unit = TimeUnit.SECONDS)
+        @DisplayName("Snapshot over the agreed packet size should arrive as datagrams within it")
+        void largeSnapshotShouldBeSplit() throws Exception {
+            start(null, null);
+            BlockingQueue<Integer> sizes = new LinkedBlockingQueue<>();
+            FrameSplitter fragments = new FrameSplitter();
+            UdpClient small = new UdpClient(new InetSocketAddress("localhost", transport.getLocalPort()),
+                (type, payload) -> {
+                    assertEquals(WireProtocol.MSG_FRAGMENT, type);
+                    sizes.add(WireProtocol.frameSize(payload.remaining()));
+                    if (fragments.add(payload) == WireProtocol.MSG_GAME_STATE) {
+                        clientFrames.add(new int[]{fragments.reader().readVarInt(), fragments.reader().remaining()});
+                    }
+                }, null);
+            small.connect();
+            try {
+                small.sendReliable(WireProtocol.MSG_JOIN, payload(0));
+                ServerConnection connection = connected.take();
+                connection.setMaxPacketSize(UdpPacket.SAFE_DATAGRAM_SIZE);
+                WireWriter payload = payload(5);
+                payload.writeBytes(new byte[4000], 0, 4000);
+                WireWriter large = new WireWriter();
+                WireProtocol.encodeFrame(WireProtocol.MSG_GAME_STATE, payload, large);
+                connection.sendSnapshot(large.toByteArray());
+
+                assertArrayEquals(new int[]{5, 4000}, clientFrames.take());
+                assertTrue(sizes.size() > 3);
+                for (int size : sizes) {
+                    assertTrue(1 + size <= UdpPacket.SAFE_DATAGRAM_SIZE, "datagram of " + (1 + size) + " bytes");
+                }
+            } finally {
+                small.close();
+            }
+        }
+
+        @Test
+        @Timeout(value = 5, unit = TimeUnit.SECONDS)
+        @DisplayName("Server close should tell the client")
+        void serverCloseShouldReachClient() throws Exception {
+            start(null, null);
+            client.sendReliable(WireProtocol.MSG_JOIN, payload(0));
+            connected.take().close();
+
+            while (client.isOpen()) {
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Lossy Link Tests")
+    class LossyLinkTests {
+
+        @Test
+        @Timeout(value = 20, unit = TimeUnit.SECONDS)
+        @DisplayName("Reliable frames should arrive once and in order despite loss and jitter")
+        void reliableShouldSurviveLoss() throws Exception {
+            PacketSimulator serverLink = new PacketSimulator(0.3, 20, 30, 1);
+            PacketSimulator clientLink = new PacketSimulator(0.3, 20, 30, 2);
+            start(serverLink, clientLink);
+
+            int count = 100;
+            for (int i = 0; i < count; i++) {
+                client.sendReliable(WireProtocol.MSG_PLAYER_INPUT, payload(i));
+            }
+            ServerConnection connection = connected.take();
+            for (int i = 0; i < count; i++) {
+                connection.send(frame(WireProtocol.MSG_PLAYER_NUMBER, i));
+            }
+
+            for (int i = 0; i < count; i++) {
+                assertEquals(i, serverFrames.take());
+            }
+            List<Integer> received = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                received.add(clientFrames.take()[1]);
+            }
+            for (int i = 0; i < count; i++) {
+                assertEquals(i, received.get(i));
+            }
+            assertTrue(serverLink.getDropped() > 0);
+            assertTrue(clientLink.getDropped() > 0);
+
+            // Everything acknowledged eventually
+            while (connection.getQueuedFrames() > 0) {
+                Thread.sleep(10);
+            }
+            assertNull(serverFrames.poll(100, TimeUnit.MILLISECONDS));
+        }
+
+        @Test
+        @Timeout(value = 5, unit = TimeUnit.SECONDS)
+        @DisplayName("Latency simulator should delay delivery")
+        void latencyShouldDelay() throws Exception {
+            start(null, new PacketSimulator(0, 100, 0, 3));
+
+            long start = System.nanoTime();
+            client.sendReliable(WireProtocol.MSG_JOIN, payload(5));
+            assertEquals(5, serverFrames.take());
+
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+        }
+    }
+}